@@ -0,0 +1,61 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.client;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends signals buffering them per workflow id. Buffered signals to the same workflow are delivered
+ * in a single signal call and handled by the workflow in the order they were sent, as if each of
+ * them was delivered separately.
+ *
+ * <p>Batches are unpacked by the workflow worker, so workers must be upgraded to a version that
+ * supports batches before producers start using this client.
+ *
+ * <p>Signals are sent directly through the service client. {@link WorkflowClientInterceptor}s
+ * configured in {@link WorkflowClientOptions} are not applied to them, as they intercept workflow
+ * stubs and would only see the batch envelope.
+ *
+ * <p>Created through {@link WorkflowClient#newBatchingSignalClient(BatchingSignalClientOptions)}.
+ */
+public interface BatchingSignalClient extends AutoCloseable {
+
+  /**
+   * Buffers a signal to the current run of the workflow.
+   *
+   * @param workflowId id of the workflow to signal
+   * @param signalName name of the signal
+   * @param args signal arguments
+   * @return future that completes when the batch containing the signal is accepted by the service
+   *     or fails with {@link WorkflowNotFoundException} or {@link WorkflowServiceException}
+   */
+  CompletableFuture<Void> signal(String workflowId, String signalName, Object... args);
+
+  /**
+   * Sends all buffered signals without waiting for the end of their batching window.
+   *
+   * @return future that completes when all the signals buffered before the call are delivered
+   */
+  CompletableFuture<Void> flush();
+
+  /** Flushes buffered signals and stops accepting new ones. */
+  @Override
+  void close();
+}
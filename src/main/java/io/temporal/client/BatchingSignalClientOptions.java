@@ -0,0 +1,126 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.client;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/** Options of {@link BatchingSignalClient}. */
+public final class BatchingSignalClientOptions {
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public static BatchingSignalClientOptions getDefaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  private static final BatchingSignalClientOptions DEFAULT_INSTANCE;
+
+  static {
+    DEFAULT_INSTANCE = BatchingSignalClientOptions.newBuilder().build();
+  }
+
+  public static final class Builder {
+
+    private int maxBatchSize = 100;
+    private int maxBatchBytes = 512 * 1024;
+    private Duration maxBatchDelay = Duration.ofMillis(100);
+
+    private Builder() {}
+
+    /**
+     * Maximum number of signals delivered in a single call. A batch is sent as soon as it reaches
+     * this size. Default is 100.
+     */
+    public Builder setMaxBatchSize(int maxBatchSize) {
+      if (maxBatchSize <= 0) {
+        throw new IllegalArgumentException("Invalid maxBatchSize: " + maxBatchSize);
+      }
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * Maximum total size in bytes of the signal names and encoded arguments delivered in a single
+     * call. A batch is sent as soon as it reaches this size. A signal larger than the limit is sent
+     * alone. Keeps batches below the payload size limit of the service. Default is 512KB.
+     */
+    public Builder setMaxBatchBytes(int maxBatchBytes) {
+      if (maxBatchBytes <= 0) {
+        throw new IllegalArgumentException("Invalid maxBatchBytes: " + maxBatchBytes);
+      }
+      this.maxBatchBytes = maxBatchBytes;
+      return this;
+    }
+
+    /**
+     * Maximum time a signal waits in the buffer for other signals to the same workflow. Default is
+     * 100 milliseconds.
+     */
+    public Builder setMaxBatchDelay(Duration maxBatchDelay) {
+      Objects.requireNonNull(maxBatchDelay);
+      if (maxBatchDelay.isNegative()) {
+        throw new IllegalArgumentException("Invalid maxBatchDelay: " + maxBatchDelay);
+      }
+      this.maxBatchDelay = maxBatchDelay;
+      return this;
+    }
+
+    public BatchingSignalClientOptions build() {
+      return new BatchingSignalClientOptions(maxBatchSize, maxBatchBytes, maxBatchDelay);
+    }
+  }
+
+  private final int maxBatchSize;
+  private final int maxBatchBytes;
+  private final Duration maxBatchDelay;
+
+  private BatchingSignalClientOptions(int maxBatchSize, int maxBatchBytes, Duration maxBatchDelay) {
+    this.maxBatchSize = maxBatchSize;
+    this.maxBatchBytes = maxBatchBytes;
+    this.maxBatchDelay = maxBatchDelay;
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public int getMaxBatchBytes() {
+    return maxBatchBytes;
+  }
+
+  public Duration getMaxBatchDelay() {
+    return maxBatchDelay;
+  }
+
+  @Override
+  public String toString() {
+    return "BatchingSignalClientOptions{"
+        + "maxBatchSize="
+        + maxBatchSize
+        + ", maxBatchBytes="
+        + maxBatchBytes
+        + ", maxBatchDelay="
+        + maxBatchDelay
+        + '}';
+  }
+}
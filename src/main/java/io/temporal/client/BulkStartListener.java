@@ -0,0 +1,39 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.client;
+
+import io.temporal.proto.execution.WorkflowExecution;
+
+/**
+ * Receives per request results of {@link WorkflowClient#startBulk}. Called concurrently from the
+ * threads of {@link BulkStartOptions#getExecutor()}.
+ */
+public interface BulkStartListener {
+
+  void onStarted(BulkStartRequest request, WorkflowExecution execution);
+
+  /**
+   * Called when the workflow couldn't be started.
+   *
+   * @param failure {@link DuplicateWorkflowException} if a workflow with the same id is already
+   *     running or the exception the failed start call has thrown
+   */
+  void onFailure(BulkStartRequest request, Throwable failure);
+}
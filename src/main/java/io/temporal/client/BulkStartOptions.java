@@ -0,0 +1,103 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.client;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/** Options of {@link WorkflowClient#startBulk}. */
+public final class BulkStartOptions {
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public static BulkStartOptions getDefaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  private static final BulkStartOptions DEFAULT_INSTANCE;
+
+  static {
+    DEFAULT_INSTANCE = BulkStartOptions.newBuilder().build();
+  }
+
+  public static final class Builder {
+
+    private int maxConcurrentStarts = 100;
+    private Executor executor = ForkJoinPool.commonPool();
+
+    private Builder() {}
+
+    /**
+     * Maximum number of start requests in flight. The next request is taken from the source as soon
+     * as one of them completes. Default is 100.
+     */
+    public Builder setMaxConcurrentStarts(int maxConcurrentStarts) {
+      if (maxConcurrentStarts <= 0) {
+        throw new IllegalArgumentException("Invalid maxConcurrentStarts: " + maxConcurrentStarts);
+      }
+      this.maxConcurrentStarts = maxConcurrentStarts;
+      return this;
+    }
+
+    /**
+     * Executor that serializes workflow arguments and issues start calls. It also pulls requests
+     * from the iterator and calls the listener, so neither blocks gRPC threads. Requests are
+     * serialized in parallel up to the parallelism of the executor. It must not run tasks in the
+     * calling thread. Default is {@link ForkJoinPool#commonPool()}.
+     */
+    public Builder setExecutor(Executor executor) {
+      this.executor = Objects.requireNonNull(executor);
+      return this;
+    }
+
+    public BulkStartOptions build() {
+      return new BulkStartOptions(maxConcurrentStarts, executor);
+    }
+  }
+
+  private final int maxConcurrentStarts;
+  private final Executor executor;
+
+  private BulkStartOptions(int maxConcurrentStarts, Executor executor) {
+    this.maxConcurrentStarts = maxConcurrentStarts;
+    this.executor = executor;
+  }
+
+  public int getMaxConcurrentStarts() {
+    return maxConcurrentStarts;
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkStartOptions{"
+        + "maxConcurrentStarts="
+        + maxConcurrentStarts
+        + ", executor="
+        + executor
+        + '}';
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.client;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/** Single workflow to start through {@link WorkflowClient#startBulk}. */
+public final class BulkStartRequest {
+
+  /**
+   * Creates a request to start a workflow through an existing stub.
+   *
+   * @param stub not yet started stub. Use {@link WorkflowStub#fromTyped(Object)} to get it for a
+   *     typed stub created through {@link WorkflowClient#newWorkflowStub(Class, WorkflowOptions)}.
+   * @param args workflow arguments
+   */
+  public static BulkStartRequest newRequest(WorkflowStub stub, Object... args) {
+    return new BulkStartRequest(Objects.requireNonNull(stub), null, null, args);
+  }
+
+  /**
+   * Creates a request to start a workflow of the given type. The stub is created only when the
+   * request is started.
+   *
+   * @param workflowType name of the workflow type
+   * @param options options of the workflow
+   * @param args workflow arguments
+   */
+  public static BulkStartRequest newRequest(
+      String workflowType, WorkflowOptions options, Object... args) {
+    return new BulkStartRequest(
+        null, Objects.requireNonNull(workflowType), Objects.requireNonNull(options), args);
+  }
+
+  private final WorkflowStub stub;
+  private final String workflowType;
+  private final WorkflowOptions options;
+  private final Object[] args;
+
+  private BulkStartRequest(
+      WorkflowStub stub, String workflowType, WorkflowOptions options, Object[] args) {
+    this.stub = stub;
+    this.workflowType = workflowType;
+    this.options = options;
+    this.args = args;
+  }
+
+  /** Stub the request was created with. Empty if created from a workflow type and options. */
+  public Optional<WorkflowStub> getStub() {
+    return Optional.ofNullable(stub);
+  }
+
+  public Optional<String> getWorkflowType() {
+    return stub == null ? Optional.of(workflowType) : stub.getWorkflowType();
+  }
+
+  public Optional<WorkflowOptions> getOptions() {
+    return stub == null ? Optional.of(options) : stub.getOptions();
+  }
+
+  public Object[] getArgs() {
+    return args;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkStartRequest{"
+        + "workflowType="
+        + getWorkflowType()
+        + ", options="
+        + getOptions()
+        + ", args="
+        + Arrays.toString(args)
+        + '}';
+  }
+}
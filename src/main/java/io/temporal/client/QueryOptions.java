@@ -0,0 +1,188 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.client;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Controls how workflow queries issued through a {@link WorkflowClient} are sent to the service.
+ *
+ * <p>By default a query has no deadline of its own and is retried for up to a minute. Latency
+ * sensitive callers can bound the whole call with {@link Builder#setTimeout(Duration)}, which is
+ * propagated to the service as the gRPC deadline, and enable hedging to send a second identical
+ * query when the first one is slower than the usually observed latency.
+ */
+public final class QueryOptions {
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public static Builder newBuilder(QueryOptions options) {
+    return new Builder(options);
+  }
+
+  public static QueryOptions getDefaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  private static final QueryOptions DEFAULT_INSTANCE;
+
+  static {
+    DEFAULT_INSTANCE = QueryOptions.newBuilder().build();
+  }
+
+  public static final class Builder {
+
+    private Duration timeout;
+    private boolean hedgingEnabled;
+    private Duration initialHedgeDelay = Duration.ofMillis(100);
+    private double hedgeDelayPercentile = 0.95;
+
+    private Builder() {}
+
+    private Builder(QueryOptions options) {
+      if (options == null) {
+        return;
+      }
+      timeout = options.timeout;
+      hedgingEnabled = options.hedgingEnabled;
+      initialHedgeDelay = options.initialHedgeDelay;
+      hedgeDelayPercentile = options.hedgeDelayPercentile;
+    }
+
+    /**
+     * End-to-end timeout of a query including all retries. It is sent to the service as the call
+     * deadline so the server stops working on a query nobody waits for. Default is no timeout
+     * besides the standard retry expiration.
+     */
+    public Builder setTimeout(Duration timeout) {
+      if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+        throw new IllegalArgumentException("Invalid timeout: " + timeout);
+      }
+      this.timeout = timeout;
+      return this;
+    }
+
+    /**
+     * When enabled a second identical query is sent if the first one hasn't completed within the
+     * hedge delay. The first successful response wins. Queries are read only, so it is safe to
+     * duplicate them, but it increases the service load by the fraction of hedged queries. Default
+     * is false.
+     */
+    public Builder setHedgingEnabled(boolean hedgingEnabled) {
+      this.hedgingEnabled = hedgingEnabled;
+      return this;
+    }
+
+    /**
+     * Hedge delay used until enough query latencies were observed to compute the {@link
+     * #setHedgeDelayPercentile(double)} percentile. Default is 100 milliseconds.
+     */
+    public Builder setInitialHedgeDelay(Duration initialHedgeDelay) {
+      Objects.requireNonNull(initialHedgeDelay);
+      if (initialHedgeDelay.isNegative()) {
+        throw new IllegalArgumentException("Invalid initialHedgeDelay: " + initialHedgeDelay);
+      }
+      this.initialHedgeDelay = initialHedgeDelay;
+      return this;
+    }
+
+    /**
+     * Percentile of the recently observed query latencies used as the hedge delay. Default is 0.95
+     * which hedges about 5% of queries.
+     */
+    public Builder setHedgeDelayPercentile(double hedgeDelayPercentile) {
+      if (hedgeDelayPercentile <= 0 || hedgeDelayPercentile >= 1) {
+        throw new IllegalArgumentException("Invalid hedgeDelayPercentile: " + hedgeDelayPercentile);
+      }
+      this.hedgeDelayPercentile = hedgeDelayPercentile;
+      return this;
+    }
+
+    public QueryOptions build() {
+      return new QueryOptions(timeout, hedgingEnabled, initialHedgeDelay, hedgeDelayPercentile);
+    }
+  }
+
+  private final Duration timeout;
+  private final boolean hedgingEnabled;
+  private final Duration initialHedgeDelay;
+  private final double hedgeDelayPercentile;
+
+  private QueryOptions(
+      Duration timeout,
+      boolean hedgingEnabled,
+      Duration initialHedgeDelay,
+      double hedgeDelayPercentile) {
+    this.timeout = timeout;
+    this.hedgingEnabled = hedgingEnabled;
+    this.initialHedgeDelay = initialHedgeDelay;
+    this.hedgeDelayPercentile = hedgeDelayPercentile;
+  }
+
+  /** @return query timeout or null if not set */
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public boolean isHedgingEnabled() {
+    return hedgingEnabled;
+  }
+
+  public Duration getInitialHedgeDelay() {
+    return initialHedgeDelay;
+  }
+
+  public double getHedgeDelayPercentile() {
+    return hedgeDelayPercentile;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryOptions{"
+        + "timeout="
+        + timeout
+        + ", hedgingEnabled="
+        + hedgingEnabled
+        + ", initialHedgeDelay="
+        + initialHedgeDelay
+        + ", hedgeDelayPercentile="
+        + hedgeDelayPercentile
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    QueryOptions that = (QueryOptions) o;
+    return hedgingEnabled == that.hedgingEnabled
+        && Double.compare(that.hedgeDelayPercentile, hedgeDelayPercentile) == 0
+        && Objects.equals(timeout, that.timeout)
+        && Objects.equals(initialHedgeDelay, that.initialHedgeDelay);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(timeout, hedgingEnabled, initialHedgeDelay, hedgeDelayPercentile);
+  }
+}
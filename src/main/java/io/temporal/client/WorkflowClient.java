@@ -34,6 +34,7 @@ import io.temporal.workflow.Functions.Proc4;
 import io.temporal.workflow.Functions.Proc5;
 import io.temporal.workflow.Functions.Proc6;
 import io.temporal.workflow.WorkflowMethod;
+import java.util.Iterator;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -220,6 +221,13 @@ public interface WorkflowClient {
    */
   ActivityCompletionClient newActivityCompletionClient();
 
+  /**
+   * Creates client that buffers signals per workflow and delivers them in batches. Reduces the
+   * number of service calls for producers that send many signals to the same workflows. The signals
+   * bypass the {@link WorkflowClientInterceptor}s of this client.
+   */
+  BatchingSignalClient newBatchingSignalClient(BatchingSignalClientOptions options);
+
   /**
    * Creates BatchRequest that can be used to signal an existing workflow or start a new one if not
    * running. The batch before invocation must contain exactly two operations. One annotated
@@ -237,6 +245,23 @@ public interface WorkflowClient {
    */
   WorkflowExecution signalWithStart(BatchRequest signalWithStartBatch);
 
+  /**
+   * Starts workflows taken from the requests iterator, keeping up to {@link
+   * BulkStartOptions#getMaxConcurrentStarts()} start calls in flight. Workflow arguments are
+   * serialized in parallel on {@link BulkStartOptions#getExecutor()}. Doesn't block the calling
+   * thread.
+   *
+   * <p>The outcome of each request, including {@link DuplicateWorkflowException}, is reported to
+   * the listener. A failed request doesn't stop the rest.
+   *
+   * @param requests source of the workflows to start. Consumed lazily, so it can be backed by a
+   *     stream that doesn't fit into memory.
+   * @return future that completes when all the requests are completed and reported to the listener.
+   *     Fails only if the requests iterator throws.
+   */
+  CompletableFuture<Void> startBulk(
+      Iterator<BulkStartRequest> requests, BulkStartOptions options, BulkStartListener listener);
+
   WorkflowServiceStubs getWorkflowServiceStubs();
 
   /**
@@ -35,6 +35,9 @@ public final class WorkflowClientOptions {
 
   private static final WorkflowClientOptions DEFAULT_INSTANCE;
   private static final String DEFAULT_NAMESPACE = "default";
+  private static final int DEFAULT_MAX_CONCURRENT_RESULT_POLLS = 1000;
+  private static final int DEFAULT_MAX_RETRY_BURST = 100;
+  private static final double DEFAULT_RETRIES_PER_SUCCESS = 0.1;
 
   static {
     DEFAULT_INSTANCE = newBuilder().build();
@@ -61,6 +64,12 @@ public final class WorkflowClientOptions {
     private String identity;
     private List<ContextPropagator> contextPropagators;
     private QueryRejectCondition queryRejectCondition;
+    private int maxConcurrentResultPolls;
+    private QueryOptions queryOptions;
+    private int closedWorkflowCacheSize;
+    private boolean retryBudgetDisabled;
+    private int maxRetryBurst;
+    private double retriesPerSuccess;
 
     private Builder() {}
 
@@ -75,6 +84,12 @@ public final class WorkflowClientOptions {
       identity = options.identity;
       contextPropagators = options.contextPropagators;
       queryRejectCondition = options.queryRejectCondition;
+      maxConcurrentResultPolls = options.maxConcurrentResultPolls;
+      queryOptions = options.queryOptions;
+      closedWorkflowCacheSize = options.closedWorkflowCacheSize;
+      retryBudgetDisabled = options.retryBudgetDisabled;
+      maxRetryBurst = options.maxRetryBurst;
+      retriesPerSuccess = options.retriesPerSuccess;
     }
 
     public Builder setNamespace(String namespace) {
@@ -142,6 +157,83 @@ public final class WorkflowClientOptions {
       return this;
     }
 
+    /**
+     * Maximum number of concurrent long polls used to wait for workflow results returned by {@link
+     * WorkflowStub#getResultAsync(Class)}. Callers waiting for the same workflow share a poll. When
+     * more workflows are awaited the rest wait for a free poll.
+     *
+     * <p>Default is 1000.
+     */
+    public Builder setMaxConcurrentResultPolls(int maxConcurrentResultPolls) {
+      if (maxConcurrentResultPolls <= 0) {
+        throw new IllegalArgumentException(
+            "Invalid maxConcurrentResultPolls: " + maxConcurrentResultPolls);
+      }
+      this.maxConcurrentResultPolls = maxConcurrentResultPolls;
+      return this;
+    }
+
+    /**
+     * Deadline and hedging of queries sent through {@link WorkflowStub#query(String, Class,
+     * Object...)} and typed workflow stubs.
+     *
+     * <p>Default is {@link QueryOptions#getDefaultInstance()} which sets no deadline and no
+     * hedging.
+     */
+    public Builder setQueryOptions(QueryOptions queryOptions) {
+      this.queryOptions = Objects.requireNonNull(queryOptions);
+      return this;
+    }
+
+    /**
+     * Maximum number of closed workflow executions whose close event and description are kept by
+     * the client. Repeated {@link WorkflowStub#getResult(Class)} calls for a cached execution don't
+     * call the service. Only executions with a known run id are cached, as a workflow id alone can
+     * refer to a new run later. Least recently used entries are evicted first.
+     *
+     * <p>Default is 0 which disables the cache.
+     */
+    public Builder setClosedWorkflowCacheSize(int closedWorkflowCacheSize) {
+      if (closedWorkflowCacheSize < 0) {
+        throw new IllegalArgumentException(
+            "Invalid closedWorkflowCacheSize: " + closedWorkflowCacheSize);
+      }
+      this.closedWorkflowCacheSize = closedWorkflowCacheSize;
+      return this;
+    }
+
+    /**
+     * The client limits retries of its service calls to a fraction of its successful calls. Each
+     * client has its own budget. During an outage the budget runs out after a burst of retries, so
+     * the client stops multiplying the load of the struggling service. Calls made by workers to
+     * report task results are not limited. Default is true.
+     */
+    public Builder setRetryBudgetEnabled(boolean retryBudgetEnabled) {
+      this.retryBudgetDisabled = !retryBudgetEnabled;
+      return this;
+    }
+
+    /** Number of retries the retry budget allows in a burst. Default is 100. */
+    public Builder setMaxRetryBurst(int maxRetryBurst) {
+      if (maxRetryBurst <= 0) {
+        throw new IllegalArgumentException("Invalid maxRetryBurst: " + maxRetryBurst);
+      }
+      this.maxRetryBurst = maxRetryBurst;
+      return this;
+    }
+
+    /**
+     * Long term ratio of retries to successful calls allowed by the retry budget. Default is 0.1,
+     * which is one retry per ten successful calls.
+     */
+    public Builder setRetriesPerSuccess(double retriesPerSuccess) {
+      if (retriesPerSuccess <= 0) {
+        throw new IllegalArgumentException("Invalid retriesPerSuccess: " + retriesPerSuccess);
+      }
+      this.retriesPerSuccess = retriesPerSuccess;
+      return this;
+    }
+
     public WorkflowClientOptions build() {
       return new WorkflowClientOptions(
           namespace,
@@ -150,7 +242,13 @@ public final class WorkflowClientOptions {
           metricsScope,
           identity,
           contextPropagators,
-          queryRejectCondition);
+          queryRejectCondition,
+          maxConcurrentResultPolls,
+          queryOptions,
+          closedWorkflowCacheSize,
+          retryBudgetDisabled,
+          maxRetryBurst,
+          retriesPerSuccess);
     }
 
     public WorkflowClientOptions validateAndBuildWithDefaults() {
@@ -175,7 +273,15 @@ public final class WorkflowClientOptions {
           metricsScope == null ? NoopScope.getInstance() : metricsScope,
           name,
           contextPropagators == null ? EMPTY_CONTEXT_PROPAGATORS : contextPropagators,
-          queryRejectCondition == null ? QueryRejectCondition.None : queryRejectCondition);
+          queryRejectCondition == null ? QueryRejectCondition.None : queryRejectCondition,
+          maxConcurrentResultPolls == 0
+              ? DEFAULT_MAX_CONCURRENT_RESULT_POLLS
+              : maxConcurrentResultPolls,
+          queryOptions == null ? QueryOptions.getDefaultInstance() : queryOptions,
+          closedWorkflowCacheSize,
+          retryBudgetDisabled,
+          maxRetryBurst == 0 ? DEFAULT_MAX_RETRY_BURST : maxRetryBurst,
+          retriesPerSuccess == 0 ? DEFAULT_RETRIES_PER_SUCCESS : retriesPerSuccess);
     }
   }
 
@@ -198,6 +304,18 @@ public final class WorkflowClientOptions {
 
   private final QueryRejectCondition queryRejectCondition;
 
+  private final int maxConcurrentResultPolls;
+
+  private final QueryOptions queryOptions;
+
+  private final int closedWorkflowCacheSize;
+
+  private final boolean retryBudgetDisabled;
+
+  private final int maxRetryBurst;
+
+  private final double retriesPerSuccess;
+
   private WorkflowClientOptions(
       String namespace,
       DataConverter dataConverter,
@@ -205,7 +323,13 @@ public final class WorkflowClientOptions {
       Scope metricsScope,
       String identity,
       List<ContextPropagator> contextPropagators,
-      QueryRejectCondition queryRejectCondition) {
+      QueryRejectCondition queryRejectCondition,
+      int maxConcurrentResultPolls,
+      QueryOptions queryOptions,
+      int closedWorkflowCacheSize,
+      boolean retryBudgetDisabled,
+      int maxRetryBurst,
+      double retriesPerSuccess) {
     this.namespace = namespace;
     this.dataConverter = dataConverter;
     this.interceptors = interceptors;
@@ -213,6 +337,12 @@ public final class WorkflowClientOptions {
     this.identity = identity;
     this.contextPropagators = contextPropagators;
     this.queryRejectCondition = queryRejectCondition;
+    this.maxConcurrentResultPolls = maxConcurrentResultPolls;
+    this.queryOptions = queryOptions;
+    this.closedWorkflowCacheSize = closedWorkflowCacheSize;
+    this.retryBudgetDisabled = retryBudgetDisabled;
+    this.maxRetryBurst = maxRetryBurst;
+    this.retriesPerSuccess = retriesPerSuccess;
   }
 
   public String getNamespace() {
@@ -243,6 +373,30 @@ public final class WorkflowClientOptions {
     return queryRejectCondition;
   }
 
+  public int getMaxConcurrentResultPolls() {
+    return maxConcurrentResultPolls;
+  }
+
+  public QueryOptions getQueryOptions() {
+    return queryOptions;
+  }
+
+  public int getClosedWorkflowCacheSize() {
+    return closedWorkflowCacheSize;
+  }
+
+  public boolean isRetryBudgetEnabled() {
+    return !retryBudgetDisabled;
+  }
+
+  public int getMaxRetryBurst() {
+    return maxRetryBurst;
+  }
+
+  public double getRetriesPerSuccess() {
+    return retriesPerSuccess;
+  }
+
   @Override
   public String toString() {
     return "WorkflowClientOptions{"
@@ -262,6 +416,18 @@ public final class WorkflowClientOptions {
         + contextPropagators
         + ", queryRejectCondition="
         + queryRejectCondition
+        + ", maxConcurrentResultPolls="
+        + maxConcurrentResultPolls
+        + ", queryOptions="
+        + queryOptions
+        + ", closedWorkflowCacheSize="
+        + closedWorkflowCacheSize
+        + ", retryBudgetEnabled="
+        + !retryBudgetDisabled
+        + ", maxRetryBurst="
+        + maxRetryBurst
+        + ", retriesPerSuccess="
+        + retriesPerSuccess
         + '}';
   }
 
@@ -276,7 +442,13 @@ public final class WorkflowClientOptions {
         && com.google.common.base.Objects.equal(metricsScope, that.metricsScope)
         && com.google.common.base.Objects.equal(identity, that.identity)
         && com.google.common.base.Objects.equal(contextPropagators, that.contextPropagators)
-        && queryRejectCondition == that.queryRejectCondition;
+        && queryRejectCondition == that.queryRejectCondition
+        && maxConcurrentResultPolls == that.maxConcurrentResultPolls
+        && com.google.common.base.Objects.equal(queryOptions, that.queryOptions)
+        && closedWorkflowCacheSize == that.closedWorkflowCacheSize
+        && retryBudgetDisabled == that.retryBudgetDisabled
+        && maxRetryBurst == that.maxRetryBurst
+        && Double.compare(retriesPerSuccess, that.retriesPerSuccess) == 0;
   }
 
   @Override
@@ -288,6 +460,12 @@ public final class WorkflowClientOptions {
         metricsScope,
         identity,
         contextPropagators,
-        queryRejectCondition);
+        queryRejectCondition,
+        maxConcurrentResultPolls,
+        queryOptions,
+        closedWorkflowCacheSize,
+        retryBudgetDisabled,
+        maxRetryBurst,
+        retriesPerSuccess);
   }
 }
@@ -21,6 +21,7 @@ package io.temporal.client;
 
 import io.temporal.internal.sync.StubMarker;
 import io.temporal.proto.execution.WorkflowExecution;
+import io.temporal.proto.execution.WorkflowExecutionInfo;
 import io.temporal.proto.query.QueryRejectCondition;
 import java.lang.reflect.Type;
 import java.util.Optional;
@@ -56,10 +57,36 @@ public interface WorkflowStub {
 
   void signal(String signalName, Object... args);
 
+  /**
+   * Asynchronous version of {@link #signal(String, Object...)}. Doesn't block the calling thread
+   * while the signal request is in flight.
+   *
+   * @return future that completes when the service accepted the signal or fails with {@link
+   *     WorkflowNotFoundException} or {@link WorkflowServiceException}
+   */
+  CompletableFuture<Void> signalAsync(String signalName, Object... args);
+
   WorkflowExecution start(Object... args);
 
+  /**
+   * Asynchronous version of {@link #start(Object...)}. Doesn't block the calling thread while the
+   * start request is in flight.
+   *
+   * @return future that completes with the started execution or fails with {@link
+   *     DuplicateWorkflowException} if the workflow with the same id is already running
+   */
+  CompletableFuture<WorkflowExecution> startAsync(Object... args);
+
   WorkflowExecution signalWithStart(String signalName, Object[] signalArgs, Object[] startArgs);
 
+  /**
+   * Asynchronous version of {@link #signalWithStart(String, Object[], Object[])}.
+   *
+   * @return future that completes with the signaled execution
+   */
+  CompletableFuture<WorkflowExecution> signalWithStartAsync(
+      String signalName, Object[] signalArgs, Object[] startArgs);
+
   Optional<String> getWorkflowType();
 
   WorkflowExecution getExecution();
@@ -139,8 +166,29 @@ public interface WorkflowStub {
 
   <R> R query(String queryType, Class<R> resultClass, Type resultType, Object... args);
 
+  /**
+   * Asynchronous version of {@link #query(String, Class, Object...)}. The returned future fails
+   * with the same exceptions that the synchronous call throws.
+   */
+  <R> CompletableFuture<R> queryAsync(String queryType, Class<R> resultClass, Object... args);
+
+  <R> CompletableFuture<R> queryAsync(
+      String queryType, Class<R> resultClass, Type resultType, Object... args);
+
   /** Request cancellation. */
   void cancel();
 
+  /** Asynchronous version of {@link #cancel()}. */
+  CompletableFuture<Void> cancelAsync();
+
+  /**
+   * Returns the status, start and close time and other details of the workflow execution. When
+   * {@link WorkflowClientOptions.Builder#setClosedWorkflowCacheSize(int)} enables the cache,
+   * descriptions of closed executions with a known run id are returned without calling the service.
+   *
+   * @throws WorkflowNotFoundException if the execution doesn't exist
+   */
+  WorkflowExecutionInfo describe();
+
   Optional<WorkflowOptions> getOptions();
 }
@@ -0,0 +1,627 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import com.google.common.base.Defaults;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Primitives;
+import com.google.common.reflect.TypeToken;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Encodes registered POJO classes positionally using varints instead of JSON. The schema of a class
+ * is derived from its fields when it is registered. Every encoded value carries the fingerprint of
+ * its schema, so payloads written with a different version of a class are rejected instead of being
+ * silently misread. Classes must not change their fields while histories that contain them can be
+ * replayed.
+ *
+ * <p>Supported field types are primitives and their wrappers, {@link String}, {@code byte[]},
+ * enums, {@link List} of supported types and classes that contain only such fields. Arguments of
+ * other types are encoded by the fallback converter. Payloads without any registered values are
+ * written by the fallback converter as is, and payloads not written by this converter are passed to
+ * it.
+ *
+ * <p>Use it as any other converter through {@link
+ * io.temporal.client.WorkflowClientOptions.Builder#setDataConverter(DataConverter)}.
+ */
+public final class BinaryPojoDataConverter implements DataConverter {
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+
+    private DataConverter fallback = GsonJsonDataConverter.getInstance();
+    private final Map<Class<?>, Schema> schemas = new HashMap<>();
+
+    private Builder() {}
+
+    /** Converter used for the values of unregistered types. Default is JSON. */
+    public Builder setFallbackConverter(DataConverter fallback) {
+      this.fallback = Objects.requireNonNull(fallback);
+      return this;
+    }
+
+    /**
+     * Derives schemas of the classes.
+     *
+     * @throws IllegalArgumentException if a class has a field of unsupported type or doesn't have a
+     *     no argument constructor.
+     */
+    public Builder register(Class<?>... classes) {
+      for (Class<?> type : classes) {
+        schemas.put(type, new SchemaBuilder(type).build());
+      }
+      return this;
+    }
+
+    public BinaryPojoDataConverter build() {
+      return new BinaryPojoDataConverter(this);
+    }
+  }
+
+  private static final byte MARKER = 3;
+  private static final int NULL_VALUE = 0;
+  private static final int SCHEMA_VALUE = 1;
+  private static final int FALLBACK_VALUE = 2;
+
+  private final DataConverter fallback;
+  private final Map<Class<?>, Schema> schemasByClass;
+  private final Map<Long, Schema> schemasByFingerprint;
+
+  private BinaryPojoDataConverter(Builder builder) {
+    this.fallback = builder.fallback;
+    this.schemasByClass = ImmutableMap.copyOf(builder.schemas);
+    Map<Long, Schema> byFingerprint = new HashMap<>();
+    for (Schema schema : schemasByClass.values()) {
+      Schema existing = byFingerprint.put(schema.fingerprint, schema);
+      if (existing != null) {
+        throw new IllegalArgumentException(
+            "Fingerprint collision between " + existing.type + " and " + schema.type);
+      }
+    }
+    this.schemasByFingerprint = ImmutableMap.copyOf(byFingerprint);
+  }
+
+  @Override
+  public byte[] toData(Object... values) throws DataConverterException {
+    if (!hasRegisteredValue(values)) {
+      return fallback.toData(values);
+    }
+    try {
+      ByteArrayOutputStream result = new ByteArrayOutputStream();
+      CodedOutputStream out = CodedOutputStream.newInstance(result);
+      out.writeRawByte(MARKER);
+      out.writeUInt32NoTag(values.length);
+      for (Object value : values) {
+        Schema schema = value == null ? null : schemasByClass.get(value.getClass());
+        if (value == null) {
+          out.writeUInt32NoTag(NULL_VALUE);
+        } else if (schema != null) {
+          out.writeUInt32NoTag(SCHEMA_VALUE);
+          out.writeFixed64NoTag(schema.fingerprint);
+          schema.write(out, value);
+        } else {
+          out.writeUInt32NoTag(FALLBACK_VALUE);
+          out.writeByteArrayNoTag(fallback.toData(value));
+        }
+      }
+      out.flush();
+      return result.toByteArray();
+    } catch (IOException | ReflectiveOperationException | IllegalArgumentException e) {
+      throw new DataConverterException(e);
+    }
+  }
+
+  @Override
+  public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    if (!isEncoded(content)) {
+      return fallback.fromData(content, valueClass, valueType);
+    }
+    Object[] result = fromDataArray(content, valueType);
+    @SuppressWarnings("unchecked")
+    T typed = (T) result[0];
+    return typed;
+  }
+
+  @Override
+  public Object[] fromDataArray(byte[] content, Type... valueTypes) throws DataConverterException {
+    if (!isEncoded(content)) {
+      return fallback.fromDataArray(content, valueTypes);
+    }
+    try {
+      CodedInputStream in = CodedInputStream.newInstance(content, 1, content.length - 1);
+      int count = in.readUInt32();
+      Object[] result = new Object[valueTypes.length];
+      for (int i = 0; i < valueTypes.length; i++) {
+        Class<?> rawType = TypeToken.of(valueTypes[i]).getRawType();
+        if (i >= count) {
+          result[i] = Defaults.defaultValue(rawType);
+          continue;
+        }
+        int kind = in.readUInt32();
+        if (kind == NULL_VALUE) {
+          result[i] = null;
+        } else if (kind == SCHEMA_VALUE) {
+          long fingerprint = in.readFixed64();
+          Schema schema = schemasByFingerprint.get(fingerprint);
+          if (schema == null) {
+            throw new DataConverterException(
+                "Unknown schema fingerprint "
+                    + Long.toHexString(fingerprint)
+                    + " of argument "
+                    + i
+                    + ". Was "
+                    + rawType.getName()
+                    + " changed or not registered?",
+                content,
+                valueTypes);
+          }
+          if (!Primitives.wrap(rawType).isAssignableFrom(schema.type)) {
+            throw new DataConverterException(
+                "Argument "
+                    + i
+                    + " is "
+                    + schema.type.getName()
+                    + " which is not assignable to "
+                    + rawType.getName(),
+                content,
+                valueTypes);
+          }
+          result[i] = schema.read(in);
+        } else if (kind == FALLBACK_VALUE) {
+          result[i] = fallback.fromData(in.readByteArray(), rawType, valueTypes[i]);
+        } else {
+          throw new DataConverterException("Unknown value kind " + kind, content, valueTypes);
+        }
+      }
+      return result;
+    } catch (IOException | ReflectiveOperationException | IllegalArgumentException e) {
+      throw new DataConverterException(content, valueTypes, e);
+    }
+  }
+
+  private boolean hasRegisteredValue(Object[] values) {
+    if (values == null) {
+      return false;
+    }
+    for (Object value : values) {
+      if (value != null && schemasByClass.containsKey(value.getClass())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isEncoded(byte[] content) {
+    return content != null && content.length > 0 && content[0] == MARKER;
+  }
+
+  /** Encoding of a value of a specific type. */
+  private abstract static class ValueCodec {
+
+    /** Canonical description of the encoding that is hashed into schema fingerprints. */
+    final String descriptor;
+
+    ValueCodec(String descriptor) {
+      this.descriptor = descriptor;
+    }
+
+    abstract void write(CodedOutputStream out, Object value)
+        throws IOException, ReflectiveOperationException;
+
+    abstract Object read(CodedInputStream in) throws IOException, ReflectiveOperationException;
+  }
+
+  /** Prefixes values of a reference type with their presence. */
+  private static final class NullableCodec extends ValueCodec {
+
+    private final ValueCodec codec;
+
+    NullableCodec(ValueCodec codec) {
+      super("?" + codec.descriptor);
+      this.codec = codec;
+    }
+
+    @Override
+    void write(CodedOutputStream out, Object value)
+        throws IOException, ReflectiveOperationException {
+      out.writeBoolNoTag(value != null);
+      if (value != null) {
+        codec.write(out, value);
+      }
+    }
+
+    @Override
+    Object read(CodedInputStream in) throws IOException, ReflectiveOperationException {
+      return in.readBool() ? codec.read(in) : null;
+    }
+  }
+
+  private static final class ListCodec extends ValueCodec {
+
+    private final ValueCodec element;
+
+    ListCodec(ValueCodec element) {
+      super("L" + element.descriptor);
+      this.element = element;
+    }
+
+    @Override
+    void write(CodedOutputStream out, Object value)
+        throws IOException, ReflectiveOperationException {
+      List<?> list = (List<?>) value;
+      out.writeUInt32NoTag(list.size());
+      for (Object e : list) {
+        element.write(out, e);
+      }
+    }
+
+    @Override
+    Object read(CodedInputStream in) throws IOException, ReflectiveOperationException {
+      int size = in.readUInt32();
+      List<Object> result = new ArrayList<>(Math.min(size, 1024));
+      for (int i = 0; i < size; i++) {
+        result.add(element.read(in));
+      }
+      return result;
+    }
+  }
+
+  private static final class EnumCodec extends ValueCodec {
+
+    private final Class<?> type;
+
+    EnumCodec(Class<?> type) {
+      super("E" + type.getName());
+      this.type = type;
+    }
+
+    @Override
+    void write(CodedOutputStream out, Object value) throws IOException {
+      out.writeStringNoTag(((Enum<?>) value).name());
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Object read(CodedInputStream in) throws IOException {
+      return Enum.valueOf((Class<? extends Enum>) type, in.readString());
+    }
+  }
+
+  /** Encodes fields of a class in a fixed order. */
+  private static final class Schema extends ValueCodec {
+
+    private final Class<?> type;
+    private final long fingerprint;
+    private final Constructor<?> constructor;
+    private final Field[] fields;
+    private final ValueCodec[] codecs;
+
+    Schema(Class<?> type, String descriptor, Field[] fields, ValueCodec[] codecs)
+        throws NoSuchMethodException {
+      super(descriptor);
+      this.type = type;
+      this.fingerprint = Hashing.sha256().hashString(descriptor, StandardCharsets.UTF_8).asLong();
+      this.constructor = type.getDeclaredConstructor();
+      this.constructor.setAccessible(true);
+      this.fields = fields;
+      this.codecs = codecs;
+    }
+
+    @Override
+    void write(CodedOutputStream out, Object value)
+        throws IOException, ReflectiveOperationException {
+      if (value.getClass() != type) {
+        throw new IllegalArgumentException(
+            "Cannot encode " + value.getClass().getName() + " as " + type.getName());
+      }
+      for (int i = 0; i < fields.length; i++) {
+        codecs[i].write(out, fields[i].get(value));
+      }
+    }
+
+    @Override
+    Object read(CodedInputStream in) throws IOException, ReflectiveOperationException {
+      Object result = constructor.newInstance();
+      for (int i = 0; i < fields.length; i++) {
+        fields[i].set(result, codecs[i].read(in));
+      }
+      return result;
+    }
+  }
+
+  /** Refers to a schema of a class that is still being derived. Used by recursive classes. */
+  private static final class SchemaReference extends ValueCodec {
+
+    private Schema schema;
+
+    SchemaReference(Class<?> type) {
+      super("R" + type.getName());
+    }
+
+    @Override
+    void write(CodedOutputStream out, Object value)
+        throws IOException, ReflectiveOperationException {
+      schema.write(out, value);
+    }
+
+    @Override
+    Object read(CodedInputStream in) throws IOException, ReflectiveOperationException {
+      return schema.read(in);
+    }
+  }
+
+  private static final class SchemaBuilder {
+
+    private final Class<?> root;
+    private final Set<Class<?>> inProgress = new HashSet<>();
+    private final Map<Class<?>, List<SchemaReference>> references = new HashMap<>();
+
+    SchemaBuilder(Class<?> root) {
+      this.root = root;
+    }
+
+    Schema build() {
+      return deriveSchema(root);
+    }
+
+    private Schema deriveSchema(Class<?> type) {
+      if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+        throw new IllegalArgumentException("Not a concrete class: " + type.getName());
+      }
+      inProgress.add(type);
+      // Superclass fields go first. Fields of a class are sorted by name as the order returned
+      // by getDeclaredFields is not specified.
+      Deque<Class<?>> hierarchy = new ArrayDeque<>();
+      for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+        hierarchy.push(c);
+      }
+      List<Field> fields = new ArrayList<>();
+      for (Class<?> c : hierarchy) {
+        List<Field> declared = new ArrayList<>();
+        for (Field field : c.getDeclaredFields()) {
+          int modifiers = field.getModifiers();
+          if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+            continue;
+          }
+          declared.add(field);
+        }
+        declared.sort(Comparator.comparing(Field::getName));
+        fields.addAll(declared);
+      }
+      StringBuilder descriptor = new StringBuilder("O").append(type.getName()).append('{');
+      ValueCodec[] codecs = new ValueCodec[fields.size()];
+      for (int i = 0; i < codecs.length; i++) {
+        Field field = fields.get(i);
+        field.setAccessible(true);
+        try {
+          codecs[i] = codecOf(field.getGenericType());
+        } catch (IllegalArgumentException e) {
+          throw new IllegalArgumentException(
+              "Unsupported field " + type.getName() + "." + field.getName(), e);
+        }
+        descriptor.append(field.getName()).append(':').append(codecs[i].descriptor).append(';');
+      }
+      descriptor.append('}');
+      Schema result;
+      try {
+        result = new Schema(type, descriptor.toString(), fields.toArray(new Field[0]), codecs);
+      } catch (NoSuchMethodException e) {
+        throw new IllegalArgumentException(
+            type.getName() + " doesn't have a no argument constructor", e);
+      }
+      inProgress.remove(type);
+      for (SchemaReference reference : references.getOrDefault(type, new ArrayList<>())) {
+        reference.schema = result;
+      }
+      return result;
+    }
+
+    private ValueCodec codecOf(Type type) {
+      if (type instanceof ParameterizedType) {
+        ParameterizedType parameterized = (ParameterizedType) type;
+        if (parameterized.getRawType() == List.class) {
+          return new NullableCodec(
+              new ListCodec(codecOf(parameterized.getActualTypeArguments()[0])));
+        }
+        throw new IllegalArgumentException("Unsupported type: " + type);
+      }
+      if (!(type instanceof Class)) {
+        throw new IllegalArgumentException("Unsupported type: " + type);
+      }
+      Class<?> cls = (Class<?>) type;
+      ValueCodec primitive = primitiveCodecOf(Primitives.wrap(cls));
+      if (primitive != null) {
+        return cls.isPrimitive() ? primitive : new NullableCodec(primitive);
+      }
+      if (cls.isEnum()) {
+        return new NullableCodec(new EnumCodec(cls));
+      }
+      if (cls.isArray()
+          || cls.isInterface()
+          || cls == Object.class
+          || cls.getName().startsWith("java.")) {
+        throw new IllegalArgumentException("Unsupported type: " + type);
+      }
+      if (inProgress.contains(cls)) {
+        SchemaReference reference = new SchemaReference(cls);
+        references.computeIfAbsent(cls, (c) -> new ArrayList<>()).add(reference);
+        return new NullableCodec(reference);
+      }
+      return new NullableCodec(deriveSchema(cls));
+    }
+  }
+
+  private static ValueCodec primitiveCodecOf(Class<?> type) {
+    if (type == Boolean.class) {
+      return new ValueCodec("Z") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeBoolNoTag((Boolean) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return in.readBool();
+        }
+      };
+    }
+    if (type == Byte.class) {
+      return new ValueCodec("B") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeSInt32NoTag((Byte) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return (byte) in.readSInt32();
+        }
+      };
+    }
+    if (type == Short.class) {
+      return new ValueCodec("S") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeSInt32NoTag((Short) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return (short) in.readSInt32();
+        }
+      };
+    }
+    if (type == Character.class) {
+      return new ValueCodec("C") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeUInt32NoTag((Character) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return (char) in.readUInt32();
+        }
+      };
+    }
+    if (type == Integer.class) {
+      return new ValueCodec("I") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeSInt32NoTag((Integer) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return in.readSInt32();
+        }
+      };
+    }
+    if (type == Long.class) {
+      return new ValueCodec("J") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeSInt64NoTag((Long) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return in.readSInt64();
+        }
+      };
+    }
+    if (type == Float.class) {
+      return new ValueCodec("F") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeFloatNoTag((Float) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return in.readFloat();
+        }
+      };
+    }
+    if (type == Double.class) {
+      return new ValueCodec("D") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeDoubleNoTag((Double) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return in.readDouble();
+        }
+      };
+    }
+    if (type == String.class) {
+      return new ValueCodec("T") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeStringNoTag((String) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return in.readString();
+        }
+      };
+    }
+    if (type == byte[].class) {
+      return new ValueCodec("[B") {
+        @Override
+        void write(CodedOutputStream out, Object value) throws IOException {
+          out.writeByteArrayNoTag((byte[]) value);
+        }
+
+        @Override
+        Object read(CodedInputStream in) throws IOException {
+          return in.readByteArray();
+        }
+      };
+    }
+    return null;
+  }
+}
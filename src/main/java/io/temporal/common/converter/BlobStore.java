@@ -0,0 +1,44 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import java.io.IOException;
+
+/**
+ * Storage of large payloads used by {@link ClaimCheckDataConverter}. Only references returned by
+ * {@link #put(byte[])} are recorded in workflow histories, so blobs must stay readable for as long
+ * as the histories that refer to them are replayed.
+ */
+public interface BlobStore {
+
+  /**
+   * Stores the content. The same payload is stored again every time the workflow code that produced
+   * it is replayed, so implementations should return the same reference for the same content, for
+   * example by deriving it from a content hash.
+   *
+   * @return reference to the stored content. Must not be longer than a few hundred characters.
+   */
+  String put(byte[] content) throws IOException;
+
+  /**
+   * @return content stored under the reference.
+   * @throws IOException if the content cannot be read or doesn't exist.
+   */
+  byte[] get(String reference) throws IOException;
+}
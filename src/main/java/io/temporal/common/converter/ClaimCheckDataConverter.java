@@ -0,0 +1,140 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Wraps a {@link DataConverter} and puts payloads larger than a threshold into a {@link BlobStore}
+ * recording only references to them in workflow histories. Resolved blobs are kept in an LRU cache
+ * bounded by their total size, so replays do not fetch them from the store again. Payloads that are
+ * not references are passed to the wrapped converter as is.
+ */
+public final class ClaimCheckDataConverter implements DataConverter {
+
+  public static Builder newBuilder(DataConverter delegate, BlobStore blobStore) {
+    return new Builder(delegate, blobStore);
+  }
+
+  public static final class Builder {
+
+    private final DataConverter delegate;
+    private final BlobStore blobStore;
+    private int offloadThreshold = 256 * 1024;
+    private long cacheMaximumBytes = 64 * 1024 * 1024;
+
+    private Builder(DataConverter delegate, BlobStore blobStore) {
+      this.delegate = Objects.requireNonNull(delegate);
+      this.blobStore = Objects.requireNonNull(blobStore);
+    }
+
+    /** Payloads of this size in bytes or larger are put into the blob store. Default is 256KB. */
+    public Builder setOffloadThreshold(int offloadThreshold) {
+      Preconditions.checkArgument(offloadThreshold > 0, "offloadThreshold must be positive");
+      this.offloadThreshold = offloadThreshold;
+      return this;
+    }
+
+    /**
+     * Maximum total size in bytes of the blobs cached by the converter. 0 disables caching. Default
+     * is 64MB.
+     */
+    public Builder setCacheMaximumBytes(long cacheMaximumBytes) {
+      Preconditions.checkArgument(cacheMaximumBytes >= 0, "cacheMaximumBytes must not be negative");
+      this.cacheMaximumBytes = cacheMaximumBytes;
+      return this;
+    }
+
+    public ClaimCheckDataConverter build() {
+      return new ClaimCheckDataConverter(this);
+    }
+  }
+
+  private static final byte MARKER = 2;
+
+  private final DataConverter delegate;
+  private final BlobStore blobStore;
+  private final int offloadThreshold;
+  private final Cache<String, byte[]> cache;
+
+  private ClaimCheckDataConverter(Builder builder) {
+    this.delegate = builder.delegate;
+    this.blobStore = builder.blobStore;
+    this.offloadThreshold = builder.offloadThreshold;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(builder.cacheMaximumBytes)
+            .weigher((String reference, byte[] blob) -> blob.length)
+            .build();
+  }
+
+  @Override
+  public byte[] toData(Object... values) throws DataConverterException {
+    byte[] serialized = delegate.toData(values);
+    if (serialized == null || serialized.length < offloadThreshold) {
+      return serialized;
+    }
+    String reference;
+    try {
+      reference = blobStore.put(serialized);
+    } catch (IOException e) {
+      throw new DataConverterException("Failure storing payload in " + blobStore, e);
+    }
+    cache.put(reference, serialized);
+    byte[] referenceBytes = reference.getBytes(StandardCharsets.UTF_8);
+    byte[] result = new byte[referenceBytes.length + 1];
+    result[0] = MARKER;
+    System.arraycopy(referenceBytes, 0, result, 1, referenceBytes.length);
+    return result;
+  }
+
+  @Override
+  public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    return delegate.fromData(resolve(content), valueClass, valueType);
+  }
+
+  @Override
+  public Object[] fromDataArray(byte[] content, Type... valueTypes) throws DataConverterException {
+    return delegate.fromDataArray(resolve(content), valueTypes);
+  }
+
+  private byte[] resolve(byte[] content) {
+    if (content == null || content.length == 0 || content[0] != MARKER) {
+      return content;
+    }
+    String reference =
+        new String(Arrays.copyOfRange(content, 1, content.length), StandardCharsets.UTF_8);
+    try {
+      return cache.get(reference, () -> blobStore.get(reference));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw new DataConverterException(
+          "Failure getting payload " + reference + " from " + blobStore, e.getCause());
+    }
+  }
+}
@@ -0,0 +1,382 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.Duration;
+import io.temporal.internal.metrics.MetricsTag;
+import io.temporal.internal.metrics.MetricsType;
+import io.temporal.internal.metrics.NoopScope;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps a {@link DataConverter} and compresses its payloads that are larger than a threshold.
+ * Compressed payloads start with a byte that neither JSON nor {@link ProtobufDataConverter}
+ * payloads start with, followed by the codec id and the uncompressed size. Payloads without it are
+ * passed to the wrapped converter as is, so the converter can be enabled for workflows with
+ * existing histories.
+ *
+ * <p>Reports compressed and uncompressed bytes, compression ratio and thread CPU time spent in the
+ * codec tagged with the payload type. The CPU time is not reported when the JVM doesn't support
+ * measuring it.
+ */
+public final class CompressingDataConverter implements StreamingDataConverter {
+
+  public static Builder newBuilder(DataConverter delegate) {
+    return new Builder(delegate);
+  }
+
+  public static final class Builder {
+
+    private final DataConverter delegate;
+    private int compressionThreshold = 4096;
+    private CompressionCodec codec = DeflateCompressionCodec.getInstance();
+    private final Map<Byte, CompressionCodec> decompressionCodecs = new HashMap<>();
+    private Scope metricsScope;
+    private int maxDecompressedSize = 64 * 1024 * 1024;
+
+    private Builder(DataConverter delegate) {
+      this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    /** Payloads smaller than the threshold in bytes are not compressed. Default is 4096. */
+    public Builder setCompressionThreshold(int compressionThreshold) {
+      if (compressionThreshold < 0) {
+        throw new IllegalArgumentException("Negative: " + compressionThreshold);
+      }
+      this.compressionThreshold = compressionThreshold;
+      return this;
+    }
+
+    /**
+     * Codec used to compress payloads. Payloads compressed by it are also decompressed. Default is
+     * {@link DeflateCompressionCodec#getInstance()}.
+     */
+    public Builder setCodec(CompressionCodec codec) {
+      this.codec = Objects.requireNonNull(codec);
+      return this;
+    }
+
+    /**
+     * Adds codec used only to decompress payloads. Needed when changing the compression codec of a
+     * converter that already wrote payloads into histories.
+     */
+    public Builder addDecompressionCodec(CompressionCodec codec) {
+      decompressionCodecs.put(codec.getId(), codec);
+      return this;
+    }
+
+    /**
+     * Compressed payloads that declare a larger uncompressed size are rejected without allocating
+     * the buffer for them. Protects against corrupt payloads. Default is 64MB.
+     */
+    public Builder setMaxDecompressedSize(int maxDecompressedSize) {
+      if (maxDecompressedSize <= 0) {
+        throw new IllegalArgumentException("Invalid maxDecompressedSize: " + maxDecompressedSize);
+      }
+      this.maxDecompressedSize = maxDecompressedSize;
+      return this;
+    }
+
+    public Builder setMetricsScope(Scope metricsScope) {
+      this.metricsScope = metricsScope;
+      return this;
+    }
+
+    public CompressingDataConverter build() {
+      Map<Byte, CompressionCodec> codecs = new HashMap<>(decompressionCodecs);
+      codecs.put(codec.getId(), codec);
+      return new CompressingDataConverter(
+          delegate,
+          compressionThreshold,
+          codec,
+          codecs,
+          maxDecompressedSize,
+          metricsScope == null ? NoopScope.getInstance() : metricsScope);
+    }
+  }
+
+  private static final int MARKER = 1;
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+  private static final boolean CPU_TIME_SUPPORTED =
+      THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+
+  private final DataConverter delegate;
+  private final int compressionThreshold;
+  private final CompressionCodec codec;
+  private final Map<Byte, CompressionCodec> codecs;
+  private final int maxDecompressedSize;
+  private final Scope metricsScope;
+  private final ConcurrentMap<String, Scope> payloadTypeScopes = new ConcurrentHashMap<>();
+
+  private CompressingDataConverter(
+      DataConverter delegate,
+      int compressionThreshold,
+      CompressionCodec codec,
+      Map<Byte, CompressionCodec> codecs,
+      int maxDecompressedSize,
+      Scope metricsScope) {
+    this.delegate = delegate;
+    this.compressionThreshold = compressionThreshold;
+    this.codec = codec;
+    this.codecs = ImmutableMap.copyOf(codecs);
+    this.maxDecompressedSize = maxDecompressedSize;
+    this.metricsScope = metricsScope;
+  }
+
+  @Override
+  public byte[] toData(Object... values) throws DataConverterException {
+    byte[] serialized = delegate.toData(values);
+    if (serialized == null || serialized.length < compressionThreshold) {
+      return serialized;
+    }
+    byte[] compressed =
+        compress(new ByteArrayInputStream(serialized), serialized.length, payloadType(values));
+    return compressed == null ? serialized : compressed;
+  }
+
+  @Override
+  public void writeData(OutputStream output, Object... values) throws DataConverterException {
+    ByteString serialized;
+    if (delegate instanceof StreamingDataConverter) {
+      ByteString.Output buffer = ByteString.newOutput();
+      ((StreamingDataConverter) delegate).writeData(buffer, values);
+      serialized = buffer.toByteString();
+    } else {
+      byte[] data = delegate.toData(values);
+      serialized = data == null ? ByteString.EMPTY : ByteString.copyFrom(data);
+    }
+    try {
+      if (serialized.size() >= compressionThreshold) {
+        byte[] compressed = compress(serialized.newInput(), serialized.size(), payloadType(values));
+        if (compressed != null) {
+          output.write(compressed);
+          return;
+        }
+      }
+      serialized.writeTo(output);
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+  }
+
+  @Override
+  public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    if (!isCompressed(content)) {
+      return delegate.fromData(content, valueClass, valueType);
+    }
+    byte[] decompressed = decompress(content, payloadType(new Type[] {valueType}));
+    return delegate.fromData(decompressed, valueClass, valueType);
+  }
+
+  @Override
+  public <T> T readData(InputStream input, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    try {
+      PushbackInputStream in = new PushbackInputStream(input, 1);
+      int first = in.read();
+      if (first == MARKER) {
+        byte[] decompressed = decompress(in, payloadType(new Type[] {valueType}));
+        return delegate.fromData(decompressed, valueClass, valueType);
+      }
+      if (first != -1) {
+        in.unread(first);
+      }
+      if (delegate instanceof StreamingDataConverter) {
+        return ((StreamingDataConverter) delegate).readData(in, valueClass, valueType);
+      }
+      return delegate.fromData(ByteStreams.toByteArray(in), valueClass, valueType);
+    } catch (IOException e) {
+      throw new DataConverterException((byte[]) null, new Type[] {valueType}, e);
+    }
+  }
+
+  @Override
+  public Object[] fromDataArray(byte[] content, Type... valueTypes) throws DataConverterException {
+    if (!isCompressed(content)) {
+      return delegate.fromDataArray(content, valueTypes);
+    }
+    byte[] decompressed = decompress(content, payloadType(valueTypes));
+    return delegate.fromDataArray(decompressed, valueTypes);
+  }
+
+  @Override
+  public Object[] readDataArray(InputStream input, Type... valueTypes)
+      throws DataConverterException {
+    try {
+      PushbackInputStream in = new PushbackInputStream(input, 1);
+      int first = in.read();
+      if (first == MARKER) {
+        byte[] decompressed = decompress(in, payloadType(valueTypes));
+        return delegate.fromDataArray(decompressed, valueTypes);
+      }
+      if (first != -1) {
+        in.unread(first);
+      }
+      if (delegate instanceof StreamingDataConverter) {
+        return ((StreamingDataConverter) delegate).readDataArray(in, valueTypes);
+      }
+      return delegate.fromDataArray(ByteStreams.toByteArray(in), valueTypes);
+    } catch (IOException e) {
+      throw new DataConverterException((byte[]) null, valueTypes, e);
+    }
+  }
+
+  /** @return compressed payload or null if compression doesn't reduce the size. */
+  private byte[] compress(InputStream serialized, int size, String payloadType) {
+    long startCpuTime = cpuTimeNanos();
+    ByteArrayOutputStream result = new ByteArrayOutputStream(size / 2 + 16);
+    try {
+      CodedOutputStream header = CodedOutputStream.newInstance(result);
+      header.writeRawByte(MARKER);
+      header.writeRawByte(codec.getId());
+      header.writeUInt32NoTag(size);
+      header.flush();
+      try (OutputStream compressing = codec.compress(result)) {
+        ByteStreams.copy(serialized, compressing);
+      }
+    } catch (IOException e) {
+      throw new DataConverterException("Failure compressing with " + codec.getName(), e);
+    }
+    Scope scope = getScope(payloadType);
+    recordCpuTime(scope, MetricsType.PAYLOAD_COMPRESSION_CPU_TIME, startCpuTime);
+    if (result.size() >= size) {
+      scope.counter(MetricsType.PAYLOAD_INCOMPRESSIBLE_COUNTER).inc(1);
+      return null;
+    }
+    scope.counter(MetricsType.PAYLOAD_UNCOMPRESSED_BYTES).inc(size);
+    scope.counter(MetricsType.PAYLOAD_COMPRESSED_BYTES).inc(result.size());
+    scope.gauge(MetricsType.PAYLOAD_COMPRESSION_RATIO).update((double) size / result.size());
+    return result.toByteArray();
+  }
+
+  private byte[] decompress(byte[] content, String payloadType) {
+    ByteArrayInputStream in = new ByteArrayInputStream(content);
+    if (in.read() != MARKER) {
+      throw new IllegalStateException("unreachable");
+    }
+    try {
+      return decompress(in, payloadType);
+    } catch (IOException e) {
+      throw new DataConverterException(content, null, e);
+    }
+  }
+
+  /** Decompresses payload from the input positioned right after the marker. */
+  private byte[] decompress(InputStream in, String payloadType) throws IOException {
+    long startCpuTime = cpuTimeNanos();
+    int codecId = in.read();
+    CompressionCodec payloadCodec = codecs.get((byte) codecId);
+    if (payloadCodec == null) {
+      throw new DataConverterException(
+          "Unknown compression codec id "
+              + codecId
+              + ". Register it through CompressingDataConverter.Builder.addDecompressionCodec",
+          null);
+    }
+    int first = in.read();
+    if (first == -1) {
+      throw new DataConverterException("Truncated compressed payload", null);
+    }
+    // The size comes from the payload, so it is validated before allocating.
+    int size = CodedInputStream.readRawVarint32(first, in);
+    if (size < 0 || size > maxDecompressedSize) {
+      throw new DataConverterException(
+          "Invalid uncompressed payload size "
+              + size
+              + ", maxDecompressedSize="
+              + maxDecompressedSize,
+          null);
+    }
+    byte[] result = new byte[size];
+    // The caller owns the input
+    InputStream nonClosing =
+        new FilterInputStream(in) {
+          @Override
+          public void close() {}
+        };
+    try (InputStream decompressing = payloadCodec.decompress(nonClosing)) {
+      ByteStreams.readFully(decompressing, result);
+    }
+    recordCpuTime(getScope(payloadType), MetricsType.PAYLOAD_DECOMPRESSION_CPU_TIME, startCpuTime);
+    return result;
+  }
+
+  private Scope getScope(String payloadType) {
+    return payloadTypeScopes.computeIfAbsent(
+        payloadType, (t) -> metricsScope.tagged(ImmutableMap.of(MetricsTag.PAYLOAD_TYPE, t)));
+  }
+
+  private static boolean isCompressed(byte[] content) {
+    return content != null && content.length > 0 && content[0] == MARKER;
+  }
+
+  private static String payloadType(Object[] values) {
+    StringBuilder result = new StringBuilder();
+    for (Object value : values) {
+      if (result.length() > 0) {
+        result.append(',');
+      }
+      result.append(value == null ? "null" : value.getClass().getSimpleName());
+    }
+    return result.toString();
+  }
+
+  private static String payloadType(Type[] types) {
+    StringBuilder result = new StringBuilder();
+    for (Type type : types) {
+      if (result.length() > 0) {
+        result.append(',');
+      }
+      result.append(type instanceof Class ? ((Class<?>) type).getSimpleName() : type.getTypeName());
+    }
+    return result.toString();
+  }
+
+  private static long cpuTimeNanos() {
+    return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+  }
+
+  /** Wall clock time would be misleading under a CPU time metric, so nothing is reported. */
+  private static void recordCpuTime(Scope scope, String name, long startCpuTime) {
+    if (CPU_TIME_SUPPORTED) {
+      scope.timer(name).record(Duration.ofNanos(cpuTimeNanos() - startCpuTime));
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression algorithm used by {@link CompressingDataConverter}. Implement it to plug in codecs
+ * like LZ4 or Zstd.
+ */
+public interface CompressionCodec {
+
+  /**
+   * Identifier of the codec that is written into every compressed payload. It must never change
+   * once payloads were recorded in workflow histories. Values from 1 to 15 are reserved for the
+   * codecs provided by the framework.
+   */
+  byte getId();
+
+  /** Human readable name of the codec. */
+  String getName();
+
+  /**
+   * Returns stream that compresses data written to it into the output. Closing the returned stream
+   * must finish the compressed data and release codec resources.
+   */
+  OutputStream compress(OutputStream output) throws IOException;
+
+  /**
+   * Returns stream that decompresses the input. Closing the returned stream must release codec
+   * resources.
+   */
+  InputStream decompress(InputStream input) throws IOException;
+}
@@ -31,19 +31,12 @@ import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import io.temporal.internal.common.DataConverterUtils;
 import java.io.IOException;
-import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 final class CustomThrowableTypeAdapter<T extends Throwable> extends TypeAdapter<T> {
   private static final Logger log = LoggerFactory.getLogger(CustomThrowableTypeAdapter.class);
 
-  /** Used to parse a stack trace line. */
-  private static final String TRACE_ELEMENT_REGEXP =
-      "((?<className>.*)\\.(?<methodName>.*))\\(((?<fileName>.*?)(:(?<lineNumber>\\d+))?)\\)";
-
-  private static final Pattern TRACE_ELEMENT_PATTERN = Pattern.compile(TRACE_ELEMENT_REGEXP);
-
   private final Gson gson;
   private final TypeAdapterFactory skipPast;
 
@@ -0,0 +1,100 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/** {@link CompressionCodec} that uses Deflate from the JDK. */
+public final class DeflateCompressionCodec implements CompressionCodec {
+
+  public static final byte ID = 1;
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final CompressionCodec INSTANCE = new DeflateCompressionCodec(Deflater.BEST_SPEED);
+
+  private final int level;
+
+  /** Returns codec that favors speed over compression ratio. */
+  public static CompressionCodec getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @param level compression level from {@link Deflater#BEST_SPEED} to {@link
+   *     Deflater#BEST_COMPRESSION}.
+   */
+  public DeflateCompressionCodec(int level) {
+    if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    this.level = level;
+  }
+
+  @Override
+  public byte getId() {
+    return ID;
+  }
+
+  @Override
+  public String getName() {
+    return "deflate";
+  }
+
+  @Override
+  public OutputStream compress(OutputStream output) {
+    Deflater deflater = new Deflater(level);
+    return new DeflaterOutputStream(output, deflater, BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          // Not done by DeflaterOutputStream for deflaters it didn't create.
+          deflater.end();
+        }
+      }
+    };
+  }
+
+  @Override
+  public InputStream decompress(InputStream input) {
+    Inflater inflater = new Inflater();
+    return new InflaterInputStream(input, inflater, BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          inflater.end();
+        }
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "DeflateCompressionCodec{level=" + level + '}';
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import java.lang.reflect.Type;
+import java.util.Objects;
+
+/**
+ * Arguments of a signal or query that are deserialized only when accessed. Lets interceptors drop
+ * or deduplicate signals without paying for their deserialization. Not thread safe.
+ */
+public final class EncodedValues {
+
+  private final byte[] payload;
+  private final Type[] valueTypes;
+  private final DataConverter converter;
+  private Object[] values;
+
+  public EncodedValues(byte[] payload, Type[] valueTypes, DataConverter converter) {
+    this.payload = payload;
+    this.valueTypes = Objects.requireNonNull(valueTypes);
+    this.converter = Objects.requireNonNull(converter);
+  }
+
+  /** Creates an instance that holds already deserialized values. */
+  public static EncodedValues of(Object... values) {
+    return new EncodedValues(values);
+  }
+
+  private EncodedValues(Object[] values) {
+    this.payload = null;
+    this.valueTypes = null;
+    this.converter = null;
+    this.values = Objects.requireNonNull(values);
+  }
+
+  /** @return number of values which is the number of the expected argument types. */
+  public int getSize() {
+    return values != null ? values.length : valueTypes.length;
+  }
+
+  /** @return true if values were already deserialized. */
+  public boolean isDecoded() {
+    return values != null;
+  }
+
+  /**
+   * Serialized values. Can be used to deduplicate or route values without deserializing them.
+   *
+   * @return payload or null if the instance was created from already deserialized values.
+   */
+  public byte[] getPayload() {
+    return payload;
+  }
+
+  /**
+   * @return value at the index deserializing all the values on the first call.
+   * @throws DataConverterException if the payload cannot be deserialized.
+   */
+  public Object get(int index) throws DataConverterException {
+    return toArray()[index];
+  }
+
+  /**
+   * @return all the values deserializing them on the first call. The same array is returned on
+   *     subsequent calls.
+   * @throws DataConverterException if the payload cannot be deserialized.
+   */
+  public Object[] toArray() throws DataConverterException {
+    if (values == null) {
+      values = converter.fromDataArray(payload, valueTypes);
+    }
+    return values;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores blobs as files of a local directory named after the SHA-256 hash of their content.
+ * Intended for tests and single node deployments as blobs are visible only to workers that share
+ * the directory.
+ */
+public final class FileBlobStore implements BlobStore {
+
+  private final Path directory;
+
+  public FileBlobStore(Path directory) throws IOException {
+    this.directory = directory.toAbsolutePath().normalize();
+    Files.createDirectories(directory);
+  }
+
+  @Override
+  public String put(byte[] content) throws IOException {
+    String reference = Hashing.sha256().hashBytes(content).toString();
+    Path file = directory.resolve(reference);
+    if (Files.exists(file)) {
+      return reference;
+    }
+    // Written under a temporary name so concurrent readers never see partial content.
+    Path temp = Files.createTempFile(directory, reference, ".tmp");
+    try {
+      Files.write(temp, content);
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return reference;
+  }
+
+  @Override
+  public byte[] get(String reference) throws IOException {
+    Path file = directory.resolve(reference).normalize();
+    if (!directory.equals(file.getParent())) {
+      throw new IOException("Invalid reference: " + reference);
+    }
+    try {
+      return Files.readAllBytes(file);
+    } catch (NoSuchFileException e) {
+      throw new IOException("Blob not found: " + reference, e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "FileBlobStore{directory=" + directory + '}';
+  }
+}
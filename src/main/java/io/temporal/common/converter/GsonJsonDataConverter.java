@@ -22,17 +22,26 @@ package io.temporal.common.converter;
 import com.google.common.base.Defaults;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
 /**
@@ -41,7 +50,7 @@ import java.util.function.Function;
  *
  * @author fateev
  */
-public final class GsonJsonDataConverter implements DataConverter {
+public final class GsonJsonDataConverter implements StreamingDataConverter {
 
   private static final DataConverter INSTANCE = new GsonJsonDataConverter();
   private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
@@ -50,6 +59,7 @@ public final class GsonJsonDataConverter implements DataConverter {
   private static final String CLASS_NAME_FIELD_NAME = "className";
 
   private final Gson gson;
+  private final ConcurrentMap<List<Type>, ArgumentsPlan> argumentsPlans = new ConcurrentHashMap<>();
 
   public static DataConverter getInstance() {
     return INSTANCE;
@@ -125,35 +135,135 @@ public final class GsonJsonDataConverter implements DataConverter {
         Object result = gson.fromJson(new String(content, StandardCharsets.UTF_8), valueTypes[0]);
         return new Object[] {result};
       }
+      return readArguments(
+          new StringReader(new String(content, StandardCharsets.UTF_8)), valueTypes);
+    } catch (DataConverterException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new DataConverterException(content, valueTypes, e);
+    }
+  }
 
-      JsonElement element = JsonParser.parseString(new String(content, StandardCharsets.UTF_8));
-      JsonArray array;
-      if (element instanceof JsonArray) {
-        array = element.getAsJsonArray();
+  @Override
+  public void writeData(OutputStream output, Object... values) throws DataConverterException {
+    if (values == null || values.length == 0) {
+      return;
+    }
+    try {
+      Utf8Writer writer = new Utf8Writer(output);
+      if (values.length == 1) {
+        gson.toJson(values[0], writer);
       } else {
-        array = new JsonArray();
-        array.add(element);
+        gson.toJson(values, writer);
       }
+      writer.finish();
+    } catch (DataConverterException e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new DataConverterException(e);
+    }
+  }
 
-      Object[] result = new Object[valueTypes.length];
-      for (int i = 0; i < valueTypes.length; i++) {
+  @Override
+  public <T> T readData(InputStream input, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    try {
+      return gson.fromJson(new InputStreamReader(input, StandardCharsets.UTF_8), valueType);
+    } catch (Exception e) {
+      throw new DataConverterException((byte[]) null, new Type[] {valueType}, e);
+    }
+  }
 
-        if (i >= array.size()) { // Missing arugments => add defaults
-          Type t = valueTypes[i];
-          if (t instanceof Class) {
-            result[i] = Defaults.defaultValue((Class<?>) t);
-          } else {
-            result[i] = null;
-          }
-        } else {
-          result[i] = gson.fromJson(array.get(i), valueTypes[i]);
-        }
+  @Override
+  public Object[] readDataArray(InputStream input, Type... valueTypes)
+      throws DataConverterException {
+    if (valueTypes.length == 0) {
+      return EMPTY_OBJECT_ARRAY;
+    }
+    try {
+      Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+      if (valueTypes.length == 1) {
+        return new Object[] {gson.fromJson(reader, valueTypes[0])};
       }
-      return result;
+      return readArguments(reader, valueTypes);
     } catch (DataConverterException e) {
       throw e;
     } catch (Exception e) {
-      throw new DataConverterException(content, valueTypes, e);
+      throw new DataConverterException((byte[]) null, valueTypes, e);
+    }
+  }
+
+  /**
+   * Decodes arguments in a single pass over the JSON without building its tree. A single value that
+   * is not a JSON array is accepted as the first argument. Missing arguments get default values and
+   * extra ones are ignored.
+   */
+  private Object[] readArguments(Reader reader, Type[] valueTypes) throws IOException {
+    if (valueTypes.length == 0) {
+      return EMPTY_OBJECT_ARRAY;
+    }
+    ArgumentsPlan plan = getArgumentsPlan(valueTypes);
+    JsonReader in = gson.newJsonReader(reader);
+    in.setLenient(true);
+    Object[] result = new Object[valueTypes.length];
+    int count;
+    JsonToken first;
+    try {
+      first = in.peek();
+    } catch (EOFException e) {
+      // Empty document is a null first argument
+      first = JsonToken.END_DOCUMENT;
+    }
+    if (first == JsonToken.END_DOCUMENT) {
+      count = 1;
+    } else if (first == JsonToken.BEGIN_ARRAY) {
+      in.beginArray();
+      count = 0;
+      while (count < result.length && in.hasNext()) {
+        result[count] = plan.adapters[count].read(in);
+        count++;
+      }
+      while (in.hasNext()) {
+        in.skipValue();
+      }
+      in.endArray();
+    } else {
+      result[0] = plan.adapters[0].read(in);
+      count = 1;
+    }
+    for (int i = count; i < result.length; i++) {
+      result[i] = plan.defaults[i];
+    }
+    return result;
+  }
+
+  private ArgumentsPlan getArgumentsPlan(Type[] valueTypes) {
+    // Method.getGenericParameterTypes returns a new array on every call, so the key is the list
+    // of types which is compared by value.
+    ArgumentsPlan result = argumentsPlans.get(Arrays.asList(valueTypes));
+    if (result == null) {
+      result = new ArgumentsPlan(gson, valueTypes);
+      argumentsPlans.putIfAbsent(Arrays.asList(valueTypes.clone()), result);
+    }
+    return result;
+  }
+
+  /** Adapters and default values of arguments of a method signature. */
+  private static final class ArgumentsPlan {
+
+    private final TypeAdapter<?>[] adapters;
+    private final Object[] defaults;
+
+    private ArgumentsPlan(Gson gson, Type[] valueTypes) {
+      adapters = new TypeAdapter<?>[valueTypes.length];
+      defaults = new Object[valueTypes.length];
+      for (int i = 0; i < valueTypes.length; i++) {
+        Type t = valueTypes[i];
+        adapters[i] = gson.getAdapter(TypeToken.get(t));
+        if (t instanceof Class) {
+          defaults[i] = Defaults.defaultValue((Class<?>) t);
+        }
+      }
     }
   }
 
@@ -233,4 +343,99 @@ public final class GsonJsonDataConverter implements DataConverter {
       return new CustomThrowableTypeAdapter(gson, this).nullSafe();
     }
   }
+
+  /**
+   * Encodes characters into UTF-8. Unlike {@link java.io.OutputStreamWriter} it doesn't allocate
+   * 8KB encoder buffers per instance, which dominated allocations of small payloads. JsonWriter
+   * emits many small writes, so bytes are batched before being written to the output.
+   */
+  private static final class Utf8Writer extends Writer {
+
+    private final OutputStream output;
+    private final byte[] buffer = new byte[512];
+    private int size;
+    private char highSurrogate;
+
+    Utf8Writer(OutputStream output) {
+      this.output = output;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+      writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int off, int len) throws IOException {
+      for (int i = off; i < off + len; i++) {
+        writeChar(chars[i]);
+      }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+      for (int i = off; i < off + len; i++) {
+        writeChar(str.charAt(i));
+      }
+    }
+
+    private void writeChar(char c) throws IOException {
+      // Up to 4 bytes of a character plus replacement of an unpaired surrogate
+      if (size + 5 > buffer.length) {
+        flushBuffer();
+      }
+      if (highSurrogate != 0) {
+        char high = highSurrogate;
+        highSurrogate = 0;
+        if (Character.isLowSurrogate(c)) {
+          int codePoint = Character.toCodePoint(high, c);
+          buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+          buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+          buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+          buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+          return;
+        }
+        buffer[size++] = '?';
+      }
+      if (c < 0x80) {
+        buffer[size++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[size++] = (byte) (0xC0 | (c >> 6));
+        buffer[size++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c)) {
+        highSurrogate = c;
+      } else if (Character.isLowSurrogate(c)) {
+        buffer[size++] = '?';
+      } else {
+        buffer[size++] = (byte) (0xE0 | (c >> 12));
+        buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buffer[size++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+
+    private void flushBuffer() throws IOException {
+      output.write(buffer, 0, size);
+      size = 0;
+    }
+
+    /** Writes all the buffered bytes replacing a trailing unpaired surrogate. */
+    void finish() throws IOException {
+      if (highSurrogate != 0) {
+        highSurrogate = 0;
+        buffer[size++] = '?';
+      }
+      flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+      flushBuffer();
+      output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      finish();
+    }
+  }
 }
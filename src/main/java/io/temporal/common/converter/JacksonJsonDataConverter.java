@@ -0,0 +1,505 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.deser.ValueInstantiator;
+import com.fasterxml.jackson.databind.deser.ValueInstantiators;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.Serializers;
+import com.fasterxml.jackson.databind.type.ArrayType;
+import com.google.common.base.Defaults;
+import com.google.gson.internal.UnsafeAllocator;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Implements conversion through Jackson JSON processor. Produces the same JSON as {@link
+ * GsonJsonDataConverter} with its default configuration: objects are serialized through their
+ * fields including nulls, subclass fields first, unknown fields are ignored, HTML characters are
+ * escaped and exceptions, classes, data converters, dates, {@code byte[]} and {@code char[]} use
+ * exactly the Gson representation. So workflows and activities can switch between the two
+ * converters. Classes without a no-arg constructor or a Jackson creator are instantiated without
+ * calling any constructor, as Gson does, so their field initializers don't run. Values declared as
+ * {@code Object} are deserialized into Jackson's natural representation which differs from Gson
+ * (for example Integer instead of Double). Types with a custom Gson type adapter or Jackson
+ * annotations are not guaranteed to be compatible.
+ *
+ * <p>Readers and writers are cached per type. To extend use {@link
+ * #JacksonJsonDataConverter(Function)} constructor. For example registering {@code
+ * com.fasterxml.jackson.module.afterburner.AfterburnerModule} there replaces reflection with
+ * generated field accessors.
+ */
+public final class JacksonJsonDataConverter implements StreamingDataConverter {
+
+  private static final DataConverter INSTANCE = new JacksonJsonDataConverter();
+  private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
+
+  private final ObjectMapper mapper;
+  private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+  public static DataConverter getInstance() {
+    return INSTANCE;
+  }
+
+  private JacksonJsonDataConverter() {
+    this((m) -> m);
+  }
+
+  /**
+   * Constructs an instance giving an ability to override {@link ObjectMapper} initialization.
+   *
+   * @param mapperInterceptor function that intercepts configured {@link ObjectMapper}.
+   */
+  public JacksonJsonDataConverter(Function<ObjectMapper, ObjectMapper> mapperInterceptor) {
+    ObjectMapper mapper =
+        new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
+            .registerModule(new GsonCompatibilityModule());
+    mapper.getFactory().setCharacterEscapes(new GsonCharacterEscapes());
+    this.mapper = mapperInterceptor.apply(mapper);
+  }
+
+  /**
+   * When values is empty return empty blob. If a single value do not wrap it into Json array.
+   * Exception stack traces are converted to a single string stack trace as {@link
+   * GsonJsonDataConverter} does.
+   */
+  @Override
+  public byte[] toData(Object... values) throws DataConverterException {
+    if (values == null || values.length == 0) {
+      return null;
+    }
+    try {
+      if (values.length == 1) {
+        return getWriter(values[0]).writeValueAsBytes(values[0]);
+      }
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      writeArray(output, values);
+      return output.toByteArray();
+    } catch (Throwable e) {
+      throw toDataConverterException(e);
+    }
+  }
+
+  @Override
+  public void writeData(OutputStream output, Object... values) throws DataConverterException {
+    if (values == null || values.length == 0) {
+      return;
+    }
+    try {
+      if (values.length == 1) {
+        getWriter(values[0]).writeValue(new NonClosingOutputStream(output), values[0]);
+      } else {
+        writeArray(output, values);
+      }
+    } catch (Throwable e) {
+      throw toDataConverterException(e);
+    }
+  }
+
+  @Override
+  public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    if (content == null) {
+      return null;
+    }
+    try (JsonParser parser = mapper.getFactory().createParser(content)) {
+      return readValue(parser, valueType);
+    } catch (Exception e) {
+      throw new DataConverterException(content, new Type[] {valueType}, e);
+    }
+  }
+
+  @Override
+  public <T> T readData(InputStream input, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    try {
+      JsonParser parser = mapper.getFactory().createParser(input);
+      return readValue(parser, valueType);
+    } catch (Exception e) {
+      throw new DataConverterException((byte[]) null, new Type[] {valueType}, e);
+    }
+  }
+
+  @Override
+  public Object[] fromDataArray(byte[] content, Type... valueTypes) throws DataConverterException {
+    if (content == null) {
+      if (valueTypes.length == 0) {
+        return EMPTY_OBJECT_ARRAY;
+      }
+      throw new DataConverterException(
+          "Content doesn't match expected arguments", content, valueTypes);
+    }
+    try (JsonParser parser = mapper.getFactory().createParser(content)) {
+      return readValues(parser, valueTypes);
+    } catch (DataConverterException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new DataConverterException(content, valueTypes, e);
+    }
+  }
+
+  @Override
+  public Object[] readDataArray(InputStream input, Type... valueTypes)
+      throws DataConverterException {
+    if (valueTypes.length == 0) {
+      return EMPTY_OBJECT_ARRAY;
+    }
+    try {
+      return readValues(mapper.getFactory().createParser(input), valueTypes);
+    } catch (DataConverterException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new DataConverterException((byte[]) null, valueTypes, e);
+    }
+  }
+
+  /**
+   * Doesn't wrap DataConverterException, including the one thrown by a nested converter that
+   * Jackson wrapped into JsonMappingException.
+   */
+  private static DataConverterException toDataConverterException(Throwable e) {
+    if (e instanceof JsonMappingException && e.getCause() instanceof DataConverterException) {
+      return (DataConverterException) e.getCause();
+    }
+    if (e instanceof DataConverterException) {
+      return (DataConverterException) e;
+    }
+    return new DataConverterException(e);
+  }
+
+  private void writeArray(OutputStream output, Object[] values) throws IOException {
+    try (JsonGenerator generator =
+        mapper.getFactory().createGenerator(new NonClosingOutputStream(output))) {
+      generator.writeStartArray();
+      for (Object value : values) {
+        getWriter(value).writeValue(generator, value);
+      }
+      generator.writeEndArray();
+    }
+  }
+
+  /** Returns null for empty content the same way Gson does. */
+  private <T> T readValue(JsonParser parser, Type valueType) throws IOException {
+    if (parser.nextToken() == null) {
+      return null;
+    }
+    return getReader(valueType).readValue(parser);
+  }
+
+  private Object[] readValues(JsonParser parser, Type[] valueTypes) throws IOException {
+    if (valueTypes.length == 1) {
+      return new Object[] {readValue(parser, valueTypes[0])};
+    }
+    JsonNode node = parser.nextToken() == null ? NullNode.getInstance() : mapper.readTree(parser);
+    // Not an array is the same as an array with a single element
+    int size = node.isArray() ? node.size() : 1;
+    Object[] result = new Object[valueTypes.length];
+    for (int i = 0; i < valueTypes.length; i++) {
+      if (i >= size) { // Missing arguments => add defaults
+        Type t = valueTypes[i];
+        result[i] = t instanceof Class ? Defaults.defaultValue((Class<?>) t) : null;
+      } else {
+        JsonNode element = node.isArray() ? node.get(i) : node;
+        result[i] = element.isNull() ? null : getReader(valueTypes[i]).readValue(element);
+      }
+    }
+    return result;
+  }
+
+  private ObjectReader getReader(Type type) {
+    return readers.computeIfAbsent(
+        type, (t) -> mapper.readerFor(mapper.getTypeFactory().constructType(t)));
+  }
+
+  private ObjectWriter getWriter(Object value) {
+    Class<?> type = value == null ? Object.class : value.getClass();
+    return writers.computeIfAbsent(type, mapper::writerFor);
+  }
+
+  /** Jackson closes the target stream when done, but the caller owns it. */
+  private static final class NonClosingOutputStream extends FilterOutputStream {
+
+    NonClosingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  /**
+   * Delegates types that {@link GsonJsonDataConverter} serializes in a special way to it to keep
+   * the same JSON and orders fields the way Gson does.
+   */
+  private static final class GsonCompatibilityModule extends SimpleModule {
+
+    private static boolean isGsonSpecialType(Class<?> type) {
+      return Throwable.class.isAssignableFrom(type)
+          || Class.class.isAssignableFrom(type)
+          || DataConverter.class.isAssignableFrom(type)
+          || Date.class.isAssignableFrom(type)
+          // Jackson uses base64 and a string while Gson uses arrays of numbers and strings.
+          || type == byte[].class
+          || type == char[].class;
+    }
+
+    GsonCompatibilityModule() {
+      super("GsonCompatibilityModule");
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+      super.setupModule(context);
+      context.addSerializers(
+          new Serializers.Base() {
+            @Override
+            public JsonSerializer<?> findSerializer(
+                SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+              return isGsonSpecialType(type.getRawClass()) ? new GsonSerializer() : null;
+            }
+
+            @Override
+            public JsonSerializer<?> findArraySerializer(
+                SerializationConfig config,
+                ArrayType type,
+                BeanDescription beanDesc,
+                TypeSerializer elementTypeSerializer,
+                JsonSerializer<Object> elementValueSerializer) {
+              return isGsonSpecialType(type.getRawClass()) ? new GsonSerializer() : null;
+            }
+          });
+      context.addDeserializers(
+          new Deserializers.Base() {
+            @Override
+            public JsonDeserializer<?> findBeanDeserializer(
+                JavaType type, DeserializationConfig config, BeanDescription beanDesc) {
+              Class<?> rawClass = type.getRawClass();
+              return isGsonSpecialType(rawClass) ? new GsonDeserializer(rawClass) : null;
+            }
+
+            @Override
+            public JsonDeserializer<?> findArrayDeserializer(
+                ArrayType type,
+                DeserializationConfig config,
+                BeanDescription beanDesc,
+                TypeDeserializer elementTypeDeserializer,
+                JsonDeserializer<?> elementDeserializer) {
+              Class<?> rawClass = type.getRawClass();
+              return isGsonSpecialType(rawClass) ? new GsonDeserializer(rawClass) : null;
+            }
+          });
+      context.addBeanSerializerModifier(new GsonFieldOrder());
+      context.addValueInstantiators(new GsonValueInstantiators());
+    }
+  }
+
+  /**
+   * Gson instantiates classes that have no no-arg constructor through Unsafe without calling any
+   * constructor. Jackson fails for them unless they declare a creator.
+   */
+  private static final class GsonValueInstantiators extends ValueInstantiators.Base {
+
+    private static final UnsafeAllocator ALLOCATOR = UnsafeAllocator.create();
+
+    @Override
+    public ValueInstantiator findValueInstantiator(
+        DeserializationConfig config,
+        BeanDescription beanDesc,
+        ValueInstantiator defaultInstantiator) {
+      Class<?> type = beanDesc.getBeanClass();
+      if (defaultInstantiator.canInstantiate()
+          || type.isInterface()
+          || type.isArray()
+          || type.isEnum()
+          || Modifier.isAbstract(type.getModifiers())
+          || Collection.class.isAssignableFrom(type)
+          || Map.class.isAssignableFrom(type)) {
+        return defaultInstantiator;
+      }
+      return new UnsafeValueInstantiator(type);
+    }
+  }
+
+  private static final class UnsafeValueInstantiator extends ValueInstantiator.Base {
+
+    UnsafeValueInstantiator(Class<?> type) {
+      super(type);
+    }
+
+    @Override
+    public boolean canCreateUsingDefault() {
+      return true;
+    }
+
+    @Override
+    public Object createUsingDefault(DeserializationContext context) throws IOException {
+      try {
+        return GsonValueInstantiators.ALLOCATOR.newInstance(getValueClass());
+      } catch (Exception e) {
+        return context.handleInstantiationProblem(getValueClass(), null, e);
+      }
+    }
+  }
+
+  /**
+   * Gson writes the fields declared by a class before the fields of its superclasses, while Jackson
+   * starts from the superclass. The order inside a class is the declaration order for both.
+   */
+  private static final class GsonFieldOrder extends BeanSerializerModifier {
+
+    @Override
+    public List<BeanPropertyWriter> orderProperties(
+        SerializationConfig config,
+        BeanDescription beanDesc,
+        List<BeanPropertyWriter> beanProperties) {
+      List<BeanPropertyWriter> result = new ArrayList<>(beanProperties);
+      // List.sort is stable, so the declaration order is kept inside each class.
+      result.sort(
+          Comparator.comparingInt(
+              (BeanPropertyWriter p) -> -hierarchyDepth(p.getMember().getDeclaringClass())));
+      return result;
+    }
+
+    private static int hierarchyDepth(Class<?> type) {
+      int depth = 0;
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        depth++;
+      }
+      return depth;
+    }
+  }
+
+  /**
+   * Escapes the same characters as Gson with HTML escaping enabled, which is its default, using the
+   * same lower case unicode escapes.
+   */
+  private static final class GsonCharacterEscapes extends CharacterEscapes {
+
+    private static final char[] HTML_CHARACTERS = {'<', '>', '&', '=', '\''};
+
+    private final int[] asciiEscapes;
+
+    GsonCharacterEscapes() {
+      asciiEscapes = CharacterEscapes.standardAsciiEscapesForJSON();
+      for (int c = 0; c < 0x20; c++) {
+        // Control characters without a short escape like \n
+        if (asciiEscapes[c] == ESCAPE_STANDARD) {
+          asciiEscapes[c] = ESCAPE_CUSTOM;
+        }
+      }
+      for (char c : HTML_CHARACTERS) {
+        asciiEscapes[c] = ESCAPE_CUSTOM;
+      }
+    }
+
+    @Override
+    public int[] getEscapeCodesForAscii() {
+      return asciiEscapes;
+    }
+
+    @Override
+    public SerializableString getEscapeSequence(int ch) {
+      if (ch < asciiEscapes.length || ch == '\u2028' || ch == '\u2029') {
+        return new SerializedString(String.format("\\u%04x", ch));
+      }
+      return null;
+    }
+  }
+
+  private static final class GsonSerializer extends JsonSerializer<Object> {
+
+    @Override
+    public void serialize(Object value, JsonGenerator gen, SerializerProvider serializers)
+        throws IOException {
+      byte[] json = GsonJsonDataConverter.getInstance().toData(value);
+      gen.writeRawValue(new String(json, StandardCharsets.UTF_8));
+    }
+  }
+
+  private static final class GsonDeserializer extends JsonDeserializer<Object> {
+
+    private final Class<?> type;
+
+    GsonDeserializer(Class<?> type) {
+      this.type = type;
+    }
+
+    @Override
+    public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      JsonNode tree = p.readValueAsTree();
+      byte[] json = tree.toString().getBytes(StandardCharsets.UTF_8);
+      return GsonJsonDataConverter.getInstance().fromData(json, type, type);
+    }
+  }
+}
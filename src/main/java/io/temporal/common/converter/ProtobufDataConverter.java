@@ -0,0 +1,313 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import com.google.common.base.Defaults;
+import com.google.common.io.ByteStreams;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serializes protobuf {@link Message} values into their binary form and delegates all other values
+ * to a JSON converter. Binary payloads start with a zero byte that is never a first byte of JSON
+ * text, followed by a kind and the message type name, so payloads written by the delegate (for
+ * example before switching to this converter) are still parsed by it.
+ *
+ * <p>Payload layout:
+ *
+ * <ul>
+ *   <li>single message: {@code 0x00 'P' varint(nameLength) name messageBytes}
+ *   <li>arguments containing a message: {@code 0x00 'A' varint(count) (varint(length) value)*}
+ *       where each value is either a single message payload or a delegate payload.
+ * </ul>
+ *
+ * Arguments that don't contain messages are passed to the delegate as is.
+ */
+public final class ProtobufDataConverter implements StreamingDataConverter {
+
+  private static final DataConverter INSTANCE =
+      new ProtobufDataConverter(GsonJsonDataConverter.getInstance());
+
+  private static final int MARKER = 0;
+  private static final int KIND_MESSAGE = 'P';
+  private static final int KIND_ARGUMENTS = 'A';
+  private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
+
+  private final DataConverter delegate;
+  private final ConcurrentMap<Class<?>, Message> defaultInstances = new ConcurrentHashMap<>();
+
+  /** Returns instance that delegates non protobuf values to {@link GsonJsonDataConverter}. */
+  public static DataConverter getInstance() {
+    return INSTANCE;
+  }
+
+  /** @param delegate converter of values that are not protobuf messages. */
+  public ProtobufDataConverter(DataConverter delegate) {
+    this.delegate = Objects.requireNonNull(delegate);
+  }
+
+  @Override
+  public byte[] toData(Object... values) throws DataConverterException {
+    if (!containsMessage(values)) {
+      return delegate.toData(values);
+    }
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      writeMessages(output, values);
+      return output.toByteArray();
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+  }
+
+  @Override
+  public void writeData(OutputStream output, Object... values) throws DataConverterException {
+    if (!containsMessage(values)) {
+      if (delegate instanceof StreamingDataConverter) {
+        ((StreamingDataConverter) delegate).writeData(output, values);
+      } else {
+        writeBytes(output, delegate.toData(values));
+      }
+      return;
+    }
+    try {
+      writeMessages(output, values);
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+  }
+
+  @Override
+  public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    if (!isMarked(content)) {
+      return delegate.fromData(content, valueClass, valueType);
+    }
+    return readData(new ByteArrayInputStream(content), valueClass, valueType);
+  }
+
+  @Override
+  public <T> T readData(InputStream input, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    try {
+      PushbackInputStream in = new PushbackInputStream(input, 1);
+      int first = in.read();
+      if (first != MARKER) {
+        if (first != -1) {
+          in.unread(first);
+        }
+        return readFromDelegate(in, valueClass, valueType);
+      }
+      int kind = in.read();
+      if (kind != KIND_MESSAGE) {
+        throw new DataConverterException(
+            "Expected single protobuf message payload, found kind " + kind, null);
+      }
+      @SuppressWarnings("unchecked")
+      T result = (T) readMessage(in, valueClass);
+      return result;
+    } catch (IOException e) {
+      throw new DataConverterException((byte[]) null, new Type[] {valueType}, e);
+    }
+  }
+
+  @Override
+  public Object[] fromDataArray(byte[] content, Type... valueTypes) throws DataConverterException {
+    if (!isMarked(content)) {
+      return delegate.fromDataArray(content, valueTypes);
+    }
+    return readDataArray(new ByteArrayInputStream(content), valueTypes);
+  }
+
+  @Override
+  public Object[] readDataArray(InputStream input, Type... valueTypes)
+      throws DataConverterException {
+    try {
+      PushbackInputStream in = new PushbackInputStream(input, 1);
+      int first = in.read();
+      if (first != MARKER) {
+        if (first != -1) {
+          in.unread(first);
+        }
+        if (delegate instanceof StreamingDataConverter) {
+          return ((StreamingDataConverter) delegate).readDataArray(in, valueTypes);
+        }
+        return delegate.fromDataArray(ByteStreams.toByteArray(in), valueTypes);
+      }
+      if (valueTypes.length == 0) {
+        return EMPTY_OBJECT_ARRAY;
+      }
+      Object[] result = new Object[valueTypes.length];
+      int count;
+      int kind = in.read();
+      if (kind == KIND_MESSAGE) {
+        // Single value is the same as arguments with a single element.
+        result[0] = readMessage(in, toClass(valueTypes[0]));
+        count = 1;
+      } else if (kind == KIND_ARGUMENTS) {
+        count = readVarint(in);
+        for (int i = 0; i < count && i < valueTypes.length; i++) {
+          byte[] value = new byte[readVarint(in)];
+          ByteStreams.readFully(in, value);
+          result[i] = fromData(value, toClass(valueTypes[i]), valueTypes[i]);
+        }
+      } else {
+        throw new DataConverterException("Unknown protobuf payload kind " + kind, null);
+      }
+      for (int i = count; i < valueTypes.length; i++) { // Missing arguments => add defaults
+        Type t = valueTypes[i];
+        result[i] = t instanceof Class ? Defaults.defaultValue((Class<?>) t) : null;
+      }
+      return result;
+    } catch (IOException e) {
+      throw new DataConverterException((byte[]) null, valueTypes, e);
+    }
+  }
+
+  private <T> T readFromDelegate(InputStream in, Class<T> valueClass, Type valueType)
+      throws IOException {
+    if (delegate instanceof StreamingDataConverter) {
+      return ((StreamingDataConverter) delegate).readData(in, valueClass, valueType);
+    }
+    return delegate.fromData(ByteStreams.toByteArray(in), valueClass, valueType);
+  }
+
+  private void writeMessages(OutputStream output, Object[] values) throws IOException {
+    if (values.length == 1) {
+      writeMessage(output, (Message) values[0]);
+      return;
+    }
+    CodedOutputStream header = CodedOutputStream.newInstance(output);
+    header.writeRawByte(MARKER);
+    header.writeRawByte(KIND_ARGUMENTS);
+    header.writeUInt32NoTag(values.length);
+    header.flush();
+    for (Object value : values) {
+      byte[] serialized;
+      if (value instanceof Message) {
+        ByteArrayOutputStream element = new ByteArrayOutputStream();
+        writeMessage(element, (Message) value);
+        serialized = element.toByteArray();
+      } else {
+        serialized = delegate.toData(value);
+        if (serialized == null) {
+          serialized = new byte[0];
+        }
+      }
+      CodedOutputStream length = CodedOutputStream.newInstance(output);
+      length.writeUInt32NoTag(serialized.length);
+      length.flush();
+      output.write(serialized);
+    }
+  }
+
+  private void writeMessage(OutputStream output, Message message) throws IOException {
+    byte[] name = message.getDescriptorForType().getFullName().getBytes(StandardCharsets.UTF_8);
+    CodedOutputStream header = CodedOutputStream.newInstance(output);
+    header.writeRawByte(MARKER);
+    header.writeRawByte(KIND_MESSAGE);
+    header.writeUInt32NoTag(name.length);
+    header.writeRawBytes(name);
+    header.flush();
+    message.writeTo(output);
+  }
+
+  private Message readMessage(InputStream in, Class<?> valueClass) throws IOException {
+    byte[] name = new byte[readVarint(in)];
+    ByteStreams.readFully(in, name);
+    String typeName = new String(name, StandardCharsets.UTF_8);
+    if (valueClass == null || !Message.class.isAssignableFrom(valueClass)) {
+      throw new DataConverterException(
+          "Protobuf message " + typeName + " cannot be converted to " + valueClass, null);
+    }
+    Message defaultInstance = getDefaultInstance(valueClass);
+    String expected = defaultInstance.getDescriptorForType().getFullName();
+    if (!expected.equals(typeName)) {
+      throw new DataConverterException(
+          "Protobuf message type mismatch. Expected " + expected + ", found " + typeName, null);
+    }
+    Parser<? extends Message> parser = defaultInstance.getParserForType();
+    return parser.parseFrom(in);
+  }
+
+  private Message getDefaultInstance(Class<?> messageClass) {
+    return defaultInstances.computeIfAbsent(
+        messageClass,
+        (c) -> {
+          try {
+            return (Message) c.getMethod("getDefaultInstance").invoke(null);
+          } catch (ReflectiveOperationException e) {
+            throw new DataConverterException(
+                "Not a generated protobuf message class: " + c.getName(), e);
+          }
+        });
+  }
+
+  private static int readVarint(InputStream in) throws IOException {
+    int first = in.read();
+    if (first == -1) {
+      throw new DataConverterException("Truncated protobuf payload", null);
+    }
+    return CodedInputStream.readRawVarint32(first, in);
+  }
+
+  private static boolean containsMessage(Object[] values) {
+    if (values == null) {
+      return false;
+    }
+    for (Object value : values) {
+      if (value instanceof Message) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isMarked(byte[] content) {
+    return content != null && content.length > 0 && content[0] == MARKER;
+  }
+
+  private static Class<?> toClass(Type type) {
+    return type instanceof Class ? (Class<?>) type : null;
+  }
+
+  private static void writeBytes(OutputStream output, byte[] bytes) {
+    if (bytes == null) {
+      return;
+    }
+    try {
+      output.write(bytes);
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * {@link DataConverter} that is able to serialize directly into and parse directly from a stream.
+ * The framework uses it to write values straight into protobuf {@code ByteString}s and to parse
+ * them without intermediate byte arrays and Strings.
+ *
+ * <p>Implementations must produce the same serialized form as their {@link DataConverter} methods.
+ * An empty stream corresponds to a null content of the {@link DataConverter} methods.
+ */
+public interface StreamingDataConverter extends DataConverter {
+
+  /**
+   * Streaming version of {@link #toData(Object...)}. Writes nothing if values are empty.
+   *
+   * @param output stream to write the serialized values to. Not closed by this method.
+   * @param values Java values to convert.
+   * @throws DataConverterException if conversion of the values failed for any reason.
+   */
+  void writeData(OutputStream output, Object... values) throws DataConverterException;
+
+  /**
+   * Streaming version of {@link #fromData(byte[], Class, Type)}.
+   *
+   * @param input serialized value. Not closed by this method.
+   * @return converted Java object or null if input is empty.
+   * @throws DataConverterException if conversion of the data failed for any reason.
+   */
+  <T> T readData(InputStream input, Class<T> valueClass, Type valueType)
+      throws DataConverterException;
+
+  /**
+   * Streaming version of {@link #fromDataArray(byte[], Type...)}.
+   *
+   * @param input serialized values. Not closed by this method.
+   * @return array of converted Java objects
+   * @throws DataConverterException if conversion of the data failed for any reason.
+   */
+  Object[] readDataArray(InputStream input, Type... valueTypes) throws DataConverterException;
+}
@@ -21,6 +21,7 @@ package io.temporal.common.interceptors;
 
 import io.temporal.activity.ActivityOptions;
 import io.temporal.activity.LocalActivityOptions;
+import io.temporal.common.converter.EncodedValues;
 import io.temporal.proto.execution.WorkflowExecution;
 import io.temporal.workflow.ChildWorkflowOptions;
 import io.temporal.workflow.ContinueAsNewOptions;
@@ -116,6 +117,29 @@ public interface WorkflowCallsInterceptor {
 
   void registerSignal(String signalType, Type[] argTypes, Functions.Proc1<Object[]> callback);
 
+  /**
+   * Same as {@link #registerQuery(String, Type[], Functions.Func1)}, but arguments are deserialized
+   * only when the callback accesses them. The default implementation deserializes them eagerly and
+   * calls {@link #registerQuery(String, Type[], Functions.Func1)}. Interceptors that override it
+   * should pass the call to the next interceptor through the same method to keep the arguments
+   * lazy.
+   */
+  default void registerEncodedQuery(
+      String queryType, Type[] argTypes, Functions.Func1<EncodedValues, Object> callback) {
+    registerQuery(queryType, argTypes, (args) -> callback.apply(EncodedValues.of(args)));
+  }
+
+  /**
+   * Same as {@link #registerSignal(String, Type[], Functions.Proc1)}, but arguments are
+   * deserialized only when the callback accesses them. So signals dropped by an interceptor are
+   * never deserialized. The default implementation deserializes them eagerly and calls {@link
+   * #registerSignal(String, Type[], Functions.Proc1)}.
+   */
+  default void registerEncodedSignal(
+      String signalType, Type[] argTypes, Functions.Proc1<EncodedValues> callback) {
+    registerSignal(signalType, argTypes, (args) -> callback.apply(EncodedValues.of(args)));
+  }
+
   UUID randomUUID();
 
   void upsertSearchAttributes(Map<String, Object> searchAttributes);
@@ -21,6 +21,7 @@ package io.temporal.common.interceptors;
 
 import io.temporal.activity.ActivityOptions;
 import io.temporal.activity.LocalActivityOptions;
+import io.temporal.common.converter.EncodedValues;
 import io.temporal.proto.execution.WorkflowExecution;
 import io.temporal.workflow.ChildWorkflowOptions;
 import io.temporal.workflow.ContinueAsNewOptions;
@@ -37,13 +38,47 @@ import java.util.UUID;
 import java.util.function.BiPredicate;
 import java.util.function.Supplier;
 
-/** Convenience base class for WorkflowCallsInterceptor implementations. */
+/**
+ * Convenience base class for WorkflowCallsInterceptor implementations.
+ *
+ * <p>Signal and query handlers are registered through {@link #registerEncodedSignal(String, Type[],
+ * Functions.Proc1)} and {@link #registerEncodedQuery(String, Type[], Func1)}. A subclass that
+ * overrides only {@link #registerSignal(String, Type[], Functions.Proc1)} or {@link
+ * #registerQuery(String, Type[], Func1)} still sees every handler, as the encoded variant then
+ * deserializes the arguments eagerly and calls it. Override the encoded variants to keep the
+ * arguments lazy.
+ */
 public class WorkflowCallsInterceptorBase implements WorkflowCallsInterceptor {
 
   private final WorkflowCallsInterceptor next;
+  // True when a subclass overrides only the non encoded registration method
+  private final boolean decodeSignals;
+  private final boolean decodeQueries;
 
   public WorkflowCallsInterceptorBase(WorkflowCallsInterceptor next) {
     this.next = next;
+    this.decodeSignals =
+        overridesOnlyFirst(
+            "registerSignal",
+            "registerEncodedSignal",
+            String.class,
+            Type[].class,
+            Functions.Proc1.class);
+    this.decodeQueries =
+        overridesOnlyFirst(
+            "registerQuery", "registerEncodedQuery", String.class, Type[].class, Func1.class);
+  }
+
+  private boolean overridesOnlyFirst(String first, String second, Class<?>... parameterTypes) {
+    try {
+      Class<?> type = getClass();
+      return type.getMethod(first, parameterTypes).getDeclaringClass()
+              != WorkflowCallsInterceptorBase.class
+          && type.getMethod(second, parameterTypes).getDeclaringClass()
+              == WorkflowCallsInterceptorBase.class;
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   @Override
@@ -145,6 +180,26 @@ public class WorkflowCallsInterceptorBase implements WorkflowCallsInterceptor {
     next.registerSignal(signalType, argTypes, callback);
   }
 
+  @Override
+  public void registerEncodedQuery(
+      String queryType, Type[] argTypes, Functions.Func1<EncodedValues, Object> callback) {
+    if (decodeQueries) {
+      WorkflowCallsInterceptor.super.registerEncodedQuery(queryType, argTypes, callback);
+      return;
+    }
+    next.registerEncodedQuery(queryType, argTypes, callback);
+  }
+
+  @Override
+  public void registerEncodedSignal(
+      String signalType, Type[] argTypes, Functions.Proc1<EncodedValues> callback) {
+    if (decodeSignals) {
+      WorkflowCallsInterceptor.super.registerEncodedSignal(signalType, argTypes, callback);
+      return;
+    }
+    next.registerEncodedSignal(signalType, argTypes, callback);
+  }
+
   @Override
   public UUID randomUUID() {
     return next.randomUUID();
@@ -0,0 +1,201 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.temporal.proto.workflowservice.WorkflowServiceGrpc;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions.ChannelSelection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads calls over multiple channels to avoid being limited by the concurrent stream limit and
+ * the single event loop of one HTTP/2 connection. Long polls can be given their own channels, so
+ * they don't compete for streams with latency sensitive calls like task completions and heartbeats.
+ */
+final class ChannelPool extends ManagedChannel {
+
+  private static final Set<String> LONG_POLL_METHODS =
+      new HashSet<>(
+          Arrays.asList(
+              WorkflowServiceGrpc.getPollForDecisionTaskMethod().getFullMethodName(),
+              WorkflowServiceGrpc.getPollForActivityTaskMethod().getFullMethodName(),
+              WorkflowServiceGrpc.getGetWorkflowExecutionHistoryMethod().getFullMethodName()));
+
+  private final Pool calls;
+  private final Pool longPolls;
+  private final List<ManagedChannel> channels;
+
+  /**
+   * @param channels channels used for all the calls except long polls when longPollChannels is not
+   *     empty
+   * @param longPollChannels channels used only for long polls, can be empty
+   */
+  ChannelPool(
+      List<ManagedChannel> channels,
+      List<ManagedChannel> longPollChannels,
+      ChannelSelection selection) {
+    if (channels.isEmpty()) {
+      throw new IllegalArgumentException("empty channels");
+    }
+    this.calls = new Pool(channels, selection);
+    this.longPolls = longPollChannels.isEmpty() ? calls : new Pool(longPollChannels, selection);
+    this.channels = new ArrayList<>(channels);
+    this.channels.addAll(longPollChannels);
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+    Pool pool = LONG_POLL_METHODS.contains(method.getFullMethodName()) ? longPolls : calls;
+    return pool.newCall(method, callOptions);
+  }
+
+  @Override
+  public String authority() {
+    return channels.get(0).authority();
+  }
+
+  @Override
+  public ManagedChannel shutdown() {
+    for (ManagedChannel channel : channels) {
+      channel.shutdown();
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    for (ManagedChannel channel : channels) {
+      if (!channel.isShutdown()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    for (ManagedChannel channel : channels) {
+      if (!channel.isTerminated()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public ManagedChannel shutdownNow() {
+    for (ManagedChannel channel : channels) {
+      channel.shutdownNow();
+    }
+    return this;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (ManagedChannel channel : channels) {
+      long left = deadline - System.nanoTime();
+      if (!channel.awaitTermination(Math.max(0, left), TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "ChannelPool{" + "channels=" + channels + '}';
+  }
+
+  private static final class Pool {
+
+    private final ManagedChannel[] channels;
+    private final ChannelSelection selection;
+    /** Calls started and not closed yet per channel. Maintained only for LEAST_LOADED. */
+    private final AtomicInteger[] inFlight;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    Pool(List<ManagedChannel> channels, ChannelSelection selection) {
+      this.channels = channels.toArray(new ManagedChannel[0]);
+      this.selection = selection;
+      this.inFlight = new AtomicInteger[this.channels.length];
+      for (int i = 0; i < inFlight.length; i++) {
+        inFlight[i] = new AtomicInteger();
+      }
+    }
+
+    <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+      int start = Math.floorMod(next.getAndIncrement(), channels.length);
+      if (selection == ChannelSelection.ROUND_ROBIN || channels.length == 1) {
+        return channels[start].newCall(method, callOptions);
+      }
+      // Starts from the round robin position to spread calls evenly among equally loaded channels.
+      int index = start;
+      int minLoad = Integer.MAX_VALUE;
+      for (int i = 0; i < channels.length; i++) {
+        int candidate = (start + i) % channels.length;
+        int load = inFlight[candidate].get();
+        if (load < minLoad) {
+          minLoad = load;
+          index = candidate;
+        }
+      }
+      AtomicInteger counter = inFlight[index];
+      return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(
+          channels[index].newCall(method, callOptions)) {
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+          counter.incrementAndGet();
+          Listener<RespT> listener =
+              new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+                  responseListener) {
+                @Override
+                public void onClose(Status status, Metadata trailers) {
+                  counter.decrementAndGet();
+                  super.onClose(status, trailers);
+                }
+              };
+          try {
+            super.start(listener, headers);
+          } catch (RuntimeException e) {
+            counter.decrementAndGet();
+            throw e;
+          }
+        }
+      };
+    }
+  }
+}
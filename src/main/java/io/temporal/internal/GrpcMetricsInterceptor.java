@@ -0,0 +1,173 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal;
+
+import com.google.protobuf.MessageLite;
+import com.uber.m3.tally.DurationBuckets;
+import com.uber.m3.tally.Gauge;
+import com.uber.m3.tally.Histogram;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.ValueBuckets;
+import com.uber.m3.util.Duration;
+import com.uber.m3.util.ImmutableMap;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.temporal.internal.metrics.MetricsTag;
+import io.temporal.internal.metrics.MetricsType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reports per RPC metrics of the service calls. Metrics are tagged with the {@link
+ * MetricsTag#OPERATION} tag which value is one of the {@link io.temporal.internal.metrics
+ * .ServiceMethod} names:
+ *
+ * <ul>
+ *   <li>{@link MetricsType#TEMPORAL_REQUEST} counter of started calls
+ *   <li>{@link MetricsType#TEMPORAL_LATENCY} histogram of call latencies
+ *   <li>{@link MetricsType#TEMPORAL_REQUEST_IN_FLIGHT} gauge of calls waiting for a reply
+ *   <li>{@link MetricsType#TEMPORAL_REQUEST_PAYLOAD_SIZE} and {@link
+ *       MetricsType#TEMPORAL_RESPONSE_PAYLOAD_SIZE} histograms of serialized message sizes
+ *   <li>{@link MetricsType#TEMPORAL_ERROR} and {@link MetricsType#TEMPORAL_INVALID_REQUEST}
+ *       counters of failed calls additionally tagged with {@link MetricsTag#STATUS_CODE}
+ * </ul>
+ */
+final class GrpcMetricsInterceptor implements ClientInterceptor {
+
+  /** From 1 millisecond to about 2 minutes to cover long polls. */
+  private static final DurationBuckets LATENCY_BUCKETS =
+      DurationBuckets.exponential(Duration.ofMillis(1), 2, 18);
+
+  /** From 64 bytes to 64 megabytes. */
+  private static final ValueBuckets SIZE_BUCKETS = ValueBuckets.exponential(64, 4, 11);
+
+  private final Scope metricsScope;
+  private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+  GrpcMetricsInterceptor(Scope metricsScope) {
+    this.metricsScope = metricsScope;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    MethodMetrics metrics =
+        methods.computeIfAbsent(method.getFullMethodName(), (name) -> new MethodMetrics(name));
+    return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(
+        next.newCall(method, callOptions)) {
+
+      private long startNanos;
+
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata headers) {
+        startNanos = System.nanoTime();
+        metrics.onStart();
+        Listener<RespT> listener =
+            new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+                responseListener) {
+              @Override
+              public void onMessage(RespT message) {
+                metrics.responseSize(message);
+                super.onMessage(message);
+              }
+
+              @Override
+              public void onClose(Status status, Metadata trailers) {
+                metrics.onClose(status, System.nanoTime() - startNanos);
+                super.onClose(status, trailers);
+              }
+            };
+        try {
+          super.start(listener, headers);
+        } catch (RuntimeException e) {
+          metrics.onClose(Status.fromThrowable(e), System.nanoTime() - startNanos);
+          throw e;
+        }
+      }
+
+      @Override
+      public void sendMessage(ReqT message) {
+        metrics.requestSize(message);
+        super.sendMessage(message);
+      }
+    };
+  }
+
+  private final class MethodMetrics {
+
+    private final Scope scope;
+    private final Histogram latency;
+    private final Histogram requestSize;
+    private final Histogram responseSize;
+    private final Gauge inFlightGauge;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    MethodMetrics(String fullMethodName) {
+      String bareName = fullMethodName.substring(fullMethodName.lastIndexOf('/') + 1);
+      scope =
+          metricsScope.tagged(
+              ImmutableMap.of(
+                  MetricsTag.OPERATION, MetricsType.TEMPORAL_METRICS_PREFIX + bareName));
+      latency = scope.histogram(MetricsType.TEMPORAL_LATENCY, LATENCY_BUCKETS);
+      requestSize = scope.histogram(MetricsType.TEMPORAL_REQUEST_PAYLOAD_SIZE, SIZE_BUCKETS);
+      responseSize = scope.histogram(MetricsType.TEMPORAL_RESPONSE_PAYLOAD_SIZE, SIZE_BUCKETS);
+      inFlightGauge = scope.gauge(MetricsType.TEMPORAL_REQUEST_IN_FLIGHT);
+    }
+
+    void onStart() {
+      scope.counter(MetricsType.TEMPORAL_REQUEST).inc(1);
+      inFlightGauge.update(inFlight.incrementAndGet());
+    }
+
+    void onClose(Status status, long latencyNanos) {
+      inFlightGauge.update(inFlight.decrementAndGet());
+      latency.recordDuration(Duration.ofNanos(latencyNanos));
+      if (status.isOk()) {
+        return;
+      }
+      Status.Code code = status.getCode();
+      String name =
+          code == Status.Code.INVALID_ARGUMENT
+              ? MetricsType.TEMPORAL_INVALID_REQUEST
+              : MetricsType.TEMPORAL_ERROR;
+      scope.tagged(ImmutableMap.of(MetricsTag.STATUS_CODE, code.name())).counter(name).inc(1);
+    }
+
+    void requestSize(Object message) {
+      if (message instanceof MessageLite) {
+        requestSize.recordValue(((MessageLite) message).getSerializedSize());
+      }
+    }
+
+    void responseSize(Object message) {
+      if (message instanceof MessageLite) {
+        responseSize.recordValue(((MessageLite) message).getSerializedSize());
+      }
+    }
+  }
+}
@@ -34,17 +34,24 @@ import io.grpc.MethodDescriptor;
 import io.grpc.Server;
 import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
 import io.grpc.stub.MetadataUtils;
+import io.temporal.internal.metrics.NoopScope;
 import io.temporal.proto.workflowservice.WorkflowServiceGrpc;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** TODO: (vkoby) Add metrics. */
 public final class WorkflowServiceStubsImpl implements WorkflowServiceStubs {
 
   private static final Logger log = LoggerFactory.getLogger(WorkflowServiceStubsImpl.class);
@@ -72,6 +79,8 @@ public final class WorkflowServiceStubsImpl implements WorkflowServiceStubs {
   private final ManagedChannel channel;
   // Shutdown channel that was created by us
   private final boolean channelNeedsShutdown;
+  // Event loop threads owned by these stubs, null when the gRPC default group is used
+  private final EventLoopGroup eventLoopGroup;
   private final AtomicBoolean shutdownRequested = new AtomicBoolean();
   private final WorkflowServiceGrpc.WorkflowServiceBlockingStub blockingStub;
   private final WorkflowServiceGrpc.WorkflowServiceFutureStub futureStub;
@@ -89,6 +98,10 @@ public final class WorkflowServiceStubsImpl implements WorkflowServiceStubs {
       if (options.getChannel() != null) {
         throw new IllegalArgumentException("both channel and serviceImpl present");
       }
+      if (options.getChannelExecutor() != null && options.isDirectExecutor()) {
+        throw new IllegalStateException(
+            "Only one of the channelExecutor and directExecutor options can be set at a time");
+      }
       String serverName = InProcessServerBuilder.generateName();
       try {
         inProcessServer =
@@ -100,24 +113,37 @@ public final class WorkflowServiceStubsImpl implements WorkflowServiceStubs {
       } catch (IOException unexpected) {
         throw new RuntimeException(unexpected);
       }
+      InProcessChannelBuilder channelBuilder = InProcessChannelBuilder.forName(serverName);
+      if (options.getChannelExecutor() != null) {
+        channelBuilder.executor(options.getChannelExecutor());
+      } else {
+        channelBuilder.directExecutor();
+      }
+      // Cleared as they are already applied to the in-memory channel.
       options =
           WorkflowServiceStubsOptions.newBuilder(options)
-              .setChannel(InProcessChannelBuilder.forName(serverName).directExecutor().build())
+              .setChannelExecutor(null)
+              .setDirectExecutor(false)
+              .setChannel(channelBuilder.build())
               .build();
     } else {
       inProcessServer = null;
     }
     options = WorkflowServiceStubsOptions.newBuilder(options).validateAndBuildWithDefaults();
+    if (options.getChannel() == null && options.getEventLoopThreads() > 0) {
+      eventLoopGroup =
+          new NioEventLoopGroup(
+              options.getEventLoopThreads(),
+              new DefaultThreadFactory("temporal-grpc-event-loop", true));
+    } else {
+      eventLoopGroup = null;
+    }
     if (options.getChannel() != null) {
       this.channel = options.getChannel();
       // Do not shutdown a channel passed to the constructor from outside
       channelNeedsShutdown = serviceImpl != null;
     } else {
-      this.channel =
-          ManagedChannelBuilder.forTarget(options.getTarget())
-              .defaultLoadBalancingPolicy("round_robin")
-              .usePlaintext()
-              .build();
+      this.channel = newChannel(options, eventLoopGroup);
       channelNeedsShutdown = true;
     }
     ClientInterceptor deadlineInterceptor = new GrpcDeadlineInterceptor(options);
@@ -132,6 +158,12 @@ public final class WorkflowServiceStubsImpl implements WorkflowServiceStubs {
     if (log.isTraceEnabled()) {
       interceptedChannel = ClientInterceptors.intercept(interceptedChannel, tracingInterceptor);
     }
+    if (options.getMetricsScope() != NoopScope.getInstance()) {
+      // Installed last to be called first, so the latency includes the other interceptors.
+      interceptedChannel =
+          ClientInterceptors.intercept(
+              interceptedChannel, new GrpcMetricsInterceptor(options.getMetricsScope()));
+    }
     WorkflowServiceGrpc.WorkflowServiceBlockingStub bs =
         WorkflowServiceGrpc.newBlockingStub(interceptedChannel);
     if (options.getBlockingStubInterceptor().isPresent()) {
@@ -147,6 +179,45 @@ public final class WorkflowServiceStubsImpl implements WorkflowServiceStubs {
     log.info(String.format("Created GRPC client for channel: %s", channel));
   }
 
+  private static ManagedChannel newChannel(
+      WorkflowServiceStubsOptions options, EventLoopGroup eventLoopGroup) {
+    if (options.getChannelPoolSize() == 1 && options.getLongPollChannelPoolSize() == 0) {
+      return newTargetChannel(options, eventLoopGroup);
+    }
+    List<ManagedChannel> channels = new ArrayList<>();
+    for (int i = 0; i < options.getChannelPoolSize(); i++) {
+      channels.add(newTargetChannel(options, eventLoopGroup));
+    }
+    List<ManagedChannel> longPollChannels = new ArrayList<>();
+    for (int i = 0; i < options.getLongPollChannelPoolSize(); i++) {
+      longPollChannels.add(newTargetChannel(options, eventLoopGroup));
+    }
+    return new ChannelPool(channels, longPollChannels, options.getChannelSelection());
+  }
+
+  private static ManagedChannel newTargetChannel(
+      WorkflowServiceStubsOptions options, EventLoopGroup eventLoopGroup) {
+    ManagedChannelBuilder<?> builder;
+    if (eventLoopGroup != null || options.getFlowControlWindow() > 0) {
+      NettyChannelBuilder nettyBuilder = NettyChannelBuilder.forTarget(options.getTarget());
+      if (eventLoopGroup != null) {
+        nettyBuilder.eventLoopGroup(eventLoopGroup).channelType(NioSocketChannel.class);
+      }
+      if (options.getFlowControlWindow() > 0) {
+        nettyBuilder.flowControlWindow(options.getFlowControlWindow());
+      }
+      builder = nettyBuilder;
+    } else {
+      builder = ManagedChannelBuilder.forTarget(options.getTarget());
+    }
+    if (options.getChannelExecutor() != null) {
+      builder.executor(options.getChannelExecutor());
+    } else if (options.isDirectExecutor()) {
+      builder.directExecutor();
+    }
+    return builder.defaultLoadBalancingPolicy("round_robin").usePlaintext().build();
+  }
+
   private ClientInterceptor newTracingInterceptor() {
     return new ClientInterceptor() {
 
@@ -206,17 +277,38 @@ public final class WorkflowServiceStubsImpl implements WorkflowServiceStubs {
     if (channelNeedsShutdown) {
       channel.shutdown();
     }
+    if (eventLoopGroup != null) {
+      // The channel lets the calls that are still running, like long polls, finish. They need the
+      // event loop threads until then, so the group is shut down after the channel terminates.
+      Thread thread =
+          new Thread(
+              this::shutdownEventLoopGroupOnTermination, "temporal-grpc-event-loop-shutdown");
+      thread.setDaemon(true);
+      thread.start();
+    }
     if (inProcessServer != null) {
       inProcessServer.shutdown();
     }
   }
 
+  private void shutdownEventLoopGroupOnTermination() {
+    try {
+      channel.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+  }
+
   @Override
   public void shutdownNow() {
     shutdownRequested.set(true);
     if (channelNeedsShutdown) {
       channel.shutdownNow();
     }
+    if (eventLoopGroup != null) {
+      eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
     if (inProcessServer != null) {
       inProcessServer.shutdownNow();
     }
@@ -226,7 +318,12 @@ public final class WorkflowServiceStubsImpl implements WorkflowServiceStubs {
   public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
     long start = System.currentTimeMillis();
     if (channelNeedsShutdown) {
-      return channel.awaitTermination(timeout, unit);
+      boolean terminated = channel.awaitTermination(timeout, unit);
+      if (terminated && eventLoopGroup != null) {
+        long remaining = unit.toMillis(timeout) - (System.currentTimeMillis() - start);
+        terminated = eventLoopGroup.awaitTermination(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+      }
+      return terminated;
     }
     long left = System.currentTimeMillis() - unit.toMillis(start);
     if (inProcessServer != null) {
@@ -253,7 +350,7 @@ public final class WorkflowServiceStubsImpl implements WorkflowServiceStubs {
   public boolean isTerminated() {
     boolean result;
     if (channelNeedsShutdown) {
-      result = channel.isTerminated();
+      result = channel.isTerminated() && (eventLoopGroup == null || eventLoopGroup.isTerminated());
     } else {
       result = shutdownRequested.get();
     }
@@ -22,9 +22,7 @@ package io.temporal.internal.common;
 import java.time.Duration;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -62,8 +60,6 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public final class AsyncBackoffThrottler {
 
-  private static final ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
-
   private final Duration initialSleep;
 
   private final Duration maxSleep;
@@ -109,7 +105,7 @@ public final class AsyncBackoffThrottler {
     long delay = calculateSleepTime();
     @SuppressWarnings({"FutureReturnValueIgnored", "unused"})
     ScheduledFuture<?> ignored =
-        executor.schedule(() -> result.complete(null), delay, TimeUnit.MILLISECONDS);
+        ClientTimer.get().schedule(() -> result.complete(null), delay, TimeUnit.MILLISECONDS);
     return result;
   }
 
@@ -0,0 +1,200 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.common;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.temporal.proto.event.HistoryEvent;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Binary history file format. The file starts with the {@link #MAGIC} header followed by history
+ * events, each serialized as a varint length prefixed protobuf (the same framing as {@link
+ * com.google.protobuf.MessageLite#writeDelimitedTo(OutputStream)}).
+ *
+ * <p>Files are read through a memory mapped buffer. Reading only scans the event boundaries, each
+ * event is parsed on the first access to it. So opening even a very large history is cheap.
+ */
+public final class BinaryHistoryFormat {
+
+  /** Extension used for binary history files. */
+  public static final String FILE_EXTENSION = ".history";
+
+  private static final byte[] MAGIC = "TEMPORAL-HISTORY-V1\n".getBytes(US_ASCII);
+
+  /** Checks if a file starts with the binary history header. */
+  public static boolean isBinaryHistory(File historyFile) throws IOException {
+    try (InputStream in = Files.newInputStream(historyFile.toPath())) {
+      byte[] header = new byte[MAGIC.length];
+      int read = 0;
+      while (read < header.length) {
+        int r = in.read(header, read, header.length - read);
+        if (r < 0) {
+          return false;
+        }
+        read += r;
+      }
+      return Arrays.equals(MAGIC, header);
+    }
+  }
+
+  public static void write(WorkflowExecutionHistory history, File historyFile) throws IOException {
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(historyFile.toPath()))) {
+      write(history, out);
+    }
+  }
+
+  public static void write(WorkflowExecutionHistory history, OutputStream out) throws IOException {
+    out.write(MAGIC);
+    for (HistoryEvent event : history.getEvents()) {
+      event.writeDelimitedTo(out);
+    }
+  }
+
+  /** Converts a json serialized history into the binary history file. */
+  public static void convertFromJson(File jsonHistoryFile, File binaryHistoryFile)
+      throws IOException {
+    write(WorkflowExecutionUtils.readHistory(jsonHistoryFile), binaryHistoryFile);
+  }
+
+  /**
+   * Opens a binary history file. The returned history events are parsed lazily from the memory
+   * mapped file content.
+   */
+  public static WorkflowExecutionHistory read(File historyFile) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(historyFile.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("History file is too large: " + historyFile + ", size=" + size);
+      }
+      // The mapping stays valid after the channel is closed.
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    return read(buffer);
+  }
+
+  static WorkflowExecutionHistory read(ByteBuffer buffer) throws IOException {
+    ByteBuffer input = buffer.duplicate();
+    byte[] header = new byte[MAGIC.length];
+    if (input.remaining() < header.length) {
+      throw new IOException("Not a binary history: missing header");
+    }
+    input.get(header);
+    if (!Arrays.equals(MAGIC, header)) {
+      throw new IOException("Not a binary history: unexpected header");
+    }
+    int[] offsets = new int[64];
+    int[] sizes = new int[64];
+    int count = 0;
+    while (input.hasRemaining()) {
+      int size = readRawVarint32(input);
+      if (size < 0 || size > input.remaining()) {
+        throw new IOException("Truncated binary history at event " + count);
+      }
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+        sizes = Arrays.copyOf(sizes, count * 2);
+      }
+      offsets[count] = input.position();
+      sizes[count] = size;
+      count++;
+      input.position(input.position() + size);
+    }
+    return new WorkflowExecutionHistory(
+        new LazyHistoryEventList(buffer, offsets, sizes, count), false);
+  }
+
+  private static int readRawVarint32(ByteBuffer input) throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      if (!input.hasRemaining()) {
+        throw new IOException("Truncated binary history: incomplete event length");
+      }
+      byte b = input.get();
+      result |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return result;
+      }
+    }
+    throw new IOException("Malformed binary history: event length varint is too long");
+  }
+
+  /** Unmodifiable list that parses each event from the shared buffer on the first access. */
+  private static final class LazyHistoryEventList extends AbstractList<HistoryEvent>
+      implements RandomAccess {
+
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+    private final int[] sizes;
+    private final int count;
+    private final AtomicReferenceArray<HistoryEvent> events;
+
+    LazyHistoryEventList(ByteBuffer buffer, int[] offsets, int[] sizes, int count) {
+      this.buffer = buffer;
+      this.offsets = offsets;
+      this.sizes = sizes;
+      this.count = count;
+      this.events = new AtomicReferenceArray<>(count);
+    }
+
+    @Override
+    public HistoryEvent get(int index) {
+      if (index < 0 || index >= count) {
+        throw new IndexOutOfBoundsException("index=" + index + ", size=" + count);
+      }
+      HistoryEvent event = events.get(index);
+      if (event != null) {
+        return event;
+      }
+      ByteBuffer slice = buffer.duplicate();
+      slice.position(offsets[index]);
+      slice.limit(offsets[index] + sizes[index]);
+      try {
+        event = HistoryEvent.parseFrom(slice);
+      } catch (InvalidProtocolBufferException e) {
+        throw new IllegalStateException("Corrupted binary history event " + index, e);
+      }
+      events.compareAndSet(index, null, event);
+      return events.get(index);
+    }
+
+    @Override
+    public int size() {
+      return count;
+    }
+  }
+
+  /** Prohibit instantiation */
+  private BinaryHistoryFormat() {}
+}
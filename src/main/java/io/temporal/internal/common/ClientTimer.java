@@ -0,0 +1,52 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.common;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Daemon timer shared by all the clients of a process. It only runs timeouts, retry and hedge
+ * delays, so the scheduled tasks must not block.
+ */
+public final class ClientTimer {
+
+  private static final ScheduledThreadPoolExecutor TIMER = newTimer();
+
+  public static ScheduledExecutorService get() {
+    return TIMER;
+  }
+
+  private static ScheduledThreadPoolExecutor newTimer() {
+    ScheduledThreadPoolExecutor result =
+        new ScheduledThreadPoolExecutor(
+            1,
+            (r) -> {
+              Thread thread = new Thread(r, "workflow-client-timer");
+              thread.setDaemon(true);
+              return thread;
+            });
+    result.setRemoveOnCancelPolicy(true);
+    return result;
+  }
+
+  /** Prohibits instantiation. */
+  private ClientTimer() {}
+}
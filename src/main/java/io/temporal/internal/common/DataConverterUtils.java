@@ -20,12 +20,17 @@
 package io.temporal.internal.common;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableSet;
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.protobuf.ByteString;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.StreamingDataConverter;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,16 +41,23 @@ public class DataConverterUtils {
    * Stop emitting stack trace after this line. Makes serialized stack traces more readable and
    * compact as it omits most of framework level code.
    */
-  private static final ImmutableSet<String> CUTOFF_METHOD_NAMES =
-      ImmutableSet.of(
-          "io.temporal.internal.worker.POJOActivityImplementationFactory$POJOActivityImplementation.execute",
-          "io.temporal.internal.sync.POJODecisionTaskHandler$POJOWorkflowImplementation.execute");
+  private static final ImmutableSetMultimap<String, String> CUTOFF_METHOD_NAMES =
+      ImmutableSetMultimap.of(
+          "io.temporal.internal.worker.POJOActivityImplementationFactory$POJOActivityImplementation",
+          "execute",
+          "io.temporal.internal.sync.POJODecisionTaskHandler$POJOWorkflowImplementation",
+          "execute");
 
-  /** Used to parse a stack trace line. */
-  private static final String TRACE_ELEMENT_REGEXP =
-      "((?<className>.*)\\.(?<methodName>.*))\\(((?<fileName>.*?)(:(?<lineNumber>\\d+))?)\\)";
+  /**
+   * Buffers larger than this are not kept between serializations. Keeps memory used by workflow
+   * threads, which also serialize through this buffer, bounded.
+   */
+  private static final int MAX_RETAINED_BUFFER_SIZE = 16 * 1024;
+
+  private static final int INITIAL_BUFFER_SIZE = 1024;
 
-  private static final Pattern TRACE_ELEMENT_PATTERN = Pattern.compile(TRACE_ELEMENT_REGEXP);
+  private static final ThreadLocal<SerializationBuffer> SERIALIZATION_BUFFER =
+      ThreadLocal.withInitial(SerializationBuffer::new);
 
   private static final boolean SETTING_PRIVATE_FIELD_ALLOWED;
 
@@ -69,17 +81,15 @@ public class DataConverterUtils {
   }
 
   public static String serializeStackTrace(Throwable e) {
-    StringWriter sw = new StringWriter();
-    PrintWriter pw = new PrintWriter(sw);
     StackTraceElement[] trace = e.getStackTrace();
+    StringBuilder result = new StringBuilder(trace.length * 80);
     for (StackTraceElement element : trace) {
-      pw.println(element);
-      String fullMethodName = element.getClassName() + "." + element.getMethodName();
-      if (CUTOFF_METHOD_NAMES.contains(fullMethodName)) {
+      result.append(element).append(System.lineSeparator());
+      if (CUTOFF_METHOD_NAMES.containsEntry(element.getClassName(), element.getMethodName())) {
         break;
       }
     }
-    return sw.toString();
+    return result.toString();
   }
 
   /** Parses stack trace serialized using {@link #serializeStackTrace(Throwable)}. */
@@ -88,13 +98,26 @@ public class DataConverterUtils {
       return new StackTraceElement[0];
     }
     try {
-      @SuppressWarnings("StringSplitter")
-      String[] lines = stackTrace.split("\r\n|\n");
-      StackTraceElement[] result = new StackTraceElement[lines.length];
-      for (int i = 0; i < lines.length; i++) {
-        result[i] = parseStackTraceElement(lines[i]);
+      List<StackTraceElement> result = new ArrayList<>();
+      int start = 0;
+      int length = stackTrace.length();
+      // Trailing empty lines are ignored
+      while (length > 0 && stackTrace.charAt(length - 1) == '\n') {
+        length--;
+        if (length > 0 && stackTrace.charAt(length - 1) == '\r') {
+          length--;
+        }
       }
-      return result;
+      while (start < length) {
+        int end = stackTrace.indexOf('\n', start);
+        if (end == -1) {
+          end = length;
+        }
+        int lineEnd = end > start && stackTrace.charAt(end - 1) == '\r' ? end - 1 : end;
+        result.add(parseStackTraceElement(stackTrace, start, lineEnd));
+        start = end + 1;
+      }
+      return result.toArray(new StackTraceElement[0]);
     } catch (Exception e) {
       if (log.isWarnEnabled()) {
         log.warn("Failed to parse stack trace: " + stackTrace);
@@ -104,30 +127,49 @@ public class DataConverterUtils {
   }
 
   /**
-   * See {@link StackTraceElement#toString()} for input specification.
+   * Parses a line in the {@link StackTraceElement#toString()} format: {@code
+   * className.methodName(fileName:lineNumber)} where the line number is optional.
    *
-   * @param line line of stack trace.
-   * @return StackTraceElement that contains data from that line.
+   * @return StackTraceElement that contains data from that line or null if it doesn't match.
    */
-  private static StackTraceElement parseStackTraceElement(String line) {
-    Matcher matcher = TRACE_ELEMENT_PATTERN.matcher(line);
-    if (!matcher.matches()) {
+  private static StackTraceElement parseStackTraceElement(String trace, int start, int end) {
+    if (end <= start || trace.charAt(end - 1) != ')') {
+      return null;
+    }
+    int open = trace.lastIndexOf('(', end - 2);
+    if (open <= start) {
       return null;
     }
-    String declaringClass = matcher.group("className");
-    String methodName = matcher.group("methodName");
-    String fileName = matcher.group("fileName");
+    int dot = trace.lastIndexOf('.', open - 1);
+    if (dot < start) {
+      return null;
+    }
+    String declaringClass = trace.substring(start, dot);
+    String methodName = trace.substring(dot + 1, open);
+    int fileNameEnd = end - 1;
     int lineNumber = 0;
-    String lns = matcher.group("lineNumber");
-    if (lns != null && lns.length() > 0) {
+    int colon = trace.lastIndexOf(':', end - 2);
+    if (colon > open && colon < end - 2 && isDigits(trace, colon + 1, end - 1)) {
+      fileNameEnd = colon;
       try {
-        lineNumber = Integer.parseInt(matcher.group("lineNumber"));
+        lineNumber = Integer.parseInt(trace.substring(colon + 1, end - 1));
       } catch (NumberFormatException e) {
       }
     }
+    String fileName = trace.substring(open + 1, fileNameEnd);
     return new StackTraceElement(declaringClass, methodName, fileName, lineNumber);
   }
 
+  private static boolean isDigits(String value, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * We want to serialize the throwable and its cause separately, so that if the throwable is
    * serializable but the cause is not, we can still serialize them correctly (i.e. we serialize the
@@ -151,5 +193,95 @@ public class DataConverterUtils {
     return cause;
   }
 
+  /**
+   * Serializes values into a ByteString. Uses {@link StreamingDataConverter} if available to avoid
+   * copying the serialized form. Arrays returned by {@link DataConverter#toData(Object...)} are
+   * copied as they can be owned and modified by user code.
+   */
+  public static ByteString toByteString(DataConverter converter, Object... values)
+      throws DataConverterException {
+    if (converter instanceof StreamingDataConverter) {
+      SerializationBuffer buffer = SERIALIZATION_BUFFER.get();
+      if (buffer.inUse) {
+        // Called from inside of another writeData
+        ByteString.Output output = ByteString.newOutput();
+        ((StreamingDataConverter) converter).writeData(output, values);
+        return output.toByteString();
+      }
+      buffer.inUse = true;
+      try {
+        ((StreamingDataConverter) converter).writeData(buffer, values);
+        return buffer.toByteString();
+      } finally {
+        buffer.release();
+      }
+    }
+    return OptionsUtils.toByteString(converter.toData(values));
+  }
+
+  /** Deserializes a single value from a ByteString. Empty ByteString is converted to null. */
+  public static <T> T fromByteString(
+      DataConverter converter, ByteString content, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    if (converter instanceof StreamingDataConverter) {
+      return ((StreamingDataConverter) converter)
+          .readData(content.newInput(), valueClass, valueType);
+    }
+    return converter.fromData(content.toByteArray(), valueClass, valueType);
+  }
+
+  /** Deserializes an array of values of different types from a ByteString. */
+  public static Object[] fromByteStringArray(
+      DataConverter converter, ByteString content, Type... valueTypes)
+      throws DataConverterException {
+    if (converter instanceof StreamingDataConverter) {
+      return ((StreamingDataConverter) converter).readDataArray(content.newInput(), valueTypes);
+    }
+    return converter.fromDataArray(content.toByteArray(), valueTypes);
+  }
+
   private DataConverterUtils() {}
+
+  /**
+   * Per thread buffer that serialized payloads are written into before being copied into an exactly
+   * sized ByteString. Unlike {@link ByteString.Output} it doesn't allocate new chunks for every
+   * payload.
+   */
+  private static final class SerializationBuffer extends OutputStream {
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int size;
+    private boolean inUse;
+
+    @Override
+    public void write(int b) {
+      ensureCapacity(size + 1);
+      buffer[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      ensureCapacity(size + len);
+      System.arraycopy(b, off, buffer, size, len);
+      size += len;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+      }
+    }
+
+    ByteString toByteString() {
+      return size == 0 ? ByteString.EMPTY : ByteString.copyFrom(buffer, 0, size);
+    }
+
+    void release() {
+      size = 0;
+      inUse = false;
+      if (buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+        buffer = new byte[INITIAL_BUFFER_SIZE];
+      }
+    }
+  }
 }
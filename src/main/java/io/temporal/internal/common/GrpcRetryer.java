@@ -21,18 +21,35 @@ package io.temporal.internal.common;
 
 import static io.temporal.internal.common.CheckedExceptionWrapper.unwrap;
 
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.ImmutableMap;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.temporal.internal.metrics.MetricsTag;
+import io.temporal.internal.metrics.MetricsType;
+import io.temporal.internal.metrics.NoopScope;
 import io.temporal.proto.failure.QueryFailed;
 import java.time.Duration;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.BiFunction;
-import java.util.function.Function;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Retries gRPC calls using exponential backoff with decorrelated jitter. Each delay is picked
+ * uniformly between the initial interval and twice the backoff coefficient times the previous
+ * delay, so the average delay grows by the backoff coefficient while the retries of clients that
+ * failed together spread out instead of hitting the service in synchronized waves.
+ *
+ * <p>Callers can pass a {@link RetryBudget} that stops retrying when retries exceed a fraction of
+ * successful calls. The workflow client passes its own budget. Calls without a budget, like the
+ * ones workers use to report task results, are retried until their retry options give up.
+ * Asynchronous retries wait on the shared {@link ClientTimer} instead of blocking a thread.
+ */
 public final class GrpcRetryer {
   public static final RpcRetryOptions DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS;
 
@@ -75,36 +92,31 @@ public final class GrpcRetryer {
     R apply() throws E;
   }
 
-  /**
-   * Used to pass failure to a {@link java.util.concurrent.CompletionStage#thenCompose(Function)}
-   * which doesn't include exception parameter like {@link
-   * java.util.concurrent.CompletionStage#handle(BiFunction)} does.
-   */
-  private static class ValueExceptionPair<V> {
-
-    private final CompletableFuture<V> value;
-    private final Throwable exception;
-
-    public ValueExceptionPair(CompletableFuture<V> value, Throwable exception) {
-      this.value = value;
-      this.exception = exception;
-    }
-
-    public CompletableFuture<V> getValue() {
-      return value;
-    }
-
-    public Throwable getException() {
-      return exception;
-    }
-  }
-
   private static final Logger log = LoggerFactory.getLogger(GrpcRetryer.class);
 
   public static <T extends Throwable> void retry(RpcRetryOptions options, RetryableProc<T> r)
       throws T {
+    retry(options, null, NoopScope.getInstance(), null, r);
+  }
+
+  /**
+   * @param retryBudget budget that limits the retries, or null for no limit
+   * @param metricsScope scope to report retry metrics to
+   * @param serviceMethod one of {@link io.temporal.internal.metrics.ServiceMethod} constants used
+   *     to tag retry metrics, or null
+   */
+  public static <T extends Throwable> void retry(
+      RpcRetryOptions options,
+      RetryBudget retryBudget,
+      Scope metricsScope,
+      String serviceMethod,
+      RetryableProc<T> r)
+      throws T {
     retryWithResult(
         options,
+        retryBudget,
+        metricsScope,
+        serviceMethod,
         () -> {
           r.apply();
           return null;
@@ -113,159 +125,205 @@ public final class GrpcRetryer {
 
   public static <R, T extends Throwable> R retryWithResult(
       RpcRetryOptions options, RetryableFunc<R, T> r) throws T {
-    int attempt = 0;
-    long startTime = System.currentTimeMillis();
-    BackoffThrottler throttler =
-        new BackoffThrottler(
-            options.getInitialInterval(),
-            options.getMaximumInterval(),
-            options.getBackoffCoefficient());
-    do {
+    return retryWithResult(options, null, NoopScope.getInstance(), null, r);
+  }
+
+  /**
+   * Blocks the calling thread between the attempts. Prefer {@link
+   * #retryWithResultAsync(RpcRetryOptions, RetryBudget, Scope, String, Supplier)} where the caller
+   * can continue asynchronously.
+   */
+  public static <R, T extends Throwable> R retryWithResult(
+      RpcRetryOptions options,
+      RetryBudget retryBudget,
+      Scope metricsScope,
+      String serviceMethod,
+      RetryableFunc<R, T> r)
+      throws T {
+    RetryState state = new RetryState(options, retryBudget, metricsScope, serviceMethod);
+    while (true) {
       try {
-        attempt++;
-        throttler.throttle();
         R result = r.apply();
-        throttler.success();
+        state.onSuccess();
         return result;
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        throw new CancellationException();
       } catch (StatusRuntimeException e) {
         if (e.getStatus().getCode() == Status.Code.CANCELLED) {
           throw new CancellationException();
         }
-        throttler.failure();
-        for (RpcRetryOptions.DoNotRetryPair pair : options.getDoNotRetry()) {
-          if (pair.getCode() == e.getStatus().getCode()
-              && (pair.getDetailsClass() == null
-                  || StatusUtils.hasFailure(e, pair.getDetailsClass()))) {
-            rethrow(e);
-          }
-        }
-        long elapsed = System.currentTimeMillis() - startTime;
-        int maxAttempts = options.getMaximumAttempts();
-        Duration expiration = options.getExpiration();
-        if ((maxAttempts > 0 && attempt >= maxAttempts)
-            || (expiration != null && elapsed >= expiration.toMillis())) {
-          rethrow(e);
+        long delay = state.onFailure(e);
+        if (delay < 0) {
+          throw e;
         }
         log.warn("Retrying after failure", e);
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new CancellationException();
+        }
       }
-    } while (true);
+    }
   }
 
   public static <R> CompletableFuture<R> retryWithResultAsync(
       RpcRetryOptions options, Supplier<CompletableFuture<R>> function) {
-    int attempt = 0;
-    long startTime = System.currentTimeMillis();
-    AsyncBackoffThrottler throttler =
-        new AsyncBackoffThrottler(
-            options.getInitialInterval(),
-            options.getMaximumInterval(),
-            options.getBackoffCoefficient());
-    // Need this to unwrap checked exception.
-    CompletableFuture<R> unwrappedExceptionResult = new CompletableFuture<>();
-    CompletableFuture<R> result =
-        retryWithResultAsync(options, function, attempt + 1, startTime, throttler);
-    @SuppressWarnings({"FutureReturnValueIgnored", "unused"})
-    CompletableFuture<Void> ignored =
-        result.handle(
-            (r, e) -> {
-              if (e == null) {
-                unwrappedExceptionResult.complete(r);
-              } else {
-                unwrappedExceptionResult.completeExceptionally(unwrap(e));
-              }
-              return null;
-            });
-    return unwrappedExceptionResult;
+    return retryWithResultAsync(options, null, NoopScope.getInstance(), null, function);
   }
 
-  private static <R> CompletableFuture<R> retryWithResultAsync(
+  /**
+   * Retries without blocking any thread. The next attempt is scheduled on the shared {@link
+   * ClientTimer} and invoked from its thread, so the function must not block. Cancelling the
+   * returned future cancels the current attempt and stops the retries.
+   */
+  public static <R> CompletableFuture<R> retryWithResultAsync(
       RpcRetryOptions options,
-      Supplier<CompletableFuture<R>> function,
-      int attempt,
-      long startTime,
-      AsyncBackoffThrottler throttler) {
-    options.validate();
-    return throttler
-        .throttle()
-        .thenCompose(
-            (ignore) -> {
-              // try-catch is because get() call might throw.
-              try {
-                CompletableFuture<R> result = function.get();
-                if (result == null) {
-                  return CompletableFuture.completedFuture(null);
-                }
-                return result.handle(
-                    (r, e) -> {
-                      if (e == null) {
-                        throttler.success();
-                        return r;
-                      } else {
-                        throttler.failure();
-                        throw CheckedExceptionWrapper.wrap(e);
-                      }
-                    });
-              } catch (Throwable e) {
-                throttler.failure();
-                throw CheckedExceptionWrapper.wrap(e);
-              }
-            })
-        .handle((r, e) -> failOrRetry(options, function, attempt, startTime, throttler, r, e))
-        .thenCompose(
-            (pair) -> {
-              if (pair.getException() != null) {
-                throw CheckedExceptionWrapper.wrap(pair.getException());
-              }
-              return pair.getValue();
-            });
+      RetryBudget retryBudget,
+      Scope metricsScope,
+      String serviceMethod,
+      Supplier<CompletableFuture<R>> function) {
+    RetryState state = new RetryState(options, retryBudget, metricsScope, serviceMethod);
+    CompletableFuture<R> result = new CompletableFuture<>();
+    attemptAsync(state, function, result);
+    return result;
   }
 
-  /** Using {@link ValueExceptionPair} as future#thenCompose doesn't include exception parameter. */
-  private static <R> ValueExceptionPair<R> failOrRetry(
-      RpcRetryOptions options,
+  private static <R> void attemptAsync(
+      RetryState state, Supplier<CompletableFuture<R>> function, CompletableFuture<R> result) {
+    if (result.isDone()) {
+      return;
+    }
+    CompletableFuture<R> attempt;
+    try {
+      attempt = function.get();
+    } catch (Throwable e) {
+      onAsyncFailure(state, function, result, e);
+      return;
+    }
+    if (attempt == null) {
+      result.complete(null);
+      return;
+    }
+    result.whenComplete(
+        (r, e) -> {
+          if (result.isCancelled()) {
+            attempt.cancel(true);
+          }
+        });
+    attempt.whenComplete(
+        (r, e) -> {
+          if (e == null) {
+            state.onSuccess();
+            result.complete(r);
+          } else {
+            try {
+              onAsyncFailure(state, function, result, e);
+            } catch (Throwable t) {
+              result.completeExceptionally(t);
+            }
+          }
+        });
+  }
+
+  private static <R> void onAsyncFailure(
+      RetryState state,
       Supplier<CompletableFuture<R>> function,
-      int attempt,
-      long startTime,
-      AsyncBackoffThrottler throttler,
-      R r,
+      CompletableFuture<R> result,
       Throwable e) {
-    if (e == null) {
-      return new ValueExceptionPair<>(CompletableFuture.completedFuture(r), null);
+    if (e instanceof CompletionException && e.getCause() != null) {
+      e = e.getCause();
+    }
+    Throwable failure = unwrap(e);
+    if (!(failure instanceof StatusRuntimeException)) {
+      result.completeExceptionally(failure);
+      return;
     }
-    if (!(e instanceof StatusRuntimeException)) {
-      return new ValueExceptionPair<>(null, e);
+    long delay = state.onFailure((StatusRuntimeException) failure);
+    if (delay < 0) {
+      result.completeExceptionally(failure);
+      return;
     }
-    StatusRuntimeException exception = (StatusRuntimeException) e;
-    long elapsed = System.currentTimeMillis() - startTime;
-    for (RpcRetryOptions.DoNotRetryPair pair : options.getDoNotRetry()) {
-      if (pair.getCode() == exception.getStatus().getCode()
-          && (pair.getDetailsClass() == null
-              || StatusUtils.hasFailure(exception, pair.getDetailsClass()))) {
-        return new ValueExceptionPair<>(null, e);
+    log.debug("Retrying after failure", failure);
+    try {
+      ClientTimer.get()
+          .schedule(() -> attemptAsync(state, function, result), delay, TimeUnit.MILLISECONDS);
+    } catch (Throwable t) {
+      result.completeExceptionally(failure);
+    }
+  }
+
+  /** Attempt counting, backoff and metrics of a single retried call. */
+  private static final class RetryState {
+
+    private final RpcRetryOptions options;
+    // Null when retries are not limited
+    private final RetryBudget retryBudget;
+    private final Scope metricsScope;
+    private final long startTime = System.currentTimeMillis();
+    private int attempt = 1;
+    private long previousDelay;
+
+    RetryState(
+        RpcRetryOptions options,
+        RetryBudget retryBudget,
+        Scope metricsScope,
+        String serviceMethod) {
+      options.validate();
+      this.options = options;
+      this.retryBudget = retryBudget;
+      this.metricsScope =
+          serviceMethod == null
+              ? metricsScope
+              : metricsScope.tagged(ImmutableMap.of(MetricsTag.OPERATION, serviceMethod));
+    }
+
+    void onSuccess() {
+      if (retryBudget != null) {
+        retryBudget.onSuccess();
       }
     }
 
-    int maxAttempts = options.getMaximumAttempts();
-    if ((maxAttempts > 0 && attempt >= maxAttempts)
-        || (options.getExpiration() != null && elapsed >= options.getExpiration().toMillis())) {
-      return new ValueExceptionPair<>(null, e);
+    /** @return delay in milliseconds before the next attempt or -1 to give up */
+    long onFailure(StatusRuntimeException e) {
+      for (RpcRetryOptions.DoNotRetryPair pair : options.getDoNotRetry()) {
+        if (pair.getCode() == e.getStatus().getCode()
+            && (pair.getDetailsClass() == null
+                || StatusUtils.hasFailure(e, pair.getDetailsClass()))) {
+          return -1;
+        }
+      }
+      long remaining = Long.MAX_VALUE;
+      Duration expiration = options.getExpiration();
+      if (expiration != null) {
+        remaining = expiration.toMillis() - (System.currentTimeMillis() - startTime);
+      }
+      int maxAttempts = options.getMaximumAttempts();
+      if ((maxAttempts > 0 && attempt >= maxAttempts) || remaining <= 0) {
+        metricsScope.counter(MetricsType.RPC_RETRY_GIVE_UP_COUNTER).inc(1);
+        return -1;
+      }
+      if (retryBudget != null && !retryBudget.tryAcquire()) {
+        metricsScope.counter(MetricsType.RPC_RETRY_BUDGET_EXHAUSTED_COUNTER).inc(1);
+        return -1;
+      }
+      attempt++;
+      metricsScope.counter(MetricsType.RPC_RETRY_COUNTER).inc(1);
+      return Math.min(nextDelay(), remaining);
     }
-    log.debug("Retrying after failure", e);
-    CompletableFuture<R> next =
-        retryWithResultAsync(options, function, attempt + 1, startTime, throttler);
-    return new ValueExceptionPair<>(next, null);
-  }
 
-  private static <T extends Throwable> void rethrow(Exception e) throws T {
-    if (e instanceof RuntimeException) {
-      throw (RuntimeException) e;
-    } else {
-      @SuppressWarnings("unchecked")
-      T toRethrow = (T) e;
-      throw toRethrow;
+    private long nextDelay() {
+      long initial = options.getInitialInterval().toMillis();
+      long previous = previousDelay == 0 ? initial : previousDelay;
+      long upper = (long) (previous * options.getBackoffCoefficient() * 2);
+      long delay = initial;
+      if (upper > initial) {
+        delay = ThreadLocalRandom.current().nextLong(initial, upper + 1);
+      }
+      Duration maximumInterval = options.getMaximumInterval();
+      if (maximumInterval != null) {
+        delay = Math.min(delay, maximumInterval.toMillis());
+      }
+      previousDelay = delay;
+      return delay;
     }
   }
 
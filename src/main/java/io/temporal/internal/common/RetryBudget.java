@@ -0,0 +1,70 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.common;
+
+/**
+ * Token bucket that limits retries to a fraction of successful calls. Every retry takes a token and
+ * every successful call returns a fraction of one. While the service is healthy the bucket stays
+ * full and retries are never rejected. During an outage the tokens run out after a burst of
+ * retries, so the clients stop multiplying the load of a struggling service by their retry
+ * attempts. First attempts are never limited.
+ */
+public final class RetryBudget {
+
+  private final double maxTokens;
+  private final double tokensPerSuccess;
+
+  /** Guarded by this. */
+  private double tokens;
+
+  /**
+   * @param maxTokens size of the bucket, which is the number of retries allowed in a burst
+   * @param tokensPerSuccess tokens returned by a successful call, which is the long term ratio of
+   *     retries to successful calls
+   */
+  public RetryBudget(double maxTokens, double tokensPerSuccess) {
+    if (maxTokens < 1) {
+      throw new IllegalArgumentException("Invalid maxTokens: " + maxTokens);
+    }
+    if (tokensPerSuccess < 0) {
+      throw new IllegalArgumentException("Invalid tokensPerSuccess: " + tokensPerSuccess);
+    }
+    this.maxTokens = maxTokens;
+    this.tokensPerSuccess = tokensPerSuccess;
+    this.tokens = maxTokens;
+  }
+
+  /** @return true if a retry is allowed, false if the budget is exhausted */
+  public synchronized boolean tryAcquire() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  public synchronized void onSuccess() {
+    tokens = Math.min(maxTokens, tokens + tokensPerSuccess);
+  }
+
+  public synchronized double getTokens() {
+    return tokens;
+  }
+}
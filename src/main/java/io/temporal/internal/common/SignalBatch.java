@@ -0,0 +1,118 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.common;
+
+import io.temporal.common.converter.DataConverterException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Several signals to the same workflow delivered as a single signal named {@link #SIGNAL_NAME}. The
+ * workflow side unpacks the batch and handles the signals in their original order as if they were
+ * delivered one by one. Signal inputs are kept as encoded by the client data converter.
+ */
+public final class SignalBatch {
+
+  public static final String SIGNAL_NAME = "__signal_batch";
+
+  private static final byte VERSION = 1;
+
+  public static final class Entry {
+
+    private final String signalName;
+    private final byte[] input;
+
+    public Entry(String signalName, byte[] input) {
+      this.signalName = Objects.requireNonNull(signalName);
+      this.input = input;
+    }
+
+    public String getSignalName() {
+      return signalName;
+    }
+
+    public byte[] getInput() {
+      return input;
+    }
+  }
+
+  public static byte[] encode(List<Entry> entries) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeInt(entries.size());
+      for (Entry entry : entries) {
+        out.writeUTF(entry.getSignalName());
+        byte[] input = entry.getInput();
+        if (input == null) {
+          out.writeInt(-1);
+        } else {
+          out.writeInt(input.length);
+          out.write(input);
+        }
+      }
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static List<Entry> decode(byte[] batch) {
+    if (batch == null) {
+      return Collections.emptyList();
+    }
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(batch))) {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new DataConverterException("Unsupported signal batch version: " + version, null);
+      }
+      int count = in.readInt();
+      if (count < 0) {
+        throw new DataConverterException("Invalid signal batch size: " + count, null);
+      }
+      List<Entry> result = new ArrayList<>(Math.min(count, batch.length));
+      for (int i = 0; i < count; i++) {
+        String signalName = in.readUTF();
+        int length = in.readInt();
+        byte[] input = null;
+        if (length > in.available()) {
+          throw new DataConverterException("Truncated signal batch", null);
+        }
+        if (length >= 0) {
+          input = new byte[length];
+          in.readFully(input);
+        }
+        result.add(new Entry(signalName, input));
+      }
+      return result;
+    } catch (IOException e) {
+      throw new DataConverterException("Malformed signal batch", e);
+    }
+  }
+
+  private SignalBatch() {}
+}
@@ -43,8 +43,16 @@ public final class WorkflowExecutionHistory {
   private final List<HistoryEvent> events;
 
   public WorkflowExecutionHistory(List<HistoryEvent> events) {
+    this(events, true);
+  }
+
+  /**
+   * @param copy when false the events list is used as is. Used for lazily parsed unmodifiable lists
+   *     that would be fully parsed by a copy.
+   */
+  WorkflowExecutionHistory(List<HistoryEvent> events, boolean copy) {
     checkHistory(events);
-    this.events = ImmutableList.copyOf(events);
+    this.events = copy ? ImmutableList.copyOf(events) : events;
   }
 
   public static WorkflowExecutionHistory fromJson(String serialized) {
@@ -135,7 +135,11 @@ public class WorkflowExecutionUtils {
             (closeEvent) -> getResultFromCloseEvent(workflowExecution, workflowType, closeEvent));
   }
 
-  private static byte[] getResultFromCloseEvent(
+  /**
+   * Extracts workflow result from its close event or throws the exception that corresponds to the
+   * way the workflow was closed.
+   */
+  public static byte[] getResultFromCloseEvent(
       WorkflowExecution workflowExecution, Optional<String> workflowType, HistoryEvent closeEvent) {
     if (closeEvent == null) {
       throw new IllegalStateException("Workflow is still running");
@@ -792,7 +796,14 @@ public class WorkflowExecutionUtils {
     return readHistory(historyFile);
   }
 
+  /**
+   * Reads a history file. Both json serialized and {@link BinaryHistoryFormat binary} histories are
+   * supported.
+   */
   public static WorkflowExecutionHistory readHistory(File historyFile) throws IOException {
+    if (BinaryHistoryFormat.isBinaryHistory(historyFile)) {
+      return BinaryHistoryFormat.read(historyFile);
+    }
     try (Reader reader = Files.newBufferedReader(historyFile.toPath(), UTF_8)) {
       String jsonHistory = CharStreams.toString(reader);
       return WorkflowExecutionHistory.fromJson(jsonHistory);
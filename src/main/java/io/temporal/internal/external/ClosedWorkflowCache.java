@@ -0,0 +1,93 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.external;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.uber.m3.tally.Scope;
+import io.temporal.internal.metrics.MetricsType;
+import io.temporal.proto.event.HistoryEvent;
+import io.temporal.proto.execution.WorkflowExecution;
+import io.temporal.proto.execution.WorkflowExecutionInfo;
+import io.temporal.proto.execution.WorkflowExecutionStatus;
+import java.util.Objects;
+
+/**
+ * Keeps close events and descriptions of closed workflow executions. A closed execution never
+ * changes, so an entry is never updated or invalidated once added, only evicted when the cache is
+ * full. Executions without a run id are not cached, as the same workflow id can be reused by a
+ * later run.
+ */
+final class ClosedWorkflowCache {
+
+  private final Cache<WorkflowExecution, HistoryEvent> closeEvents;
+  private final Cache<WorkflowExecution, WorkflowExecutionInfo> descriptions;
+  private final Scope metricsScope;
+
+  ClosedWorkflowCache(int maxSize, Scope metricsScope) {
+    Preconditions.checkArgument(maxSize > 0, "Max cache size must be greater than 0");
+    this.closeEvents = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    this.descriptions = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    this.metricsScope = Objects.requireNonNull(metricsScope);
+  }
+
+  /** Returns the cached close event or null if the execution is not known to be closed. */
+  HistoryEvent getCloseEvent(WorkflowExecution execution) {
+    if (!isCacheable(execution)) {
+      return null;
+    }
+    return recordLookup(closeEvents.getIfPresent(execution));
+  }
+
+  void putCloseEvent(WorkflowExecution execution, HistoryEvent closeEvent) {
+    if (isCacheable(execution) && closeEvent != null) {
+      closeEvents.asMap().putIfAbsent(execution, closeEvent);
+    }
+  }
+
+  /** Returns the cached description or null if the execution is not known to be closed. */
+  WorkflowExecutionInfo getDescription(WorkflowExecution execution) {
+    if (!isCacheable(execution)) {
+      return null;
+    }
+    return recordLookup(descriptions.getIfPresent(execution));
+  }
+
+  /** Caches the description only when it reports the execution as closed. */
+  void putDescription(WorkflowExecution execution, WorkflowExecutionInfo description) {
+    if (isCacheable(execution) && description.getStatus() != WorkflowExecutionStatus.Running) {
+      descriptions.asMap().putIfAbsent(execution, description);
+    }
+  }
+
+  private <T> T recordLookup(T value) {
+    if (value == null) {
+      metricsScope.counter(MetricsType.CLOSED_WORKFLOW_CACHE_MISS).inc(1);
+    } else {
+      metricsScope.counter(MetricsType.CLOSED_WORKFLOW_CACHE_HIT).inc(1);
+    }
+    return value;
+  }
+
+  private static boolean isCacheable(WorkflowExecution execution) {
+    return !execution.getRunId().isEmpty();
+  }
+}
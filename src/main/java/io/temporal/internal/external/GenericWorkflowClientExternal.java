@@ -24,25 +24,60 @@ import io.temporal.internal.common.StartWorkflowExecutionParameters;
 import io.temporal.internal.common.TerminateWorkflowExecutionParameters;
 import io.temporal.internal.replay.QueryWorkflowParameters;
 import io.temporal.internal.replay.SignalExternalWorkflowParameters;
+import io.temporal.proto.event.HistoryEvent;
 import io.temporal.proto.execution.WorkflowExecution;
+import io.temporal.proto.execution.WorkflowExecutionInfo;
 import io.temporal.proto.workflowservice.QueryWorkflowResponse;
 import io.temporal.serviceclient.WorkflowServiceStubs;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public interface GenericWorkflowClientExternal {
 
   WorkflowExecution startWorkflow(StartWorkflowExecutionParameters startParameters);
 
+  CompletableFuture<WorkflowExecution> startWorkflowAsync(
+      StartWorkflowExecutionParameters startParameters);
+
   void signalWorkflowExecution(SignalExternalWorkflowParameters signalParameters);
 
+  CompletableFuture<Void> signalWorkflowExecutionAsync(
+      SignalExternalWorkflowParameters signalParameters);
+
   WorkflowExecution signalWithStartWorkflowExecution(
       SignalWithStartWorkflowExecutionParameters parameters);
 
+  CompletableFuture<WorkflowExecution> signalWithStartWorkflowExecutionAsync(
+      SignalWithStartWorkflowExecutionParameters parameters);
+
   void requestCancelWorkflowExecution(WorkflowExecution execution);
 
+  CompletableFuture<Void> requestCancelWorkflowExecutionAsync(WorkflowExecution execution);
+
   QueryWorkflowResponse queryWorkflow(QueryWorkflowParameters queryParameters);
 
+  CompletableFuture<QueryWorkflowResponse> queryWorkflowAsync(
+      QueryWorkflowParameters queryParameters);
+
   void terminateWorkflowExecution(TerminateWorkflowExecutionParameters terminateParameters);
 
+  CompletableFuture<Void> terminateWorkflowExecutionAsync(
+      TerminateWorkflowExecutionParameters terminateParameters);
+
+  /**
+   * Returns a future that completes with the close event of the execution. Concurrent waits for the
+   * same execution share a single long poll.
+   */
+  CompletableFuture<HistoryEvent> getWorkflowCloseEventAsync(
+      WorkflowExecution execution, long timeout, TimeUnit unit);
+
+  /** Returns the close event of the execution, waiting for it to close if needed. */
+  HistoryEvent getWorkflowCloseEvent(WorkflowExecution execution, long timeout, TimeUnit unit)
+      throws TimeoutException;
+
+  WorkflowExecutionInfo describeWorkflowExecution(WorkflowExecution execution);
+
   String generateUniqueId();
 
   WorkflowServiceStubs getService();
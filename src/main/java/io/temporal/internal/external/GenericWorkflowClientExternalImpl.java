@@ -20,24 +20,39 @@
 package io.temporal.internal.external;
 
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.ByteString;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.util.ImmutableMap;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.client.QueryOptions;
+import io.temporal.internal.common.ClientTimer;
 import io.temporal.internal.common.GrpcRetryer;
 import io.temporal.internal.common.OptionsUtils;
+import io.temporal.internal.common.RetryBudget;
 import io.temporal.internal.common.RetryParameters;
+import io.temporal.internal.common.RpcRetryOptions;
 import io.temporal.internal.common.SignalWithStartWorkflowExecutionParameters;
 import io.temporal.internal.common.StartWorkflowExecutionParameters;
 import io.temporal.internal.common.TerminateWorkflowExecutionParameters;
+import io.temporal.internal.common.WorkflowExecutionUtils;
 import io.temporal.internal.metrics.MetricsTag;
 import io.temporal.internal.metrics.MetricsType;
+import io.temporal.internal.metrics.ServiceMethod;
 import io.temporal.internal.replay.QueryWorkflowParameters;
 import io.temporal.internal.replay.SignalExternalWorkflowParameters;
 import io.temporal.proto.common.Header;
 import io.temporal.proto.common.Memo;
 import io.temporal.proto.common.RetryPolicy;
 import io.temporal.proto.common.SearchAttributes;
+import io.temporal.proto.event.HistoryEvent;
 import io.temporal.proto.execution.WorkflowExecution;
+import io.temporal.proto.execution.WorkflowExecutionInfo;
 import io.temporal.proto.query.WorkflowQuery;
 import io.temporal.proto.tasklist.TaskList;
 import io.temporal.proto.workflowservice.QueryWorkflowRequest;
@@ -50,9 +65,19 @@ import io.temporal.proto.workflowservice.StartWorkflowExecutionRequest;
 import io.temporal.proto.workflowservice.StartWorkflowExecutionResponse;
 import io.temporal.proto.workflowservice.TerminateWorkflowExecutionRequest;
 import io.temporal.serviceclient.WorkflowServiceStubs;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public final class GenericWorkflowClientExternalImpl implements GenericWorkflowClientExternal {
 
@@ -60,13 +85,39 @@ public final class GenericWorkflowClientExternalImpl implements GenericWorkflowC
   private final WorkflowServiceStubs service;
   private final Scope metricsScope;
   private final String identity;
+  private final WorkflowCompletionTracker completionTracker;
+  private final QueryOptions queryOptions;
+  private final LatencyPercentileTracker queryLatencies;
+  // Null when the cache is disabled
+  private final ClosedWorkflowCache closedWorkflows;
+  // Null when the retry budget is disabled
+  private final RetryBudget retryBudget;
 
   public GenericWorkflowClientExternalImpl(
-      WorkflowServiceStubs service, String namespace, String identity, Scope metricsScope) {
+      WorkflowServiceStubs service,
+      String namespace,
+      String identity,
+      Scope metricsScope,
+      int maxConcurrentResultPolls,
+      QueryOptions queryOptions,
+      int closedWorkflowCacheSize,
+      RetryBudget retryBudget) {
     this.service = service;
     this.namespace = namespace;
     this.identity = identity;
     this.metricsScope = metricsScope;
+    this.retryBudget = retryBudget;
+    this.completionTracker =
+        WorkflowCompletionTracker.newBuilder(service, namespace)
+            .setMaxConcurrentPolls(maxConcurrentResultPolls)
+            .setMetricsScope(metricsScope)
+            .build();
+    this.queryOptions = Objects.requireNonNull(queryOptions);
+    this.queryLatencies = new LatencyPercentileTracker(queryOptions.getHedgeDelayPercentile());
+    this.closedWorkflows =
+        closedWorkflowCacheSize > 0
+            ? new ClosedWorkflowCache(closedWorkflowCacheSize, metricsScope)
+            : null;
   }
 
   @Override
@@ -82,20 +133,50 @@ public final class GenericWorkflowClientExternalImpl implements GenericWorkflowC
   @Override
   public WorkflowExecution startWorkflow(StartWorkflowExecutionParameters startParameters) {
     try {
-      return startWorkflowInternal(startParameters);
+      StartWorkflowExecutionRequest request = newStartWorkflowRequest(startParameters);
+      StartWorkflowExecutionResponse result =
+          GrpcRetryer.retryWithResult(
+              GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+              retryBudget,
+              metricsScope,
+              ServiceMethod.START_WORKFLOW_EXECUTION,
+              () -> service.blockingStub().startWorkflowExecution(request));
+      return WorkflowExecution.newBuilder()
+          .setRunId(result.getRunId())
+          .setWorkflowId(request.getWorkflowId())
+          .build();
     } finally {
-      // TODO: can probably cache this
-      Map<String, String> tags =
-          new ImmutableMap.Builder<String, String>(3)
-              .put(MetricsTag.WORKFLOW_TYPE, startParameters.getWorkflowType().getName())
-              .put(MetricsTag.TASK_LIST, startParameters.getTaskList())
-              .put(MetricsTag.NAMESPACE, namespace)
-              .build();
-      metricsScope.tagged(tags).counter(MetricsType.WORKFLOW_START_COUNTER).inc(1);
+      incrementCounter(startParameters, MetricsType.WORKFLOW_START_COUNTER);
+    }
+  }
+
+  @Override
+  public CompletableFuture<WorkflowExecution> startWorkflowAsync(
+      StartWorkflowExecutionParameters startParameters) {
+    CompletableFuture<WorkflowExecution> result;
+    try {
+      StartWorkflowExecutionRequest request = newStartWorkflowRequest(startParameters);
+      result =
+          GrpcRetryer.retryWithResultAsync(
+                  GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+                  retryBudget,
+                  metricsScope,
+                  ServiceMethod.START_WORKFLOW_EXECUTION,
+                  () -> toCompletableFuture(service.futureStub().startWorkflowExecution(request)))
+              .thenApply(
+                  (r) ->
+                      WorkflowExecution.newBuilder()
+                          .setRunId(r.getRunId())
+                          .setWorkflowId(request.getWorkflowId())
+                          .build());
+    } catch (Exception e) {
+      result = failedFuture(e);
     }
+    return result.whenComplete(
+        (r, e) -> incrementCounter(startParameters, MetricsType.WORKFLOW_START_COUNTER));
   }
 
-  private WorkflowExecution startWorkflowInternal(
+  private StartWorkflowExecutionRequest newStartWorkflowRequest(
       StartWorkflowExecutionParameters startParameters) {
     StartWorkflowExecutionRequest.Builder request =
         StartWorkflowExecutionRequest.newBuilder()
@@ -143,17 +224,18 @@ public final class GenericWorkflowClientExternalImpl implements GenericWorkflowC
     if (header != null) {
       request.setHeader(header);
     }
+    return request.build();
+  }
 
-    StartWorkflowExecutionResponse result;
-    result =
-        GrpcRetryer.retryWithResult(
-            GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
-            () -> service.blockingStub().startWorkflowExecution(request.build()));
-
-    return WorkflowExecution.newBuilder()
-        .setRunId(result.getRunId())
-        .setWorkflowId(request.getWorkflowId())
-        .build();
+  private void incrementCounter(StartWorkflowExecutionParameters startParameters, String name) {
+    // TODO: can probably cache this
+    Map<String, String> tags =
+        new ImmutableMap.Builder<String, String>(3)
+            .put(MetricsTag.WORKFLOW_TYPE, startParameters.getWorkflowType().getName())
+            .put(MetricsTag.TASK_LIST, startParameters.getTaskList())
+            .put(MetricsTag.NAMESPACE, namespace)
+            .build();
+    metricsScope.tagged(tags).counter(name).inc(1);
   }
 
   private Memo toMemoGrpc(Map<String, byte[]> memo) {
@@ -204,46 +286,102 @@ public final class GenericWorkflowClientExternalImpl implements GenericWorkflowC
 
   @Override
   public void signalWorkflowExecution(SignalExternalWorkflowParameters signalParameters) {
-    SignalWorkflowExecutionRequest request =
-        SignalWorkflowExecutionRequest.newBuilder()
-            .setRequestId(UUID.randomUUID().toString())
-            .setIdentity(identity)
-            .setNamespace(
-                signalParameters.getNamespace() == null
-                    ? namespace
-                    : signalParameters.getNamespace())
-            .setInput(OptionsUtils.toByteString(signalParameters.getInput()))
-            .setSignalName(signalParameters.getSignalName())
-            .setWorkflowExecution(
-                WorkflowExecution.newBuilder()
-                    .setRunId(OptionsUtils.safeGet(signalParameters.getRunId()))
-                    .setWorkflowId(signalParameters.getWorkflowId()))
-            .build();
+    SignalWorkflowExecutionRequest request = newSignalRequest(signalParameters);
     GrpcRetryer.retry(
         GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+        retryBudget,
+        metricsScope,
+        ServiceMethod.SIGNAL_WORKFLOW_EXECUTION,
         () -> service.blockingStub().signalWorkflowExecution(request));
   }
 
+  @Override
+  public CompletableFuture<Void> signalWorkflowExecutionAsync(
+      SignalExternalWorkflowParameters signalParameters) {
+    try {
+      SignalWorkflowExecutionRequest request = newSignalRequest(signalParameters);
+      return GrpcRetryer.retryWithResultAsync(
+              GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+              retryBudget,
+              metricsScope,
+              ServiceMethod.SIGNAL_WORKFLOW_EXECUTION,
+              () -> toCompletableFuture(service.futureStub().signalWorkflowExecution(request)))
+          .thenApply((r) -> null);
+    } catch (Exception e) {
+      return failedFuture(e);
+    }
+  }
+
+  private SignalWorkflowExecutionRequest newSignalRequest(
+      SignalExternalWorkflowParameters signalParameters) {
+    return SignalWorkflowExecutionRequest.newBuilder()
+        .setRequestId(UUID.randomUUID().toString())
+        .setIdentity(identity)
+        .setNamespace(
+            signalParameters.getNamespace() == null ? namespace : signalParameters.getNamespace())
+        .setInput(OptionsUtils.toByteString(signalParameters.getInput()))
+        .setSignalName(signalParameters.getSignalName())
+        .setWorkflowExecution(
+            WorkflowExecution.newBuilder()
+                .setRunId(OptionsUtils.safeGet(signalParameters.getRunId()))
+                .setWorkflowId(signalParameters.getWorkflowId()))
+        .build();
+  }
+
   @Override
   public WorkflowExecution signalWithStartWorkflowExecution(
       SignalWithStartWorkflowExecutionParameters parameters) {
     try {
-      return signalWithStartWorkflowInternal(parameters, identity);
+      SignalWithStartWorkflowExecutionRequest request = newSignalWithStartRequest(parameters);
+      SignalWithStartWorkflowExecutionResponse result =
+          GrpcRetryer.retryWithResult(
+              GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+              retryBudget,
+              metricsScope,
+              ServiceMethod.SIGNAL_WITH_START_WORKFLOW_EXECUTION,
+              () -> service.blockingStub().signalWithStartWorkflowExecution(request));
+      return WorkflowExecution.newBuilder()
+          .setRunId(result.getRunId())
+          .setWorkflowId(request.getWorkflowId())
+          .build();
     } finally {
-      Map<String, String> tags =
-          new ImmutableMap.Builder<String, String>(3)
-              .put(
-                  MetricsTag.WORKFLOW_TYPE,
-                  parameters.getStartParameters().getWorkflowType().getName())
-              .put(MetricsTag.TASK_LIST, parameters.getStartParameters().getTaskList())
-              .put(MetricsTag.NAMESPACE, namespace)
-              .build();
-      metricsScope.tagged(tags).counter(MetricsType.WORKFLOW_SIGNAL_WITH_START_COUNTER).inc(1);
+      incrementCounter(
+          parameters.getStartParameters(), MetricsType.WORKFLOW_SIGNAL_WITH_START_COUNTER);
     }
   }
 
-  private WorkflowExecution signalWithStartWorkflowInternal(
-      SignalWithStartWorkflowExecutionParameters parameters, String identity) {
+  @Override
+  public CompletableFuture<WorkflowExecution> signalWithStartWorkflowExecutionAsync(
+      SignalWithStartWorkflowExecutionParameters parameters) {
+    CompletableFuture<WorkflowExecution> result;
+    try {
+      SignalWithStartWorkflowExecutionRequest request = newSignalWithStartRequest(parameters);
+      result =
+          GrpcRetryer.retryWithResultAsync(
+                  GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+                  retryBudget,
+                  metricsScope,
+                  ServiceMethod.SIGNAL_WITH_START_WORKFLOW_EXECUTION,
+                  () ->
+                      toCompletableFuture(
+                          service.futureStub().signalWithStartWorkflowExecution(request)))
+              .thenApply(
+                  (r) ->
+                      WorkflowExecution.newBuilder()
+                          .setRunId(r.getRunId())
+                          .setWorkflowId(request.getWorkflowId())
+                          .build());
+    } catch (Exception e) {
+      result = failedFuture(e);
+    }
+    return result.whenComplete(
+        (r, e) ->
+            incrementCounter(
+                parameters.getStartParameters(), MetricsType.WORKFLOW_SIGNAL_WITH_START_COUNTER));
+  }
+
+  private SignalWithStartWorkflowExecutionRequest newSignalWithStartRequest(
+      SignalWithStartWorkflowExecutionParameters parameters) {
     StartWorkflowExecutionParameters startParameters = parameters.getStartParameters();
 
     SignalWithStartWorkflowExecutionRequest.Builder request =
@@ -285,52 +423,277 @@ public final class GenericWorkflowClientExternalImpl implements GenericWorkflowC
     if (!Strings.isNullOrEmpty(startParameters.getCronSchedule())) {
       request.setCronSchedule(startParameters.getCronSchedule());
     }
-    SignalWithStartWorkflowExecutionResponse result;
-    result =
-        GrpcRetryer.retryWithResult(
-            GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
-            () -> service.blockingStub().signalWithStartWorkflowExecution(request.build()));
-    return WorkflowExecution.newBuilder()
-        .setRunId(result.getRunId())
-        .setWorkflowId(request.getWorkflowId())
-        .build();
+    return request.build();
   }
 
   @Override
   public void requestCancelWorkflowExecution(WorkflowExecution execution) {
-    RequestCancelWorkflowExecutionRequest request =
-        RequestCancelWorkflowExecutionRequest.newBuilder()
-            .setRequestId(UUID.randomUUID().toString())
-            .setIdentity(identity)
-            .setNamespace(namespace)
-            .setWorkflowExecution(execution)
-            .build();
+    RequestCancelWorkflowExecutionRequest request = newRequestCancelRequest(execution);
     GrpcRetryer.retry(
         GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+        retryBudget,
+        metricsScope,
+        ServiceMethod.REQUEST_CANCEL_WORKFLOW_EXECUTION,
         () -> service.blockingStub().requestCancelWorkflowExecution(request));
   }
 
+  @Override
+  public CompletableFuture<Void> requestCancelWorkflowExecutionAsync(WorkflowExecution execution) {
+    try {
+      RequestCancelWorkflowExecutionRequest request = newRequestCancelRequest(execution);
+      return GrpcRetryer.retryWithResultAsync(
+              GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+              retryBudget,
+              metricsScope,
+              ServiceMethod.REQUEST_CANCEL_WORKFLOW_EXECUTION,
+              () ->
+                  toCompletableFuture(service.futureStub().requestCancelWorkflowExecution(request)))
+          .thenApply((r) -> null);
+    } catch (Exception e) {
+      return failedFuture(e);
+    }
+  }
+
+  private RequestCancelWorkflowExecutionRequest newRequestCancelRequest(
+      WorkflowExecution execution) {
+    return RequestCancelWorkflowExecutionRequest.newBuilder()
+        .setRequestId(UUID.randomUUID().toString())
+        .setIdentity(identity)
+        .setNamespace(namespace)
+        .setWorkflowExecution(execution)
+        .build();
+  }
+
   @Override
   public QueryWorkflowResponse queryWorkflow(QueryWorkflowParameters queryParameters) {
-    QueryWorkflowRequest request =
-        QueryWorkflowRequest.newBuilder()
-            .setNamespace(namespace)
-            .setExecution(
-                WorkflowExecution.newBuilder()
-                    .setWorkflowId(queryParameters.getWorkflowId())
-                    .setRunId(OptionsUtils.safeGet(queryParameters.getRunId())))
-            .setQuery(
-                WorkflowQuery.newBuilder()
-                    .setQueryArgs(OptionsUtils.toByteString(queryParameters.getInput()))
-                    .setQueryType(queryParameters.getQueryType()))
-            .setQueryRejectCondition(queryParameters.getQueryRejectCondition())
-            .setQueryConsistencyLevel(queryParameters.getQueryConsistencyLevel())
-            .build();
+    if (queryOptions.getTimeout() != null || queryOptions.isHedgingEnabled()) {
+      return getUnchecked(queryWorkflowAsync(queryParameters));
+    }
+    QueryWorkflowRequest request = newQueryRequest(queryParameters);
     return GrpcRetryer.retryWithResult(
         GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+        retryBudget,
+        metricsScope,
+        ServiceMethod.QUERY_WORKFLOW,
         () -> service.blockingStub().queryWorkflow(request));
   }
 
+  @Override
+  public CompletableFuture<QueryWorkflowResponse> queryWorkflowAsync(
+      QueryWorkflowParameters queryParameters) {
+    try {
+      QueryWorkflowRequest request = newQueryRequest(queryParameters);
+      Duration timeout = queryOptions.getTimeout();
+      Deadline deadline =
+          timeout == null ? null : Deadline.after(timeout.toNanos(), TimeUnit.NANOSECONDS);
+      CompletableFuture<QueryWorkflowResponse> result =
+          queryOptions.isHedgingEnabled()
+              ? new HedgedQuery(request, deadline).start()
+              : queryWithDeadline(request, deadline);
+      if (deadline == null) {
+        return result;
+      }
+      return result.whenComplete(
+          (r, e) -> {
+            if (e instanceof StatusRuntimeException
+                && ((StatusRuntimeException) e).getStatus().getCode()
+                    == Status.Code.DEADLINE_EXCEEDED) {
+              metricsScope.counter(MetricsType.QUERY_DEADLINE_EXCEEDED_COUNTER).inc(1);
+            }
+          });
+    } catch (Exception e) {
+      return failedFuture(e);
+    }
+  }
+
+  /**
+   * Sends a query retrying it until the deadline. The deadline is attached to every attempt, so the
+   * service doesn't keep working on a query after the caller gave up on it.
+   */
+  private CompletableFuture<QueryWorkflowResponse> queryWithDeadline(
+      QueryWorkflowRequest request, Deadline deadline) {
+    if (deadline == null) {
+      return GrpcRetryer.retryWithResultAsync(
+          GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+          retryBudget,
+          metricsScope,
+          ServiceMethod.QUERY_WORKFLOW,
+          () -> toCompletableFuture(service.futureStub().queryWorkflow(request)));
+    }
+    RpcRetryOptions retryOptions =
+        RpcRetryOptions.newBuilder(GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS)
+            .setExpiration(
+                Duration.ofMillis(Math.max(1, deadline.timeRemaining(TimeUnit.MILLISECONDS))))
+            .validateBuildWithDefaults();
+    return GrpcRetryer.retryWithResultAsync(
+        retryOptions,
+        retryBudget,
+        metricsScope,
+        ServiceMethod.QUERY_WORKFLOW,
+        () ->
+            toCompletableFuture(
+                service.futureStub().withDeadline(deadline).queryWorkflow(request)));
+  }
+
+  /**
+   * Query that sends an identical hedge request when the first one is not answered within the
+   * configured percentile of the recent query latencies. The first successful response wins and the
+   * other request is cancelled. The result fails only after every sent request failed.
+   */
+  private final class HedgedQuery {
+
+    private final QueryWorkflowRequest request;
+    private final Deadline deadline;
+    private final CompletableFuture<QueryWorkflowResponse> result = new CompletableFuture<>();
+    /** Sent requests. Guarded by this. */
+    private final List<CompletableFuture<QueryWorkflowResponse>> attempts = new ArrayList<>(2);
+
+    /** Requests sent without known failure. Guarded by this. */
+    private int inFlight;
+
+    HedgedQuery(QueryWorkflowRequest request, Deadline deadline) {
+      this.request = request;
+      this.deadline = deadline;
+    }
+
+    CompletableFuture<QueryWorkflowResponse> start() {
+      metricsScope.counter(MetricsType.QUERY_HEDGE_ELIGIBLE_COUNTER).inc(1);
+      synchronized (this) {
+        inFlight = 1;
+      }
+      send(false);
+      long delayNanos =
+          queryLatencies.getPercentileNanos(queryOptions.getInitialHedgeDelay().toNanos());
+      ScheduledFuture<?> hedgeTimer =
+          ClientTimer.get().schedule(this::hedge, delayNanos, TimeUnit.NANOSECONDS);
+      result.whenComplete(
+          (r, e) -> {
+            hedgeTimer.cancel(false);
+            cancelAttempts();
+          });
+      return result;
+    }
+
+    private void cancelAttempts() {
+      List<CompletableFuture<QueryWorkflowResponse>> toCancel;
+      synchronized (this) {
+        toCancel = new ArrayList<>(attempts);
+      }
+      for (CompletableFuture<QueryWorkflowResponse> attempt : toCancel) {
+        attempt.cancel(true);
+      }
+    }
+
+    private void hedge() {
+      synchronized (this) {
+        // Doesn't hedge a query that already failed or has no time left.
+        if (result.isDone() || inFlight == 0 || (deadline != null && deadline.isExpired())) {
+          return;
+        }
+        inFlight++;
+      }
+      metricsScope.counter(MetricsType.QUERY_HEDGE_COUNTER).inc(1);
+      send(true);
+    }
+
+    private void send(boolean isHedge) {
+      long startNanos = System.nanoTime();
+      CompletableFuture<QueryWorkflowResponse> attempt = queryWithDeadline(request, deadline);
+      synchronized (this) {
+        attempts.add(attempt);
+      }
+      // The result might have completed before the attempt was added.
+      if (result.isDone()) {
+        attempt.cancel(true);
+      }
+      attempt.whenComplete(
+          (r, e) -> {
+            if (e == null) {
+              queryLatencies.record(System.nanoTime() - startNanos);
+              if (result.complete(r) && isHedge) {
+                metricsScope.counter(MetricsType.QUERY_HEDGE_WIN_COUNTER).inc(1);
+              }
+              return;
+            }
+            boolean last;
+            synchronized (this) {
+              last = --inFlight == 0;
+            }
+            if (last) {
+              result.completeExceptionally(e);
+            }
+          });
+    }
+  }
+
+  private QueryWorkflowRequest newQueryRequest(QueryWorkflowParameters queryParameters) {
+    return QueryWorkflowRequest.newBuilder()
+        .setNamespace(namespace)
+        .setExecution(
+            WorkflowExecution.newBuilder()
+                .setWorkflowId(queryParameters.getWorkflowId())
+                .setRunId(OptionsUtils.safeGet(queryParameters.getRunId())))
+        .setQuery(
+            WorkflowQuery.newBuilder()
+                .setQueryArgs(OptionsUtils.toByteString(queryParameters.getInput()))
+                .setQueryType(queryParameters.getQueryType()))
+        .setQueryRejectCondition(queryParameters.getQueryRejectCondition())
+        .setQueryConsistencyLevel(queryParameters.getQueryConsistencyLevel())
+        .build();
+  }
+
+  @Override
+  public CompletableFuture<HistoryEvent> getWorkflowCloseEventAsync(
+      WorkflowExecution execution, long timeout, TimeUnit unit) {
+    if (closedWorkflows == null) {
+      return completionTracker.getCloseEventAsync(execution, timeout, unit);
+    }
+    HistoryEvent cached = closedWorkflows.getCloseEvent(execution);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    return completionTracker
+        .getCloseEventAsync(execution, timeout, unit)
+        .thenApply(
+            (closeEvent) -> {
+              closedWorkflows.putCloseEvent(execution, closeEvent);
+              return closeEvent;
+            });
+  }
+
+  @Override
+  public HistoryEvent getWorkflowCloseEvent(
+      WorkflowExecution execution, long timeout, TimeUnit unit) throws TimeoutException {
+    if (closedWorkflows != null) {
+      HistoryEvent cached = closedWorkflows.getCloseEvent(execution);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    HistoryEvent closeEvent =
+        WorkflowExecutionUtils.getInstanceCloseEvent(service, namespace, execution, timeout, unit);
+    if (closedWorkflows != null) {
+      closedWorkflows.putCloseEvent(execution, closeEvent);
+    }
+    return closeEvent;
+  }
+
+  @Override
+  public WorkflowExecutionInfo describeWorkflowExecution(WorkflowExecution execution) {
+    if (closedWorkflows != null) {
+      WorkflowExecutionInfo cached = closedWorkflows.getDescription(execution);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    WorkflowExecutionInfo description =
+        WorkflowExecutionUtils.describeWorkflowInstance(service, namespace, execution);
+    if (closedWorkflows != null) {
+      closedWorkflows.putDescription(execution, description);
+    }
+    return description;
+  }
+
   @Override
   public String generateUniqueId() {
     String workflowId = UUID.randomUUID().toString();
@@ -339,16 +702,94 @@ public final class GenericWorkflowClientExternalImpl implements GenericWorkflowC
 
   @Override
   public void terminateWorkflowExecution(TerminateWorkflowExecutionParameters terminateParameters) {
-    TerminateWorkflowExecutionRequest request =
-        TerminateWorkflowExecutionRequest.newBuilder()
-            .setIdentity(identity)
-            .setWorkflowExecution(terminateParameters.getWorkflowExecution())
-            .setNamespace(namespace)
-            .setDetails(ByteString.copyFrom(terminateParameters.getDetails()))
-            .setReason(terminateParameters.getReason())
-            .build();
+    TerminateWorkflowExecutionRequest request = newTerminateRequest(terminateParameters);
     GrpcRetryer.retry(
         GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+        retryBudget,
+        metricsScope,
+        ServiceMethod.TERMINATE_WORKFLOW_EXECUTION,
         () -> service.blockingStub().terminateWorkflowExecution(request));
   }
+
+  @Override
+  public CompletableFuture<Void> terminateWorkflowExecutionAsync(
+      TerminateWorkflowExecutionParameters terminateParameters) {
+    try {
+      TerminateWorkflowExecutionRequest request = newTerminateRequest(terminateParameters);
+      return GrpcRetryer.retryWithResultAsync(
+              GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+              retryBudget,
+              metricsScope,
+              ServiceMethod.TERMINATE_WORKFLOW_EXECUTION,
+              () -> toCompletableFuture(service.futureStub().terminateWorkflowExecution(request)))
+          .thenApply((r) -> null);
+    } catch (Exception e) {
+      return failedFuture(e);
+    }
+  }
+
+  private TerminateWorkflowExecutionRequest newTerminateRequest(
+      TerminateWorkflowExecutionParameters terminateParameters) {
+    return TerminateWorkflowExecutionRequest.newBuilder()
+        .setIdentity(identity)
+        .setWorkflowExecution(terminateParameters.getWorkflowExecution())
+        .setNamespace(namespace)
+        .setDetails(ByteString.copyFrom(terminateParameters.getDetails()))
+        .setReason(terminateParameters.getReason())
+        .build();
+  }
+
+  /**
+   * Adapts a gRPC future to a {@link CompletableFuture}. The callback runs on the gRPC executor
+   * that completed the call as it only hands the already available result over.
+   */
+  /** Cancelling the result cancels the gRPC call. */
+  private static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> future) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    result.whenComplete(
+        (r, e) -> {
+          if (result.isCancelled()) {
+            future.cancel(true);
+          }
+        });
+    Futures.addCallback(
+        future,
+        new FutureCallback<T>() {
+          @Override
+          public void onSuccess(T value) {
+            result.complete(value);
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            result.completeExceptionally(t);
+          }
+        },
+        MoreExecutors.directExecutor());
+    return result;
+  }
+
+  private static <T> T getUnchecked(CompletableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    result.completeExceptionally(e);
+    return result;
+  }
 }
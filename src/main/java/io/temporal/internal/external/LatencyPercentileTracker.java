@@ -0,0 +1,77 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.external;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a window of the most recent call latencies and reports their percentile. The percentile is
+ * recomputed only after a number of new samples is recorded, so reading it is cheap enough to be
+ * done on every call.
+ */
+final class LatencyPercentileTracker {
+
+  private static final int WINDOW_SIZE = 256;
+  /** Number of samples required before the percentile is trusted. */
+  private static final int MIN_SAMPLES = 20;
+
+  private static final int RECOMPUTE_INTERVAL = 16;
+
+  private final double percentile;
+  private final long[] samples = new long[WINDOW_SIZE];
+  private int count;
+  private int next;
+  private int sinceRecompute;
+  private long cachedNanos = -1;
+
+  LatencyPercentileTracker(double percentile) {
+    if (percentile <= 0 || percentile >= 1) {
+      throw new IllegalArgumentException("Invalid percentile: " + percentile);
+    }
+    this.percentile = percentile;
+  }
+
+  synchronized void record(long latencyNanos) {
+    samples[next] = latencyNanos;
+    next = (next + 1) % WINDOW_SIZE;
+    if (count < WINDOW_SIZE) {
+      count++;
+    }
+    sinceRecompute++;
+  }
+
+  /**
+   * @return percentile of the recorded latencies in nanoseconds or defaultNanos if not enough
+   *     samples were recorded yet
+   */
+  synchronized long getPercentileNanos(long defaultNanos) {
+    if (count < MIN_SAMPLES) {
+      return defaultNanos;
+    }
+    if (cachedNanos < 0 || sinceRecompute >= RECOMPUTE_INTERVAL) {
+      long[] sorted = Arrays.copyOf(samples, count);
+      Arrays.sort(sorted);
+      int index = (int) Math.ceil(percentile * count) - 1;
+      cachedNanos = sorted[Math.max(0, Math.min(index, count - 1))];
+      sinceRecompute = 0;
+    }
+    return cachedNanos;
+  }
+}
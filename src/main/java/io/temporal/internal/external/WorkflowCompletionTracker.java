@@ -0,0 +1,382 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.external;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.ByteString;
+import com.uber.m3.tally.Scope;
+import io.grpc.Status;
+import io.temporal.internal.common.ClientTimer;
+import io.temporal.internal.common.WorkflowExecutionUtils;
+import io.temporal.internal.metrics.MetricsType;
+import io.temporal.internal.metrics.NoopScope;
+import io.temporal.proto.event.EventType;
+import io.temporal.proto.event.History;
+import io.temporal.proto.event.HistoryEvent;
+import io.temporal.proto.execution.WorkflowExecution;
+import io.temporal.proto.filter.HistoryEventFilterType;
+import io.temporal.proto.workflowservice.GetWorkflowExecutionHistoryRequest;
+import io.temporal.proto.workflowservice.GetWorkflowExecutionHistoryResponse;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for workflow completions using a bounded number of concurrent close event long polls.
+ *
+ * <p>Callers waiting for the same execution share a single poll. Executions that wait for a free
+ * poll are kept in a priority queue ordered by their expected completion time: a never polled
+ * execution is expected to complete now and an execution that has been running for some time is
+ * expected to run about as long again. So short workflows are not stuck behind long running ones
+ * and no execution is starved as newly registered ones are always expected later.
+ */
+public final class WorkflowCompletionTracker {
+
+  public static Builder newBuilder(WorkflowServiceStubs service, String namespace) {
+    return new Builder(service, namespace);
+  }
+
+  public static final class Builder {
+
+    private final WorkflowServiceStubs service;
+    private final String namespace;
+    private int maxConcurrentPolls = 1000;
+    private Duration pollTimeout = Duration.ofSeconds(10);
+    private Scope metricsScope = NoopScope.getInstance();
+
+    private Builder(WorkflowServiceStubs service, String namespace) {
+      this.service = Objects.requireNonNull(service);
+      this.namespace = Objects.requireNonNull(namespace);
+    }
+
+    /** Maximum number of close event long polls in flight. Default is 1000. */
+    public Builder setMaxConcurrentPolls(int maxConcurrentPolls) {
+      Preconditions.checkArgument(maxConcurrentPolls > 0, "maxConcurrentPolls must be positive");
+      this.maxConcurrentPolls = maxConcurrentPolls;
+      return this;
+    }
+
+    /**
+     * Deadline of a single long poll. When it expires the execution gives its poll to the next
+     * waiting one. Default is 10 seconds.
+     */
+    public Builder setPollTimeout(Duration pollTimeout) {
+      Preconditions.checkArgument(
+          !pollTimeout.isNegative() && !pollTimeout.isZero(), "pollTimeout must be positive");
+      this.pollTimeout = pollTimeout;
+      return this;
+    }
+
+    public Builder setMetricsScope(Scope metricsScope) {
+      this.metricsScope = Objects.requireNonNull(metricsScope);
+      return this;
+    }
+
+    public WorkflowCompletionTracker build() {
+      return new WorkflowCompletionTracker(this);
+    }
+  }
+
+  /** Timeouts at or above this value are treated as infinite. */
+  private static final long MAX_TIMEOUT_MILLIS = Integer.MAX_VALUE;
+
+  private static final long INITIAL_RETRY_INTERVAL_MILLIS = 1;
+  private static final long MAXIMUM_RETRY_INTERVAL_MILLIS = 1000;
+  private static final double RETRY_BACKOFF_COEFFICIENT = 1.5;
+
+  private final WorkflowServiceStubs service;
+  private final String namespace;
+  private final int maxConcurrentPolls;
+  private final long pollTimeoutMillis;
+  private final Scope metricsScope;
+
+  private final Object lock = new Object();
+  private final Map<WorkflowExecution, Execution> executions = new HashMap<>();
+  private final PriorityQueue<Execution> queue =
+      new PriorityQueue<>(Comparator.comparingLong((Execution e) -> e.expectedCompletionTime));
+  private int waiting;
+  private int pollsInFlight;
+
+  private WorkflowCompletionTracker(Builder builder) {
+    this.service = builder.service;
+    this.namespace = builder.namespace;
+    this.maxConcurrentPolls = builder.maxConcurrentPolls;
+    this.pollTimeoutMillis = builder.pollTimeout.toMillis();
+    this.metricsScope = builder.metricsScope;
+  }
+
+  /**
+   * Returns a future that completes with the close event of the execution. Follows the chain of
+   * runs if the workflow continues as new.
+   *
+   * @param timeout maximum time to wait. 0 means no timeout.
+   * @return future that fails with {@link TimeoutException} if the execution doesn't complete in
+   *     time
+   */
+  public CompletableFuture<HistoryEvent> getCloseEventAsync(
+      WorkflowExecution workflowExecution, long timeout, TimeUnit unit) {
+    CompletableFuture<HistoryEvent> result = new CompletableFuture<>();
+    Execution execution;
+    synchronized (lock) {
+      execution = executions.get(workflowExecution);
+      if (execution == null) {
+        execution = new Execution(workflowExecution);
+        executions.put(workflowExecution, execution);
+        queue.add(execution);
+      }
+      execution.waiters.add(result);
+      waiting++;
+    }
+    long timeoutMillis = unit.toMillis(timeout);
+    if (timeoutMillis != 0 && timeoutMillis < MAX_TIMEOUT_MILLIS) {
+      ScheduledFuture<?> timer =
+          ClientTimer.get()
+              .schedule(
+                  () ->
+                      result.completeExceptionally(
+                          new TimeoutException(
+                              "WorkflowId="
+                                  + workflowExecution.getWorkflowId()
+                                  + ", runId="
+                                  + workflowExecution.getRunId()
+                                  + ", timeout="
+                                  + timeout
+                                  + ", unit="
+                                  + unit)),
+                  timeoutMillis,
+                  TimeUnit.MILLISECONDS);
+      result.whenComplete((r, e) -> timer.cancel(false));
+    }
+    // Covers timeouts as well as callers that cancel the returned future.
+    Execution registered = execution;
+    result.whenComplete((r, e) -> removeWaiter(registered, result));
+    dispatch();
+    return result;
+  }
+
+  private void removeWaiter(Execution execution, CompletableFuture<HistoryEvent> waiter) {
+    synchronized (lock) {
+      // Executions left without waiters are dropped lazily when their turn to poll comes.
+      if (execution.waiters.remove(waiter)) {
+        waiting--;
+      }
+    }
+    reportGauges();
+  }
+
+  private void dispatch() {
+    List<Execution> toPoll = new ArrayList<>();
+    synchronized (lock) {
+      while (pollsInFlight < maxConcurrentPolls && !queue.isEmpty()) {
+        Execution execution = queue.poll();
+        if (execution.waiters.isEmpty()) {
+          executions.remove(execution.key);
+          continue;
+        }
+        pollsInFlight++;
+        toPoll.add(execution);
+      }
+    }
+    reportGauges();
+    for (Execution execution : toPoll) {
+      poll(execution);
+    }
+  }
+
+  private void poll(Execution execution) {
+    GetWorkflowExecutionHistoryRequest request =
+        GetWorkflowExecutionHistoryRequest.newBuilder()
+            .setNamespace(namespace)
+            .setExecution(execution.current)
+            .setHistoryEventFilterType(HistoryEventFilterType.CloseEvent)
+            .setWaitForNewEvent(true)
+            .setNextPageToken(execution.pageToken)
+            .build();
+    ListenableFuture<GetWorkflowExecutionHistoryResponse> response;
+    try {
+      response =
+          service
+              .futureStub()
+              .withDeadlineAfter(pollTimeoutMillis, TimeUnit.MILLISECONDS)
+              .getWorkflowExecutionHistory(request);
+    } catch (Exception e) {
+      onPollFailure(execution, e);
+      return;
+    }
+    Futures.addCallback(
+        response,
+        new FutureCallback<GetWorkflowExecutionHistoryResponse>() {
+          @Override
+          public void onSuccess(GetWorkflowExecutionHistoryResponse result) {
+            onPollSuccess(execution, result);
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            onPollFailure(execution, t);
+          }
+        },
+        ForkJoinPool.commonPool());
+  }
+
+  private void onPollSuccess(Execution execution, GetWorkflowExecutionHistoryResponse response) {
+    execution.failedPolls = 0;
+    History history = response.getHistory();
+    if (history.getEventsCount() == 0) {
+      // Empty poll returned
+      requeue(execution, false);
+      return;
+    }
+    HistoryEvent event = history.getEvents(0);
+    if (!WorkflowExecutionUtils.isWorkflowExecutionCompletedEvent(event)) {
+      complete(
+          execution,
+          null,
+          new RuntimeException("Last history event is not completion event: " + event));
+      return;
+    }
+    // Workflow called continueAsNew. Start polling the new generation with new runId.
+    if (event.getEventType() == EventType.WorkflowExecutionContinuedAsNew) {
+      execution.current =
+          WorkflowExecution.newBuilder()
+              .setWorkflowId(execution.current.getWorkflowId())
+              .setRunId(
+                  event.getWorkflowExecutionContinuedAsNewEventAttributes().getNewExecutionRunId())
+              .build();
+      execution.pageToken = response.getNextPageToken();
+      requeue(execution, true);
+      return;
+    }
+    complete(execution, event, null);
+  }
+
+  private void onPollFailure(Execution execution, Throwable failure) {
+    Status.Code code = Status.fromThrowable(failure).getCode();
+    if (code == Status.Code.DEADLINE_EXCEEDED) {
+      // Poll timed out without a close event which is the same as an empty poll.
+      requeue(execution, false);
+    } else if (code == Status.Code.INVALID_ARGUMENT || code == Status.Code.NOT_FOUND) {
+      complete(execution, null, failure);
+    } else {
+      long delay =
+          (long)
+              Math.min(
+                  MAXIMUM_RETRY_INTERVAL_MILLIS,
+                  INITIAL_RETRY_INTERVAL_MILLIS
+                      * Math.pow(RETRY_BACKOFF_COEFFICIENT, execution.failedPolls));
+      execution.failedPolls++;
+      synchronized (lock) {
+        pollsInFlight--;
+      }
+      // Doesn't hold a poll slot while waiting for the retry.
+      ClientTimer.get()
+          .schedule(
+              () -> {
+                synchronized (lock) {
+                  execution.expectedCompletionTime = System.currentTimeMillis();
+                  queue.add(execution);
+                }
+                dispatch();
+              },
+              delay,
+              TimeUnit.MILLISECONDS);
+      dispatch();
+    }
+  }
+
+  private void requeue(Execution execution, boolean newRun) {
+    long now = System.currentTimeMillis();
+    synchronized (lock) {
+      pollsInFlight--;
+      if (newRun) {
+        execution.startTime = now;
+        execution.expectedCompletionTime = now;
+      } else {
+        execution.expectedCompletionTime = now + (now - execution.startTime);
+      }
+      queue.add(execution);
+    }
+    dispatch();
+  }
+
+  private void complete(Execution execution, HistoryEvent event, Throwable failure) {
+    List<CompletableFuture<HistoryEvent>> waiters;
+    synchronized (lock) {
+      pollsInFlight--;
+      executions.remove(execution.key);
+      waiters = new ArrayList<>(execution.waiters);
+    }
+    for (CompletableFuture<HistoryEvent> waiter : waiters) {
+      if (failure == null) {
+        waiter.complete(event);
+      } else {
+        waiter.completeExceptionally(failure);
+      }
+    }
+    dispatch();
+  }
+
+  private void reportGauges() {
+    int waiting;
+    int pollsInFlight;
+    synchronized (lock) {
+      waiting = this.waiting;
+      pollsInFlight = this.pollsInFlight;
+    }
+    metricsScope.gauge(MetricsType.WORKFLOW_RESULT_WAITING).update(waiting);
+    metricsScope.gauge(MetricsType.WORKFLOW_RESULT_POLLS_IN_FLIGHT).update(pollsInFlight);
+  }
+
+  /**
+   * State of a single awaited execution. Waiters and expected completion time are guarded by the
+   * tracker lock. The rest is touched only by the single poll of the execution in flight.
+   */
+  private static final class Execution {
+
+    private final WorkflowExecution key;
+    private final List<CompletableFuture<HistoryEvent>> waiters = new ArrayList<>();
+    private WorkflowExecution current;
+    private ByteString pageToken = ByteString.EMPTY;
+    private long startTime;
+    private long expectedCompletionTime;
+    private int failedPolls;
+
+    private Execution(WorkflowExecution key) {
+      this.key = key;
+      this.current = key;
+      this.startTime = System.currentTimeMillis();
+      this.expectedCompletionTime = startTime;
+    }
+  }
+}
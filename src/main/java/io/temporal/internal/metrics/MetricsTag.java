@@ -34,4 +34,7 @@ public class MetricsTag {
   public static final String WORKER_TYPE = "WorkerType";
   public static final String SIDE_EFFECT_ID = "SideEffectId";
   public static final String CHILD_WORKFLOW_ID = "ChildWorkflowId";
+  public static final String PAYLOAD_TYPE = "PayloadType";
+  public static final String OPERATION = "Operation";
+  public static final String STATUS_CODE = "StatusCode";
 }
@@ -63,6 +63,17 @@ public class MetricsType {
       TEMPORAL_METRICS_PREFIX + "decision-execution-failed";
   public static final String DECISION_EXECUTION_LATENCY =
       TEMPORAL_METRICS_PREFIX + "decision-execution-latency";
+  // Breakdown of the decision execution latency into its phases.
+  public static final String DECISION_HISTORY_PAGINATION_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "decision-history-pagination-latency";
+  public static final String DECISION_REPLAY_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "decision-replay-latency";
+  public static final String DECISION_WORKFLOW_CODE_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "decision-workflow-code-latency";
+  public static final String DECISION_LOCAL_ACTIVITIES_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "decision-local-activities-latency";
+  public static final String DECISION_RESPONSE_BUILD_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "decision-response-build-latency";
   public static final String DECISION_RESPONSE_FAILED_COUNTER =
       TEMPORAL_METRICS_PREFIX + "decision-response-failed";
   public static final String DECISION_RESPONSE_LATENCY =
@@ -139,6 +150,12 @@ public class MetricsType {
   public static final String TEMPORAL_ERROR = TEMPORAL_METRICS_PREFIX + "error";
   public static final String TEMPORAL_LATENCY = TEMPORAL_METRICS_PREFIX + "latency";
   public static final String TEMPORAL_INVALID_REQUEST = TEMPORAL_METRICS_PREFIX + "invalid-request";
+  public static final String TEMPORAL_REQUEST_IN_FLIGHT =
+      TEMPORAL_METRICS_PREFIX + "request-in-flight";
+  public static final String TEMPORAL_REQUEST_PAYLOAD_SIZE =
+      TEMPORAL_METRICS_PREFIX + "request-payload-size";
+  public static final String TEMPORAL_RESPONSE_PAYLOAD_SIZE =
+      TEMPORAL_METRICS_PREFIX + "response-payload-size";
 
   public static final String STICKY_CACHE_HIT = TEMPORAL_METRICS_PREFIX + "sticky-cache-hit";
   public static final String STICKY_CACHE_MISS = TEMPORAL_METRICS_PREFIX + "sticky-cache-miss";
@@ -148,6 +165,47 @@ public class MetricsType {
       TEMPORAL_METRICS_PREFIX + "sticky-cache-thread-forced-eviction";
   public static final String STICKY_CACHE_STALL = TEMPORAL_METRICS_PREFIX + "sticky-cache-stall";
   public static final String STICKY_CACHE_SIZE = TEMPORAL_METRICS_PREFIX + "sticky-cache-size";
+  public static final String STICKY_CACHE_QUERY_HIT =
+      TEMPORAL_METRICS_PREFIX + "sticky-cache-query-hit";
+  public static final String QUERY_CACHE_HIT = TEMPORAL_METRICS_PREFIX + "query-cache-hit";
+  public static final String QUERY_CACHE_MISS = TEMPORAL_METRICS_PREFIX + "query-cache-miss";
+  public static final String QUERY_CACHE_SIZE = TEMPORAL_METRICS_PREFIX + "query-cache-size";
   public static final String WORKFLOW_ACTIVE_THREAD_COUNT =
       TEMPORAL_METRICS_PREFIX + "workflow_active_thread_count";
+
+  public static final String PAYLOAD_UNCOMPRESSED_BYTES =
+      TEMPORAL_METRICS_PREFIX + "payload-uncompressed-bytes";
+  public static final String PAYLOAD_COMPRESSED_BYTES =
+      TEMPORAL_METRICS_PREFIX + "payload-compressed-bytes";
+  public static final String PAYLOAD_COMPRESSION_RATIO =
+      TEMPORAL_METRICS_PREFIX + "payload-compression-ratio";
+  public static final String PAYLOAD_INCOMPRESSIBLE_COUNTER =
+      TEMPORAL_METRICS_PREFIX + "payload-incompressible";
+  public static final String PAYLOAD_COMPRESSION_CPU_TIME =
+      TEMPORAL_METRICS_PREFIX + "payload-compression-cpu-time";
+  public static final String PAYLOAD_DECOMPRESSION_CPU_TIME =
+      TEMPORAL_METRICS_PREFIX + "payload-decompression-cpu-time";
+
+  public static final String WORKFLOW_RESULT_WAITING =
+      TEMPORAL_METRICS_PREFIX + "workflow-result-waiting";
+  public static final String WORKFLOW_RESULT_POLLS_IN_FLIGHT =
+      TEMPORAL_METRICS_PREFIX + "workflow-result-polls-in-flight";
+
+  public static final String QUERY_HEDGE_ELIGIBLE_COUNTER =
+      TEMPORAL_METRICS_PREFIX + "query-hedge-eligible";
+  public static final String QUERY_HEDGE_COUNTER = TEMPORAL_METRICS_PREFIX + "query-hedge";
+  public static final String QUERY_HEDGE_WIN_COUNTER = TEMPORAL_METRICS_PREFIX + "query-hedge-win";
+  public static final String QUERY_DEADLINE_EXCEEDED_COUNTER =
+      TEMPORAL_METRICS_PREFIX + "query-deadline-exceeded";
+
+  public static final String CLOSED_WORKFLOW_CACHE_HIT =
+      TEMPORAL_METRICS_PREFIX + "closed-workflow-cache-hit";
+  public static final String CLOSED_WORKFLOW_CACHE_MISS =
+      TEMPORAL_METRICS_PREFIX + "closed-workflow-cache-miss";
+
+  public static final String RPC_RETRY_COUNTER = TEMPORAL_METRICS_PREFIX + "rpc-retry";
+  public static final String RPC_RETRY_GIVE_UP_COUNTER =
+      TEMPORAL_METRICS_PREFIX + "rpc-retry-give-up";
+  public static final String RPC_RETRY_BUDGET_EXHAUSTED_COUNTER =
+      TEMPORAL_METRICS_PREFIX + "rpc-retry-budget-exhausted";
 }
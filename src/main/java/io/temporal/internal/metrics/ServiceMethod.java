@@ -19,7 +19,11 @@
 
 package io.temporal.internal.metrics;
 
-/** TODO(maxim): Add gRPC interceptor for metrics */
+/**
+ * Names of the service operations used as the {@link MetricsTag#OPERATION} tag value. The gRPC
+ * metrics interceptor of the service stubs tags every call with the name of its method, and the
+ * retry metrics of a call use the same name.
+ */
 public class ServiceMethod {
   public static final String DEPRECATE_NAMESPACE =
       MetricsType.TEMPORAL_METRICS_PREFIX + "DeprecateNamespace";
@@ -111,7 +111,7 @@ final class ActivityDecisionContext {
     final ScheduleActivityTaskDecisionAttributes.Builder attributes =
         ScheduleActivityTaskDecisionAttributes.newBuilder()
             .setActivityType(parameters.getActivityType())
-            .setInput(OptionsUtils.toByteString(parameters.getInput()));
+            .setInput(parameters.getInputBytes());
     if (parameters.getHeartbeatTimeoutSeconds() > 0) {
       attributes.setHeartbeatTimeoutSeconds((int) parameters.getHeartbeatTimeoutSeconds());
     }
@@ -25,6 +25,7 @@ import io.temporal.proto.query.WorkflowQueryResult;
 import io.temporal.proto.workflowservice.PollForDecisionTaskResponseOrBuilder;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public interface Decider {
 
@@ -33,20 +34,42 @@ public interface Decider {
   byte[] query(PollForDecisionTaskResponseOrBuilder decisionTask, WorkflowQuery query)
       throws Throwable;
 
+  /**
+   * Answers the query from the current workflow state without replaying the decision task history.
+   *
+   * @return query result or empty if the decider hasn't processed all the events of the decision
+   *     task history and the query requires {@link #query(PollForDecisionTaskResponseOrBuilder,
+   *     WorkflowQuery)}.
+   */
+  default Optional<byte[]> queryIfCaughtUp(
+      PollForDecisionTaskResponseOrBuilder decisionTask, WorkflowQuery query) {
+    return Optional.empty();
+  }
+
   void close();
 
   class DecisionResult {
     private final List<Decision> decisions;
     private final boolean forceCreateNewDecisionTask;
     private final Map<String, WorkflowQueryResult> queryResults;
+    private final DecisionTaskTimings timings;
 
     public DecisionResult(
         List<Decision> decisions,
         Map<String, WorkflowQueryResult> queryResults,
         boolean forceCreateNewDecisionTask) {
+      this(decisions, queryResults, forceCreateNewDecisionTask, new DecisionTaskTimings());
+    }
+
+    public DecisionResult(
+        List<Decision> decisions,
+        Map<String, WorkflowQueryResult> queryResults,
+        boolean forceCreateNewDecisionTask,
+        DecisionTaskTimings timings) {
       this.decisions = decisions;
       this.queryResults = queryResults;
       this.forceCreateNewDecisionTask = forceCreateNewDecisionTask;
+      this.timings = timings;
     }
 
     public List<Decision> getDecisions() {
@@ -60,5 +83,10 @@ public interface Decider {
     public Map<String, WorkflowQueryResult> getQueryResults() {
       return queryResults;
     }
+
+    /** Time spent by the decision in each of its processing phases. */
+    public DecisionTaskTimings getTimings() {
+      return timings;
+    }
   }
 }
@@ -20,14 +20,18 @@
 package io.temporal.internal.replay;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.uber.m3.tally.Scope;
 import io.temporal.internal.metrics.MetricsType;
+import io.temporal.proto.query.WorkflowQuery;
 import io.temporal.proto.workflowservice.PollForDecisionTaskResponseOrBuilder;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -36,9 +40,24 @@ public final class DeciderCache {
   private LoadingCache<String, Decider> cache;
   private Lock cacheLock = new ReentrantLock();
   private Set<String> inProcessing = new HashSet<>();
+  // Deciders created to answer legacy queries. Null when disabled.
+  private final Cache<String, Decider> queryCache;
 
   public DeciderCache(int maxCacheSize, Scope scope) {
+    this(maxCacheSize, 0, Duration.ZERO, scope);
+  }
+
+  /**
+   * @param maxCacheSize maximum number of sticky deciders
+   * @param maxQueryCacheSize maximum number of deciders kept after answering a query. Zero disables
+   *     the query-only cache.
+   * @param queryCacheExpiration how long an unused query-only decider is kept
+   */
+  public DeciderCache(
+      int maxCacheSize, int maxQueryCacheSize, Duration queryCacheExpiration, Scope scope) {
     Preconditions.checkArgument(maxCacheSize > 0, "Max cache size must be greater than 0");
+    Preconditions.checkArgument(
+        maxQueryCacheSize >= 0, "Max query cache size must not be negative");
     this.metricsScope = Objects.requireNonNull(scope);
     this.cache =
         CacheBuilder.newBuilder()
@@ -57,6 +76,22 @@ public final class DeciderCache {
                     return null;
                   }
                 });
+    if (maxQueryCacheSize > 0) {
+      this.queryCache =
+          CacheBuilder.newBuilder()
+              .maximumSize(maxQueryCacheSize)
+              .expireAfterAccess(queryCacheExpiration.toMillis(), TimeUnit.MILLISECONDS)
+              .removalListener(
+                  e -> {
+                    Decider entry = (Decider) e.getValue();
+                    if (entry != null) {
+                      entry.close();
+                    }
+                  })
+              .build();
+    } else {
+      this.queryCache = null;
+    }
   }
 
   public Decider getOrCreate(
@@ -75,6 +110,54 @@ public final class DeciderCache {
     return deciderFunc.call();
   }
 
+  /**
+   * Answers a legacy query from a cached decider that has already processed all the events of the
+   * query task history. Sticky deciders are checked first, then the query-only ones.
+   *
+   * @return query result or empty if there is no up to date decider and the query requires replay
+   */
+  public Optional<byte[]> queryCached(PollForDecisionTaskResponseOrBuilder decisionTask) {
+    String runId = decisionTask.getWorkflowExecution().getRunId();
+    WorkflowQuery query = decisionTask.getQuery();
+    Decider decider = cache.getIfPresent(runId);
+    if (decider != null) {
+      Optional<byte[]> result = decider.queryIfCaughtUp(decisionTask, query);
+      if (result.isPresent()) {
+        metricsScope.counter(MetricsType.STICKY_CACHE_QUERY_HIT).inc(1);
+        return result;
+      }
+    }
+    if (queryCache != null) {
+      decider = queryCache.getIfPresent(runId);
+      if (decider != null) {
+        Optional<byte[]> result = decider.queryIfCaughtUp(decisionTask, query);
+        if (result.isPresent()) {
+          metricsScope.counter(MetricsType.QUERY_CACHE_HIT).inc(1);
+          return result;
+        }
+      }
+      metricsScope.counter(MetricsType.QUERY_CACHE_MISS).inc(1);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Keeps a decider that was created to answer a query. Subsequent queries to the same run are
+   * answered from it until the workflow history changes.
+   *
+   * @return false if the query-only cache is disabled and the caller still owns the decider
+   */
+  public boolean addToQueryCache(
+      PollForDecisionTaskResponseOrBuilder decisionTask, Decider decider) {
+    if (queryCache == null) {
+      return false;
+    }
+    String runId = decisionTask.getWorkflowExecution().getRunId();
+    queryCache.put(runId, decider);
+    metricsScope.gauge(MetricsType.QUERY_CACHE_SIZE).update(queryCache.size());
+    return true;
+  }
+
   private Decider getForProcessing(String runId) throws Exception {
     cacheLock.lock();
     try {
@@ -149,5 +232,8 @@ public final class DeciderCache {
 
   public void invalidateAll() {
     cache.invalidateAll();
+    if (queryCache != null) {
+      queryCache.invalidateAll();
+    }
   }
 }
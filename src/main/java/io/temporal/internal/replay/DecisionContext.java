@@ -72,6 +72,12 @@ public interface DecisionContext extends ReplayAware {
 
   Duration getDecisionTaskTimeout();
 
+  /**
+   * Returns the number of events in the workflow history up to and including the decision task
+   * started event of the current decision. The value is deterministic.
+   */
+  long getHistoryLength();
+
   /**
    * Used to retrieve search attributes.
    *
@@ -59,6 +59,7 @@ final class DecisionContextImpl implements DecisionContext, HistoryEventHandler
   private final WorkflowDecisionContext workflowClient;
   private final ClockDecisionContext workflowClock;
   private final WorkflowContext workflowContext;
+  private final DecisionsHelper decisionsHelper;
   private final Scope metricsScope;
   private final boolean enableLoggingInReplay;
 
@@ -70,6 +71,7 @@ final class DecisionContextImpl implements DecisionContext, HistoryEventHandler
       SingleWorkerOptions options,
       BiFunction<LocalActivityWorker.Task, Duration, Boolean> laTaskPoller,
       ReplayDecider replayDecider) {
+    this.decisionsHelper = decisionsHelper;
     this.activityClient = new ActivityDecisionContext(decisionsHelper);
     this.workflowContext =
         new WorkflowContext(
@@ -153,6 +155,11 @@ final class DecisionContextImpl implements DecisionContext, HistoryEventHandler
     return Duration.ofSeconds(workflowContext.getDecisionTaskTimeoutSeconds());
   }
 
+  @Override
+  public long getHistoryLength() {
+    return decisionsHelper.getLastStartedEventId();
+  }
+
   @Override
   public String getTaskList() {
     return workflowContext.getTaskList();
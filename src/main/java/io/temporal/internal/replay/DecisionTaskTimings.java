@@ -0,0 +1,84 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.internal.replay;
+
+import io.temporal.internal.metrics.MetricsType;
+import java.time.Duration;
+
+/**
+ * Accumulates time spent by a decision task in each of its processing phases. Time is attributed to
+ * the phase that is current when the time passes, so switching phases never double counts. Not
+ * thread safe, expected to be used under the decider lock.
+ */
+public final class DecisionTaskTimings {
+
+  public enum Phase {
+    HISTORY_PAGINATION(MetricsType.DECISION_HISTORY_PAGINATION_LATENCY),
+    REPLAY(MetricsType.DECISION_REPLAY_LATENCY),
+    WORKFLOW_CODE(MetricsType.DECISION_WORKFLOW_CODE_LATENCY),
+    LOCAL_ACTIVITIES(MetricsType.DECISION_LOCAL_ACTIVITIES_LATENCY),
+    RESPONSE_BUILD(MetricsType.DECISION_RESPONSE_BUILD_LATENCY);
+
+    private final String metricName;
+
+    Phase(String metricName) {
+      this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+      return metricName;
+    }
+  }
+
+  private final long[] nanos = new long[Phase.values().length];
+  private Phase current;
+  private long currentStartNanos;
+
+  /**
+   * Stops the current phase and starts the specified one.
+   *
+   * @param phase phase to start, null to stop the clock
+   * @return phase that was current before the call, null if none.
+   */
+  public Phase switchTo(Phase phase) {
+    long now = System.nanoTime();
+    Phase previous = current;
+    if (previous != null) {
+      nanos[previous.ordinal()] += now - currentStartNanos;
+    }
+    current = phase;
+    currentStartNanos = now;
+    return previous;
+  }
+
+  /** Stops the current phase. */
+  public void stop() {
+    switchTo(null);
+  }
+
+  /** Adds time measured outside of this object to a phase. */
+  public void add(Phase phase, long elapsedNanos) {
+    nanos[phase.ordinal()] += elapsedNanos;
+  }
+
+  /** Time accumulated by a phase. Doesn't include the running interval of the current phase. */
+  public Duration get(Phase phase) {
+    return Duration.ofNanos(nanos[phase.ordinal()]);
+  }
+}
@@ -97,6 +97,9 @@ class DecisionsHelper {
    */
   private long nextDecisionEventId;
 
+  /** Id of the DecisionTaskStarted event of the decision being processed. */
+  private long lastStartedEventId;
+
   private long idCounter;
 
   private DecisionEvents decisionEvents;
@@ -116,6 +119,10 @@ class DecisionsHelper {
     return nextDecisionEventId;
   }
 
+  long getLastStartedEventId() {
+    return lastStartedEventId;
+  }
+
   long scheduleActivityTask(ScheduleActivityTaskDecisionAttributes schedule) {
     addAllMissingVersionMarker(false, Optional.empty());
 
@@ -630,6 +637,8 @@ class DecisionsHelper {
   public void handleDecisionTaskStartedEvent(DecisionEvents decision) {
     this.decisionEvents = decision;
     this.nextDecisionEventId = decision.getNextDecisionEventId();
+    // +1 for DecisionTaskStarted, +1 for DecisionTaskCompleted
+    this.lastStartedEventId = nextDecisionEventId - 2;
   }
 
   void notifyDecisionSent() {
@@ -19,7 +19,9 @@
 
 package io.temporal.internal.replay;
 
+import com.google.protobuf.ByteString;
 import io.temporal.activity.ActivityCancellationType;
+import io.temporal.internal.common.OptionsUtils;
 import io.temporal.internal.common.RetryParameters;
 import io.temporal.proto.common.ActivityType;
 import java.util.Arrays;
@@ -31,7 +33,7 @@ public class ExecuteActivityParameters implements Cloneable {
   private ActivityType activityType;
   //    private String control;
   private long heartbeatTimeoutSeconds;
-  private byte[] input;
+  private ByteString input = ByteString.EMPTY;
   private long scheduleToCloseTimeoutSeconds;
   private long scheduleToStartTimeoutSeconds;
   private long startToCloseTimeoutSeconds;
@@ -166,6 +168,11 @@ public class ExecuteActivityParameters implements Cloneable {
    * @return The value of the Input property for this object.
    */
   public byte[] getInput() {
+    return input.toByteArray();
+  }
+
+  /** Returns the Input property without copying it. */
+  public ByteString getInputBytes() {
     return input;
   }
 
@@ -178,7 +185,12 @@ public class ExecuteActivityParameters implements Cloneable {
    * @param input The new value for the Input property for this object.
    */
   public void setInput(byte[] input) {
-    this.input = input;
+    this.input = OptionsUtils.toByteString(input);
+  }
+
+  /** Sets the Input property without copying it. */
+  public void setInputBytes(ByteString input) {
+    this.input = input == null ? ByteString.EMPTY : input;
   }
 
   /**
@@ -193,7 +205,7 @@ public class ExecuteActivityParameters implements Cloneable {
    * @return A reference to this updated object so that method calls can be chained together.
    */
   public ExecuteActivityParameters withInput(byte[] input) {
-    this.input = input;
+    setInput(input);
     return this;
   }
 
@@ -391,7 +403,7 @@ public class ExecuteActivityParameters implements Cloneable {
         + ", heartbeatTimeoutSeconds="
         + heartbeatTimeoutSeconds
         + ", input="
-        + Arrays.toString(input)
+        + Arrays.toString(getInput())
         + ", scheduleToCloseTimeoutSeconds="
         + scheduleToCloseTimeoutSeconds
         + ", scheduleToStartTimeoutSeconds="
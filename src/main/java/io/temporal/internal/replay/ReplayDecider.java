@@ -26,16 +26,20 @@ import com.google.protobuf.ByteString;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.Stopwatch;
 import io.grpc.Status;
+import io.temporal.client.WorkflowClient;
 import io.temporal.internal.common.GrpcRetryer;
 import io.temporal.internal.common.OptionsUtils;
 import io.temporal.internal.common.RpcRetryOptions;
+import io.temporal.internal.common.WorkflowExecutionUtils;
 import io.temporal.internal.metrics.MetricsType;
+import io.temporal.internal.replay.DecisionTaskTimings.Phase;
 import io.temporal.internal.replay.HistoryHelper.DecisionEvents;
 import io.temporal.internal.replay.HistoryHelper.DecisionEventsIterator;
 import io.temporal.internal.worker.DecisionTaskWithHistoryIterator;
 import io.temporal.internal.worker.LocalActivityWorker;
 import io.temporal.internal.worker.SingleWorkerOptions;
 import io.temporal.internal.worker.WorkflowExecutionException;
+import io.temporal.proto.decision.Decision;
 import io.temporal.proto.event.EventType;
 import io.temporal.proto.event.History;
 import io.temporal.proto.event.HistoryEvent;
@@ -59,6 +63,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -81,6 +86,7 @@ class ReplayDecider implements Decider {
   private final ReplayWorkflow workflow;
   private boolean cancelRequested;
   private boolean completed;
+  private boolean closed;
   private WorkflowExecutionException failure;
   private long wakeUpTime;
   private Consumer<Exception> timerCancellationHandler;
@@ -90,6 +96,7 @@ class ReplayDecider implements Decider {
   private final Lock lock = new ReentrantLock();
   private final Consumer<HistoryEvent> localActivityCompletionSink;
   private final Map<String, WorkflowQueryResult> queryResults = new HashMap<>();
+  private DecisionTaskTimings timings = new DecisionTaskTimings();
 
   ReplayDecider(
       WorkflowServiceStubs service,
@@ -393,9 +400,12 @@ class ReplayDecider implements Decider {
     lock.lock();
     try {
       queryResults.clear();
+      timings = new DecisionTaskTimings();
       boolean forceCreateNewDecisionTask = decideImpl(decisionTask, null);
-      return new DecisionResult(
-          decisionsHelper.getDecisions(), queryResults, forceCreateNewDecisionTask);
+      timings.switchTo(Phase.RESPONSE_BUILD);
+      List<Decision> decisions = decisionsHelper.getDecisions();
+      timings.stop();
+      return new DecisionResult(decisions, queryResults, forceCreateNewDecisionTask, timings);
     } finally {
       lock.unlock();
     }
@@ -407,6 +417,7 @@ class ReplayDecider implements Decider {
       PollForDecisionTaskResponseOrBuilder decisionTask, Functions.Proc legacyQueryCallback)
       throws Throwable {
     boolean forceCreateNewDecisionTask = false;
+    timings.switchTo(Phase.REPLAY);
     try {
       long startTime = System.currentTimeMillis();
       DecisionTaskWithHistoryIterator decisionTaskWithHistoryIterator =
@@ -431,6 +442,7 @@ class ReplayDecider implements Decider {
 
       while (iterator.hasNext()) {
         DecisionEvents decision = iterator.next();
+        timings.switchTo(decision.isReplay() ? Phase.REPLAY : Phase.WORKFLOW_CODE);
         context.setReplaying(decision.isReplay());
         context.setReplayCurrentTimeMilliseconds(decision.getReplayCurrentTimeMilliseconds());
 
@@ -482,6 +494,7 @@ class ReplayDecider implements Decider {
         throw e;
       }
     } finally {
+      timings.switchTo(Phase.WORKFLOW_CODE);
       Map<String, WorkflowQuery> queries = decisionTask.getQueriesMap();
       for (Map.Entry<String, WorkflowQuery> entry : queries.entrySet()) {
         WorkflowQuery query = entry.getValue();
@@ -517,6 +530,7 @@ class ReplayDecider implements Decider {
       if (completed) {
         close();
       }
+      timings.stop();
     }
   }
 
@@ -528,7 +542,12 @@ class ReplayDecider implements Decider {
     if (decision.isReplay() || isQuery) {
       return replayLocalActivities(decision);
     } else {
-      return executeLocalActivities(startTime, decisionTimeoutSecs);
+      timings.switchTo(Phase.LOCAL_ACTIVITIES);
+      try {
+        return executeLocalActivities(startTime, decisionTimeoutSecs);
+      } finally {
+        timings.switchTo(Phase.WORKFLOW_CODE);
+      }
     }
   }
 
@@ -585,7 +604,9 @@ class ReplayDecider implements Decider {
         return true;
       }
 
+      timings.switchTo(Phase.WORKFLOW_CODE);
       eventLoop();
+      timings.switchTo(Phase.LOCAL_ACTIVITIES);
 
       if (context.numPendingLaTasks() == 0) {
         return false;
@@ -608,6 +629,7 @@ class ReplayDecider implements Decider {
   public void close() {
     lock.lock();
     try {
+      closed = true;
       workflow.close();
     } finally {
       lock.unlock();
@@ -620,6 +642,7 @@ class ReplayDecider implements Decider {
     lock.lock();
     try {
       AtomicReference<byte[]> result = new AtomicReference<>();
+      timings = new DecisionTaskTimings();
       decideImpl(response, () -> result.set(workflow.query(query)));
       return result.get();
     } finally {
@@ -627,6 +650,64 @@ class ReplayDecider implements Decider {
     }
   }
 
+  @Override
+  public Optional<byte[]> queryIfCaughtUp(
+      PollForDecisionTaskResponseOrBuilder decisionTask, WorkflowQuery query) {
+    lock.lock();
+    try {
+      // A completed workflow keeps its state and query handlers after close, as its history can't
+      // change. Its stack trace is gone with the workflow threads.
+      if (completed ? WorkflowClient.QUERY_TYPE_STACK_TRACE.equals(query.getQueryType()) : closed) {
+        return Optional.empty();
+      }
+      // Events on the following pages are not visible here, so a paginated task can't be checked.
+      if (!decisionTask.getNextPageToken().isEmpty()
+          || !isCaughtUp(decisionTask.getHistory().getEventsList())) {
+        return Optional.empty();
+      }
+      return Optional.ofNullable(workflow.query(query));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Checks that all the events of the history after the last processed decision were produced by
+   * decisions of this decider. Local activity markers are excluded as they might have been recorded
+   * by a different worker.
+   */
+  private boolean isCaughtUp(List<HistoryEvent> events) {
+    // getNextDecisionEventId() skips over DecisionTaskStarted and DecisionTaskCompleted.
+    long lastStartedEventId = decisionsHelper.getNextDecisionEventId() - 2;
+    if (lastStartedEventId <= 0 || events.isEmpty()) {
+      return false;
+    }
+    if (events.get(0).getEventId() > lastStartedEventId + 1) {
+      return false;
+    }
+    for (int i = events.size() - 1; i >= 0; i--) {
+      HistoryEvent event = events.get(i);
+      if (event.getEventId() <= lastStartedEventId) {
+        break;
+      }
+      EventType eventType = event.getEventType();
+      if (eventType == EventType.DecisionTaskCompleted) {
+        continue;
+      }
+      if (!WorkflowExecutionUtils.isDecisionEvent(event)) {
+        return false;
+      }
+      if (eventType == EventType.MarkerRecorded
+          && event
+              .getMarkerRecordedEventAttributes()
+              .getMarkerName()
+              .equals(ClockDecisionContext.LOCAL_ACTIVITY_MARKER_NAME)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public Consumer<HistoryEvent> getLocalActivityCompletionSink() {
     return localActivityCompletionSink;
   }
@@ -677,6 +758,15 @@ class ReplayDecider implements Decider {
             return current.next();
           }
 
+          Phase previousPhase = timings.switchTo(Phase.HISTORY_PAGINATION);
+          try {
+            return nextPage();
+          } finally {
+            timings.switchTo(previousPhase);
+          }
+        }
+
+        private HistoryEvent nextPage() {
           metricsScope.counter(MetricsType.WORKFLOW_GET_HISTORY_COUNTER).inc(1);
           Stopwatch sw = metricsScope.timer(MetricsType.WORKFLOW_GET_HISTORY_LATENCY).start();
           Duration passed = Duration.ofMillis(System.currentTimeMillis()).minus(paginationStart);
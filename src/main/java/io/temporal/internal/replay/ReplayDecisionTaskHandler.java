@@ -23,9 +23,12 @@ import static io.temporal.internal.common.InternalUtils.createStickyTaskList;
 
 import com.google.common.base.Throwables;
 import com.google.protobuf.ByteString;
+import com.uber.m3.tally.Scope;
+import io.temporal.client.WorkflowClient;
 import io.temporal.internal.common.OptionsUtils;
 import io.temporal.internal.common.WorkflowExecutionUtils;
 import io.temporal.internal.metrics.MetricsType;
+import io.temporal.internal.replay.DecisionTaskTimings.Phase;
 import io.temporal.internal.worker.DecisionTaskHandler;
 import io.temporal.internal.worker.LocalActivityWorker;
 import io.temporal.internal.worker.SingleWorkerOptions;
@@ -42,12 +45,15 @@ import io.temporal.proto.workflowservice.RespondDecisionTaskCompletedRequest;
 import io.temporal.proto.workflowservice.RespondDecisionTaskFailedRequest;
 import io.temporal.proto.workflowservice.RespondQueryTaskCompletedRequest;
 import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.worker.DecisionTaskTrace;
+import io.temporal.worker.DecisionTaskTraceListener;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
 import org.slf4j.Logger;
@@ -135,22 +141,26 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
 
   private Result processDecision(PollForDecisionTaskResponse.Builder decisionTask)
       throws Throwable {
+    long startNanos = System.nanoTime();
     Decider decider = null;
     AtomicBoolean createdNew = new AtomicBoolean();
+    DecisionTaskTimings createTimings = new DecisionTaskTimings();
     try {
       if (stickyTaskListName == null) {
-        decider = createDecider(decisionTask);
+        decider = createDecider(decisionTask, createTimings);
       } else {
         decider =
             cache.getOrCreate(
                 decisionTask,
                 () -> {
                   createdNew.set(true);
-                  return createDecider(decisionTask);
+                  return createDecider(decisionTask, createTimings);
                 });
       }
 
       Decider.DecisionResult result = decider.decide(decisionTask);
+      DecisionTaskTimings timings = result.getTimings();
+      timings.add(Phase.HISTORY_PAGINATION, createTimings.get(Phase.HISTORY_PAGINATION).toNanos());
 
       if (stickyTaskListName != null && createdNew.get()) {
         cache.addToCache(decisionTask, decider);
@@ -184,7 +194,11 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
                 + " forceCreateNewDecisionTask "
                 + result.getForceCreateNewDecisionTask());
       }
-      return createCompletedRequest(decisionTask, result);
+      timings.switchTo(Phase.RESPONSE_BUILD);
+      Result completedRequest = createCompletedRequest(decisionTask, result);
+      timings.stop();
+      reportTimings(decisionTask, timings, System.nanoTime() - startNanos);
+      return completedRequest;
     } catch (Throwable e) {
       // Note here that the decider might not be in the cache, even sticky is on. In that case we
       // need to close the decider explicitly.
@@ -212,21 +226,33 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
     Decider decider = null;
     AtomicBoolean createdNew = new AtomicBoolean();
     try {
+      // Replay only queries are used to validate determinism so they always replay.
+      if (!WorkflowClient.QUERY_TYPE_REPLAY_ONLY.equals(decisionTask.getQuery().getQueryType())) {
+        Optional<byte[]> cachedResult = cache.queryCached(decisionTask);
+        if (cachedResult.isPresent()) {
+          queryCompletedRequest.setQueryResult(OptionsUtils.toByteString(cachedResult.get()));
+          queryCompletedRequest.setCompletedType(QueryResultType.Answered);
+          return new Result(null, null, queryCompletedRequest.build(), null);
+        }
+      }
       if (stickyTaskListName == null) {
-        decider = createDecider(decisionTask);
+        decider = createDecider(decisionTask, new DecisionTaskTimings());
       } else {
         decider =
             cache.getOrCreate(
                 decisionTask,
                 () -> {
                   createdNew.set(true);
-                  return createDecider(decisionTask);
+                  return createDecider(decisionTask, new DecisionTaskTimings());
                 });
       }
 
       byte[] queryResult = decider.query(decisionTask, decisionTask.getQuery());
       if (stickyTaskListName != null && createdNew.get()) {
         cache.addToCache(decisionTask, decider);
+      } else if (stickyTaskListName == null && cache.addToQueryCache(decisionTask, decider)) {
+        // Owned by the query cache now
+        decider = null;
       }
       queryCompletedRequest.setQueryResult(OptionsUtils.toByteString(queryResult));
       queryCompletedRequest.setCompletedType(QueryResultType.Answered);
@@ -238,9 +264,11 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
       queryCompletedRequest.setErrorMessage(sw.toString());
       queryCompletedRequest.setCompletedType(QueryResultType.Failed);
     } finally {
-      if (stickyTaskListName == null && decider != null) {
-        decider.close();
-      } else {
+      if (stickyTaskListName == null) {
+        if (decider != null) {
+          decider.close();
+        }
+      } else if (decider != null) {
         cache.markProcessingDone(decisionTask);
       }
     }
@@ -267,12 +295,49 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
     return new Result(completedRequest.build(), null, null, null);
   }
 
+  private void reportTimings(
+      PollForDecisionTaskResponseOrBuilder decisionTask,
+      DecisionTaskTimings timings,
+      long totalNanos) {
+    Scope metricsScope = options.getMetricsScope();
+    for (Phase phase : Phase.values()) {
+      metricsScope
+          .timer(phase.getMetricName())
+          .record(com.uber.m3.util.Duration.ofNanos(timings.get(phase).toNanos()));
+    }
+    DecisionTaskTraceListener listener = options.getDecisionTaskTraceListener();
+    if (listener == null) {
+      return;
+    }
+    WorkflowExecution execution = decisionTask.getWorkflowExecution();
+    DecisionTaskTrace trace =
+        new DecisionTaskTrace(
+            execution.getWorkflowId(),
+            execution.getRunId(),
+            decisionTask.getWorkflowType().getName(),
+            decisionTask.getStartedEventId(),
+            decisionTask.getAttempt(),
+            timings.get(Phase.HISTORY_PAGINATION),
+            timings.get(Phase.REPLAY),
+            timings.get(Phase.WORKFLOW_CODE),
+            timings.get(Phase.LOCAL_ACTIVITIES),
+            timings.get(Phase.RESPONSE_BUILD),
+            Duration.ofNanos(totalNanos));
+    try {
+      listener.onDecisionTaskProcessed(trace);
+    } catch (RuntimeException e) {
+      log.warn("DecisionTaskTraceListener failure", e);
+    }
+  }
+
   @Override
   public boolean isAnyTypeSupported() {
     return workflowFactory.isAnyTypeSupported();
   }
 
-  private Decider createDecider(PollForDecisionTaskResponse.Builder decisionTask) throws Exception {
+  private Decider createDecider(
+      PollForDecisionTaskResponse.Builder decisionTask, DecisionTaskTimings timings)
+      throws Exception {
     WorkflowType workflowType = decisionTask.getWorkflowType();
     List<HistoryEvent> events = decisionTask.getHistory().getEventsList();
     // Sticky decision task with partial history
@@ -282,8 +347,10 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
               .setNamespace(namespace)
               .setExecution(decisionTask.getWorkflowExecution())
               .build();
+      timings.switchTo(Phase.HISTORY_PAGINATION);
       GetWorkflowExecutionHistoryResponse getHistoryResponse =
           service.blockingStub().getWorkflowExecutionHistory(getHistoryRequest);
+      timings.stop();
       decisionTask.setHistory(getHistoryResponse.getHistory());
       decisionTask.setNextPageToken(getHistoryResponse.getNextPageToken());
     }
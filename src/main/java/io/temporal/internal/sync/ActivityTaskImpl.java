@@ -19,6 +19,7 @@
 
 package io.temporal.internal.sync;
 
+import com.google.protobuf.ByteString;
 import io.temporal.activity.ActivityTask;
 import io.temporal.proto.common.WorkflowType;
 import io.temporal.proto.execution.WorkflowExecution;
@@ -97,4 +98,9 @@ final class ActivityTaskImpl implements ActivityTask {
   public byte[] getInput() {
     return response.getInput().toByteArray();
   }
+
+  /** Input without copying it into a byte array. */
+  ByteString getInputBytes() {
+    return response.getInput();
+  }
 }
@@ -0,0 +1,249 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.sync;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.client.BatchingSignalClient;
+import io.temporal.client.BatchingSignalClientOptions;
+import io.temporal.client.WorkflowNotFoundException;
+import io.temporal.client.WorkflowServiceException;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.internal.common.ClientTimer;
+import io.temporal.internal.common.SignalBatch;
+import io.temporal.internal.external.GenericWorkflowClientExternal;
+import io.temporal.internal.replay.SignalExternalWorkflowParameters;
+import io.temporal.proto.execution.WorkflowExecution;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a buffer of signals per workflow id. At most one signal call per workflow is in flight, so
+ * signals to the same workflow are delivered in the order they were sent. Signals buffered while a
+ * call is in flight are sent as soon as it completes.
+ *
+ * <p>Signals are sent through {@link GenericWorkflowClientExternal} directly, bypassing the
+ * workflow client interceptors, which only intercept workflow stubs.
+ */
+final class BatchingSignalClientImpl implements BatchingSignalClient {
+
+  private final GenericWorkflowClientExternal genericClient;
+  private final DataConverter dataConverter;
+  private final int maxBatchSize;
+  private final int maxBatchBytes;
+  private final long maxBatchDelayMillis;
+
+  private final Object lock = new Object();
+  private final Map<String, Buffer> buffers = new HashMap<>();
+  private boolean closed;
+
+  BatchingSignalClientImpl(
+      GenericWorkflowClientExternal genericClient,
+      DataConverter dataConverter,
+      BatchingSignalClientOptions options) {
+    this.genericClient = genericClient;
+    this.dataConverter = dataConverter;
+    this.maxBatchSize = options.getMaxBatchSize();
+    this.maxBatchBytes = options.getMaxBatchBytes();
+    this.maxBatchDelayMillis = options.getMaxBatchDelay().toMillis();
+  }
+
+  @Override
+  public CompletableFuture<Void> signal(String workflowId, String signalName, Object... args) {
+    PendingSignal signal =
+        new PendingSignal(signalName, dataConverter.toData(args), new CompletableFuture<>());
+    Buffer buffer;
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("closed");
+      }
+      buffer = buffers.computeIfAbsent(workflowId, Buffer::new);
+      buffer.pending.add(signal);
+      buffer.pendingBytes += signal.size;
+      if (buffer.inFlight) {
+        // Goes out when the call in flight completes.
+        return signal.result;
+      }
+      if (buffer.pending.size() < maxBatchSize && buffer.pendingBytes < maxBatchBytes) {
+        if (buffer.timer == null) {
+          Buffer b = buffer;
+          buffer.timer =
+              ClientTimer.get().schedule(() -> send(b), maxBatchDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        return signal.result;
+      }
+    }
+    send(buffer);
+    return signal.result;
+  }
+
+  @Override
+  public CompletableFuture<Void> flush() {
+    List<CompletableFuture<Void>> results = new ArrayList<>();
+    List<Buffer> toSend;
+    synchronized (lock) {
+      toSend = new ArrayList<>(buffers.values());
+      for (Buffer buffer : toSend) {
+        for (PendingSignal signal : buffer.pending) {
+          results.add(signal.result);
+        }
+      }
+    }
+    for (Buffer buffer : toSend) {
+      send(buffer);
+    }
+    return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]));
+  }
+
+  @Override
+  public void close() {
+    synchronized (lock) {
+      closed = true;
+    }
+    flush();
+  }
+
+  private void send(Buffer buffer) {
+    List<PendingSignal> batch;
+    synchronized (lock) {
+      if (buffer.inFlight || buffer.pending.isEmpty()) {
+        return;
+      }
+      if (buffer.timer != null) {
+        buffer.timer.cancel(false);
+        buffer.timer = null;
+      }
+      // Takes at least one signal even if it is larger than maxBatchBytes.
+      int count = 0;
+      int bytes = 0;
+      for (PendingSignal signal : buffer.pending) {
+        if (count == maxBatchSize || (count > 0 && bytes + signal.size > maxBatchBytes)) {
+          break;
+        }
+        count++;
+        bytes += signal.size;
+      }
+      List<PendingSignal> head = buffer.pending.subList(0, count);
+      batch = new ArrayList<>(head);
+      head.clear();
+      buffer.pendingBytes -= bytes;
+      buffer.inFlight = true;
+    }
+    CompletableFuture<Void> sent;
+    // Failures to encode the batch fail its signals the same way service failures do, so the
+    // buffer doesn't stay in flight.
+    try {
+      sent = genericClient.signalWorkflowExecutionAsync(newSignalParameters(buffer, batch));
+    } catch (Exception e) {
+      sent = new CompletableFuture<>();
+      sent.completeExceptionally(e);
+    }
+    sent.whenComplete(
+        (r, e) -> {
+          RuntimeException failure = e == null ? null : mapException(buffer.workflowId, e);
+          for (PendingSignal signal : batch) {
+            if (failure == null) {
+              signal.result.complete(null);
+            } else {
+              signal.result.completeExceptionally(failure);
+            }
+          }
+          synchronized (lock) {
+            buffer.inFlight = false;
+            if (buffer.pending.isEmpty()) {
+              buffers.remove(buffer.workflowId);
+              return;
+            }
+          }
+          send(buffer);
+        });
+  }
+
+  private static SignalExternalWorkflowParameters newSignalParameters(
+      Buffer buffer, List<PendingSignal> batch) {
+    SignalExternalWorkflowParameters p = new SignalExternalWorkflowParameters();
+    p.setWorkflowId(buffer.workflowId);
+    if (batch.size() == 1) {
+      // A single signal doesn't need the batch envelope.
+      p.setSignalName(batch.get(0).signalName);
+      p.setInput(batch.get(0).input);
+    } else {
+      List<SignalBatch.Entry> entries = new ArrayList<>(batch.size());
+      for (PendingSignal signal : batch) {
+        entries.add(new SignalBatch.Entry(signal.signalName, signal.input));
+      }
+      p.setSignalName(SignalBatch.SIGNAL_NAME);
+      p.setInput(SignalBatch.encode(entries));
+    }
+    return p;
+  }
+
+  private static RuntimeException mapException(String workflowId, Throwable failure) {
+    if (failure instanceof CompletionException && failure.getCause() != null) {
+      failure = failure.getCause();
+    }
+    if (failure instanceof DataConverterException) {
+      return (DataConverterException) failure;
+    }
+    WorkflowExecution execution = WorkflowExecution.newBuilder().setWorkflowId(workflowId).build();
+    if (failure instanceof StatusRuntimeException
+        && ((StatusRuntimeException) failure).getStatus().getCode() == Status.Code.NOT_FOUND) {
+      return new WorkflowNotFoundException(execution, Optional.empty(), failure.getMessage());
+    }
+    return new WorkflowServiceException(execution, Optional.empty(), failure);
+  }
+
+  private static final class PendingSignal {
+
+    private final String signalName;
+    private final byte[] input;
+    private final CompletableFuture<Void> result;
+    private final int size;
+
+    private PendingSignal(String signalName, byte[] input, CompletableFuture<Void> result) {
+      this.signalName = signalName;
+      this.input = input;
+      this.result = result;
+      this.size = signalName.length() + (input == null ? 0 : input.length);
+    }
+  }
+
+  /** Signals to a single workflow. Guarded by the client lock. */
+  private static final class Buffer {
+
+    private final String workflowId;
+    private final List<PendingSignal> pending = new ArrayList<>();
+    private int pendingBytes;
+    private boolean inFlight;
+    private ScheduledFuture<?> timer;
+
+    private Buffer(String workflowId) {
+      this.workflowId = workflowId;
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.sync;
+
+import io.temporal.client.BulkStartListener;
+import io.temporal.client.BulkStartOptions;
+import io.temporal.client.BulkStartRequest;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowStub;
+import io.temporal.proto.execution.WorkflowExecution;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts workflows taken from an iterator keeping up to {@link
+ * BulkStartOptions#getMaxConcurrentStarts()} start calls in flight. A request is pulled from the
+ * iterator as soon as a previous one completes, so the throughput is bound by the service latency
+ * times the concurrency instead of a single round trip.
+ */
+final class BulkWorkflowStarter {
+
+  private static final Logger log = LoggerFactory.getLogger(BulkWorkflowStarter.class);
+
+  private final WorkflowClient client;
+  private final Iterator<BulkStartRequest> requests;
+  private final BulkStartOptions options;
+  private final BulkStartListener listener;
+  private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+  private final Object lock = new Object();
+  private int inFlight;
+  private boolean exhausted;
+  private Throwable sourceFailure;
+
+  BulkWorkflowStarter(
+      WorkflowClient client,
+      Iterator<BulkStartRequest> requests,
+      BulkStartOptions options,
+      BulkStartListener listener) {
+    this.client = client;
+    this.requests = requests;
+    this.options = options;
+    this.listener = listener;
+  }
+
+  CompletableFuture<Void> start() {
+    startNext();
+    return result;
+  }
+
+  private void startNext() {
+    while (true) {
+      BulkStartRequest request;
+      synchronized (lock) {
+        if (exhausted || inFlight >= options.getMaxConcurrentStarts()) {
+          break;
+        }
+        try {
+          if (requests.hasNext()) {
+            request = requests.next();
+          } else {
+            exhausted = true;
+            break;
+          }
+        } catch (Throwable e) {
+          exhausted = true;
+          sourceFailure = e;
+          break;
+        }
+        inFlight++;
+      }
+      try {
+        options.getExecutor().execute(() -> startOne(request));
+      } catch (Throwable e) {
+        // Executor rejected the task. Stop taking requests instead of failing all the rest.
+        synchronized (lock) {
+          exhausted = true;
+          sourceFailure = e;
+        }
+        onCompleted(request, null, e);
+        return;
+      }
+    }
+    completeIfDone();
+  }
+
+  private void startOne(BulkStartRequest request) {
+    CompletableFuture<WorkflowExecution> started;
+    try {
+      WorkflowStub stub =
+          request
+              .getStub()
+              .orElseGet(
+                  () ->
+                      client.newUntypedWorkflowStub(
+                          request.getWorkflowType().get(), request.getOptions().get()));
+      // Serializes arguments in the executor thread.
+      started = stub.startAsync(request.getArgs());
+    } catch (Throwable e) {
+      onCompleted(request, null, e);
+      return;
+    }
+    started.whenComplete((execution, failure) -> onStartCompleted(request, execution, failure));
+  }
+
+  /**
+   * Called in a gRPC thread. The listener and the iterator can block, so they are called from the
+   * executor.
+   */
+  private void onStartCompleted(
+      BulkStartRequest request, WorkflowExecution execution, Throwable failure) {
+    try {
+      options.getExecutor().execute(() -> onCompleted(request, execution, failure));
+    } catch (Throwable e) {
+      // Executor rejected the task. Stop taking requests so the iterator is not touched here.
+      synchronized (lock) {
+        exhausted = true;
+        if (sourceFailure == null) {
+          sourceFailure = e;
+        }
+      }
+      onCompleted(request, execution, failure);
+    }
+  }
+
+  private void onCompleted(
+      BulkStartRequest request, WorkflowExecution execution, Throwable failure) {
+    try {
+      if (failure == null) {
+        listener.onStarted(request, execution);
+      } else {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+          failure = failure.getCause();
+        }
+        listener.onFailure(request, failure);
+      }
+    } catch (Throwable e) {
+      log.error("BulkStartListener failure for " + request, e);
+    }
+    synchronized (lock) {
+      inFlight--;
+    }
+    startNext();
+  }
+
+  private void completeIfDone() {
+    Throwable failure;
+    synchronized (lock) {
+      if (!exhausted || inFlight > 0) {
+        return;
+      }
+      failure = sourceFailure;
+    }
+    if (failure == null) {
+      result.complete(null);
+    } else {
+      result.completeExceptionally(failure);
+    }
+  }
+}
@@ -606,6 +606,11 @@ class DeterministicRunnerImpl implements DeterministicRunner {
       throw new UnsupportedOperationException("not implemented");
     }
 
+    @Override
+    public long getHistoryLength() {
+      throw new UnsupportedOperationException("not implemented");
+    }
+
     @Override
     public SearchAttributes getSearchAttributes() {
       throw new UnsupportedOperationException("not implemented");
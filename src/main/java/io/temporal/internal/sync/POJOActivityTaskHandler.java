@@ -25,7 +25,7 @@ import com.uber.m3.tally.Scope;
 import io.temporal.client.ActivityCancelledException;
 import io.temporal.common.converter.DataConverter;
 import io.temporal.internal.common.CheckedExceptionWrapper;
-import io.temporal.internal.common.OptionsUtils;
+import io.temporal.internal.common.DataConverterUtils;
 import io.temporal.internal.metrics.MetricsType;
 import io.temporal.internal.worker.ActivityTaskHandler;
 import io.temporal.proto.workflowservice.PollForActivityTaskResponse;
@@ -119,7 +119,7 @@ class POJOActivityTaskHandler implements ActivityTaskHandler {
     RespondActivityTaskFailedRequest result =
         RespondActivityTaskFailedRequest.newBuilder()
             .setReason(failure.getClass().getName())
-            .setDetails(OptionsUtils.toByteString(dataConverter.toData(failure)))
+            .setDetails(DataConverterUtils.toByteString(dataConverter, failure))
             .build();
     return new ActivityTaskHandler.Result(
         null, new Result.TaskFailedResult(result, failure), null, null);
@@ -187,10 +187,11 @@ class POJOActivityTaskHandler implements ActivityTaskHandler {
       ActivityExecutionContext context =
           new ActivityExecutionContextImpl(
               service, namespace, task, dataConverter, heartbeatExecutor);
-      byte[] input = task.getInput();
       CurrentActivityExecutionContext.set(context);
       try {
-        Object[] args = dataConverter.fromDataArray(input, method.getGenericParameterTypes());
+        Object[] args =
+            DataConverterUtils.fromByteStringArray(
+                dataConverter, task.getInputBytes(), method.getGenericParameterTypes());
         Object result = method.invoke(activity, args);
         if (context.isDoNotCompleteOnReturn()) {
           return new ActivityTaskHandler.Result(null, null, null, null);
@@ -198,7 +199,7 @@ class POJOActivityTaskHandler implements ActivityTaskHandler {
         RespondActivityTaskCompletedRequest.Builder request =
             RespondActivityTaskCompletedRequest.newBuilder();
         if (method.getReturnType() != Void.TYPE) {
-          request.setResult(OptionsUtils.toByteString(dataConverter.toData(result)));
+          request.setResult(DataConverterUtils.toByteString(dataConverter, result));
         }
         return new ActivityTaskHandler.Result(request.build(), null, null, null);
       } catch (RuntimeException | IllegalAccessException e) {
@@ -225,14 +226,15 @@ class POJOActivityTaskHandler implements ActivityTaskHandler {
       ActivityExecutionContext context =
           new LocalActivityExecutionContextImpl(service, namespace, task);
       CurrentActivityExecutionContext.set(context);
-      byte[] input = task.getInput();
       try {
-        Object[] args = dataConverter.fromDataArray(input, method.getGenericParameterTypes());
+        Object[] args =
+            DataConverterUtils.fromByteStringArray(
+                dataConverter, task.getInputBytes(), method.getGenericParameterTypes());
         Object result = method.invoke(activity, args);
         RespondActivityTaskCompletedRequest.Builder request =
             RespondActivityTaskCompletedRequest.newBuilder();
         if (method.getReturnType() != Void.TYPE) {
-          request.setResult(OptionsUtils.toByteString(dataConverter.toData(result)));
+          request.setResult(DataConverterUtils.toByteString(dataConverter, result));
         }
         return new ActivityTaskHandler.Result(request.build(), null, null, null);
       } catch (RuntimeException | IllegalAccessException e) {
@@ -21,6 +21,7 @@ package io.temporal.internal.sync;
 
 import static io.temporal.internal.common.OptionsUtils.roundUpToSeconds;
 
+import com.google.protobuf.ByteString;
 import com.uber.m3.tally.Scope;
 import io.temporal.activity.ActivityOptions;
 import io.temporal.activity.LocalActivityOptions;
@@ -28,9 +29,12 @@ import io.temporal.common.RetryOptions;
 import io.temporal.common.context.ContextPropagator;
 import io.temporal.common.converter.DataConverter;
 import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodedValues;
 import io.temporal.common.interceptors.WorkflowCallsInterceptor;
+import io.temporal.internal.common.DataConverterUtils;
 import io.temporal.internal.common.InternalUtils;
 import io.temporal.internal.common.RetryParameters;
+import io.temporal.internal.common.SignalBatch;
 import io.temporal.internal.metrics.MetricsType;
 import io.temporal.internal.replay.ActivityTaskFailedException;
 import io.temporal.internal.replay.ActivityTaskTimeoutException;
@@ -169,7 +173,7 @@ final class SyncDecisionContext implements WorkflowCallsInterceptor {
 
   private <T> Promise<T> executeActivityOnce(
       String name, ActivityOptions options, Object[] args, Class<T> returnClass, Type returnType) {
-    byte[] input = converter.toData(args);
+    ByteString input = DataConverterUtils.toByteString(converter, args);
     Promise<byte[]> binaryResult = executeActivityOnce(name, options, input);
     if (returnClass == Void.TYPE) {
       return binaryResult.thenApply((r) -> null);
@@ -177,7 +181,8 @@ final class SyncDecisionContext implements WorkflowCallsInterceptor {
     return binaryResult.thenApply((r) -> converter.fromData(r, returnClass, returnType));
   }
 
-  private Promise<byte[]> executeActivityOnce(String name, ActivityOptions options, byte[] input) {
+  private Promise<byte[]> executeActivityOnce(
+      String name, ActivityOptions options, ByteString input) {
     ActivityCallback callback = new ActivityCallback();
     ExecuteActivityParameters params = constructExecuteActivityParameters(name, options, input);
     Consumer<Exception> cancellationCallback =
@@ -318,7 +323,7 @@ final class SyncDecisionContext implements WorkflowCallsInterceptor {
   }
 
   private ExecuteActivityParameters constructExecuteActivityParameters(
-      String name, ActivityOptions options, byte[] input) {
+      String name, ActivityOptions options, ByteString input) {
     ExecuteActivityParameters parameters = new ExecuteActivityParameters();
     // TODO: Real task list
     String taskList = options.getTaskList();
@@ -327,13 +332,13 @@ final class SyncDecisionContext implements WorkflowCallsInterceptor {
     }
     parameters
         .withActivityType(ActivityType.newBuilder().setName(name).build())
-        .withInput(input)
         .withTaskList(taskList)
         .withScheduleToStartTimeoutSeconds(options.getScheduleToStartTimeout().getSeconds())
         .withStartToCloseTimeoutSeconds(options.getStartToCloseTimeout().getSeconds())
         .withScheduleToCloseTimeoutSeconds(options.getScheduleToCloseTimeout().getSeconds())
         .withHeartbeatTimeoutSeconds(options.getHeartbeatTimeout().getSeconds())
         .withCancellationType(options.getCancellationType());
+    parameters.setInputBytes(input);
     RetryOptions retryOptions = options.getRetryOptions();
     if (retryOptions != null) {
       parameters.setRetryParameters(new RetryParameters(retryOptions));
@@ -621,6 +626,19 @@ final class SyncDecisionContext implements WorkflowCallsInterceptor {
   }
 
   public void signal(String signalName, byte[] args, long eventId) {
+    if (SignalBatch.SIGNAL_NAME.equals(signalName)) {
+      List<SignalBatch.Entry> batch;
+      try {
+        batch = SignalBatch.decode(args);
+      } catch (DataConverterException e) {
+        logSerializationException(signalName, eventId, e);
+        return;
+      }
+      for (SignalBatch.Entry entry : batch) {
+        signal(entry.getSignalName(), entry.getInput(), eventId);
+      }
+      return;
+    }
     Functions.Proc2<byte[], Long> callback = signalCallbacks.get(signalName);
     if (callback == null) {
       List<SignalData> buffer = signalBuffers.get(signalName);
@@ -637,14 +655,19 @@ final class SyncDecisionContext implements WorkflowCallsInterceptor {
   @Override
   public void registerQuery(
       String queryType, Type[] argTypes, Functions.Func1<Object[], Object> callback) {
+    registerEncodedQuery(queryType, argTypes, (values) -> callback.apply(values.toArray()));
+  }
+
+  @Override
+  public void registerEncodedQuery(
+      String queryType, Type[] argTypes, Functions.Func1<EncodedValues, Object> callback) {
     if (queryCallbacks.containsKey(queryType)) {
       throw new IllegalStateException("Query \"" + queryType + "\" is already registered");
     }
     queryCallbacks.put(
         queryType,
         (input) -> {
-          Object[] args = converter.fromDataArray(input, argTypes);
-          Object result = callback.apply(args);
+          Object result = callback.apply(new EncodedValues(input, argTypes, converter));
           return converter.toData(result);
         });
   }
@@ -652,14 +675,19 @@ final class SyncDecisionContext implements WorkflowCallsInterceptor {
   @Override
   public void registerSignal(
       String signalType, Type[] argTypes, Functions.Proc1<Object[]> callback) {
+    registerEncodedSignal(signalType, argTypes, (values) -> callback.apply(values.toArray()));
+  }
+
+  @Override
+  public void registerEncodedSignal(
+      String signalType, Type[] argTypes, Functions.Proc1<EncodedValues> callback) {
     if (signalCallbacks.containsKey(signalType)) {
       throw new IllegalStateException("Signal \"" + signalType + "\" is already registered");
     }
     Functions.Proc2<byte[], Long> signalCallback =
         (input, eventId) -> {
           try {
-            Object[] args = converter.fromDataArray(input, argTypes);
-            callback.apply(args);
+            callback.apply(new EncodedValues(input, argTypes, converter));
           } catch (DataConverterException e) {
             logSerializationException(signalType, eventId, e);
           }
@@ -23,12 +23,18 @@ import com.google.common.base.Strings;
 import com.google.common.reflect.TypeToken;
 import io.temporal.client.ActivityCompletionClient;
 import io.temporal.client.BatchRequest;
+import io.temporal.client.BatchingSignalClient;
+import io.temporal.client.BatchingSignalClientOptions;
+import io.temporal.client.BulkStartListener;
+import io.temporal.client.BulkStartOptions;
+import io.temporal.client.BulkStartRequest;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowClientInterceptor;
 import io.temporal.client.WorkflowClientOptions;
 import io.temporal.client.WorkflowOptions;
 import io.temporal.client.WorkflowStub;
 import io.temporal.common.converter.DataConverter;
+import io.temporal.internal.common.RetryBudget;
 import io.temporal.internal.external.GenericWorkflowClientExternalImpl;
 import io.temporal.internal.external.ManualActivityCompletionClientFactory;
 import io.temporal.internal.external.ManualActivityCompletionClientFactoryImpl;
@@ -43,6 +49,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -80,7 +87,13 @@ public final class WorkflowClientInternal implements WorkflowClient {
             workflowServiceStubs,
             options.getNamespace(),
             options.getIdentity(),
-            options.getMetricsScope());
+            options.getMetricsScope(),
+            options.getMaxConcurrentResultPolls(),
+            options.getQueryOptions(),
+            options.getClosedWorkflowCacheSize(),
+            options.isRetryBudgetEnabled()
+                ? new RetryBudget(options.getMaxRetryBurst(), options.getRetriesPerSuccess())
+                : null);
     this.dataConverter = options.getDataConverter();
     this.interceptors = options.getInterceptors();
     this.manualActivityCompletionClientFactory =
@@ -202,6 +215,11 @@ public final class WorkflowClientInternal implements WorkflowClient {
     return result;
   }
 
+  @Override
+  public BatchingSignalClient newBatchingSignalClient(BatchingSignalClientOptions options) {
+    return new BatchingSignalClientImpl(genericClient, dataConverter, options);
+  }
+
   @Override
   public BatchRequest newSignalWithStartRequest() {
     return new SignalWithStartBatchRequest();
@@ -212,6 +230,12 @@ public final class WorkflowClientInternal implements WorkflowClient {
     return ((SignalWithStartBatchRequest) signalWithStartBatch).invoke();
   }
 
+  @Override
+  public CompletableFuture<Void> startBulk(
+      Iterator<BulkStartRequest> requests, BulkStartOptions options, BulkStartListener listener) {
+    return new BulkWorkflowStarter(this, requests, options, listener).start();
+  }
+
   public static WorkflowExecution start(Functions.Proc workflow) {
     WorkflowInvocationHandler.initAsyncInvocation(InvocationType.START);
     try {
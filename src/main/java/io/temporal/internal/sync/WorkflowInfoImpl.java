@@ -79,6 +79,11 @@ final class WorkflowInfoImpl implements WorkflowInfo {
     return parentWorkflowExecution == null ? null : parentWorkflowExecution.getWorkflowId();
   }
 
+  @Override
+  public long getHistoryLength() {
+    return context.getHistoryLength();
+  }
+
   @Override
   public String getParentRunId() {
     WorkflowExecution parentWorkflowExecution = context.getParentWorkflowExecution();
@@ -112,10 +112,11 @@ public final class WorkflowInternal {
           workflowMetadata.getQueryMethodMetadata(queryType);
       Method method = methodMetadata.getWorkflowMethod();
       getWorkflowInterceptor()
-          .registerQuery(
+          .registerEncodedQuery(
               methodMetadata.getName(),
               method.getGenericParameterTypes(),
-              (args) -> {
+              (values) -> {
+                Object[] args = values.toArray();
                 try {
                   return method.invoke(implementation, args);
                 } catch (Throwable e) {
@@ -128,10 +129,11 @@ public final class WorkflowInternal {
           workflowMetadata.getSignalMethodMetadata(signalType);
       Method method = methodMetadata.getWorkflowMethod();
       getWorkflowInterceptor()
-          .registerSignal(
+          .registerEncodedSignal(
               methodMetadata.getName(),
               method.getGenericParameterTypes(),
-              (args) -> {
+              (values) -> {
+                Object[] args = values.toArray();
                 try {
                   method.invoke(implementation, args);
                 } catch (Throwable e) {
@@ -36,6 +36,7 @@ import io.temporal.common.converter.DataConverter;
 import io.temporal.common.converter.DataConverterException;
 import io.temporal.common.converter.GsonJsonDataConverter;
 import io.temporal.internal.common.CheckedExceptionWrapper;
+import io.temporal.internal.common.DataConverterUtils;
 import io.temporal.internal.common.SignalWithStartWorkflowExecutionParameters;
 import io.temporal.internal.common.StartWorkflowExecutionParameters;
 import io.temporal.internal.common.StatusUtils;
@@ -45,7 +46,9 @@ import io.temporal.internal.external.GenericWorkflowClientExternal;
 import io.temporal.internal.replay.QueryWorkflowParameters;
 import io.temporal.internal.replay.SignalExternalWorkflowParameters;
 import io.temporal.proto.common.WorkflowType;
+import io.temporal.proto.event.HistoryEvent;
 import io.temporal.proto.execution.WorkflowExecution;
+import io.temporal.proto.execution.WorkflowExecutionInfo;
 import io.temporal.proto.failure.QueryFailed;
 import io.temporal.proto.failure.WorkflowExecutionAlreadyStarted;
 import io.temporal.proto.query.QueryConsistencyLevel;
@@ -101,6 +104,29 @@ class WorkflowStubImpl implements WorkflowStub {
 
   @Override
   public void signal(String signalName, Object... input) {
+    SignalExternalWorkflowParameters p = getSignalParameters(signalName, input);
+    try {
+      genericClient.signalWorkflowExecution(p);
+    } catch (Exception e) {
+      throw mapSignalException(e);
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> signalAsync(String signalName, Object... input) {
+    SignalExternalWorkflowParameters p = getSignalParameters(signalName, input);
+    return genericClient
+        .signalWorkflowExecutionAsync(p)
+        .handle(
+            (r, e) -> {
+              if (e != null) {
+                throw mapSignalException(unwrapCompletionException(e));
+              }
+              return r;
+            });
+  }
+
+  private SignalExternalWorkflowParameters getSignalParameters(String signalName, Object[] input) {
     checkStarted();
     SignalExternalWorkflowParameters p = new SignalExternalWorkflowParameters();
     p.setInput(clientOptions.getDataConverter().toData(input));
@@ -109,26 +135,38 @@ class WorkflowStubImpl implements WorkflowStub {
     // TODO: Deal with signaling started workflow only, when requested
     // Commented out to support signaling workflows that called continue as new.
     //        p.setRunId(execution.getRunId());
-    try {
-      genericClient.signalWorkflowExecution(p);
-    } catch (StatusRuntimeException e) {
-      if (e.getStatus().getCode() == Status.Code.NOT_FOUND) {
-        throw new WorkflowNotFoundException(execution.get(), workflowType, e.getMessage());
-      } else {
-        throw new WorkflowServiceException(execution.get(), workflowType, e);
+    return p;
+  }
+
+  private RuntimeException mapSignalException(Throwable e) {
+    if (e instanceof StatusRuntimeException) {
+      StatusRuntimeException sre = (StatusRuntimeException) e;
+      if (sre.getStatus().getCode() == Status.Code.NOT_FOUND) {
+        return new WorkflowNotFoundException(execution.get(), workflowType, e.getMessage());
       }
-    } catch (Exception e) {
-      throw new WorkflowServiceException(execution.get(), workflowType, e);
     }
+    return new WorkflowServiceException(execution.get(), workflowType, e);
   }
 
   private WorkflowExecution startWithOptions(WorkflowOptions o, Object... args) {
     StartWorkflowExecutionParameters p = getStartWorkflowExecutionParameters(o, args);
     try {
       execution.set(genericClient.startWorkflow(p));
-    } catch (StatusRuntimeException e) {
+    } catch (Exception e) {
+      throw mapStartException(p, e);
+    }
+    return execution.get();
+  }
+
+  /**
+   * Maps a failure of a start or signalWithStart call. Sets the execution of the already running
+   * workflow when the failure reports it, so that the stub can still be used to wait for it.
+   */
+  private RuntimeException mapStartException(StartWorkflowExecutionParameters p, Throwable e) {
+    if (e instanceof StatusRuntimeException) {
+      StatusRuntimeException sre = (StatusRuntimeException) e;
       WorkflowExecutionAlreadyStarted f =
-          StatusUtils.getFailure(e, WorkflowExecutionAlreadyStarted.class);
+          StatusUtils.getFailure(sre, WorkflowExecutionAlreadyStarted.class);
       if (f != null) {
         WorkflowExecution exe =
             WorkflowExecution.newBuilder()
@@ -136,14 +174,30 @@ class WorkflowStubImpl implements WorkflowStub {
                 .setRunId(f.getRunId())
                 .build();
         execution.set(exe);
-        throw new DuplicateWorkflowException(exe, workflowType.get(), e.getMessage());
-      } else {
-        throw e;
+        return new DuplicateWorkflowException(exe, workflowType.get(), e.getMessage());
       }
-    } catch (Exception e) {
-      throw new WorkflowServiceException(execution.get(), workflowType, e);
+      return sre;
     }
-    return execution.get();
+    return new WorkflowServiceException(execution.get(), workflowType, e);
+  }
+
+  private CompletableFuture<WorkflowExecution> setExecutionOnCompletion(
+      CompletableFuture<WorkflowExecution> result, StartWorkflowExecutionParameters p) {
+    return result.handle(
+        (r, e) -> {
+          if (e != null) {
+            throw mapStartException(p, unwrapCompletionException(e));
+          }
+          execution.set(r);
+          return r;
+        });
+  }
+
+  private static Throwable unwrapCompletionException(Throwable e) {
+    if (e instanceof CompletionException && e.getCause() != null) {
+      return e.getCause();
+    }
+    return e;
   }
 
   private StartWorkflowExecutionParameters getStartWorkflowExecutionParameters(
@@ -214,43 +268,49 @@ class WorkflowStubImpl implements WorkflowStub {
     return startWithOptions(WorkflowOptions.merge(null, null, null, options.get()), args);
   }
 
-  private WorkflowExecution signalWithStartWithOptions(
-      WorkflowOptions options, String signalName, Object[] signalArgs, Object[] startArgs) {
-    StartWorkflowExecutionParameters sp = getStartWorkflowExecutionParameters(options, startArgs);
+  @Override
+  public CompletableFuture<WorkflowExecution> startAsync(Object... args) {
+    if (!options.isPresent()) {
+      throw new IllegalStateException("Required parameter WorkflowOptions is missing");
+    }
+    StartWorkflowExecutionParameters p =
+        getStartWorkflowExecutionParameters(
+            WorkflowOptions.merge(null, null, null, options.get()), args);
+    return setExecutionOnCompletion(genericClient.startWorkflowAsync(p), p);
+  }
 
+  private SignalWithStartWorkflowExecutionParameters getSignalWithStartParameters(
+      String signalName, Object[] signalArgs, Object[] startArgs) {
+    if (!options.isPresent()) {
+      throw new IllegalStateException("Required parameter WorkflowOptions is missing");
+    }
+    StartWorkflowExecutionParameters sp =
+        getStartWorkflowExecutionParameters(
+            WorkflowOptions.merge(null, null, null, options.get()), startArgs);
     byte[] signalInput = clientOptions.getDataConverter().toData(signalArgs);
+    return new SignalWithStartWorkflowExecutionParameters(sp, signalName, signalInput);
+  }
+
+  @Override
+  public WorkflowExecution signalWithStart(
+      String signalName, Object[] signalArgs, Object[] startArgs) {
     SignalWithStartWorkflowExecutionParameters p =
-        new SignalWithStartWorkflowExecutionParameters(sp, signalName, signalInput);
+        getSignalWithStartParameters(signalName, signalArgs, startArgs);
     try {
       execution.set(genericClient.signalWithStartWorkflowExecution(p));
-    } catch (StatusRuntimeException e) {
-      WorkflowExecutionAlreadyStarted f =
-          StatusUtils.getFailure(e, WorkflowExecutionAlreadyStarted.class);
-      if (f != null) {
-        WorkflowExecution exe =
-            WorkflowExecution.newBuilder()
-                .setWorkflowId(sp.getWorkflowId())
-                .setRunId(f.getRunId())
-                .build();
-        execution.set(exe);
-        throw new DuplicateWorkflowException(exe, workflowType.get(), e.getMessage());
-      } else {
-        throw e;
-      }
     } catch (Exception e) {
-      throw new WorkflowServiceException(execution.get(), workflowType, e);
+      throw mapStartException(p.getStartParameters(), e);
     }
     return execution.get();
   }
 
   @Override
-  public WorkflowExecution signalWithStart(
+  public CompletableFuture<WorkflowExecution> signalWithStartAsync(
       String signalName, Object[] signalArgs, Object[] startArgs) {
-    if (!options.isPresent()) {
-      throw new IllegalStateException("Required parameter WorkflowOptions is missing");
-    }
-    return signalWithStartWithOptions(
-        WorkflowOptions.merge(null, null, null, options.get()), signalName, signalArgs, startArgs);
+    SignalWithStartWorkflowExecutionParameters p =
+        getSignalWithStartParameters(signalName, signalArgs, startArgs);
+    return setExecutionOnCompletion(
+        genericClient.signalWithStartWorkflowExecutionAsync(p), p.getStartParameters());
   }
 
   @Override
@@ -289,14 +349,13 @@ class WorkflowStubImpl implements WorkflowStub {
       throws TimeoutException {
     checkStarted();
     try {
+      WorkflowExecution workflowExecution = execution.get();
+      // getWorkflowCloseEvent waits for workflow completion including new runs.
+      HistoryEvent closeEvent =
+          genericClient.getWorkflowCloseEvent(workflowExecution, timeout, unit);
       byte[] resultValue =
-          WorkflowExecutionUtils.getWorkflowExecutionResult(
-              genericClient.getService(),
-              genericClient.getNamespace(),
-              execution.get(),
-              workflowType,
-              timeout,
-              unit);
+          WorkflowExecutionUtils.getResultFromCloseEvent(
+              workflowExecution, workflowType, closeEvent);
       if (resultValue == null) {
         return null;
       }
@@ -328,13 +387,13 @@ class WorkflowStubImpl implements WorkflowStub {
   public <R> CompletableFuture<R> getResultAsync(
       long timeout, TimeUnit unit, Class<R> resultClass, Type resultType) {
     checkStarted();
-    return WorkflowExecutionUtils.getWorkflowExecutionResultAsync(
-            genericClient.getService(),
-            genericClient.getNamespace(),
-            execution.get(),
-            workflowType,
-            timeout,
-            unit)
+    WorkflowExecution workflowExecution = execution.get();
+    return genericClient
+        .getWorkflowCloseEventAsync(workflowExecution, timeout, unit)
+        .thenApply(
+            (closeEvent) ->
+                WorkflowExecutionUtils.getResultFromCloseEvent(
+                    workflowExecution, workflowType, closeEvent))
         .handle(
             (r, e) -> {
               if (e instanceof CompletionException) {
@@ -402,6 +461,38 @@ class WorkflowStubImpl implements WorkflowStub {
 
   @Override
   public <R> R query(String queryType, Class<R> resultClass, Type resultType, Object... args) {
+    QueryWorkflowParameters p = getQueryParameters(queryType, args);
+    QueryWorkflowResponse result;
+    try {
+      result = genericClient.queryWorkflow(p);
+    } catch (Exception e) {
+      throw mapQueryException(e);
+    }
+    return getQueryResult(result, resultClass, resultType);
+  }
+
+  @Override
+  public <R> CompletableFuture<R> queryAsync(
+      String queryType, Class<R> resultClass, Object... args) {
+    return queryAsync(queryType, resultClass, resultClass, args);
+  }
+
+  @Override
+  public <R> CompletableFuture<R> queryAsync(
+      String queryType, Class<R> resultClass, Type resultType, Object... args) {
+    QueryWorkflowParameters p = getQueryParameters(queryType, args);
+    return genericClient
+        .queryWorkflowAsync(p)
+        .handle(
+            (r, e) -> {
+              if (e != null) {
+                throw mapQueryException(unwrapCompletionException(e));
+              }
+              return getQueryResult(r, resultClass, resultType);
+            });
+  }
+
+  private QueryWorkflowParameters getQueryParameters(String queryType, Object[] args) {
     checkStarted();
     QueryWorkflowParameters p = new QueryWorkflowParameters();
     p.setInput(clientOptions.getDataConverter().toData(args));
@@ -410,23 +501,26 @@ class WorkflowStubImpl implements WorkflowStub {
     p.setQueryRejectCondition(clientOptions.getQueryRejectCondition());
     // Hardcode strong as Eventual should be deprecated.
     p.setQueryConsistencyLevel(QueryConsistencyLevel.Strong);
-    QueryWorkflowResponse result;
-    try {
-      result = genericClient.queryWorkflow(p);
-    } catch (StatusRuntimeException e) {
-      if (e.getStatus().getCode() == Status.Code.NOT_FOUND) {
-        throw new WorkflowNotFoundException(execution.get(), workflowType, e.getMessage());
-      } else if (StatusUtils.hasFailure(e, QueryFailed.class)) {
-        throw new WorkflowQueryException(execution.get(), e.getMessage());
+    return p;
+  }
+
+  private RuntimeException mapQueryException(Throwable e) {
+    if (e instanceof StatusRuntimeException) {
+      StatusRuntimeException sre = (StatusRuntimeException) e;
+      if (sre.getStatus().getCode() == Status.Code.NOT_FOUND) {
+        return new WorkflowNotFoundException(execution.get(), workflowType, e.getMessage());
+      } else if (StatusUtils.hasFailure(sre, QueryFailed.class)) {
+        return new WorkflowQueryException(execution.get(), e.getMessage());
       }
-      throw new WorkflowServiceException(execution.get(), workflowType, e);
-    } catch (Exception e) {
-      throw new WorkflowServiceException(execution.get(), workflowType, e);
     }
+    return new WorkflowServiceException(execution.get(), workflowType, e);
+  }
+
+  private <R> R getQueryResult(
+      QueryWorkflowResponse result, Class<R> resultClass, Type resultType) {
     if (!result.hasQueryRejected()) {
-      return clientOptions
-          .getDataConverter()
-          .fromData(result.getQueryResult().toByteArray(), resultClass, resultType);
+      return DataConverterUtils.fromByteString(
+          clientOptions.getDataConverter(), result.getQueryResult(), resultClass, resultType);
     } else {
       throw new WorkflowQueryRejectedException(
           execution.get(),
@@ -447,6 +541,25 @@ class WorkflowStubImpl implements WorkflowStub {
         WorkflowExecution.newBuilder().setWorkflowId(execution.get().getWorkflowId()).build());
   }
 
+  @Override
+  public CompletableFuture<Void> cancelAsync() {
+    if (execution.get() == null || execution.get().getWorkflowId() == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return genericClient.requestCancelWorkflowExecutionAsync(
+        WorkflowExecution.newBuilder().setWorkflowId(execution.get().getWorkflowId()).build());
+  }
+
+  @Override
+  public WorkflowExecutionInfo describe() {
+    checkStarted();
+    try {
+      return genericClient.describeWorkflowExecution(execution.get());
+    } catch (Exception e) {
+      throw mapSignalException(e);
+    }
+  }
+
   @Override
   public Optional<WorkflowOptions> getOptions() {
     return options;
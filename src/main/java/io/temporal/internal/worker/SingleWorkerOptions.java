@@ -24,6 +24,7 @@ import io.temporal.common.context.ContextPropagator;
 import io.temporal.common.converter.DataConverter;
 import io.temporal.common.converter.GsonJsonDataConverter;
 import io.temporal.internal.metrics.NoopScope;
+import io.temporal.worker.DecisionTaskTraceListener;
 import java.time.Duration;
 import java.util.List;
 
@@ -47,6 +48,7 @@ public final class SingleWorkerOptions {
     private Scope metricsScope;
     private boolean enableLoggingInReplay;
     private List<ContextPropagator> contextPropagators;
+    private DecisionTaskTraceListener decisionTaskTraceListener;
 
     private Builder() {}
 
@@ -62,6 +64,7 @@ public final class SingleWorkerOptions {
       this.metricsScope = options.getMetricsScope();
       this.enableLoggingInReplay = options.getEnableLoggingInReplay();
       this.contextPropagators = options.getContextPropagators();
+      this.decisionTaskTraceListener = options.getDecisionTaskTraceListener();
     }
 
     public Builder setIdentity(String identity) {
@@ -105,6 +108,13 @@ public final class SingleWorkerOptions {
       return this;
     }
 
+    /** Optional listener of the per decision task processing time breakdown. */
+    public Builder setDecisionTaskTraceListener(
+        DecisionTaskTraceListener decisionTaskTraceListener) {
+      this.decisionTaskTraceListener = decisionTaskTraceListener;
+      return this;
+    }
+
     public SingleWorkerOptions build() {
       if (pollerOptions == null) {
         pollerOptions =
@@ -131,7 +141,8 @@ public final class SingleWorkerOptions {
           pollerOptions,
           metricsScope,
           enableLoggingInReplay,
-          contextPropagators);
+          contextPropagators,
+          decisionTaskTraceListener);
     }
   }
 
@@ -143,6 +154,7 @@ public final class SingleWorkerOptions {
   private final Scope metricsScope;
   private final boolean enableLoggingInReplay;
   private List<ContextPropagator> contextPropagators;
+  private final DecisionTaskTraceListener decisionTaskTraceListener;
 
   private SingleWorkerOptions(
       String identity,
@@ -152,7 +164,8 @@ public final class SingleWorkerOptions {
       PollerOptions pollerOptions,
       Scope metricsScope,
       boolean enableLoggingInReplay,
-      List<ContextPropagator> contextPropagators) {
+      List<ContextPropagator> contextPropagators,
+      DecisionTaskTraceListener decisionTaskTraceListener) {
     this.identity = identity;
     this.dataConverter = dataConverter;
     this.taskExecutorThreadPoolSize = taskExecutorThreadPoolSize;
@@ -161,6 +174,7 @@ public final class SingleWorkerOptions {
     this.metricsScope = metricsScope;
     this.enableLoggingInReplay = enableLoggingInReplay;
     this.contextPropagators = contextPropagators;
+    this.decisionTaskTraceListener = decisionTaskTraceListener;
   }
 
   public String getIdentity() {
@@ -194,4 +208,8 @@ public final class SingleWorkerOptions {
   public List<ContextPropagator> getContextPropagators() {
     return contextPropagators;
   }
+
+  public DecisionTaskTraceListener getDecisionTaskTraceListener() {
+    return decisionTaskTraceListener;
+  }
 }
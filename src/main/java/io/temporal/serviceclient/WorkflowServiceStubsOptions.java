@@ -20,16 +20,28 @@
 package io.temporal.serviceclient;
 
 import com.google.common.collect.ImmutableMap;
+import com.uber.m3.tally.Scope;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.NameResolver;
+import io.temporal.internal.metrics.NoopScope;
 import io.temporal.proto.workflowservice.WorkflowServiceGrpc;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 public class WorkflowServiceStubsOptions {
 
+  /** How a call picks a channel from a pool of more than one channel. */
+  public enum ChannelSelection {
+    /** Channels are used in turns. */
+    ROUND_ROBIN,
+    /** Channel with the fewest calls in flight is used. */
+    LEAST_LOADED
+  }
+
   private static final String LOCAL_DOCKER_TARGET = "127.0.0.1:7233";
 
   /** Default RPC timeout used for all non long poll calls. */
@@ -83,6 +95,22 @@ public class WorkflowServiceStubsOptions {
           WorkflowServiceGrpc.WorkflowServiceFutureStub>
       futureStubInterceptor;
 
+  private final Scope metricsScope;
+
+  private final int channelPoolSize;
+
+  private final int longPollChannelPoolSize;
+
+  private final ChannelSelection channelSelection;
+
+  private final Executor channelExecutor;
+
+  private final boolean directExecutor;
+
+  private final int eventLoopThreads;
+
+  private final int flowControlWindow;
+
   private WorkflowServiceStubsOptions(Builder builder) {
     this.target = builder.target;
     this.channel = builder.channel;
@@ -92,6 +120,14 @@ public class WorkflowServiceStubsOptions {
     this.blockingStubInterceptor = builder.blockingStubInterceptor;
     this.futureStubInterceptor = builder.futureStubInterceptor;
     this.headers = builder.headers;
+    this.metricsScope = builder.metricsScope;
+    this.channelPoolSize = builder.channelPoolSize;
+    this.longPollChannelPoolSize = builder.longPollChannelPoolSize;
+    this.channelSelection = builder.channelSelection;
+    this.channelExecutor = builder.channelExecutor;
+    this.directExecutor = builder.directExecutor;
+    this.eventLoopThreads = builder.eventLoopThreads;
+    this.flowControlWindow = builder.flowControlWindow;
   }
 
   private WorkflowServiceStubsOptions(Builder builder, boolean validate) {
@@ -104,18 +140,44 @@ public class WorkflowServiceStubsOptions {
     } else {
       this.target = builder.target;
     }
+    if (builder.channel != null
+        && (builder.channelPoolSize > 1 || builder.longPollChannelPoolSize > 0)) {
+      throw new IllegalStateException(
+          "Channel pool options cannot be used together with the channel option");
+    }
+    if (builder.channel != null
+        && (builder.channelExecutor != null
+            || builder.directExecutor
+            || builder.eventLoopThreads > 0
+            || builder.flowControlWindow > 0)) {
+      throw new IllegalStateException(
+          "Channel executor and transport options cannot be used together with the channel option");
+    }
+    if (builder.channelExecutor != null && builder.directExecutor) {
+      throw new IllegalStateException(
+          "Only one of the channelExecutor and directExecutor options can be set at a time");
+    }
     this.channel = builder.channel;
     this.rpcLongPollTimeoutMillis = builder.rpcLongPollTimeoutMillis;
     this.rpcQueryTimeoutMillis = builder.rpcQueryTimeoutMillis;
     this.rpcTimeoutMillis = builder.rpcTimeoutMillis;
     this.blockingStubInterceptor = builder.blockingStubInterceptor;
     this.futureStubInterceptor = builder.futureStubInterceptor;
+    this.channelPoolSize = builder.channelPoolSize;
+    this.longPollChannelPoolSize = builder.longPollChannelPoolSize;
+    this.channelSelection = builder.channelSelection;
+    this.channelExecutor = builder.channelExecutor;
+    this.directExecutor = builder.directExecutor;
+    this.eventLoopThreads = builder.eventLoopThreads;
+    this.flowControlWindow = builder.flowControlWindow;
 
     if (builder.headers != null) {
       this.headers = ImmutableMap.copyOf(builder.headers);
     } else {
       this.headers = ImmutableMap.of();
     }
+    this.metricsScope =
+        builder.metricsScope == null ? NoopScope.getInstance() : builder.metricsScope;
   }
 
   public ManagedChannel getChannel() {
@@ -161,6 +223,41 @@ public class WorkflowServiceStubsOptions {
     return Optional.ofNullable(futureStubInterceptor);
   }
 
+  public Scope getMetricsScope() {
+    return metricsScope;
+  }
+
+  public int getChannelPoolSize() {
+    return channelPoolSize;
+  }
+
+  public int getLongPollChannelPoolSize() {
+    return longPollChannelPoolSize;
+  }
+
+  public ChannelSelection getChannelSelection() {
+    return channelSelection;
+  }
+
+  /** @return executor of the call callbacks or null to use the gRPC default */
+  public Executor getChannelExecutor() {
+    return channelExecutor;
+  }
+
+  public boolean isDirectExecutor() {
+    return directExecutor;
+  }
+
+  /** @return number of event loop threads or 0 to use the shared gRPC event loop group */
+  public int getEventLoopThreads() {
+    return eventLoopThreads;
+  }
+
+  /** @return HTTP/2 flow control window in bytes or 0 to use the gRPC default */
+  public int getFlowControlWindow() {
+    return flowControlWindow;
+  }
+
   /**
    * Builder is the builder for ClientOptions.
    *
@@ -181,6 +278,14 @@ public class WorkflowServiceStubsOptions {
             WorkflowServiceGrpc.WorkflowServiceFutureStub,
             WorkflowServiceGrpc.WorkflowServiceFutureStub>
         futureStubInterceptor;
+    private Scope metricsScope;
+    private int channelPoolSize = 1;
+    private int longPollChannelPoolSize;
+    private ChannelSelection channelSelection = ChannelSelection.ROUND_ROBIN;
+    private Executor channelExecutor;
+    private boolean directExecutor;
+    private int eventLoopThreads;
+    private int flowControlWindow;
 
     private Builder() {}
 
@@ -193,6 +298,14 @@ public class WorkflowServiceStubsOptions {
       this.blockingStubInterceptor = options.blockingStubInterceptor;
       this.futureStubInterceptor = options.futureStubInterceptor;
       this.headers = options.headers;
+      this.metricsScope = options.metricsScope;
+      this.channelPoolSize = options.channelPoolSize;
+      this.longPollChannelPoolSize = options.longPollChannelPoolSize;
+      this.channelSelection = options.channelSelection;
+      this.channelExecutor = options.channelExecutor;
+      this.directExecutor = options.directExecutor;
+      this.eventLoopThreads = options.eventLoopThreads;
+      this.flowControlWindow = options.flowControlWindow;
     }
 
     /** Sets gRPC channel to use. Exclusive with target. */
@@ -268,6 +381,103 @@ public class WorkflowServiceStubsOptions {
       return this;
     }
 
+    /**
+     * Sets the scope to report per RPC metrics to: request counts, latency histograms, calls in
+     * flight, payload sizes and failures by status code. Each metric is tagged with the called
+     * method. Default is a no-op scope which doesn't add any overhead to the calls.
+     */
+    public Builder setMetricsScope(Scope metricsScope) {
+      this.metricsScope = metricsScope;
+      return this;
+    }
+
+    /**
+     * Number of channels, each with its own connections, that calls to the target are spread
+     * across. A single HTTP/2 connection limits the number of concurrent calls and serializes them
+     * on one event loop, which can become a bottleneck for workers with many pollers. Cannot be
+     * used with {@link #setChannel(ManagedChannel)}. Default is 1.
+     */
+    public Builder setChannelPoolSize(int channelPoolSize) {
+      if (channelPoolSize <= 0) {
+        throw new IllegalArgumentException("Invalid channelPoolSize: " + channelPoolSize);
+      }
+      this.channelPoolSize = channelPoolSize;
+      return this;
+    }
+
+    /**
+     * Number of additional channels dedicated to the long polls: PollForDecisionTask,
+     * PollForActivityTask and GetWorkflowExecutionHistory. When set the long polls don't compete
+     * for streams with latency sensitive calls like task completions and heartbeats. Cannot be used
+     * with {@link #setChannel(ManagedChannel)}. Default is 0 which means that long polls share the
+     * channels with the other calls.
+     */
+    public Builder setLongPollChannelPoolSize(int longPollChannelPoolSize) {
+      if (longPollChannelPoolSize < 0) {
+        throw new IllegalArgumentException(
+            "Invalid longPollChannelPoolSize: " + longPollChannelPoolSize);
+      }
+      this.longPollChannelPoolSize = longPollChannelPoolSize;
+      return this;
+    }
+
+    /**
+     * How a call picks a channel when a pool has more than one. Default is {@link
+     * ChannelSelection#ROUND_ROBIN}.
+     */
+    public Builder setChannelSelection(ChannelSelection channelSelection) {
+      this.channelSelection = Objects.requireNonNull(channelSelection);
+      return this;
+    }
+
+    /**
+     * Executor that runs the callbacks of the calls, including completion of the futures returned
+     * by {@link WorkflowServiceStubs#futureStub()}. It is not shut down by the stubs. Exclusive
+     * with directExecutor. Default is the gRPC shared cached thread pool, or the direct executor
+     * for stubs of an in-process service.
+     */
+    public Builder setChannelExecutor(Executor channelExecutor) {
+      this.channelExecutor = channelExecutor;
+      return this;
+    }
+
+    /**
+     * Runs the call callbacks directly in the transport event loop threads. It saves a thread hop
+     * per call which improves throughput of the asynchronous calls, but any blocking in a callback
+     * or in a dependent stage of a returned future stalls all the calls sharing the event loop.
+     * Exclusive with channelExecutor. Default is false.
+     */
+    public Builder setDirectExecutor(boolean directExecutor) {
+      this.directExecutor = directExecutor;
+      return this;
+    }
+
+    /**
+     * Number of the transport event loop threads owned by these stubs and shared by all their
+     * channels. Default is 0 which uses the event loop group shared by all gRPC channels of the
+     * process.
+     */
+    public Builder setEventLoopThreads(int eventLoopThreads) {
+      if (eventLoopThreads < 0) {
+        throw new IllegalArgumentException("Invalid eventLoopThreads: " + eventLoopThreads);
+      }
+      this.eventLoopThreads = eventLoopThreads;
+      return this;
+    }
+
+    /**
+     * Initial HTTP/2 flow control window of a call in bytes. A larger window lets big responses
+     * like workflow histories arrive without waiting for window updates. Default is 0 which uses
+     * the gRPC default of 1MB.
+     */
+    public Builder setFlowControlWindow(int flowControlWindow) {
+      if (flowControlWindow < 0) {
+        throw new IllegalArgumentException("Invalid flowControlWindow: " + flowControlWindow);
+      }
+      this.flowControlWindow = flowControlWindow;
+      return this;
+    }
+
     /**
      * Builds and returns a ClientOptions object.
      *
@@ -0,0 +1,166 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.testing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batch replay performed by {@link WorkflowReplayer#replayWorkflowExecutions(Iterable,
+ * int, Class, Class[])}. Contains replay failures grouped by workflow type and the throughput
+ * achieved by the batch.
+ */
+public final class ReplayResults {
+
+  /** Describes a single history that failed to replay. */
+  public static final class ReplayFailure {
+    private final String historyName;
+    private final String workflowType;
+    private final Throwable failure;
+
+    ReplayFailure(String historyName, String workflowType, Throwable failure) {
+      this.historyName = historyName;
+      this.workflowType = workflowType;
+      this.failure = failure;
+    }
+
+    /** File name or position in the input of the history that failed. */
+    public String getHistoryName() {
+      return historyName;
+    }
+
+    /**
+     * Workflow type of the failed history or null if the history could not be loaded to determine
+     * it.
+     */
+    public String getWorkflowType() {
+      return workflowType;
+    }
+
+    public Throwable getFailure() {
+      return failure;
+    }
+
+    @Override
+    public String toString() {
+      return "ReplayFailure{"
+          + "historyName='"
+          + historyName
+          + '\''
+          + ", workflowType='"
+          + workflowType
+          + '\''
+          + ", failure="
+          + failure
+          + '}';
+    }
+  }
+
+  private final long historyCount;
+  private final long eventCount;
+  private final Duration elapsed;
+  private final List<ReplayFailure> failures;
+
+  ReplayResults(
+      long historyCount, long eventCount, Duration elapsed, List<ReplayFailure> failures) {
+    this.historyCount = historyCount;
+    this.eventCount = eventCount;
+    this.elapsed = elapsed;
+    this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+  }
+
+  /** Number of histories replayed including the failed ones. */
+  public long getHistoryCount() {
+    return historyCount;
+  }
+
+  /** Total number of history events in all replayed histories. */
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  /** Wall clock time of the whole batch. */
+  public Duration getElapsed() {
+    return elapsed;
+  }
+
+  public double getHistoriesPerSecond() {
+    return perSecond(historyCount);
+  }
+
+  public double getEventsPerSecond() {
+    return perSecond(eventCount);
+  }
+
+  /** True if all histories were replayed without failures. */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+
+  public List<ReplayFailure> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Returns failures grouped by workflow type. Failures of histories that could not be loaded are
+   * grouped under the null key.
+   */
+  public Map<String, List<ReplayFailure>> getFailuresByWorkflowType() {
+    Map<String, List<ReplayFailure>> result = new LinkedHashMap<>();
+    for (ReplayFailure failure : failures) {
+      result.computeIfAbsent(failure.getWorkflowType(), (t) -> new ArrayList<>()).add(failure);
+    }
+    return result;
+  }
+
+  private double perSecond(long count) {
+    long nanos = elapsed.toNanos();
+    if (nanos <= 0) {
+      return 0;
+    }
+    return count * 1_000_000_000d / nanos;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    result
+        .append("ReplayResults{historyCount=")
+        .append(historyCount)
+        .append(", eventCount=")
+        .append(eventCount)
+        .append(", elapsed=")
+        .append(elapsed)
+        .append(", historiesPerSecond=")
+        .append(String.format("%.2f", getHistoriesPerSecond()))
+        .append(", eventsPerSecond=")
+        .append(String.format("%.2f", getEventsPerSecond()))
+        .append(", failures=")
+        .append(failures.size());
+    for (Map.Entry<String, List<ReplayFailure>> e : getFailuresByWorkflowType().entrySet()) {
+      result.append("\n  ").append(e.getKey()).append(": ").append(e.getValue().size());
+    }
+    return result.append('}').toString();
+  }
+}
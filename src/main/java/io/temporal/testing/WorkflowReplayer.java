@@ -20,16 +20,35 @@
 package io.temporal.testing;
 
 import com.google.common.collect.ObjectArrays;
+import io.temporal.internal.common.BinaryHistoryFormat;
 import io.temporal.internal.common.WorkflowExecutionHistory;
 import io.temporal.internal.common.WorkflowExecutionUtils;
 import io.temporal.proto.event.WorkflowExecutionStartedEventAttributes;
 import io.temporal.proto.tasklist.TaskList;
 import io.temporal.worker.Worker;
 import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** Replays a workflow given its history. Useful for backwards compatibility testing. */
 public final class WorkflowReplayer {
 
+  private static final String REPLAY_TASK_LIST = "WorkflowReplayer";
+
   /**
    * Replays workflow from a resource that contains a json serialized history.
    *
@@ -48,7 +67,7 @@ public final class WorkflowReplayer {
   /**
    * Replays workflow from a file
    *
-   * @param historyFile file that contains a json serialized history.
+   * @param historyFile file that contains a json serialized or a binary history.
    * @param workflowClass s workflow implementation class to replay
    * @param moreWorkflowClasses optional additional workflow implementation classes
    * @throws Exception if replay failed for any reason.
@@ -107,4 +126,176 @@ public final class WorkflowReplayer {
         ObjectArrays.concat(moreWorkflowClasses, workflowClass));
     worker.replayWorkflowExecution(history);
   }
+
+  /**
+   * Replays all histories found in a directory. Only files with ".json" extension (json serialized
+   * histories) and ".history" extension (binary histories) are replayed. Histories are loaded and
+   * replayed concurrently by up to parallelism replay workers. A replay failure doesn't stop the
+   * batch, all failures are reported through the returned {@link ReplayResults}.
+   *
+   * @param directory directory that contains history files.
+   * @param parallelism maximum number of histories replayed concurrently.
+   * @param workflowClass s workflow implementation class to replay
+   * @param moreWorkflowClasses optional additional workflow implementation classes
+   * @return replay failures grouped by workflow type and replay throughput
+   * @throws InterruptedException if interrupted while waiting for replays to complete.
+   */
+  public static ReplayResults replayWorkflowExecutionsFromDirectory(
+      File directory, int parallelism, Class<?> workflowClass, Class<?>... moreWorkflowClasses)
+      throws InterruptedException {
+    File[] files =
+        directory.listFiles(
+            (dir, name) ->
+                name.endsWith(".json") || name.endsWith(BinaryHistoryFormat.FILE_EXTENSION));
+    if (files == null) {
+      throw new IllegalArgumentException("Not a directory: " + directory);
+    }
+    Arrays.sort(files);
+    List<HistorySource> sources = new ArrayList<>(files.length);
+    for (File file : files) {
+      sources.add(
+          new HistorySource(file.getName(), () -> WorkflowExecutionUtils.readHistory(file)));
+    }
+    return replayWorkflowExecutions(
+        sources.iterator(), parallelism, ObjectArrays.concat(moreWorkflowClasses, workflowClass));
+  }
+
+  /**
+   * Replays multiple histories concurrently by up to parallelism replay workers. The histories are
+   * consumed lazily, so a large stream of histories is never fully materialized. A replay failure
+   * doesn't stop the batch, all failures are reported through the returned {@link ReplayResults}.
+   *
+   * @param histories histories to replay. RunIds <b>must</b> match the ones used to generate them.
+   * @param parallelism maximum number of histories replayed concurrently.
+   * @param workflowClass s workflow implementation class to replay
+   * @param moreWorkflowClasses optional additional workflow implementation classes
+   * @return replay failures grouped by workflow type and replay throughput
+   * @throws InterruptedException if interrupted while waiting for replays to complete.
+   */
+  public static ReplayResults replayWorkflowExecutions(
+      Iterable<WorkflowExecutionHistory> histories,
+      int parallelism,
+      Class<?> workflowClass,
+      Class<?>... moreWorkflowClasses)
+      throws InterruptedException {
+    Iterator<WorkflowExecutionHistory> iterator = histories.iterator();
+    AtomicInteger index = new AtomicInteger();
+    Iterator<HistorySource> sources =
+        new Iterator<HistorySource>() {
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public HistorySource next() {
+            WorkflowExecutionHistory history = iterator.next();
+            return new HistorySource("history-" + index.getAndIncrement(), () -> history);
+          }
+        };
+    return replayWorkflowExecutions(
+        sources, parallelism, ObjectArrays.concat(moreWorkflowClasses, workflowClass));
+  }
+
+  private static ReplayResults replayWorkflowExecutions(
+      Iterator<HistorySource> sources, int parallelism, Class<?>[] workflowClasses)
+      throws InterruptedException {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism should be positive: " + parallelism);
+    }
+    // Each replay worker owns its own environment as replayed histories share the same runId
+    // and would otherwise evict each other from the shared decider cache.
+    List<TestWorkflowEnvironment> environments = new ArrayList<>(parallelism);
+    BlockingQueue<Worker> workers = new ArrayBlockingQueue<>(parallelism);
+    AtomicInteger threadIndex = new AtomicInteger();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            (r) -> new Thread(r, "workflow-replayer-" + threadIndex.incrementAndGet()));
+    // Bounds the number of loaded histories waiting for a replay worker.
+    Semaphore pending = new Semaphore(parallelism * 2);
+    AtomicLong historyCount = new AtomicLong();
+    AtomicLong eventCount = new AtomicLong();
+    Queue<ReplayResults.ReplayFailure> failures = new ConcurrentLinkedQueue<>();
+    long start = System.nanoTime();
+    try {
+      for (int i = 0; i < parallelism; i++) {
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        environments.add(testEnv);
+        Worker worker = testEnv.newWorker(REPLAY_TASK_LIST);
+        worker.registerWorkflowImplementationTypes(workflowClasses);
+        workers.add(worker);
+      }
+      while (sources.hasNext()) {
+        HistorySource source = sources.next();
+        pending.acquire();
+        executor.execute(
+            () -> {
+              try {
+                replay(source, workers, historyCount, eventCount, failures);
+              } finally {
+                pending.release();
+              }
+            });
+      }
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } finally {
+      executor.shutdownNow();
+      for (TestWorkflowEnvironment testEnv : environments) {
+        testEnv.close();
+      }
+    }
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+    return new ReplayResults(
+        historyCount.get(), eventCount.get(), elapsed, new ArrayList<>(failures));
+  }
+
+  private static void replay(
+      HistorySource source,
+      BlockingQueue<Worker> workers,
+      AtomicLong historyCount,
+      AtomicLong eventCount,
+      Queue<ReplayResults.ReplayFailure> failures) {
+    historyCount.incrementAndGet();
+    String workflowType = null;
+    Worker worker = null;
+    try {
+      WorkflowExecutionHistory history = source.load();
+      eventCount.addAndGet(history.getEvents().size());
+      workflowType =
+          history
+              .getEvents()
+              .get(0)
+              .getWorkflowExecutionStartedEventAttributes()
+              .getWorkflowType()
+              .getName();
+      worker = workers.take();
+      worker.replayWorkflowExecution(history);
+    } catch (Throwable e) {
+      failures.add(new ReplayResults.ReplayFailure(source.getName(), workflowType, e));
+    } finally {
+      if (worker != null) {
+        workers.add(worker);
+      }
+    }
+  }
+
+  private static final class HistorySource {
+    private final String name;
+    private final Callable<WorkflowExecutionHistory> loader;
+
+    HistorySource(String name, Callable<WorkflowExecutionHistory> loader) {
+      this.name = name;
+      this.loader = loader;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    WorkflowExecutionHistory load() throws Exception {
+      return loader.call();
+    }
+  }
 }
@@ -0,0 +1,148 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.worker;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Per decision task record of the time spent in each processing phase. The phases don't overlap, so
+ * their sum is at most the {@link #getTotalTime()}. The remainder is bookkeeping like cache lookups
+ * and decider creation.
+ */
+public final class DecisionTaskTrace {
+
+  private final String workflowId;
+  private final String runId;
+  private final String workflowType;
+  private final long startedEventId;
+  private final long attempt;
+  private final Duration historyPaginationTime;
+  private final Duration replayTime;
+  private final Duration workflowCodeTime;
+  private final Duration localActivitiesTime;
+  private final Duration responseBuildTime;
+  private final Duration totalTime;
+
+  public DecisionTaskTrace(
+      String workflowId,
+      String runId,
+      String workflowType,
+      long startedEventId,
+      long attempt,
+      Duration historyPaginationTime,
+      Duration replayTime,
+      Duration workflowCodeTime,
+      Duration localActivitiesTime,
+      Duration responseBuildTime,
+      Duration totalTime) {
+    this.workflowId = workflowId;
+    this.runId = runId;
+    this.workflowType = workflowType;
+    this.startedEventId = startedEventId;
+    this.attempt = attempt;
+    this.historyPaginationTime = Objects.requireNonNull(historyPaginationTime);
+    this.replayTime = Objects.requireNonNull(replayTime);
+    this.workflowCodeTime = Objects.requireNonNull(workflowCodeTime);
+    this.localActivitiesTime = Objects.requireNonNull(localActivitiesTime);
+    this.responseBuildTime = Objects.requireNonNull(responseBuildTime);
+    this.totalTime = Objects.requireNonNull(totalTime);
+  }
+
+  public String getWorkflowId() {
+    return workflowId;
+  }
+
+  public String getRunId() {
+    return runId;
+  }
+
+  public String getWorkflowType() {
+    return workflowType;
+  }
+
+  public long getStartedEventId() {
+    return startedEventId;
+  }
+
+  public long getAttempt() {
+    return attempt;
+  }
+
+  /** Time spent fetching history pages from the service. */
+  public Duration getHistoryPaginationTime() {
+    return historyPaginationTime;
+  }
+
+  /** Time spent replaying the already processed part of the history. */
+  public Duration getReplayTime() {
+    return replayTime;
+  }
+
+  /** Time spent executing workflow code for the new events, including query evaluation. */
+  public Duration getWorkflowCodeTime() {
+    return workflowCodeTime;
+  }
+
+  /** Time spent executing and waiting for local activities. */
+  public Duration getLocalActivitiesTime() {
+    return localActivitiesTime;
+  }
+
+  /** Time spent collecting decisions and building the completion request. */
+  public Duration getResponseBuildTime() {
+    return responseBuildTime;
+  }
+
+  /** Total time taken by the decision task handler. */
+  public Duration getTotalTime() {
+    return totalTime;
+  }
+
+  @Override
+  public String toString() {
+    return "DecisionTaskTrace{"
+        + "workflowId='"
+        + workflowId
+        + '\''
+        + ", runId='"
+        + runId
+        + '\''
+        + ", workflowType='"
+        + workflowType
+        + '\''
+        + ", startedEventId="
+        + startedEventId
+        + ", attempt="
+        + attempt
+        + ", historyPaginationTime="
+        + historyPaginationTime
+        + ", replayTime="
+        + replayTime
+        + ", workflowCodeTime="
+        + workflowCodeTime
+        + ", localActivitiesTime="
+        + localActivitiesTime
+        + ", responseBuildTime="
+        + responseBuildTime
+        + ", totalTime="
+        + totalTime
+        + '}';
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.worker;
+
+/**
+ * Receives a breakdown of where a decision task spent its time. Register through {@link
+ * WorkerOptions.Builder#setDecisionTaskTraceListener(DecisionTaskTraceListener)}.
+ *
+ * <p>Called synchronously from the thread that processed the decision task before the decision
+ * response is sent, so implementations should return quickly and must not block.
+ */
+public interface DecisionTaskTraceListener {
+
+  /** Called after each successfully processed decision task. */
+  void onDecisionTaskProcessed(DecisionTaskTrace trace);
+}
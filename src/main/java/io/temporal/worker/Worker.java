@@ -164,6 +164,7 @@ public final class Worker implements Suspendable {
         .setMetricsScope(clientOptions.getMetricsScope().tagged(tags))
         .setEnableLoggingInReplay(factoryOptions.isEnableLoggingInReplay())
         .setContextPropagators(contextPropagators)
+        .setDecisionTaskTraceListener(options.getDecisionTaskTraceListener())
         .build();
   }
 
@@ -107,7 +107,12 @@ public final class WorkerFactory {
                     .put(MetricsTag.TASK_LIST, workflowClient.getOptions().getIdentity())
                     .build());
 
-    this.cache = new DeciderCache(this.factoryOptions.getCacheMaximumSize(), metricsScope);
+    this.cache =
+        new DeciderCache(
+            this.factoryOptions.getCacheMaximumSize(),
+            this.factoryOptions.getQueryCacheMaximumSize(),
+            this.factoryOptions.getQueryCacheExpiration(),
+            metricsScope);
 
     dispatcher = new PollDecisionTaskDispatcher(workflowClient.getWorkflowServiceStubs());
     stickyPoller =
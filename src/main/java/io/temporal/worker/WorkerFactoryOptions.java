@@ -21,6 +21,7 @@ package io.temporal.worker;
 
 import io.temporal.common.interceptors.NoopWorkflowInterceptor;
 import io.temporal.common.interceptors.WorkflowInterceptor;
+import java.time.Duration;
 
 public class WorkerFactoryOptions {
 
@@ -45,6 +46,8 @@ public class WorkerFactoryOptions {
   public static class Builder {
     private int stickyDecisionScheduleToStartTimeoutInSeconds;
     private int cacheMaximumSize;
+    private int queryCacheMaximumSize;
+    private Duration queryCacheExpiration;
     private int maxWorkflowThreadCount;
     private WorkflowInterceptor workflowInterceptor;
     private boolean enableLoggingInReplay;
@@ -58,6 +61,8 @@ public class WorkerFactoryOptions {
       this.stickyDecisionScheduleToStartTimeoutInSeconds =
           options.stickyDecisionScheduleToStartTimeoutInSeconds;
       this.cacheMaximumSize = options.cacheMaximumSize;
+      this.queryCacheMaximumSize = options.queryCacheMaximumSize;
+      this.queryCacheExpiration = options.queryCacheExpiration;
       this.maxWorkflowThreadCount = options.maxWorkflowThreadCount;
       this.workflowInterceptor = options.workflowInterceptor;
       this.enableLoggingInReplay = options.enableLoggingInReplay;
@@ -72,6 +77,26 @@ public class WorkerFactoryOptions {
       return this;
     }
 
+    /**
+     * Maximum number of workflows kept in memory after answering a query when there is no sticky
+     * cached workflow to answer it. A subsequent query to the same workflow is answered without
+     * replay if its history hasn't changed. Useful for read-mostly workflows that are queried
+     * often. Cached workflows hold workflow threads. Default is 0 which disables the cache.
+     */
+    public Builder setQueryCacheMaximumSize(int queryCacheMaximumSize) {
+      this.queryCacheMaximumSize = queryCacheMaximumSize;
+      return this;
+    }
+
+    /**
+     * How long a workflow cached to answer queries is kept after its last use. Default is 10
+     * seconds.
+     */
+    public Builder setQueryCacheExpiration(Duration queryCacheExpiration) {
+      this.queryCacheExpiration = queryCacheExpiration;
+      return this;
+    }
+
     /**
      * Maximum number of threads available for workflow execution across all workers created by the
      * Factory.
@@ -106,6 +131,8 @@ public class WorkerFactoryOptions {
     public WorkerFactoryOptions build() {
       return new WorkerFactoryOptions(
           cacheMaximumSize,
+          queryCacheMaximumSize,
+          queryCacheExpiration,
           maxWorkflowThreadCount,
           stickyDecisionScheduleToStartTimeoutInSeconds,
           workflowInterceptor,
@@ -116,6 +143,8 @@ public class WorkerFactoryOptions {
     public WorkerFactoryOptions validateAndBuildWithDefaults() {
       return new WorkerFactoryOptions(
           cacheMaximumSize,
+          queryCacheMaximumSize,
+          queryCacheExpiration,
           maxWorkflowThreadCount,
           stickyDecisionScheduleToStartTimeoutInSeconds,
           workflowInterceptor,
@@ -125,6 +154,8 @@ public class WorkerFactoryOptions {
   }
 
   private final int cacheMaximumSize;
+  private final int queryCacheMaximumSize;
+  private final Duration queryCacheExpiration;
   private final int maxWorkflowThreadCount;
   private final int stickyDecisionScheduleToStartTimeoutInSeconds;
   private final WorkflowInterceptor workflowInterceptor;
@@ -132,6 +163,8 @@ public class WorkerFactoryOptions {
 
   private WorkerFactoryOptions(
       int cacheMaximumSize,
+      int queryCacheMaximumSize,
+      Duration queryCacheExpiration,
       int maxWorkflowThreadCount,
       int stickyDecisionScheduleToStartTimeoutInSeconds,
       WorkflowInterceptor workflowInterceptor,
@@ -141,6 +174,12 @@ public class WorkerFactoryOptions {
       if (cacheMaximumSize <= 0) {
         cacheMaximumSize = 600;
       }
+      if (queryCacheMaximumSize < 0) {
+        throw new IllegalArgumentException("negative queryCacheMaximumSize");
+      }
+      if (queryCacheExpiration == null) {
+        queryCacheExpiration = Duration.ofSeconds(10);
+      }
       if (maxWorkflowThreadCount <= 0) {
         maxWorkflowThreadCount = 600;
       }
@@ -152,6 +191,8 @@ public class WorkerFactoryOptions {
       }
     }
     this.cacheMaximumSize = cacheMaximumSize;
+    this.queryCacheMaximumSize = queryCacheMaximumSize;
+    this.queryCacheExpiration = queryCacheExpiration;
     this.maxWorkflowThreadCount = maxWorkflowThreadCount;
     this.stickyDecisionScheduleToStartTimeoutInSeconds =
         stickyDecisionScheduleToStartTimeoutInSeconds;
@@ -163,6 +204,14 @@ public class WorkerFactoryOptions {
     return cacheMaximumSize;
   }
 
+  public int getQueryCacheMaximumSize() {
+    return queryCacheMaximumSize;
+  }
+
+  public Duration getQueryCacheExpiration() {
+    return queryCacheExpiration;
+  }
+
   public int getMaxWorkflowThreadCount() {
     return maxWorkflowThreadCount;
   }
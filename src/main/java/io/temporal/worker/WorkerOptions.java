@@ -48,6 +48,7 @@ public final class WorkerOptions {
     private int maxConcurrentWorkflowTaskExecutionSize = 50;
     private int maxConcurrentLocalActivityExecutionSize = 100;
     private double taskListActivitiesPerSecond = 100000;
+    private DecisionTaskTraceListener decisionTaskTraceListener;
 
     private Builder() {}
 
@@ -60,6 +61,7 @@ public final class WorkerOptions {
       maxConcurrentWorkflowTaskExecutionSize = o.maxConcurrentWorkflowTaskExecutionSize;
       maxConcurrentLocalActivityExecutionSize = o.maxConcurrentLocalActivityExecutionSize;
       taskListActivitiesPerSecond = o.taskListActivitiesPerSecond;
+      decisionTaskTraceListener = o.decisionTaskTraceListener;
     }
 
     /**
@@ -126,13 +128,25 @@ public final class WorkerOptions {
       return this;
     }
 
+    /**
+     * Optional: Listener that receives a per decision task breakdown of the processing time into
+     * history pagination, replay, workflow code, local activities and response building. The same
+     * breakdown is always reported as metrics. Default is null which means no trace records.
+     */
+    public Builder setDecisionTaskTraceListener(
+        DecisionTaskTraceListener decisionTaskTraceListener) {
+      this.decisionTaskTraceListener = decisionTaskTraceListener;
+      return this;
+    }
+
     public WorkerOptions build() {
       return new WorkerOptions(
           maxActivitiesPerSecond,
           maxConcurrentActivityExecutionSize,
           maxConcurrentWorkflowTaskExecutionSize,
           maxConcurrentLocalActivityExecutionSize,
-          taskListActivitiesPerSecond);
+          taskListActivitiesPerSecond,
+          decisionTaskTraceListener);
     }
 
     public WorkerOptions validateAndBuildWithDefaults() {
@@ -152,7 +166,8 @@ public final class WorkerOptions {
           maxConcurrentActivityExecutionSize,
           maxConcurrentWorkflowTaskExecutionSize,
           maxConcurrentLocalActivityExecutionSize,
-          taskListActivitiesPerSecond);
+          taskListActivitiesPerSecond,
+          decisionTaskTraceListener);
     }
   }
 
@@ -161,18 +176,21 @@ public final class WorkerOptions {
   private final int maxConcurrentWorkflowTaskExecutionSize;
   private final int maxConcurrentLocalActivityExecutionSize;
   private final double taskListActivitiesPerSecond;
+  private final DecisionTaskTraceListener decisionTaskTraceListener;
 
   private WorkerOptions(
       double maxActivitiesPerSecond,
       int maxConcurrentActivityExecutionSize,
       int maxConcurrentWorkflowExecutionSize,
       int maxConcurrentLocalActivityExecutionSize,
-      double taskListActivitiesPerSecond) {
+      double taskListActivitiesPerSecond,
+      DecisionTaskTraceListener decisionTaskTraceListener) {
     this.maxActivitiesPerSecond = maxActivitiesPerSecond;
     this.maxConcurrentActivityExecutionSize = maxConcurrentActivityExecutionSize;
     this.maxConcurrentWorkflowTaskExecutionSize = maxConcurrentWorkflowExecutionSize;
     this.maxConcurrentLocalActivityExecutionSize = maxConcurrentLocalActivityExecutionSize;
     this.taskListActivitiesPerSecond = taskListActivitiesPerSecond;
+    this.decisionTaskTraceListener = decisionTaskTraceListener;
   }
 
   public double getMaxActivitiesPerSecond() {
@@ -191,6 +209,10 @@ public final class WorkerOptions {
     return maxConcurrentLocalActivityExecutionSize;
   }
 
+  public DecisionTaskTraceListener getDecisionTaskTraceListener() {
+    return decisionTaskTraceListener;
+  }
+
   @Override
   public String toString() {
     return "WorkerOptions{"
@@ -204,6 +226,8 @@ public final class WorkerOptions {
         + maxConcurrentLocalActivityExecutionSize
         + ", taskListActivitiesPerSecond="
         + taskListActivitiesPerSecond
+        + ", decisionTaskTraceListener="
+        + decisionTaskTraceListener
         + '}';
   }
 }
@@ -43,4 +43,22 @@ public interface WorkflowInfo {
   String getParentWorkflowId();
 
   String getParentRunId();
+
+  /**
+   * Returns the number of events in the history of the current run up to the current decision. The
+   * value is the same during replay, so it can be used to decide when a long running workflow
+   * should call {@link Workflow#continueAsNew(Object...)} to bound the cost of its replay:
+   *
+   * <pre><code>
+   *  while (true) {
+   *    Workflow.await(() -&gt; !requests.isEmpty());
+   *    state.apply(requests.poll());
+   *    if (Workflow.getWorkflowInfo().getHistoryLength() &gt; 5000) {
+   *      // State is passed to the next run which starts with a short history.
+   *      Workflow.continueAsNew(state);
+   *    }
+   *  }
+   * </code></pre>
+   */
+  long getHistoryLength();
 }
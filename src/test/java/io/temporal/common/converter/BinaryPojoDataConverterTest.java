@@ -0,0 +1,197 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.junit.Test;
+
+public class BinaryPojoDataConverterTest {
+
+  public enum Status {
+    ACTIVE,
+    CLOSED
+  }
+
+  public static class Item {
+    private String name;
+    private int quantity;
+
+    public Item() {}
+
+    public Item(String name, int quantity) {
+      this.name = name;
+      this.quantity = quantity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Item)) {
+        return false;
+      }
+      Item item = (Item) o;
+      return quantity == item.quantity && Objects.equals(name, item.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, quantity);
+    }
+  }
+
+  public static class Order {
+    private long id;
+    private Long parentId;
+    private boolean urgent;
+    private double total;
+    private String customer;
+    private byte[] signature;
+    private Status status;
+    private Item primary;
+    private List<Item> items;
+    private transient String cached;
+
+    public Order() {}
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Order)) {
+        return false;
+      }
+      Order order = (Order) o;
+      return id == order.id
+          && urgent == order.urgent
+          && Double.compare(order.total, total) == 0
+          && Objects.equals(parentId, order.parentId)
+          && Objects.equals(customer, order.customer)
+          && Arrays.equals(signature, order.signature)
+          && status == order.status
+          && Objects.equals(primary, order.primary)
+          && Objects.equals(items, order.items);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, customer);
+    }
+  }
+
+  public static class Node {
+    private int value;
+    private Node next;
+
+    public Node() {}
+  }
+
+  public static class Unsupported {
+    private Object value;
+  }
+
+  private final DataConverter json = GsonJsonDataConverter.getInstance();
+  private final DataConverter converter =
+      BinaryPojoDataConverter.newBuilder().register(Order.class, Node.class).build();
+
+  private static Order newOrder() {
+    Order order = new Order();
+    order.id = -12345678901L;
+    order.urgent = true;
+    order.total = 99.5;
+    order.customer = "customer1";
+    order.signature = new byte[] {1, 2, 3};
+    order.status = Status.CLOSED;
+    order.primary = new Item("item1", 3);
+    order.items = new ArrayList<>();
+    order.items.add(new Item("item2", 1));
+    order.items.add(null);
+    order.cached = "not serialized";
+    return order;
+  }
+
+  @Test
+  public void testRoundTrip() {
+    Order order = newOrder();
+    byte[] serialized = converter.toData(order);
+    assertEquals(3, serialized[0]);
+    assertTrue(serialized.length * 2 < json.toData(order).length);
+    Order result = converter.fromData(serialized, Order.class, Order.class);
+    assertEquals(order, result);
+    assertEquals(null, result.cached);
+  }
+
+  @Test
+  public void testNullFields() {
+    Order order = new Order();
+    assertEquals(order, converter.fromData(converter.toData(order), Order.class, Order.class));
+  }
+
+  @Test
+  public void testMixedArguments() {
+    Order order = newOrder();
+    byte[] serialized = converter.toData("foo", order, null, 12);
+    Object[] result =
+        converter.fromDataArray(
+            serialized, String.class, Order.class, Order.class, int.class, long.class);
+    assertArrayEquals(new Object[] {"foo", order, null, 12, 0L}, result);
+  }
+
+  @Test
+  public void testUnregisteredTypesUseFallback() {
+    Item item = new Item("item1", 3);
+    byte[] serialized = converter.toData(item, 12);
+    assertArrayEquals(json.toData(item, 12), serialized);
+    assertArrayEquals(
+        new Object[] {item, 12}, converter.fromDataArray(serialized, Item.class, int.class));
+  }
+
+  @Test
+  public void testRecursiveClass() {
+    Node node = new Node();
+    node.value = 1;
+    node.next = new Node();
+    node.next.value = 2;
+    Node result = converter.fromData(converter.toData(node), Node.class, Node.class);
+    assertEquals(1, result.value);
+    assertEquals(2, result.next.value);
+    assertEquals(null, result.next.next);
+  }
+
+  @Test
+  public void testUnknownFingerprint() {
+    byte[] serialized = converter.toData(newOrder());
+    DataConverter other = BinaryPojoDataConverter.newBuilder().register(Node.class).build();
+    try {
+      other.fromData(serialized, Order.class, Order.class);
+      fail("unreachable");
+    } catch (DataConverterException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("Unknown schema fingerprint"));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedField() {
+    BinaryPojoDataConverter.newBuilder().register(Unsupported.class);
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ClaimCheckDataConverterTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final DataConverter json = GsonJsonDataConverter.getInstance();
+  private final AtomicInteger getCount = new AtomicInteger();
+  private BlobStore store;
+
+  @Before
+  public void setUp() throws IOException {
+    FileBlobStore fileStore = new FileBlobStore(folder.getRoot().toPath().resolve("blobs"));
+    store =
+        new BlobStore() {
+          @Override
+          public String put(byte[] content) throws IOException {
+            return fileStore.put(content);
+          }
+
+          @Override
+          public byte[] get(String reference) throws IOException {
+            getCount.incrementAndGet();
+            return fileStore.get(reference);
+          }
+        };
+  }
+
+  @Test
+  public void testSmallPayloadIsInline() {
+    DataConverter converter =
+        ClaimCheckDataConverter.newBuilder(json, store).setOffloadThreshold(100).build();
+    byte[] serialized = converter.toData("foo", 12);
+    assertArrayEquals(json.toData("foo", 12), serialized);
+    assertArrayEquals(
+        new Object[] {"foo", 12}, converter.fromDataArray(serialized, String.class, int.class));
+  }
+
+  @Test
+  public void testLargePayloadIsOffloaded() {
+    DataConverter converter =
+        ClaimCheckDataConverter.newBuilder(json, store).setOffloadThreshold(100).build();
+    String value = Strings.repeat("large ", 100);
+    byte[] serialized = converter.toData(value, 12);
+    assertEquals(2, serialized[0]);
+    assertTrue(serialized.length < 100);
+    // Same content gets the same reference
+    assertArrayEquals(serialized, converter.toData(value, 12));
+    assertArrayEquals(
+        new Object[] {value, 12}, converter.fromDataArray(serialized, String.class, int.class));
+    // Cached by toData
+    assertEquals(0, getCount.get());
+
+    DataConverter otherWorker =
+        ClaimCheckDataConverter.newBuilder(json, store).setOffloadThreshold(100).build();
+    for (int i = 0; i < 3; i++) {
+      assertArrayEquals(
+          new Object[] {value, 12}, otherWorker.fromDataArray(serialized, String.class, int.class));
+    }
+    assertEquals(1, getCount.get());
+  }
+
+  @Test
+  public void testCacheDisabled() {
+    DataConverter converter =
+        ClaimCheckDataConverter.newBuilder(json, store)
+            .setOffloadThreshold(100)
+            .setCacheMaximumBytes(0)
+            .build();
+    String value = Strings.repeat("large ", 100);
+    byte[] serialized = converter.toData(value);
+    assertEquals(value, converter.fromData(serialized, String.class, String.class));
+    assertEquals(value, converter.fromData(serialized, String.class, String.class));
+    assertEquals(2, getCount.get());
+  }
+
+  @Test
+  public void testMissingBlob() {
+    DataConverter converter =
+        ClaimCheckDataConverter.newBuilder(json, store).setOffloadThreshold(100).build();
+    byte[] reference = "\u0002missing".getBytes(StandardCharsets.UTF_8);
+    try {
+      converter.fromData(reference, String.class, String.class);
+      fail("unreachable");
+    } catch (DataConverterException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.base.Strings;
+import com.google.protobuf.ByteString;
+import io.temporal.internal.common.DataConverterUtils;
+import java.lang.reflect.Type;
+import java.util.Random;
+import org.junit.Test;
+
+public class CompressingDataConverterTest {
+
+  private final DataConverter json = GsonJsonDataConverter.getInstance();
+  private final DataConverter converter =
+      CompressingDataConverter.newBuilder(json).setCompressionThreshold(100).build();
+
+  @Test
+  public void testBelowThreshold() {
+    byte[] serialized = converter.toData("foo", 12);
+    assertArrayEquals(json.toData("foo", 12), serialized);
+    assertArrayEquals(
+        new Object[] {"foo", 12}, converter.fromDataArray(serialized, String.class, int.class));
+  }
+
+  @Test
+  public void testCompressed() {
+    String value = Strings.repeat("compressible ", 100);
+    byte[] serialized = converter.toData(value, 12);
+    assertEquals(1, serialized[0]);
+    assertTrue(serialized.length < json.toData(value, 12).length);
+    assertArrayEquals(
+        new Object[] {value, 12}, converter.fromDataArray(serialized, String.class, int.class));
+    serialized = converter.toData(value);
+    assertEquals(value, converter.fromData(serialized, String.class, String.class));
+  }
+
+  @Test
+  public void testStreaming() {
+    String value = Strings.repeat("compressible ", 100);
+    ByteString serialized = DataConverterUtils.toByteString(converter, value, 12);
+    assertArrayEquals(converter.toData(value, 12), serialized.toByteArray());
+    assertArrayEquals(
+        new Object[] {value, 12},
+        DataConverterUtils.fromByteStringArray(converter, serialized, String.class, int.class));
+    ByteString small = DataConverterUtils.toByteString(converter, "foo");
+    assertEquals(
+        "foo", DataConverterUtils.fromByteString(converter, small, String.class, String.class));
+  }
+
+  @Test
+  public void testUncompressedPayloadsOfDelegate() {
+    String value = Strings.repeat("compressible ", 100);
+    byte[] serialized = json.toData(value);
+    assertEquals(value, converter.fromData(serialized, String.class, String.class));
+  }
+
+  @Test
+  public void testIncompressible() {
+    byte[] random = new byte[1000];
+    new Random(1).nextBytes(random);
+    DataConverter raw = new RawDataConverter();
+    DataConverter compressing =
+        CompressingDataConverter.newBuilder(raw).setCompressionThreshold(100).build();
+    assertArrayEquals(random, compressing.toData((Object) random));
+  }
+
+  @Test
+  public void testUnknownCodec() {
+    String value = Strings.repeat("compressible ", 100);
+    byte[] serialized = converter.toData(value);
+    serialized[1] = 15;
+    try {
+      converter.fromData(serialized, String.class, String.class);
+      fail("unreachable");
+    } catch (DataConverterException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("Unknown compression codec id 15"));
+    }
+  }
+
+  @Test
+  public void testCorruptedSize() {
+    byte codecId = converter.toData(Strings.repeat("compressible ", 100))[1];
+    // Varint that decodes to a negative int
+    byte[] negativeSize = {1, codecId, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f};
+    try {
+      converter.fromData(negativeSize, String.class, String.class);
+      fail("unreachable");
+    } catch (DataConverterException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("Invalid uncompressed payload size -1"));
+    }
+  }
+
+  @Test
+  public void testMaxDecompressedSize() {
+    DataConverter limited =
+        CompressingDataConverter.newBuilder(json)
+            .setCompressionThreshold(100)
+            .setMaxDecompressedSize(1000)
+            .build();
+    byte[] serialized = limited.toData(Strings.repeat("compressible ", 100));
+    try {
+      limited.fromData(serialized, String.class, String.class);
+      fail("unreachable");
+    } catch (DataConverterException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("maxDecompressedSize=1000"));
+    }
+  }
+
+  /** Stores the first argument as is. */
+  private static class RawDataConverter implements DataConverter {
+
+    @Override
+    public byte[] toData(Object... value) {
+      return (byte[]) value[0];
+    }
+
+    @Override
+    public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType) {
+      return valueClass.cast(content);
+    }
+
+    @Override
+    public Object[] fromDataArray(byte[] content, Type... valueType) {
+      return new Object[] {content};
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class EncodedValuesTest {
+
+  private final AtomicInteger decodeCount = new AtomicInteger();
+  private final DataConverter json = GsonJsonDataConverter.getInstance();
+  private final DataConverter countingConverter =
+      new DataConverter() {
+        @Override
+        public byte[] toData(Object... value) {
+          return json.toData(value);
+        }
+
+        @Override
+        public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType) {
+          decodeCount.incrementAndGet();
+          return json.fromData(content, valueClass, valueType);
+        }
+
+        @Override
+        public Object[] fromDataArray(byte[] content, Type... valueTypes) {
+          decodeCount.incrementAndGet();
+          return json.fromDataArray(content, valueTypes);
+        }
+      };
+
+  @Test
+  public void testDecodedOnlyOnAccess() {
+    byte[] payload = json.toData("foo", 12);
+    EncodedValues values =
+        new EncodedValues(payload, new Type[] {String.class, int.class}, countingConverter);
+    assertEquals(2, values.getSize());
+    assertFalse(values.isDecoded());
+    assertSame(payload, values.getPayload());
+    assertEquals(0, decodeCount.get());
+
+    assertEquals("foo", values.get(0));
+    assertEquals(12, values.get(1));
+    assertArrayEquals(new Object[] {"foo", 12}, values.toArray());
+    assertTrue(values.isDecoded());
+    assertEquals(1, decodeCount.get());
+  }
+
+  @Test
+  public void testOf() {
+    EncodedValues values = EncodedValues.of("foo", 12);
+    assertTrue(values.isDecoded());
+    assertNull(values.getPayload());
+    assertEquals(2, values.getSize());
+    assertArrayEquals(new Object[] {"foo", 12}, values.toArray());
+  }
+
+  @Test(expected = DataConverterException.class)
+  public void testCorruptedPayload() {
+    byte[] payload = "[\"foo\", ".getBytes();
+    EncodedValues values =
+        new EncodedValues(payload, new Type[] {String.class, int.class}, countingConverter);
+    values.toArray();
+  }
+}
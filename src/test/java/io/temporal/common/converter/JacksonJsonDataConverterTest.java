@@ -0,0 +1,287 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.base.Objects;
+import com.google.common.reflect.TypeToken;
+import com.google.protobuf.ByteString;
+import io.temporal.internal.common.DataConverterUtils;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JacksonJsonDataConverterTest {
+
+  private final DataConverter jackson = JacksonJsonDataConverter.getInstance();
+  private final DataConverter gson = GsonJsonDataConverter.getInstance();
+
+  public static class Struct {
+    private int foo;
+    private String bar;
+    private List<String> list;
+    private Map<String, Integer> map;
+
+    private Struct() {}
+
+    public Struct(int foo, String bar) {
+      this.foo = foo;
+      this.bar = bar;
+      this.list = new ArrayList<>();
+      list.add(bar);
+      this.map = Collections.singletonMap(bar, foo);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Struct struct = (Struct) o;
+      return foo == struct.foo
+          && Objects.equal(bar, struct.bar)
+          && Objects.equal(list, struct.list)
+          && Objects.equal(map, struct.map);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(foo, bar, list, map);
+    }
+  }
+
+  public static class BaseStruct {
+    private String base;
+
+    BaseStruct() {}
+
+    BaseStruct(String base) {
+      this.base = base;
+    }
+  }
+
+  public static class DerivedStruct extends BaseStruct {
+    private int derived;
+    private String text;
+
+    private DerivedStruct() {}
+
+    DerivedStruct(String base, int derived, String text) {
+      super(base);
+      this.derived = derived;
+      this.text = text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      DerivedStruct that = (DerivedStruct) o;
+      return derived == that.derived
+          && Objects.equal(text, that.text)
+          && Objects.equal(((BaseStruct) this).base, ((BaseStruct) that).base);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(derived, text, ((BaseStruct) this).base);
+    }
+  }
+
+  /** No no-arg constructor and no Jackson creator. */
+  public static class ConstructorOnlyStruct {
+    private final String name;
+    private final int value;
+
+    public ConstructorOnlyStruct(String name, int value) {
+      this.name = name;
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      ConstructorOnlyStruct that = (ConstructorOnlyStruct) o;
+      return value == that.value && Objects.equal(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(name, value);
+    }
+  }
+
+  public static void arguments(int one, Struct two, String three, long four) {}
+
+  @Test
+  public void testWireCompatibleWithGson() {
+    Struct struct = new Struct(123, "bar");
+    assertArrayEquals(gson.toData(struct), jackson.toData(struct));
+    assertArrayEquals(gson.toData(1, "a", struct), jackson.toData(1, "a", struct));
+    assertArrayEquals(gson.toData(Struct.class), jackson.toData(Struct.class));
+    assertEquals(struct, jackson.fromData(gson.toData(struct), Struct.class, Struct.class));
+    assertEquals(struct, gson.fromData(jackson.toData(struct), Struct.class, Struct.class));
+    assertEquals(
+        Struct.class, jackson.fromData(gson.toData(Struct.class), Class.class, Class.class));
+  }
+
+  @Test
+  public void testByteArrayCompatibleWithGson() {
+    byte[] bytes = {0, 1, -1, 127, -128};
+    assertCompatibleWithGson(bytes, byte[].class, Assert::assertArrayEquals);
+  }
+
+  @Test
+  public void testCharArrayCompatibleWithGson() {
+    char[] chars = {'a', '<', '\u2028', 'z'};
+    assertCompatibleWithGson(chars, char[].class, Assert::assertArrayEquals);
+  }
+
+  @Test
+  public void testDateCompatibleWithGson() {
+    // Gson date format has a second precision.
+    Date date = new Date(1577836800000L);
+    assertCompatibleWithGson(date, Date.class, Assert::assertEquals);
+  }
+
+  @Test
+  public void testEscapedStringCompatibleWithGson() {
+    String value = "<script>a & b = 'c' \"d\"</script>\u0001\u001f\t\n\u2028\u2029\\ü";
+    assertCompatibleWithGson(value, String.class, Assert::assertEquals);
+  }
+
+  @Test
+  public void testSubclassCompatibleWithGson() {
+    DerivedStruct struct = new DerivedStruct("base", 42, "<text>");
+    assertCompatibleWithGson(struct, DerivedStruct.class, Assert::assertEquals);
+  }
+
+  @Test
+  public void testConstructorOnlyClassCompatibleWithGson() {
+    ConstructorOnlyStruct struct = new ConstructorOnlyStruct("<name>", 42);
+    assertCompatibleWithGson(struct, ConstructorOnlyStruct.class, Assert::assertEquals);
+    assertEquals(
+        Collections.singletonList(struct),
+        jackson.fromData(
+            jackson.toData(Collections.singletonList(struct)),
+            List.class,
+            new TypeToken<List<ConstructorOnlyStruct>>() {}.getType()));
+  }
+
+  @Test
+  public void testDataConverterExceptionIsNotWrapped() {
+    DataConverterException expected = new DataConverterException("expected", null);
+    DataConverter failing =
+        new JacksonJsonDataConverter(
+            (m) ->
+                m.registerModule(
+                    new SimpleModule()
+                        .addSerializer(
+                            Struct.class,
+                            new JsonSerializer<Struct>() {
+                              @Override
+                              public void serialize(
+                                  Struct value, JsonGenerator gen, SerializerProvider provider) {
+                                throw expected;
+                              }
+                            })));
+    try {
+      failing.toData(new Struct(1, "a"), "b");
+      fail("unreachable");
+    } catch (DataConverterException e) {
+      assertSame(expected, e);
+    }
+  }
+
+  /** Checks that both converters produce the same bytes and read each other's output. */
+  private <T> void assertCompatibleWithGson(
+      T value, Class<T> type, BiConsumer<T, T> assertValueEquals) {
+    byte[] fromGson = gson.toData(value);
+    byte[] fromJackson = jackson.toData(value);
+    assertEquals(
+        new String(fromGson, StandardCharsets.UTF_8),
+        new String(fromJackson, StandardCharsets.UTF_8));
+    assertValueEquals.accept(value, gson.fromData(fromJackson, type, type));
+    assertValueEquals.accept(value, jackson.fromData(fromGson, type, type));
+    // Same when the value is one of several arguments
+    assertArrayEquals(gson.toData(value, 1), jackson.toData(value, 1));
+  }
+
+  @Test
+  public void testArguments() throws NoSuchMethodException {
+    Method m =
+        JacksonJsonDataConverterTest.class.getDeclaredMethod(
+            "arguments", int.class, Struct.class, String.class, long.class);
+    Type[] types = m.getGenericParameterTypes();
+    Struct struct = new Struct(1, "s");
+
+    Object[] result = jackson.fromDataArray(gson.toData(2, struct), types);
+    assertArrayEquals(new Object[] {2, struct, null, 0L}, result);
+    // Not an array is treated as the first argument
+    result = jackson.fromDataArray(gson.toData(3), types);
+    assertArrayEquals(new Object[] {3, null, null, 0L}, result);
+    result = jackson.fromDataArray(new byte[0], types);
+    assertArrayEquals(new Object[] {null, null, null, 0L}, result);
+    assertNull(jackson.fromData(new byte[0], Struct.class, Struct.class));
+  }
+
+  @Test
+  public void testException() {
+    RuntimeException e = new IllegalStateException("root", new IllegalArgumentException("cause"));
+    byte[] serialized = jackson.toData(e);
+    IllegalStateException fromGson =
+        gson.fromData(serialized, IllegalStateException.class, IllegalStateException.class);
+    IllegalStateException fromJackson =
+        jackson.fromData(serialized, IllegalStateException.class, IllegalStateException.class);
+    for (IllegalStateException converted : new IllegalStateException[] {fromGson, fromJackson}) {
+      assertEquals("root", converted.getMessage());
+      assertEquals(IllegalArgumentException.class, converted.getCause().getClass());
+      assertEquals("cause", converted.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testStreaming() {
+    Struct struct = new Struct(5, "streamed");
+    ByteString serialized = DataConverterUtils.toByteString(jackson, struct, "second");
+    assertEquals(ByteString.copyFrom(gson.toData(struct, "second")), serialized);
+    Object[] result =
+        DataConverterUtils.fromByteStringArray(jackson, serialized, Struct.class, String.class);
+    assertArrayEquals(new Object[] {struct, "second"}, result);
+    assertNull(
+        DataConverterUtils.fromByteString(jackson, ByteString.EMPTY, Struct.class, Struct.class));
+  }
+}
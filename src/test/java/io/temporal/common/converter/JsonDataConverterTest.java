@@ -22,16 +22,22 @@ package io.temporal.common.converter;
 import static org.junit.Assert.*;
 
 import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+import com.google.protobuf.ByteString;
 import io.temporal.activity.Activity;
+import io.temporal.internal.common.DataConverterUtils;
+import io.temporal.internal.common.OptionsUtils;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import org.junit.Assume;
 import org.junit.Test;
 
 public class JsonDataConverterTest {
@@ -134,6 +140,25 @@ public class JsonDataConverterTest {
     assertEquals(null, deserializedArguments[4]);
   }
 
+  @Test
+  public void testArgumentsOfTheSameSignature() throws NoSuchMethodException {
+    Method m =
+        JsonDataConverterTest.class.getDeclaredMethod(
+            "fourArguments", int.class, Struct1.class, String.class, List.class);
+    List<Struct1> list = new ArrayList<>();
+    list.add(new Struct1(234, "s1"));
+    for (int i = 0; i < 3; i++) {
+      // Each call gets a new array of the same types
+      Type[] arg = m.getGenericParameterTypes();
+      byte[] data = converter.toData(i, null, "a string", list, new int[][] {{1, 2}, {3}});
+      Object[] deserializedArguments = converter.fromDataArray(data, arg);
+      assertArrayEquals(new Object[] {i, null, "a string", list}, deserializedArguments);
+      InputStream input = DataConverterUtils.toByteString(converter, i).newInput();
+      deserializedArguments = ((StreamingDataConverter) converter).readDataArray(input, arg);
+      assertArrayEquals(new Object[] {i, null, null, null}, deserializedArguments);
+    }
+  }
+
   @Test
   public void testClass() {
 
@@ -183,4 +208,78 @@ public class JsonDataConverterTest {
 
     assertEquals("root exception", causeFromConverted.getSuppressed()[0].getMessage());
   }
+
+  @Test
+  public void testStreamingMatchesByteArrayForm() throws NoSuchMethodException {
+    Method m =
+        JsonDataConverterTest.class.getDeclaredMethod(
+            "fourArguments", int.class, Struct1.class, String.class, List.class);
+    Type[] arg = m.getGenericParameterTypes();
+    Struct1 struct1 = new Struct1(123, "Bar");
+    List<Struct1> list = new ArrayList<>();
+    list.add(new Struct1(234, "s1"));
+
+    ByteString streamed = DataConverterUtils.toByteString(converter, 1234, struct1, "str", list);
+    assertEquals(OptionsUtils.toByteString(converter.toData(1234, struct1, "str", list)), streamed);
+    Object[] arguments = DataConverterUtils.fromByteStringArray(converter, streamed, arg);
+    assertEquals(1234, (int) arguments[0]);
+    assertEquals(struct1, arguments[1]);
+    assertEquals("str", arguments[2]);
+    assertEquals(list, arguments[3]);
+
+    ByteString single = DataConverterUtils.toByteString(converter, struct1);
+    assertEquals(
+        struct1,
+        DataConverterUtils.fromByteString(converter, single, Struct1.class, Struct1.class));
+    assertEquals(ByteString.EMPTY, DataConverterUtils.toByteString(converter));
+    assertNull(
+        DataConverterUtils.fromByteString(
+            converter, ByteString.EMPTY, Struct1.class, Struct1.class));
+  }
+
+  @Test
+  public void testStreamingEncodesUtf8() {
+    String value =
+        "ascii \u00e9\u00df \u4e2d\u6587 \ud83d\ude00 unpaired \ud83d end \ude00"
+            + Strings.repeat("\ud83d\ude00", 500)
+            + "\ud83d";
+    ByteString streamed = DataConverterUtils.toByteString(converter, value, 1);
+    assertArrayEquals(converter.toData(value, 1), streamed.toByteArray());
+    value = Strings.repeat("\u00e9", 1000);
+    streamed = DataConverterUtils.toByteString(converter, value);
+    assertEquals(
+        value, DataConverterUtils.fromByteString(converter, streamed, String.class, String.class));
+  }
+
+  /** Compares bytes allocated by a round trip of a large activity result. */
+  @Test
+  public void testStreamingAllocatesLess() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    List<Struct1> value = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      value.add(new Struct1(i, "value-" + i));
+    }
+    Type type = List.class;
+    long threadId = Thread.currentThread().getId();
+    long copying = 0;
+    long streaming = 0;
+    // First iteration warms up both code paths
+    for (int i = 0; i < 2; i++) {
+      long start = threadBean.getThreadAllocatedBytes(threadId);
+      ByteString copied = OptionsUtils.toByteString(converter.toData(value));
+      converter.fromData(copied.toByteArray(), List.class, type);
+      copying = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+      start = threadBean.getThreadAllocatedBytes(threadId);
+      ByteString streamed = DataConverterUtils.toByteString(converter, value);
+      DataConverterUtils.fromByteString(converter, streamed, List.class, type);
+      streaming = threadBean.getThreadAllocatedBytes(threadId) - start;
+    }
+    assertTrue("streaming=" + streaming + ", copying=" + copying, streaming < copying);
+  }
 }
@@ -0,0 +1,98 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.common.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.google.protobuf.ByteString;
+import io.temporal.internal.common.DataConverterUtils;
+import io.temporal.proto.common.ActivityType;
+import io.temporal.proto.common.WorkflowType;
+import org.junit.Test;
+
+public class ProtobufDataConverterTest {
+
+  private final DataConverter converter = ProtobufDataConverter.getInstance();
+  private final DataConverter json = GsonJsonDataConverter.getInstance();
+
+  @Test
+  public void testMessage() {
+    WorkflowType type = WorkflowType.newBuilder().setName("workflow1").build();
+    byte[] serialized = converter.toData(type);
+    assertEquals(0, serialized[0]);
+    assertEquals(type, converter.fromData(serialized, WorkflowType.class, WorkflowType.class));
+    assertArrayEquals(
+        new Object[] {type, null, 0},
+        converter.fromDataArray(serialized, WorkflowType.class, String.class, int.class));
+  }
+
+  @Test
+  public void testMixedArguments() {
+    WorkflowType workflowType = WorkflowType.newBuilder().setName("workflow1").build();
+    ActivityType activityType = ActivityType.newBuilder().setName("activity1").build();
+    byte[] serialized = converter.toData("foo", workflowType, 12, activityType);
+    Object[] result =
+        converter.fromDataArray(
+            serialized,
+            String.class,
+            WorkflowType.class,
+            int.class,
+            ActivityType.class,
+            long.class);
+    assertArrayEquals(new Object[] {"foo", workflowType, 12, activityType, 0L}, result);
+  }
+
+  @Test
+  public void testOtherValuesUseDelegate() {
+    assertArrayEquals(json.toData("foo", 12), converter.toData("foo", 12));
+    assertEquals(
+        ByteString.copyFrom(json.toData("foo")), DataConverterUtils.toByteString(converter, "foo"));
+    // Existing JSON payloads of message types are still readable
+    WorkflowType type = WorkflowType.newBuilder().setName("workflow1").build();
+    byte[] jsonPayload = json.toData(type);
+    assertEquals(type, converter.fromData(jsonPayload, WorkflowType.class, WorkflowType.class));
+  }
+
+  @Test
+  public void testStreaming() {
+    ActivityType type = ActivityType.newBuilder().setName("activity1").build();
+    ByteString serialized = DataConverterUtils.toByteString(converter, type);
+    assertEquals(ByteString.copyFrom(converter.toData(type)), serialized);
+    assertEquals(
+        type,
+        DataConverterUtils.fromByteString(
+            converter, serialized, ActivityType.class, ActivityType.class));
+    assertArrayEquals(
+        new Object[] {type},
+        DataConverterUtils.fromByteStringArray(converter, serialized, ActivityType.class));
+  }
+
+  @Test
+  public void testTypeMismatch() {
+    byte[] serialized = converter.toData(WorkflowType.newBuilder().setName("workflow1").build());
+    try {
+      converter.fromData(serialized, ActivityType.class, ActivityType.class);
+      fail("unreachable");
+    } catch (DataConverterException e) {
+      assertEquals(true, e.getMessage().contains("WorkflowType"));
+    }
+  }
+}
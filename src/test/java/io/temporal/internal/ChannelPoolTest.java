@@ -0,0 +1,161 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.temporal.proto.workflowservice.WorkflowServiceGrpc;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions.ChannelSelection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ChannelPoolTest {
+
+  /** Records calls. A call stays in flight until {@link #closeAll()}. */
+  private static class FakeChannel extends ManagedChannel {
+
+    private final List<ClientCall.Listener<?>> listeners = new ArrayList<>();
+    private int calls;
+    private boolean shutdown;
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+      calls++;
+      return new ClientCall<ReqT, RespT>() {
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+          listeners.add(responseListener);
+        }
+
+        @Override
+        public void request(int numMessages) {}
+
+        @Override
+        public void cancel(String message, Throwable cause) {}
+
+        @Override
+        public void halfClose() {}
+
+        @Override
+        public void sendMessage(ReqT message) {}
+      };
+    }
+
+    void closeAll() {
+      for (ClientCall.Listener<?> listener : listeners) {
+        listener.onClose(Status.OK, new Metadata());
+      }
+      listeners.clear();
+    }
+
+    @Override
+    public String authority() {
+      return "fake";
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+      shutdown = true;
+      return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+      return shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return shutdown;
+    }
+  }
+
+  private static <ReqT, RespT> void startCall(
+      ManagedChannel channel, MethodDescriptor<ReqT, RespT> method) {
+    channel
+        .newCall(method, CallOptions.DEFAULT)
+        .start(new ClientCall.Listener<RespT>() {}, new Metadata());
+  }
+
+  @Test
+  public void testRoundRobinWithSeparateLongPolls() {
+    FakeChannel first = new FakeChannel();
+    FakeChannel second = new FakeChannel();
+    FakeChannel longPoll = new FakeChannel();
+    ChannelPool pool =
+        new ChannelPool(
+            Arrays.asList(first, second),
+            Collections.singletonList(longPoll),
+            ChannelSelection.ROUND_ROBIN);
+    for (int i = 0; i < 10; i++) {
+      startCall(pool, WorkflowServiceGrpc.getRespondDecisionTaskCompletedMethod());
+      startCall(pool, WorkflowServiceGrpc.getPollForDecisionTaskMethod());
+    }
+    assertEquals(5, first.calls);
+    assertEquals(5, second.calls);
+    assertEquals(10, longPoll.calls);
+
+    pool.shutdown();
+    assertTrue(first.isShutdown() && second.isShutdown() && longPoll.isShutdown());
+    assertTrue(pool.isShutdown());
+  }
+
+  @Test
+  public void testLeastLoaded() {
+    FakeChannel first = new FakeChannel();
+    FakeChannel second = new FakeChannel();
+    ChannelPool pool =
+        new ChannelPool(
+            Arrays.asList(first, second), Collections.emptyList(), ChannelSelection.LEAST_LOADED);
+    startCall(pool, WorkflowServiceGrpc.getPollForActivityTaskMethod());
+    startCall(pool, WorkflowServiceGrpc.getPollForActivityTaskMethod());
+    assertEquals(1, first.calls);
+    assertEquals(1, second.calls);
+    // Once the calls of the first channel complete it takes all the new calls.
+    first.closeAll();
+    startCall(pool, WorkflowServiceGrpc.getRespondActivityTaskCompletedMethod());
+    first.closeAll();
+    startCall(pool, WorkflowServiceGrpc.getRespondActivityTaskCompletedMethod());
+    assertEquals(3, first.calls);
+    assertEquals(1, second.calls);
+  }
+}
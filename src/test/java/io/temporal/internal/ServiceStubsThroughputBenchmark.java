@@ -0,0 +1,135 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.temporal.internal.testservice.TestWorkflowService;
+import io.temporal.proto.common.WorkflowType;
+import io.temporal.proto.tasklist.TaskList;
+import io.temporal.proto.workflowservice.StartWorkflowExecutionRequest;
+import io.temporal.proto.workflowservice.StartWorkflowExecutionResponse;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures asynchronous call throughput of {@link WorkflowServiceStubs} with different channel
+ * executors. Calls go to the in-memory {@link TestWorkflowService} through the in-process
+ * transport, so the numbers reflect the client side overhead and the executor hops rather than
+ * network latency. The Netty transport options don't apply to the in-process transport and are not
+ * measured.
+ *
+ * <p>Not a test, so it doesn't slow down the suite. Usage: {@code ServiceStubsThroughputBenchmark
+ * [calls] [concurrency]}
+ */
+public class ServiceStubsThroughputBenchmark {
+
+  private static final String NAMESPACE = "benchmark";
+  private static final String TASK_LIST = "benchmark";
+
+  public static void main(String[] args) throws Exception {
+    int calls = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    runAll(calls, concurrency);
+  }
+
+  private static void runAll(int calls, int concurrency) throws Exception {
+    ExecutorService dedicated = Executors.newFixedThreadPool(4);
+    try {
+      run("direct executor", WorkflowServiceStubsOptions.newBuilder(), calls, concurrency);
+      run(
+          "dedicated executor, 4 threads",
+          WorkflowServiceStubsOptions.newBuilder().setChannelExecutor(dedicated),
+          calls,
+          concurrency);
+      run(
+          "ForkJoinPool.commonPool()",
+          WorkflowServiceStubsOptions.newBuilder().setChannelExecutor(ForkJoinPool.commonPool()),
+          calls,
+          concurrency);
+    } finally {
+      dedicated.shutdown();
+    }
+  }
+
+  private static void run(
+      String name, WorkflowServiceStubsOptions.Builder options, int calls, int concurrency)
+      throws InterruptedException {
+    TestWorkflowService service = new TestWorkflowService();
+    WorkflowServiceStubs stubs = WorkflowServiceStubs.newInstance(service, options.build());
+    try {
+      // Warms up JIT before measuring.
+      execute(stubs, calls / 10, concurrency);
+      long start = System.nanoTime();
+      int failures = execute(stubs, calls, concurrency);
+      long elapsed = System.nanoTime() - start;
+      System.out.printf(
+          "%-35s %10.0f calls/s, %d failures%n", name, calls * 1e9 / elapsed, failures);
+    } finally {
+      stubs.shutdownNow();
+      stubs.awaitTermination(10, TimeUnit.SECONDS);
+      service.close();
+    }
+  }
+
+  private static int execute(WorkflowServiceStubs stubs, int calls, int concurrency)
+      throws InterruptedException {
+    Semaphore inFlight = new Semaphore(concurrency);
+    AtomicInteger failures = new AtomicInteger();
+    for (int i = 0; i < calls; i++) {
+      inFlight.acquire();
+      StartWorkflowExecutionRequest request =
+          StartWorkflowExecutionRequest.newBuilder()
+              .setNamespace(NAMESPACE)
+              .setWorkflowId(UUID.randomUUID().toString())
+              .setWorkflowType(WorkflowType.newBuilder().setName("benchmark"))
+              .setTaskList(TaskList.newBuilder().setName(TASK_LIST))
+              .setExecutionStartToCloseTimeoutSeconds(3600)
+              .setTaskStartToCloseTimeoutSeconds(10)
+              .setRequestId(UUID.randomUUID().toString())
+              .build();
+      Futures.addCallback(
+          stubs.futureStub().startWorkflowExecution(request),
+          new FutureCallback<StartWorkflowExecutionResponse>() {
+            @Override
+            public void onSuccess(StartWorkflowExecutionResponse result) {
+              inFlight.release();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+              failures.incrementAndGet();
+              inFlight.release();
+            }
+          },
+          MoreExecutors.directExecutor());
+    }
+    inFlight.acquire(concurrency);
+    return failures.get();
+  }
+}
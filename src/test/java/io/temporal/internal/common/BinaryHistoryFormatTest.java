@@ -0,0 +1,79 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.temporal.proto.workflowservice.PollForDecisionTaskResponse;
+import io.temporal.testUtils.HistoryUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+
+public class BinaryHistoryFormatTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    WorkflowExecutionHistory history = newHistory();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryHistoryFormat.write(history, out);
+
+    WorkflowExecutionHistory read = BinaryHistoryFormat.read(ByteBuffer.wrap(out.toByteArray()));
+    assertEquals(history.getEvents(), read.getEvents());
+  }
+
+  @Test
+  public void testReadHistoryFile() throws Exception {
+    WorkflowExecutionHistory history = newHistory();
+    File binaryFile = File.createTempFile("history", BinaryHistoryFormat.FILE_EXTENSION);
+    File jsonFile = File.createTempFile("history", ".json");
+    try {
+      BinaryHistoryFormat.write(history, binaryFile);
+      Files.write(jsonFile.toPath(), "[]".getBytes(StandardCharsets.UTF_8));
+      assertTrue(BinaryHistoryFormat.isBinaryHistory(binaryFile));
+      assertFalse(BinaryHistoryFormat.isBinaryHistory(jsonFile));
+
+      WorkflowExecutionHistory read = WorkflowExecutionUtils.readHistory(binaryFile);
+      assertEquals(history.getEvents(), read.getEvents());
+    } finally {
+      binaryFile.delete();
+      jsonFile.delete();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncatedHistory() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryHistoryFormat.write(newHistory(), out);
+    byte[] serialized = out.toByteArray();
+    BinaryHistoryFormat.read(ByteBuffer.wrap(serialized, 0, serialized.length - 1).slice());
+  }
+
+  private static WorkflowExecutionHistory newHistory() throws Exception {
+    PollForDecisionTaskResponse task = HistoryUtils.generateDecisionTaskWithInitialHistory();
+    return new WorkflowExecutionHistory(task.getHistory().getEventsList());
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.internal.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.base.Strings;
+import com.google.protobuf.ByteString;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.GsonJsonDataConverter;
+import io.temporal.common.converter.StreamingDataConverter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class DataConverterUtilsTest {
+
+  @Test
+  public void testStackTraceRoundTrip() {
+    Exception e = new RuntimeException("test");
+    e.setStackTrace(
+        new StackTraceElement[] {
+          new StackTraceElement("io.temporal.Foo", "bar", "Foo.java", 12),
+          new StackTraceElement("io.temporal.Foo$Inner", "lambda$run$0", "Foo.java", 1234567),
+          new StackTraceElement("sun.reflect.NativeMethodAccessorImpl", "invoke0", null, -2),
+          new StackTraceElement("io.temporal.Generated", "call", "Generated.java", -1),
+          new StackTraceElement("Foo", "<init>", "Foo:Bar.java", 3),
+        });
+    StackTraceElement[] parsed =
+        DataConverterUtils.parseStackTrace(DataConverterUtils.serializeStackTrace(e));
+    assertArrayEquals(
+        new StackTraceElement[] {
+          new StackTraceElement("io.temporal.Foo", "bar", "Foo.java", 12),
+          new StackTraceElement("io.temporal.Foo$Inner", "lambda$run$0", "Foo.java", 1234567),
+          new StackTraceElement(
+              "sun.reflect.NativeMethodAccessorImpl", "invoke0", "Native Method", 0),
+          new StackTraceElement("io.temporal.Generated", "call", "Generated.java", 0),
+          new StackTraceElement("Foo", "<init>", "Foo:Bar.java", 3),
+        },
+        parsed);
+  }
+
+  @Test
+  public void testParseStackTrace() {
+    StackTraceElement[] parsed =
+        DataConverterUtils.parseStackTrace(
+            "java.base/java.lang.Thread.run(Thread.java:834)\r\n"
+                + "io.temporal.Foo.bar(Unknown Source)\n"
+                + "io.temporal.Foo.bar(Foo.java:)\n"
+                + "not a stack trace element\n"
+                + "io.temporal.Foo.bar()");
+    assertEquals(5, parsed.length);
+    assertEquals(
+        new StackTraceElement("java.base/java.lang.Thread", "run", "Thread.java", 834), parsed[0]);
+    assertEquals(new StackTraceElement("io.temporal.Foo", "bar", "Unknown Source", 0), parsed[1]);
+    assertEquals(new StackTraceElement("io.temporal.Foo", "bar", "Foo.java:", 0), parsed[2]);
+    assertNull(parsed[3]);
+    assertEquals(new StackTraceElement("io.temporal.Foo", "bar", "", 0), parsed[4]);
+  }
+
+  @Test
+  public void testStackTraceIsCutOff() {
+    Exception e = new RuntimeException("test");
+    e.setStackTrace(
+        new StackTraceElement[] {
+          new StackTraceElement("io.temporal.Foo", "bar", "Foo.java", 12),
+          new StackTraceElement(
+              "io.temporal.internal.sync.POJODecisionTaskHandler$POJOWorkflowImplementation",
+              "execute",
+              "POJODecisionTaskHandler.java",
+              20),
+          new StackTraceElement("io.temporal.Foo", "baz", "Foo.java", 13),
+        });
+    assertEquals(
+        2, DataConverterUtils.parseStackTrace(DataConverterUtils.serializeStackTrace(e)).length);
+  }
+
+  @Test
+  public void testToByteStringReusesBuffer() {
+    DataConverter converter = GsonJsonDataConverter.getInstance();
+    String large = Strings.repeat("large", 10000);
+    ByteString first = DataConverterUtils.toByteString(converter, "first", 1);
+    ByteString second = DataConverterUtils.toByteString(converter, large);
+    ByteString third = DataConverterUtils.toByteString(converter, "third");
+    assertEquals("[\"first\",1]", first.toStringUtf8());
+    assertEquals(
+        large, DataConverterUtils.fromByteString(converter, second, String.class, String.class));
+    assertEquals("\"third\"", third.toStringUtf8());
+    assertEquals(ByteString.EMPTY, DataConverterUtils.toByteString(converter));
+  }
+
+  @Test
+  public void testToByteStringFromWriteData() {
+    DataConverter json = GsonJsonDataConverter.getInstance();
+    // Writes the value serialized by another call to toByteString
+    StreamingDataConverter nesting =
+        new StreamingDataConverter() {
+          @Override
+          public void writeData(OutputStream output, Object... values) {
+            try {
+              DataConverterUtils.toByteString(json, values).writeTo(output);
+              output.write(']');
+            } catch (IOException e) {
+              throw new DataConverterException(e);
+            }
+          }
+
+          @Override
+          public <T> T readData(InputStream input, Class<T> valueClass, Type valueType) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public Object[] readDataArray(InputStream input, Type... valueTypes) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public byte[] toData(Object... value) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public Object[] fromDataArray(byte[] content, Type... valueType) {
+            throw new UnsupportedOperationException();
+          }
+        };
+    assertEquals("\"foo\"]", DataConverterUtils.toByteString(nesting, "foo").toStringUtf8());
+  }
+
+  @Test
+  public void testToByteStringCopiesConverterArray() {
+    // Converter that reuses its output array between calls
+    byte[] shared = "\"first\"".getBytes(StandardCharsets.UTF_8);
+    DataConverter reusing =
+        new DataConverter() {
+          @Override
+          public byte[] toData(Object... value) {
+            return shared;
+          }
+
+          @Override
+          public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public Object[] fromDataArray(byte[] content, Type... valueType) {
+            throw new UnsupportedOperationException();
+          }
+        };
+    ByteString serialized = DataConverterUtils.toByteString(reusing, "first");
+    shared[1] = 'F';
+    assertEquals("\"first\"", serialized.toStringUtf8());
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.internal.metrics.NoopScope;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class GrpcRetryerTest {
+
+  @Test
+  public void testAsyncRetryUntilSuccess() throws Exception {
+    RpcRetryOptions options =
+        RpcRetryOptions.newBuilder()
+            .setInitialInterval(Duration.ofMillis(1))
+            .setMaximumInterval(Duration.ofMillis(10))
+            .setExpiration(Duration.ofSeconds(10))
+            .validateBuildWithDefaults();
+    AtomicInteger attempts = new AtomicInteger();
+    CompletableFuture<String> result =
+        GrpcRetryer.retryWithResultAsync(
+            options,
+            () -> {
+              CompletableFuture<String> f = new CompletableFuture<>();
+              if (attempts.incrementAndGet() < 3) {
+                f.completeExceptionally(new StatusRuntimeException(Status.UNAVAILABLE));
+              } else {
+                f.complete("done");
+              }
+              return f;
+            });
+    assertEquals("done", result.get());
+    assertEquals(3, attempts.get());
+  }
+
+  @Test
+  public void testAsyncDoNotRetry() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    try {
+      GrpcRetryer.retryWithResultAsync(
+              GrpcRetryer.DEFAULT_SERVICE_OPERATION_RETRY_OPTIONS,
+              () -> {
+                attempts.incrementAndGet();
+                CompletableFuture<String> f = new CompletableFuture<>();
+                f.completeExceptionally(new StatusRuntimeException(Status.NOT_FOUND));
+                return f;
+              })
+          .get();
+      fail("unreachable");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof StatusRuntimeException);
+    }
+    assertEquals(1, attempts.get());
+  }
+
+  @Test
+  public void testExpiration() {
+    RpcRetryOptions options =
+        RpcRetryOptions.newBuilder()
+            .setInitialInterval(Duration.ofMillis(10))
+            .setMaximumInterval(Duration.ofMillis(50))
+            .setExpiration(Duration.ofMillis(300))
+            .validateBuildWithDefaults();
+    long start = System.currentTimeMillis();
+    try {
+      GrpcRetryer.retry(
+          options,
+          () -> {
+            throw new StatusRuntimeException(Status.UNAVAILABLE);
+          });
+      fail("unreachable");
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+    }
+    long elapsed = System.currentTimeMillis() - start;
+    assertTrue(String.valueOf(elapsed), elapsed >= 300 && elapsed < 1000);
+  }
+
+  @Test
+  public void testRetryBudgetLimitsRetries() {
+    RpcRetryOptions options =
+        RpcRetryOptions.newBuilder()
+            .setInitialInterval(Duration.ofMillis(1))
+            .setMaximumInterval(Duration.ofMillis(1))
+            .setExpiration(Duration.ofSeconds(10))
+            .validateBuildWithDefaults();
+    RetryBudget budget = new RetryBudget(2, 0.5);
+    AtomicInteger attempts = new AtomicInteger();
+    try {
+      GrpcRetryer.retry(
+          options,
+          budget,
+          NoopScope.getInstance(),
+          null,
+          () -> {
+            attempts.incrementAndGet();
+            throw new StatusRuntimeException(Status.UNAVAILABLE);
+          });
+      fail("unreachable");
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+    }
+    assertEquals(3, attempts.get());
+    // Calls without a budget are not affected by the exhausted one
+    attempts.set(0);
+    String result =
+        GrpcRetryer.retryWithResult(
+            options,
+            () -> {
+              if (attempts.incrementAndGet() < 5) {
+                throw new StatusRuntimeException(Status.UNAVAILABLE);
+              }
+              return "done";
+            });
+    assertEquals("done", result);
+    assertEquals(5, attempts.get());
+  }
+
+  @Test
+  public void testAsyncRetryBudgetLimitsRetries() throws Exception {
+    RpcRetryOptions options =
+        RpcRetryOptions.newBuilder()
+            .setInitialInterval(Duration.ofMillis(1))
+            .setMaximumInterval(Duration.ofMillis(1))
+            .setExpiration(Duration.ofSeconds(10))
+            .validateBuildWithDefaults();
+    RetryBudget budget = new RetryBudget(1, 0.5);
+    AtomicInteger attempts = new AtomicInteger();
+    try {
+      GrpcRetryer.retryWithResultAsync(
+              options,
+              budget,
+              NoopScope.getInstance(),
+              null,
+              () -> {
+                attempts.incrementAndGet();
+                CompletableFuture<String> f = new CompletableFuture<>();
+                f.completeExceptionally(new StatusRuntimeException(Status.UNAVAILABLE));
+                return f;
+              })
+          .get();
+      fail("unreachable");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof StatusRuntimeException);
+    }
+    assertEquals(2, attempts.get());
+  }
+
+  @Test
+  public void testRetryBudget() {
+    RetryBudget budget = new RetryBudget(2, 0.5);
+    assertTrue(budget.tryAcquire());
+    assertTrue(budget.tryAcquire());
+    assertFalse(budget.tryAcquire());
+    budget.onSuccess();
+    assertFalse(budget.tryAcquire());
+    budget.onSuccess();
+    assertTrue(budget.tryAcquire());
+    for (int i = 0; i < 10; i++) {
+      budget.onSuccess();
+    }
+    assertEquals(2, budget.getTokens(), 0);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import io.temporal.common.converter.DataConverterException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class SignalBatchTest {
+
+  @Test
+  public void testRoundTripPreservesOrder() {
+    byte[] first = "first".getBytes(StandardCharsets.UTF_8);
+    byte[] second = new byte[0];
+    List<SignalBatch.Entry> decoded =
+        SignalBatch.decode(
+            SignalBatch.encode(
+                Arrays.asList(
+                    new SignalBatch.Entry("signal1", first),
+                    new SignalBatch.Entry("signal2", null),
+                    new SignalBatch.Entry("signal1", second))));
+    assertEquals(3, decoded.size());
+    assertEquals("signal1", decoded.get(0).getSignalName());
+    assertArrayEquals(first, decoded.get(0).getInput());
+    assertEquals("signal2", decoded.get(1).getSignalName());
+    assertNull(decoded.get(1).getInput());
+    assertEquals("signal1", decoded.get(2).getSignalName());
+    assertArrayEquals(second, decoded.get(2).getInput());
+  }
+
+  @Test
+  public void testTruncatedBatch() {
+    byte[] encoded =
+        SignalBatch.encode(
+            Arrays.asList(
+                new SignalBatch.Entry("signal1", new byte[100]),
+                new SignalBatch.Entry("signal2", new byte[100])));
+    try {
+      SignalBatch.decode(Arrays.copyOf(encoded, encoded.length - 1));
+      fail("unreachable");
+    } catch (DataConverterException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.external;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.StatsReporter;
+import com.uber.m3.util.Duration;
+import com.uber.m3.util.ImmutableMap;
+import io.temporal.internal.metrics.MetricsTag;
+import io.temporal.internal.metrics.MetricsType;
+import io.temporal.internal.metrics.NoopScope;
+import io.temporal.proto.event.EventType;
+import io.temporal.proto.event.HistoryEvent;
+import io.temporal.proto.execution.WorkflowExecution;
+import io.temporal.proto.execution.WorkflowExecutionInfo;
+import io.temporal.proto.execution.WorkflowExecutionStatus;
+import java.util.Map;
+import org.junit.Test;
+
+public class ClosedWorkflowCacheTest {
+
+  private static final HistoryEvent CLOSE_EVENT =
+      HistoryEvent.newBuilder().setEventType(EventType.WorkflowExecutionCompleted).build();
+
+  @Test(timeout = 2000)
+  public void testCloseEventIsCached() throws InterruptedException {
+    Map<String, String> tags =
+        new ImmutableMap.Builder<String, String>(1).put(MetricsTag.NAMESPACE, "namespace").build();
+    StatsReporter reporter = mock(StatsReporter.class);
+    Scope scope =
+        new RootScopeBuilder().reporter(reporter).reportEvery(Duration.ofMillis(500)).tagged(tags);
+    ClosedWorkflowCache cache = new ClosedWorkflowCache(10, scope);
+    WorkflowExecution execution = execution("w1", "r1");
+
+    assertNull(cache.getCloseEvent(execution));
+    cache.putCloseEvent(execution, CLOSE_EVENT);
+    assertEquals(CLOSE_EVENT, cache.getCloseEvent(execution));
+    assertEquals(CLOSE_EVENT, cache.getCloseEvent(execution("w1", "r1")));
+
+    // Wait for reporter
+    Thread.sleep(600);
+    verify(reporter, times(1)).reportCounter(MetricsType.CLOSED_WORKFLOW_CACHE_MISS, tags, 1);
+    verify(reporter, times(1)).reportCounter(MetricsType.CLOSED_WORKFLOW_CACHE_HIT, tags, 2);
+  }
+
+  @Test
+  public void testExecutionWithoutRunIdIsNotCached() {
+    ClosedWorkflowCache cache = new ClosedWorkflowCache(10, NoopScope.getInstance());
+    WorkflowExecution execution = execution("w1", "");
+    cache.putCloseEvent(execution, CLOSE_EVENT);
+    assertNull(cache.getCloseEvent(execution));
+  }
+
+  @Test
+  public void testOnlyClosedDescriptionIsCached() {
+    ClosedWorkflowCache cache = new ClosedWorkflowCache(10, NoopScope.getInstance());
+    WorkflowExecution running = execution("w1", "r1");
+    cache.putDescription(running, description(running, WorkflowExecutionStatus.Running));
+    assertNull(cache.getDescription(running));
+
+    WorkflowExecution closed = execution("w2", "r2");
+    WorkflowExecutionInfo info = description(closed, WorkflowExecutionStatus.Completed);
+    cache.putDescription(closed, info);
+    assertEquals(info, cache.getDescription(closed));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() {
+    ClosedWorkflowCache cache = new ClosedWorkflowCache(2, NoopScope.getInstance());
+    WorkflowExecution first = execution("w1", "r1");
+    WorkflowExecution second = execution("w2", "r2");
+    WorkflowExecution third = execution("w3", "r3");
+    cache.putCloseEvent(first, CLOSE_EVENT);
+    cache.putCloseEvent(second, CLOSE_EVENT);
+    cache.getCloseEvent(first);
+    cache.putCloseEvent(third, CLOSE_EVENT);
+
+    assertEquals(CLOSE_EVENT, cache.getCloseEvent(first));
+    assertNull(cache.getCloseEvent(second));
+    assertEquals(CLOSE_EVENT, cache.getCloseEvent(third));
+  }
+
+  private static WorkflowExecution execution(String workflowId, String runId) {
+    return WorkflowExecution.newBuilder().setWorkflowId(workflowId).setRunId(runId).build();
+  }
+
+  private static WorkflowExecutionInfo description(
+      WorkflowExecution execution, WorkflowExecutionStatus status) {
+    return WorkflowExecutionInfo.newBuilder().setExecution(execution).setStatus(status).build();
+  }
+}
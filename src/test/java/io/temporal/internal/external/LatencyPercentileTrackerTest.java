@@ -0,0 +1,52 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.external;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyPercentileTrackerTest {
+
+  @Test
+  public void testDefaultUntilEnoughSamples() {
+    LatencyPercentileTracker tracker = new LatencyPercentileTracker(0.95);
+    for (int i = 0; i < 19; i++) {
+      tracker.record(1000);
+    }
+    assertEquals(42, tracker.getPercentileNanos(42));
+    tracker.record(1000);
+    assertEquals(1000, tracker.getPercentileNanos(42));
+  }
+
+  @Test
+  public void testPercentileOfRecentWindow() {
+    LatencyPercentileTracker tracker = new LatencyPercentileTracker(0.95);
+    for (int i = 1; i <= 100; i++) {
+      tracker.record(i);
+    }
+    assertEquals(95, tracker.getPercentileNanos(0));
+    // Old samples leave the window.
+    for (int i = 0; i < 1000; i++) {
+      tracker.record(7);
+    }
+    assertEquals(7, tracker.getPercentileNanos(0));
+  }
+}
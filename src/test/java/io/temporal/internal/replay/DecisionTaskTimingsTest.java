@@ -0,0 +1,58 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.temporal.internal.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.temporal.internal.replay.DecisionTaskTimings.Phase;
+import java.time.Duration;
+import org.junit.Test;
+
+public class DecisionTaskTimingsTest {
+
+  @Test
+  public void testTimeIsAttributedToCurrentPhase() throws InterruptedException {
+    DecisionTaskTimings timings = new DecisionTaskTimings();
+    assertNull(timings.switchTo(Phase.REPLAY));
+    Thread.sleep(20);
+    assertEquals(Phase.REPLAY, timings.switchTo(Phase.HISTORY_PAGINATION));
+    Thread.sleep(20);
+    assertEquals(Phase.HISTORY_PAGINATION, timings.switchTo(Phase.REPLAY));
+    timings.stop();
+
+    assertTrue(timings.get(Phase.REPLAY).toMillis() >= 20);
+    assertTrue(timings.get(Phase.HISTORY_PAGINATION).toMillis() >= 20);
+    assertEquals(Duration.ZERO, timings.get(Phase.WORKFLOW_CODE));
+
+    // Stopped clock doesn't accumulate.
+    Duration replay = timings.get(Phase.REPLAY);
+    Thread.sleep(10);
+    assertEquals(replay, timings.get(Phase.REPLAY));
+  }
+
+  @Test
+  public void testAdd() {
+    DecisionTaskTimings timings = new DecisionTaskTimings();
+    timings.add(Phase.LOCAL_ACTIVITIES, 100);
+    timings.add(Phase.LOCAL_ACTIVITIES, 50);
+    assertEquals(Duration.ofNanos(150), timings.get(Phase.LOCAL_ACTIVITIES));
+  }
+}
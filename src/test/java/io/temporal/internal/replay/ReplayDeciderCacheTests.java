@@ -25,11 +25,13 @@ import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
+import com.google.protobuf.ByteString;
 import com.uber.m3.tally.RootScopeBuilder;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.StatsReporter;
 import com.uber.m3.util.Duration;
 import com.uber.m3.util.ImmutableMap;
+import io.temporal.client.WorkflowClient;
 import io.temporal.internal.metrics.MetricsTag;
 import io.temporal.internal.metrics.MetricsType;
 import io.temporal.internal.metrics.NoopScope;
@@ -44,6 +46,7 @@ import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.testUtils.HistoryUtils;
 import io.temporal.worker.WorkflowImplementationOptions;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import junit.framework.TestCase;
 import org.junit.Test;
@@ -249,6 +252,105 @@ public class ReplayDeciderCacheTests {
     assertEquals(1, replayDeciderCache.size());
   }
 
+  @Test
+  public void queryIsAnsweredFromQueryCacheUntilHistoryChanges() throws Exception {
+    DeciderCache replayDeciderCache =
+        new DeciderCache(10, 10, java.time.Duration.ofSeconds(10), NoopScope.getInstance());
+    PollForDecisionTaskResponse decisionTask =
+        HistoryUtils.generateDecisionTaskWithInitialHistory()
+            .toBuilder()
+            .setQuery(WorkflowQuery.newBuilder().setQueryType("query"))
+            .build();
+    assertFalse(replayDeciderCache.queryCached(decisionTask).isPresent());
+
+    Decider decider = mock(Decider.class);
+    byte[] result = new byte[] {1, 2, 3};
+    when(decider.queryIfCaughtUp(decisionTask, decisionTask.getQuery()))
+        .thenReturn(Optional.of(result));
+    assertTrue(replayDeciderCache.addToQueryCache(decisionTask, decider));
+    assertArrayEquals(result, replayDeciderCache.queryCached(decisionTask).get());
+
+    // Decider is behind the history
+    when(decider.queryIfCaughtUp(decisionTask, decisionTask.getQuery()))
+        .thenReturn(Optional.empty());
+    assertFalse(replayDeciderCache.queryCached(decisionTask).isPresent());
+
+    replayDeciderCache.invalidateAll();
+    verify(decider, times(1)).close();
+  }
+
+  @Test
+  public void queryCacheIsDisabledByDefault() throws Exception {
+    DeciderCache replayDeciderCache = new DeciderCache(10, NoopScope.getInstance());
+    PollForDecisionTaskResponse decisionTask =
+        HistoryUtils.generateDecisionTaskWithInitialHistory();
+    Decider decider = mock(Decider.class);
+    assertFalse(replayDeciderCache.addToQueryCache(decisionTask, decider));
+    verify(decider, never()).close();
+  }
+
+  @Test
+  public void queryIsNotAnsweredFromCachedDeciderForPaginatedHistory() throws Throwable {
+    PollForDecisionTaskResponse decisionTask =
+        HistoryUtils.generateDecisionTaskWithInitialHistory();
+    ReplayDecider decider = createFakeDecider(decisionTask);
+    decider.decide(decisionTask);
+    WorkflowQuery query = WorkflowQuery.newBuilder().setQueryType("query").build();
+
+    // The whole history was already processed by the decider.
+    PollForDecisionTaskResponse queryTask = decisionTask.toBuilder().setQuery(query).build();
+    assertTrue(decider.queryIfCaughtUp(queryTask, query).isPresent());
+
+    // Events after the first page might include signals the decider hasn't seen.
+    PollForDecisionTaskResponse paginatedQueryTask =
+        queryTask.toBuilder().setNextPageToken(ByteString.copyFromUtf8("next-page")).build();
+    assertFalse(decider.queryIfCaughtUp(paginatedQueryTask, query).isPresent());
+    decider.close();
+  }
+
+  @Test
+  public void queryIsAnsweredFromCompletedDeciderAfterClose() throws Throwable {
+    PollForDecisionTaskResponse decisionTask =
+        HistoryUtils.generateDecisionTaskWithInitialHistory();
+    ReplayDecider decider = createFakeDecider(decisionTask, true);
+    // Completes the workflow, which closes the decider.
+    decider.decide(decisionTask);
+    WorkflowQuery query = WorkflowQuery.newBuilder().setQueryType("query").build();
+    PollForDecisionTaskResponse queryTask = decisionTask.toBuilder().setQuery(query).build();
+    assertTrue(decider.queryIfCaughtUp(queryTask, query).isPresent());
+
+    // The stack trace is gone with the workflow threads.
+    WorkflowQuery stackTrace =
+        WorkflowQuery.newBuilder().setQueryType(WorkflowClient.QUERY_TYPE_STACK_TRACE).build();
+    assertFalse(
+        decider
+            .queryIfCaughtUp(decisionTask.toBuilder().setQuery(stackTrace).build(), stackTrace)
+            .isPresent());
+  }
+
+  @Test
+  public void queryCacheMissIsNotReportedWhenQueryCacheIsDisabled() throws Exception {
+    Map<String, String> tags =
+        new ImmutableMap.Builder<String, String>(2)
+            .put(MetricsTag.NAMESPACE, "namespace")
+            .put(MetricsTag.TASK_LIST, "stickyTaskList")
+            .build();
+    StatsReporter reporter = mock(StatsReporter.class);
+    Scope scope =
+        new RootScopeBuilder().reporter(reporter).reportEvery(Duration.ofMillis(100)).tagged(tags);
+    DeciderCache replayDeciderCache = new DeciderCache(10, scope);
+    PollForDecisionTaskResponse decisionTask =
+        HistoryUtils.generateDecisionTaskWithInitialHistory()
+            .toBuilder()
+            .setQuery(WorkflowQuery.newBuilder().setQueryType("query"))
+            .build();
+    assertFalse(replayDeciderCache.queryCached(decisionTask).isPresent());
+
+    // Wait for reporter
+    Thread.sleep(600);
+    verify(reporter, never()).reportCounter(eq(MetricsType.QUERY_CACHE_MISS), eq(tags), anyInt());
+  }
+
   private void assertCacheIsEmpty(DeciderCache cache, String runId) throws Exception {
     Throwable ex = null;
     try {
@@ -270,6 +372,10 @@ public class ReplayDeciderCacheTests {
   }
 
   private ReplayDecider createFakeDecider(PollForDecisionTaskResponse response) {
+    return createFakeDecider(response, false);
+  }
+
+  private ReplayDecider createFakeDecider(PollForDecisionTaskResponse response, boolean completes) {
     return new ReplayDecider(
         null,
         "namespace",
@@ -282,7 +388,7 @@ public class ReplayDeciderCacheTests {
 
           @Override
           public boolean eventLoop() throws Throwable {
-            return false;
+            return completes;
           }
 
           @Override
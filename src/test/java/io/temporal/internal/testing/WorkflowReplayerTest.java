@@ -0,0 +1,221 @@
+/*
+ *  Copyright (C) 2020 Temporal Technologies, Inc. All Rights Reserved.
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package io.temporal.internal.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.internal.common.BinaryHistoryFormat;
+import io.temporal.internal.common.WorkflowExecutionHistory;
+import io.temporal.internal.common.WorkflowExecutionUtils;
+import io.temporal.proto.event.HistoryEvent;
+import io.temporal.proto.execution.WorkflowExecution;
+import io.temporal.testing.ReplayResults;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.testing.WorkflowReplayer;
+import io.temporal.worker.Worker;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorkflowReplayerTest {
+
+  private static final String TASK_LIST = "test-workflow-replayer";
+
+  @WorkflowInterface
+  public interface GreetingWorkflow {
+    @WorkflowMethod
+    String greet(String name);
+  }
+
+  @WorkflowInterface
+  public interface SleepingWorkflow {
+    @WorkflowMethod
+    String sleep(String name);
+  }
+
+  public static class GreetingWorkflowImpl implements GreetingWorkflow {
+    @Override
+    public String greet(String name) {
+      Workflow.sleep(Duration.ofMinutes(1));
+      return "Hello " + name;
+    }
+  }
+
+  public static class SleepingWorkflowImpl implements SleepingWorkflow {
+    @Override
+    public String sleep(String name) {
+      Workflow.sleep(Duration.ofHours(1));
+      return name;
+    }
+  }
+
+  /** Changed implementation that no longer sleeps, so it doesn't match the recorded histories. */
+  public static class NonDeterministicSleepingWorkflowImpl implements SleepingWorkflow {
+    @Override
+    public String sleep(String name) {
+      return name;
+    }
+  }
+
+  private TestWorkflowEnvironment testEnvironment;
+  private List<WorkflowExecutionHistory> greetingHistories;
+  private WorkflowExecutionHistory sleepingHistory;
+
+  @Before
+  public void setUp() {
+    testEnvironment = TestWorkflowEnvironment.newInstance();
+    Worker worker = testEnvironment.newWorker(TASK_LIST);
+    worker.registerWorkflowImplementationTypes(
+        GreetingWorkflowImpl.class, SleepingWorkflowImpl.class);
+    testEnvironment.start();
+    WorkflowClient client = testEnvironment.getWorkflowClient();
+    WorkflowOptions options =
+        WorkflowOptions.newBuilder()
+            .setTaskList(TASK_LIST)
+            .setExecutionStartToCloseTimeout(Duration.ofDays(1))
+            .build();
+    greetingHistories = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      GreetingWorkflow workflow = client.newWorkflowStub(GreetingWorkflow.class, options);
+      WorkflowExecution execution = WorkflowClient.start(workflow::greet, "name" + i);
+      WorkflowStub.fromTyped(workflow).getResult(String.class);
+      greetingHistories.add(getHistory(execution));
+    }
+    SleepingWorkflow workflow = client.newWorkflowStub(SleepingWorkflow.class, options);
+    WorkflowExecution execution = WorkflowClient.start(workflow::sleep, "name");
+    WorkflowStub.fromTyped(workflow).getResult(String.class);
+    sleepingHistory = getHistory(execution);
+  }
+
+  @After
+  public void tearDown() {
+    testEnvironment.close();
+  }
+
+  @Test
+  public void testParallelReplay() throws Exception {
+    List<WorkflowExecutionHistory> histories =
+        ImmutableList.<WorkflowExecutionHistory>builder()
+            .addAll(greetingHistories)
+            .add(sleepingHistory)
+            .build();
+    ReplayResults results =
+        WorkflowReplayer.replayWorkflowExecutions(
+            histories, 2, GreetingWorkflowImpl.class, SleepingWorkflowImpl.class);
+
+    assertTrue(results.getFailures().toString(), results.isSuccessful());
+    assertEquals(4, results.getHistoryCount());
+    long eventCount = 0;
+    for (WorkflowExecutionHistory history : histories) {
+      eventCount += history.getEvents().size();
+    }
+    assertEquals(eventCount, results.getEventCount());
+  }
+
+  @Test
+  public void testNonDeterministicFailuresAreGroupedByWorkflowType() throws Exception {
+    List<WorkflowExecutionHistory> histories =
+        ImmutableList.<WorkflowExecutionHistory>builder()
+            .addAll(greetingHistories)
+            .add(sleepingHistory)
+            .build();
+    ReplayResults results =
+        WorkflowReplayer.replayWorkflowExecutions(
+            histories, 2, GreetingWorkflowImpl.class, NonDeterministicSleepingWorkflowImpl.class);
+
+    assertFalse(results.isSuccessful());
+    assertEquals(4, results.getHistoryCount());
+    Map<String, List<ReplayResults.ReplayFailure>> failures = results.getFailuresByWorkflowType();
+    assertEquals(1, failures.size());
+    List<ReplayResults.ReplayFailure> sleepingFailures = failures.get("SleepingWorkflow");
+    assertEquals(failures.toString(), 1, sleepingFailures.size());
+    assertEquals("history-3", sleepingFailures.get(0).getHistoryName());
+  }
+
+  @Test
+  public void testReplayFromDirectory() throws Exception {
+    File directory = Files.createTempDirectory("histories").toFile();
+    try {
+      for (int i = 0; i < greetingHistories.size(); i++) {
+        BinaryHistoryFormat.write(
+            greetingHistories.get(i),
+            new File(directory, "greeting-" + i + BinaryHistoryFormat.FILE_EXTENSION));
+      }
+      // Valid header followed by a truncated event.
+      ByteArrayOutputStream corrupted = new ByteArrayOutputStream();
+      BinaryHistoryFormat.write(greetingHistories.get(0), corrupted);
+      byte[] truncated = Arrays.copyOf(corrupted.toByteArray(), corrupted.size() - 1);
+      Files.write(
+          new File(directory, "corrupted" + BinaryHistoryFormat.FILE_EXTENSION).toPath(),
+          truncated);
+      // Files with other extensions are ignored.
+      Files.write(
+          new File(directory, "notes.txt").toPath(), "notes".getBytes(StandardCharsets.UTF_8));
+
+      ReplayResults results =
+          WorkflowReplayer.replayWorkflowExecutionsFromDirectory(
+              directory, 2, GreetingWorkflowImpl.class);
+
+      assertEquals(4, results.getHistoryCount());
+      assertEquals(1, results.getFailures().size());
+      ReplayResults.ReplayFailure failure = results.getFailures().get(0);
+      assertEquals("corrupted" + BinaryHistoryFormat.FILE_EXTENSION, failure.getHistoryName());
+      // The workflow type of a history that could not be loaded is unknown.
+      assertNull(failure.getWorkflowType());
+      assertEquals(1, results.getFailuresByWorkflowType().get(null).size());
+    } finally {
+      for (File file : directory.listFiles()) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  private WorkflowExecutionHistory getHistory(WorkflowExecution execution) {
+    Iterator<HistoryEvent> events =
+        WorkflowExecutionUtils.getHistory(
+            testEnvironment.getWorkflowService(), testEnvironment.getNamespace(), execution);
+    List<HistoryEvent> result = new ArrayList<>();
+    while (events.hasNext()) {
+      result.add(events.next());
+    }
+    return new WorkflowExecutionHistory(result);
+  }
+}
@@ -24,9 +24,22 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
 import io.temporal.activity.Activity;
 import io.temporal.activity.ActivityInterface;
 import io.temporal.activity.ActivityOptions;
+import io.temporal.client.BulkStartListener;
+import io.temporal.client.BulkStartOptions;
+import io.temporal.client.BulkStartRequest;
+import io.temporal.client.DuplicateWorkflowException;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowClientOptions;
 import io.temporal.client.WorkflowException;
@@ -34,6 +47,13 @@ import io.temporal.client.WorkflowOptions;
 import io.temporal.client.WorkflowStub;
 import io.temporal.client.WorkflowTimedOutException;
 import io.temporal.common.context.ContextPropagator;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodedValues;
+import io.temporal.common.converter.GsonJsonDataConverter;
+import io.temporal.common.interceptors.BaseWorkflowInvoker;
+import io.temporal.common.interceptors.WorkflowCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowCallsInterceptorBase;
 import io.temporal.internal.common.WorkflowExecutionUtils;
 import io.temporal.proto.event.EventType;
 import io.temporal.proto.event.History;
@@ -41,34 +61,50 @@ import io.temporal.proto.event.HistoryEvent;
 import io.temporal.proto.event.TimeoutType;
 import io.temporal.proto.execution.WorkflowExecution;
 import io.temporal.proto.execution.WorkflowExecutionInfo;
+import io.temporal.proto.execution.WorkflowExecutionStatus;
 import io.temporal.proto.workflowservice.GetWorkflowExecutionHistoryRequest;
 import io.temporal.proto.workflowservice.ListClosedWorkflowExecutionsRequest;
 import io.temporal.proto.workflowservice.ListClosedWorkflowExecutionsResponse;
 import io.temporal.proto.workflowservice.ListOpenWorkflowExecutionsRequest;
 import io.temporal.proto.workflowservice.ListOpenWorkflowExecutionsResponse;
+import io.temporal.proto.workflowservice.WorkflowServiceGrpc;
+import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.testing.SimulatedTimeoutException;
 import io.temporal.testing.TestEnvironmentOptions;
 import io.temporal.testing.TestWorkflowEnvironment;
 import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactoryOptions;
 import io.temporal.workflow.ActivityTimeoutException;
 import io.temporal.workflow.Async;
 import io.temporal.workflow.ChildWorkflowOptions;
 import io.temporal.workflow.ChildWorkflowTimedOutException;
+import io.temporal.workflow.Functions;
 import io.temporal.workflow.Promise;
 import io.temporal.workflow.SignalMethod;
 import io.temporal.workflow.Workflow;
 import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -142,6 +178,334 @@ public class WorkflowTestingTest {
     assertEquals("TestWorkflow-input1", result);
   }
 
+  @WorkflowInterface
+  public interface BlockedWorkflow {
+    @WorkflowMethod
+    String run(String input);
+
+    @SignalMethod
+    void unblock();
+  }
+
+  public static class BlockedWorkflowImpl implements BlockedWorkflow {
+
+    private boolean unblocked;
+
+    @Override
+    public String run(String input) {
+      Workflow.await(() -> unblocked);
+      return input;
+    }
+
+    @Override
+    public void unblock() {
+      unblocked = true;
+    }
+  }
+
+  /**
+   * Counts service calls by method name. Also tracks GetWorkflowExecutionHistory calls in flight
+   * through the future stub.
+   */
+  private static class CountingServiceStubs implements WorkflowServiceStubs {
+
+    private final WorkflowServiceStubs delegate;
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final ClientInterceptor interceptor =
+        new ClientInterceptor() {
+          @Override
+          public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+              MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+            calls
+                .computeIfAbsent(method.getFullMethodName(), (k) -> new AtomicInteger())
+                .incrementAndGet();
+            if (!method.equals(WorkflowServiceGrpc.getGetWorkflowExecutionHistoryMethod())) {
+              return call;
+            }
+            return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(call) {
+              @Override
+              public void start(Listener<RespT> responseListener, Metadata headers) {
+                started.incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                super.start(
+                    new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+                        responseListener) {
+                      @Override
+                      public void onClose(Status status, Metadata trailers) {
+                        inFlight.decrementAndGet();
+                        super.onClose(status, trailers);
+                      }
+                    },
+                    headers);
+              }
+            };
+          }
+        };
+
+    CountingServiceStubs(WorkflowServiceStubs delegate) {
+      this.delegate = delegate;
+    }
+
+    int getCalls(MethodDescriptor<?, ?> method) {
+      AtomicInteger result = calls.get(method.getFullMethodName());
+      return result == null ? 0 : result.get();
+    }
+
+    @Override
+    public WorkflowServiceGrpc.WorkflowServiceBlockingStub blockingStub() {
+      return delegate.blockingStub().withInterceptors(interceptor);
+    }
+
+    @Override
+    public WorkflowServiceGrpc.WorkflowServiceFutureStub futureStub() {
+      return delegate.futureStub().withInterceptors(interceptor);
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    @Override
+    public void shutdownNow() {
+      delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+  }
+
+  @Test
+  public void testAsyncResultsWithLimitedResultPolls() throws Exception {
+    TestWorkflowEnvironment env = TestWorkflowEnvironment.newInstance();
+    try {
+      Worker worker = env.newWorker(TASK_LIST);
+      worker.registerWorkflowImplementationTypes(BlockedWorkflowImpl.class);
+      env.start();
+      // Unlike env.getWorkflowClient() doesn't unlock time skipping while waiting for results.
+      CountingServiceStubs service = new CountingServiceStubs(env.getWorkflowService());
+      WorkflowClient client =
+          WorkflowClient.newInstance(
+              service,
+              WorkflowClientOptions.newBuilder()
+                  .setNamespace(env.getNamespace())
+                  .setMaxConcurrentResultPolls(2)
+                  .build());
+      WorkflowOptions options =
+          WorkflowOptions.newBuilder()
+              .setTaskList(TASK_LIST)
+              .setExecutionStartToCloseTimeout(Duration.ofDays(1))
+              .build();
+      List<WorkflowStub> workflows = new ArrayList<>();
+      List<CompletableFuture<String>> results = new ArrayList<>();
+      List<CompletableFuture<String>> sharedResults = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        WorkflowStub workflow = client.newUntypedWorkflowStub("BlockedWorkflow", options);
+        workflow.start("input" + i);
+        workflows.add(workflow);
+        results.add(workflow.getResultAsync(String.class));
+        sharedResults.add(workflow.getResultAsync(String.class));
+      }
+      while (service.started.get() < 2) {
+        Thread.sleep(10);
+      }
+      // Gives the other executions a chance to exceed the limit
+      Thread.sleep(200);
+      assertEquals(2, service.started.get());
+      assertEquals(2, service.inFlight.get());
+      for (WorkflowStub workflow : workflows) {
+        workflow.signal("unblock");
+      }
+      for (int i = 0; i < 5; i++) {
+        assertEquals("input" + i, results.get(i).get());
+        assertEquals("input" + i, sharedResults.get(i).get());
+      }
+      assertEquals(2, service.maxInFlight.get());
+      // Both waiters of an execution share a single poll
+      assertEquals(5, service.started.get());
+    } finally {
+      env.close();
+    }
+  }
+
+  @Test
+  public void testClosedWorkflowCache() throws Exception {
+    TestWorkflowEnvironment env = TestWorkflowEnvironment.newInstance();
+    try {
+      Worker worker = env.newWorker(TASK_LIST);
+      worker.registerWorkflowImplementationTypes(EmptyWorkflowImpl.class);
+      env.start();
+      CountingServiceStubs service = new CountingServiceStubs(env.getWorkflowService());
+      WorkflowClient client =
+          WorkflowClient.newInstance(
+              service,
+              WorkflowClientOptions.newBuilder()
+                  .setNamespace(env.getNamespace())
+                  .setClosedWorkflowCacheSize(10)
+                  .build());
+      WorkflowOptions options =
+          WorkflowOptions.newBuilder()
+              .setTaskList(TASK_LIST)
+              .setExecutionStartToCloseTimeout(Duration.ofDays(1))
+              .build();
+      WorkflowStub workflow = client.newUntypedWorkflowStub("TestWorkflow", options);
+      WorkflowExecution execution = workflow.start("input1");
+      assertEquals("TestWorkflow-input1", workflow.getResult(String.class));
+      WorkflowExecutionInfo info = workflow.describe();
+      assertEquals(WorkflowExecutionStatus.Completed, info.getStatus());
+      int historyCalls =
+          service.getCalls(WorkflowServiceGrpc.getGetWorkflowExecutionHistoryMethod());
+      int describeCalls =
+          service.getCalls(WorkflowServiceGrpc.getDescribeWorkflowExecutionMethod());
+      assertTrue(historyCalls > 0);
+      assertEquals(1, describeCalls);
+
+      // A new stub for the same closed run is served from the cache
+      WorkflowStub cached = client.newUntypedWorkflowStub(execution, Optional.empty());
+      assertEquals("TestWorkflow-input1", cached.getResult(String.class));
+      assertEquals("TestWorkflow-input1", cached.getResultAsync(String.class).get());
+      assertEquals(info, cached.describe());
+      assertEquals(
+          historyCalls,
+          service.getCalls(WorkflowServiceGrpc.getGetWorkflowExecutionHistoryMethod()));
+      assertEquals(
+          describeCalls,
+          service.getCalls(WorkflowServiceGrpc.getDescribeWorkflowExecutionMethod()));
+    } finally {
+      env.close();
+    }
+  }
+
+  @Test
+  public void testBulkStart() throws Exception {
+    Worker worker = testEnvironment.newWorker(TASK_LIST);
+    worker.registerWorkflowImplementationTypes(EmptyWorkflowImpl.class);
+    testEnvironment.start();
+    WorkflowClient client = testEnvironment.getWorkflowClient();
+    List<BulkStartRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      WorkflowOptions options =
+          WorkflowOptions.newBuilder()
+              .setWorkflowId("bulk-" + (i == 19 ? 0 : i))
+              .setTaskList(TASK_LIST)
+              .setExecutionStartToCloseTimeout(Duration.ofDays(1))
+              .build();
+      requests.add(BulkStartRequest.newRequest("TestWorkflow", options, "input" + i));
+    }
+    Map<String, WorkflowExecution> started = new ConcurrentHashMap<>();
+    List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+    client
+        .startBulk(
+            requests.iterator(),
+            BulkStartOptions.newBuilder().setMaxConcurrentStarts(4).build(),
+            new BulkStartListener() {
+              @Override
+              public void onStarted(BulkStartRequest request, WorkflowExecution execution) {
+                started.put((String) request.getArgs()[0], execution);
+              }
+
+              @Override
+              public void onFailure(BulkStartRequest request, Throwable failure) {
+                failures.add(failure);
+              }
+            })
+        .get();
+    assertEquals(19, started.size());
+    assertEquals(1, failures.size());
+    assertTrue(failures.get(0) instanceof DuplicateWorkflowException);
+    for (int i = 0; i < 19; i++) {
+      WorkflowStub stub = client.newUntypedWorkflowStub(started.get("input" + i), Optional.empty());
+      assertEquals("TestWorkflow-input" + i, stub.getResult(String.class));
+    }
+  }
+
+  @Test
+  public void testBulkStartCallsIteratorAndListenerInExecutor() throws Exception {
+    Worker worker = testEnvironment.newWorker(TASK_LIST);
+    worker.registerWorkflowImplementationTypes(EmptyWorkflowImpl.class);
+    testEnvironment.start();
+    WorkflowClient client = testEnvironment.getWorkflowClient();
+    Thread caller = Thread.currentThread();
+    Set<Thread> executorThreads = ConcurrentHashMap.newKeySet();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            2,
+            (r) -> {
+              Thread thread = new Thread(r);
+              executorThreads.add(thread);
+              return thread;
+            });
+    List<Thread> otherThreads = Collections.synchronizedList(new ArrayList<>());
+    Runnable checkThread =
+        () -> {
+          Thread current = Thread.currentThread();
+          if (current != caller && !executorThreads.contains(current)) {
+            otherThreads.add(current);
+          }
+        };
+    Iterator<BulkStartRequest> requests =
+        new Iterator<BulkStartRequest>() {
+          private int i;
+
+          @Override
+          public boolean hasNext() {
+            checkThread.run();
+            return i < 10;
+          }
+
+          @Override
+          public BulkStartRequest next() {
+            checkThread.run();
+            WorkflowOptions options =
+                WorkflowOptions.newBuilder()
+                    .setTaskList(TASK_LIST)
+                    .setExecutionStartToCloseTimeout(Duration.ofDays(1))
+                    .build();
+            return BulkStartRequest.newRequest("TestWorkflow", options, "input" + i++);
+          }
+        };
+    AtomicInteger started = new AtomicInteger();
+    try {
+      client
+          .startBulk(
+              requests,
+              BulkStartOptions.newBuilder().setMaxConcurrentStarts(2).setExecutor(executor).build(),
+              new BulkStartListener() {
+                @Override
+                public void onStarted(BulkStartRequest request, WorkflowExecution execution) {
+                  checkThread.run();
+                  started.incrementAndGet();
+                }
+
+                @Override
+                public void onFailure(BulkStartRequest request, Throwable failure) {
+                  checkThread.run();
+                }
+              })
+          .get();
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(10, started.get());
+    assertEquals(Collections.emptyList(), otherThreads);
+  }
+
   public static class FailingWorkflowImpl implements TestWorkflow {
 
     @Override
@@ -1004,4 +1368,190 @@ public class WorkflowTestingTest {
     String result = workflow.workflow("input1");
     assertEquals("testing123testing123", result);
   }
+
+  @WorkflowInterface
+  public interface DroppedSignalWorkflow {
+    @WorkflowMethod
+    String run();
+
+    @SignalMethod
+    void signal(String value);
+  }
+
+  public static class DroppedSignalWorkflowImpl implements DroppedSignalWorkflow {
+
+    private final List<String> signals = new ArrayList<>();
+
+    @Override
+    public String run() {
+      Workflow.await(() -> signals.contains("done"));
+      return String.join(",", signals);
+    }
+
+    @Override
+    public void signal(String value) {
+      signals.add(value);
+    }
+  }
+
+  /** Drops the first signal of each execution without looking at its arguments. */
+  private static class DroppingSignalInterceptor extends WorkflowCallsInterceptorBase {
+
+    private boolean dropped;
+
+    DroppingSignalInterceptor(WorkflowCallsInterceptor next) {
+      super(next);
+    }
+
+    @Override
+    public void registerEncodedSignal(
+        String signalType, Type[] argTypes, Functions.Proc1<EncodedValues> callback) {
+      super.registerEncodedSignal(
+          signalType,
+          argTypes,
+          (values) -> {
+            if (!dropped) {
+              dropped = true;
+              return;
+            }
+            callback.apply(values);
+          });
+    }
+  }
+
+  /** Counts deserializations of payloads that contain the given text. */
+  private static class CountingDataConverter implements DataConverter {
+
+    private final DataConverter delegate = GsonJsonDataConverter.getInstance();
+    private final String text;
+    private final AtomicInteger count = new AtomicInteger();
+
+    CountingDataConverter(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public byte[] toData(Object... value) throws DataConverterException {
+      return delegate.toData(value);
+    }
+
+    @Override
+    public <T> T fromData(byte[] content, Class<T> valueClass, Type valueType)
+        throws DataConverterException {
+      countIfMatches(content);
+      return delegate.fromData(content, valueClass, valueType);
+    }
+
+    @Override
+    public Object[] fromDataArray(byte[] content, Type... valueType) throws DataConverterException {
+      countIfMatches(content);
+      return delegate.fromDataArray(content, valueType);
+    }
+
+    private void countIfMatches(byte[] content) {
+      if (content != null && new String(content, StandardCharsets.UTF_8).contains(text)) {
+        count.incrementAndGet();
+      }
+    }
+  }
+
+  @Test
+  public void testDroppedSignalIsNotDeserialized() {
+    CountingDataConverter converter = new CountingDataConverter("dropped-signal");
+    TestWorkflowEnvironment env =
+        TestWorkflowEnvironment.newInstance(
+            TestEnvironmentOptions.newBuilder()
+                .setWorkflowClientOptions(
+                    WorkflowClientOptions.newBuilder().setDataConverter(converter).build())
+                .setWorkerFactoryOptions(
+                    WorkerFactoryOptions.newBuilder()
+                        .setWorkflowInterceptor(
+                            (interceptor, next) ->
+                                new BaseWorkflowInvoker(
+                                    // A pass through interceptor between keeps the laziness.
+                                    new DroppingSignalInterceptor(
+                                        new WorkflowCallsInterceptorBase(interceptor)),
+                                    next))
+                        .build())
+                .build());
+    try {
+      Worker worker = env.newWorker(TASK_LIST);
+      worker.registerWorkflowImplementationTypes(DroppedSignalWorkflowImpl.class);
+      env.start();
+      WorkflowClient client = env.getWorkflowClient();
+      WorkflowOptions options =
+          WorkflowOptions.newBuilder()
+              .setTaskList(TASK_LIST)
+              .setExecutionStartToCloseTimeout(Duration.ofDays(1))
+              .build();
+      DroppedSignalWorkflow workflow = client.newWorkflowStub(DroppedSignalWorkflow.class, options);
+      WorkflowClient.start(workflow::run);
+      workflow.signal("dropped-signal");
+      workflow.signal("kept");
+      workflow.signal("done");
+      assertEquals("kept,done", WorkflowStub.fromTyped(workflow).getResult(String.class));
+      assertEquals(0, converter.count.get());
+    } finally {
+      env.close();
+    }
+  }
+
+  /** Records signals through the non encoded registration method only. */
+  private static class RecordingSignalInterceptor extends WorkflowCallsInterceptorBase {
+
+    private final Set<String> signals;
+
+    RecordingSignalInterceptor(WorkflowCallsInterceptor next, Set<String> signals) {
+      super(next);
+      this.signals = signals;
+    }
+
+    @Override
+    public void registerSignal(
+        String signalType, Type[] argTypes, Functions.Proc1<Object[]> callback) {
+      super.registerSignal(
+          signalType,
+          argTypes,
+          (args) -> {
+            signals.add((String) args[0]);
+            callback.apply(args);
+          });
+    }
+  }
+
+  @Test
+  public void testInterceptorOverridingOnlyRegisterSignal() {
+    Set<String> signals = ConcurrentHashMap.newKeySet();
+    TestWorkflowEnvironment env =
+        TestWorkflowEnvironment.newInstance(
+            TestEnvironmentOptions.newBuilder()
+                .setWorkerFactoryOptions(
+                    WorkerFactoryOptions.newBuilder()
+                        .setWorkflowInterceptor(
+                            (interceptor, next) ->
+                                new BaseWorkflowInvoker(
+                                    new RecordingSignalInterceptor(interceptor, signals), next))
+                        .build())
+                .build());
+    try {
+      Worker worker = env.newWorker(TASK_LIST);
+      worker.registerWorkflowImplementationTypes(DroppedSignalWorkflowImpl.class);
+      env.start();
+      WorkflowClient client = env.getWorkflowClient();
+      WorkflowOptions options =
+          WorkflowOptions.newBuilder()
+              .setTaskList(TASK_LIST)
+              .setExecutionStartToCloseTimeout(Duration.ofDays(1))
+              .build();
+      DroppedSignalWorkflow workflow = client.newWorkflowStub(DroppedSignalWorkflow.class, options);
+      WorkflowClient.start(workflow::run);
+      workflow.signal("first");
+      workflow.signal("second");
+      workflow.signal("done");
+      assertEquals("first,second,done", WorkflowStub.fromTyped(workflow).getResult(String.class));
+      assertEquals(new HashSet<>(Arrays.asList("first", "second", "done")), signals);
+    } finally {
+      env.close();
+    }
+  }
 }
@@ -19,7 +19,9 @@
 
 package io.temporal.workflow;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
@@ -29,6 +31,9 @@ import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.StatsReporter;
 import com.uber.m3.tally.Stopwatch;
 import com.uber.m3.util.ImmutableMap;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
 import io.temporal.activity.ActivityInterface;
 import io.temporal.activity.ActivityOptions;
 import io.temporal.client.WorkflowClient;
@@ -42,6 +47,12 @@ import io.temporal.common.interceptors.WorkflowInvocationInterceptor;
 import io.temporal.common.interceptors.WorkflowInvoker;
 import io.temporal.internal.metrics.MetricsTag;
 import io.temporal.internal.metrics.MetricsType;
+import io.temporal.internal.metrics.ServiceMethod;
+import io.temporal.proto.workflowservice.DescribeNamespaceRequest;
+import io.temporal.proto.workflowservice.DescribeNamespaceResponse;
+import io.temporal.proto.workflowservice.WorkflowServiceGrpc;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import io.temporal.testing.TestEnvironmentOptions;
 import io.temporal.testing.TestWorkflowEnvironment;
 import io.temporal.worker.Worker;
@@ -317,6 +328,60 @@ public class MetricsTest {
     testEnvironment.close();
   }
 
+  @Test
+  public void testServiceCallMetrics() throws Exception {
+    reporter = mock(StatsReporter.class);
+    Scope scope =
+        new RootScopeBuilder()
+            .reporter(reporter)
+            .reportEvery(com.uber.m3.util.Duration.ofSeconds(60));
+    WorkflowServiceStubs service =
+        WorkflowServiceStubs.newInstance(
+            new WorkflowServiceGrpc.WorkflowServiceImplBase() {
+              @Override
+              public void describeNamespace(
+                  DescribeNamespaceRequest request,
+                  StreamObserver<DescribeNamespaceResponse> responseObserver) {
+                if (request.getName().isEmpty()) {
+                  responseObserver.onError(Status.INVALID_ARGUMENT.asRuntimeException());
+                  return;
+                }
+                responseObserver.onNext(DescribeNamespaceResponse.getDefaultInstance());
+                responseObserver.onCompleted();
+              }
+            },
+            WorkflowServiceStubsOptions.newBuilder().setMetricsScope(scope).build());
+    try {
+      service
+          .blockingStub()
+          .describeNamespace(DescribeNamespaceRequest.newBuilder().setName("ns").build());
+      try {
+        service.blockingStub().describeNamespace(DescribeNamespaceRequest.getDefaultInstance());
+        fail("unreachable");
+      } catch (StatusRuntimeException e) {
+        assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+      }
+    } finally {
+      service.shutdownNow();
+    }
+    // Reports the collected metrics.
+    scope.close();
+
+    Map<String, String> tags =
+        ImmutableMap.of(MetricsTag.OPERATION, ServiceMethod.DESCRIBE_NAMESPACE);
+    verify(reporter, times(1)).reportCounter(MetricsType.TEMPORAL_REQUEST, tags, 2);
+    verify(reporter, times(1)).reportGauge(MetricsType.TEMPORAL_REQUEST_IN_FLIGHT, tags, 0);
+    verify(reporter, atLeastOnce())
+        .reportHistogramDurationSamples(
+            eq(MetricsType.TEMPORAL_LATENCY), eq(tags), any(), any(), any(), anyLong());
+    Map<String, String> errorTags =
+        new ImmutableMap.Builder<String, String>(2)
+            .put(MetricsTag.OPERATION, ServiceMethod.DESCRIBE_NAMESPACE)
+            .put(MetricsTag.STATUS_CODE, Status.Code.INVALID_ARGUMENT.name())
+            .build();
+    verify(reporter, times(1)).reportCounter(MetricsType.TEMPORAL_INVALID_REQUEST, errorTags, 1);
+  }
+
   private static class CorruptedSignalWorkflowInterceptor implements WorkflowInterceptor {
 
     @Override
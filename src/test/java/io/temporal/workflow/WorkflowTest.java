@@ -21,10 +21,28 @@ package io.temporal.workflow;
 
 import static io.temporal.client.WorkflowClient.QUERY_TYPE_STACK_TRACE;
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import com.google.common.reflect.TypeToken;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.protobuf.ByteString;
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.StatsReporter;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.temporal.activity.Activity;
 import io.temporal.activity.ActivityCancellationType;
 import io.temporal.activity.ActivityInterface;
@@ -36,7 +54,10 @@ import io.temporal.client.ActivityCancelledException;
 import io.temporal.client.ActivityCompletionClient;
 import io.temporal.client.ActivityNotExistsException;
 import io.temporal.client.BatchRequest;
+import io.temporal.client.BatchingSignalClient;
+import io.temporal.client.BatchingSignalClientOptions;
 import io.temporal.client.DuplicateWorkflowException;
+import io.temporal.client.QueryOptions;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowClientInterceptorBase;
 import io.temporal.client.WorkflowClientOptions;
@@ -50,6 +71,7 @@ import io.temporal.client.WorkflowTimedOutException;
 import io.temporal.common.CronSchedule;
 import io.temporal.common.MethodRetry;
 import io.temporal.common.RetryOptions;
+import io.temporal.common.converter.DataConverterException;
 import io.temporal.common.converter.GsonJsonDataConverter;
 import io.temporal.common.interceptors.BaseWorkflowInvoker;
 import io.temporal.common.interceptors.WorkflowCallsInterceptor;
@@ -57,6 +79,7 @@ import io.temporal.common.interceptors.WorkflowInterceptor;
 import io.temporal.common.interceptors.WorkflowInvocationInterceptor;
 import io.temporal.common.interceptors.WorkflowInvoker;
 import io.temporal.internal.common.WorkflowExecutionUtils;
+import io.temporal.internal.metrics.MetricsType;
 import io.temporal.internal.sync.DeterministicRunnerTest;
 import io.temporal.proto.common.Memo;
 import io.temporal.proto.common.SearchAttributes;
@@ -70,6 +93,7 @@ import io.temporal.proto.execution.WorkflowExecutionStatus;
 import io.temporal.proto.query.QueryRejectCondition;
 import io.temporal.proto.workflowservice.GetWorkflowExecutionHistoryRequest;
 import io.temporal.proto.workflowservice.GetWorkflowExecutionHistoryResponse;
+import io.temporal.proto.workflowservice.WorkflowServiceGrpc;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import io.temporal.testing.TestEnvironmentOptions;
@@ -113,6 +137,7 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -122,9 +147,11 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -443,6 +470,29 @@ public class WorkflowTest {
         "executeActivity activity2");
   }
 
+  public static class TestHistoryLengthWorkflowImpl implements TestWorkflow1 {
+
+    @Override
+    public String execute(String taskList) {
+      long beforeSleep = Workflow.getWorkflowInfo().getHistoryLength();
+      Workflow.sleep(Duration.ofSeconds(1));
+      long afterSleep = Workflow.getWorkflowInfo().getHistoryLength();
+      return beforeSleep + "," + afterSleep;
+    }
+  }
+
+  @Test
+  public void testHistoryLength() {
+    startWorkerFor(TestHistoryLengthWorkflowImpl.class);
+    TestWorkflow1 workflowStub =
+        workflowClient.newWorkflowStub(
+            TestWorkflow1.class, newWorkflowOptionsBuilder(taskList).build());
+    // Started, DecisionTaskScheduled, DecisionTaskStarted,
+    // then DecisionTaskCompleted, TimerStarted, TimerFired, DecisionTaskScheduled,
+    // DecisionTaskStarted.
+    assertEquals("3,8", workflowStub.execute(taskList));
+  }
+
   @WorkflowInterface
   public interface TestMultipleTimers {
     @WorkflowMethod
@@ -2579,6 +2629,339 @@ public class WorkflowTest {
     client2.execute();
   }
 
+  @Test
+  public void testAsyncUntypedClientCalls() throws Exception {
+    startWorkerFor(TestSignalWorkflowImpl.class);
+    WorkflowOptions.Builder optionsBuilder = newWorkflowOptionsBuilder(taskList);
+    String workflowId = UUID.randomUUID().toString();
+    optionsBuilder.setWorkflowId(workflowId);
+    WorkflowStub workflowStub =
+        workflowClient.newUntypedWorkflowStub("QueryableWorkflow", optionsBuilder.build());
+    WorkflowExecution execution = workflowStub.startAsync().get();
+    assertEquals(workflowId, execution.getWorkflowId());
+    assertEquals(execution, workflowStub.getExecution());
+    assertEquals("initial", workflowStub.queryAsync("getState", String.class).get());
+
+    workflowStub.signalAsync("testSignal", "Hello ").get();
+    workflowStub.signalAsync("testSignal", "World!").get();
+    assertEquals("Hello World!", workflowStub.getResultAsync(String.class).get());
+
+    WorkflowStub duplicate =
+        workflowClient.newUntypedWorkflowStub(
+            "QueryableWorkflow",
+            optionsBuilder.setWorkflowIdReusePolicy(WorkflowIdReusePolicy.RejectDuplicate).build());
+    try {
+      duplicate.startAsync().get();
+      fail("unreachable");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof DuplicateWorkflowException);
+      assertEquals(execution, duplicate.getExecution());
+    }
+  }
+
+  /**
+   * Queries selected by their sequence number never reach the service. They hang until cancelled or
+   * until their deadline expires.
+   */
+  private static class HangingQueryServiceStubs implements WorkflowServiceStubs {
+
+    private final WorkflowServiceStubs delegate;
+    private final ScheduledExecutorService scheduler;
+    private final Predicate<Integer> hangs;
+    private final AtomicInteger queries = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+    private final ClientInterceptor interceptor =
+        new ClientInterceptor() {
+          @Override
+          public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+              MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            if (!method.equals(WorkflowServiceGrpc.getQueryWorkflowMethod())
+                || !hangs.test(queries.incrementAndGet())) {
+              return next.newCall(method, callOptions);
+            }
+            return new HangingCall<>(callOptions.getDeadline());
+          }
+        };
+
+    HangingQueryServiceStubs(
+        WorkflowServiceStubs delegate,
+        ScheduledExecutorService scheduler,
+        Predicate<Integer> hangs) {
+      this.delegate = delegate;
+      this.scheduler = scheduler;
+      this.hangs = hangs;
+    }
+
+    private class HangingCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+      private final Deadline deadline;
+      private final AtomicBoolean closed = new AtomicBoolean();
+      private Listener<RespT> listener;
+
+      HangingCall(Deadline deadline) {
+        this.deadline = deadline;
+      }
+
+      @Override
+      public void start(Listener<RespT> listener, Metadata headers) {
+        this.listener = listener;
+        if (deadline != null) {
+          deadline.runOnExpiration(() -> close(Status.DEADLINE_EXCEEDED), scheduler);
+        }
+      }
+
+      @Override
+      public void request(int numMessages) {}
+
+      @Override
+      public void cancel(String message, Throwable cause) {
+        if (close(Status.CANCELLED.withDescription(message).withCause(cause))) {
+          cancelled.incrementAndGet();
+        }
+      }
+
+      @Override
+      public void halfClose() {}
+
+      @Override
+      public void sendMessage(ReqT message) {}
+
+      private boolean close(Status status) {
+        if (!closed.compareAndSet(false, true)) {
+          return false;
+        }
+        listener.onClose(status, new Metadata());
+        return true;
+      }
+    }
+
+    @Override
+    public WorkflowServiceGrpc.WorkflowServiceBlockingStub blockingStub() {
+      return delegate.blockingStub().withInterceptors(interceptor);
+    }
+
+    @Override
+    public WorkflowServiceGrpc.WorkflowServiceFutureStub futureStub() {
+      return delegate.futureStub().withInterceptors(interceptor);
+    }
+
+    // The delegate is shared, so it is not shut down here.
+    @Override
+    public void shutdown() {}
+
+    @Override
+    public void shutdownNow() {}
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+  }
+
+  @Test
+  public void testHedgedQueryWithDeadline() throws Exception {
+    startWorkerFor(TestSignalWorkflowImpl.class);
+    StatsReporter reporter = mock(StatsReporter.class);
+    Scope metricsScope =
+        new RootScopeBuilder()
+            .reporter(reporter)
+            .reportEvery(com.uber.m3.util.Duration.ofMillis(10));
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      // The first query hangs, so only the hedge sent right after it can answer.
+      HangingQueryServiceStubs hedgedService =
+          new HangingQueryServiceStubs(service, scheduler, (i) -> i == 1);
+      WorkflowClient client =
+          WorkflowClient.newInstance(
+              hedgedService,
+              WorkflowClientOptions.newBuilder()
+                  .setNamespace(NAMESPACE)
+                  .setMetricsScope(metricsScope)
+                  .setQueryOptions(
+                      QueryOptions.newBuilder()
+                          .setTimeout(Duration.ofSeconds(30))
+                          .setHedgingEnabled(true)
+                          .setInitialHedgeDelay(Duration.ZERO)
+                          .build())
+                  .build());
+      QueryableWorkflow workflow =
+          client.newWorkflowStub(
+              QueryableWorkflow.class, newWorkflowOptionsBuilder(taskList).build());
+      WorkflowExecution execution = WorkflowClient.start(workflow::execute);
+      assertEquals("initial", workflow.getState());
+      // The winning hedge cancels the hanging request, possibly after the query returned.
+      long waitUntil = System.currentTimeMillis() + 10_000;
+      while (hedgedService.cancelled.get() == 0 && System.currentTimeMillis() < waitUntil) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, hedgedService.cancelled.get());
+      for (int i = 0; i < 5; i++) {
+        assertEquals("initial", workflow.getState());
+      }
+      WorkflowStub untyped = WorkflowStub.fromTyped(workflow);
+      assertEquals("initial", untyped.queryAsync("getState", String.class).get());
+      try {
+        untyped.query("unknownQuery", String.class);
+        fail("unreachable");
+      } catch (WorkflowQueryException e) {
+        assertTrue(e.getMessage().contains("Unknown query type: unknownQuery"));
+      }
+
+      // Every query hangs, so the deadline fails the query and its hedge.
+      HangingQueryServiceStubs hangingService =
+          new HangingQueryServiceStubs(service, scheduler, (i) -> true);
+      WorkflowClient expiringClient =
+          WorkflowClient.newInstance(
+              hangingService,
+              WorkflowClientOptions.newBuilder()
+                  .setNamespace(NAMESPACE)
+                  .setMetricsScope(metricsScope)
+                  .setQueryOptions(
+                      QueryOptions.newBuilder()
+                          .setTimeout(Duration.ofMillis(500))
+                          .setHedgingEnabled(true)
+                          .setInitialHedgeDelay(Duration.ZERO)
+                          .build())
+                  .build());
+      WorkflowStub expiring = expiringClient.newUntypedWorkflowStub(execution, Optional.empty());
+      try {
+        expiring.queryAsync("getState", String.class).get(10, TimeUnit.SECONDS);
+        fail("unreachable");
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause != null && !(cause instanceof StatusRuntimeException)) {
+          cause = cause.getCause();
+        }
+        assertNotNull(e.toString(), cause);
+        assertEquals(
+            Status.Code.DEADLINE_EXCEEDED, ((StatusRuntimeException) cause).getStatus().getCode());
+      }
+      assertEquals(0, hangingService.cancelled.get());
+
+      workflow.mySignal("Hello ");
+      workflow.mySignal("World!");
+      assertEquals("Hello World!", untyped.getResult(String.class));
+
+      // Wait for reporter
+      Thread.sleep(500);
+      verify(reporter, atLeastOnce())
+          .reportCounter(eq(MetricsType.QUERY_HEDGE_COUNTER), any(), anyLong());
+      verify(reporter, atLeastOnce())
+          .reportCounter(eq(MetricsType.QUERY_HEDGE_WIN_COUNTER), any(), anyLong());
+      verify(reporter, atLeastOnce())
+          .reportCounter(eq(MetricsType.QUERY_DEADLINE_EXCEEDED_COUNTER), any(), anyLong());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testBatchingSignalClient() throws Exception {
+    startWorkerFor(TestSignalWorkflowImpl.class);
+    WorkflowOptions.Builder optionsBuilder = newWorkflowOptionsBuilder(taskList);
+    String workflowId = UUID.randomUUID().toString();
+    optionsBuilder.setWorkflowId(workflowId);
+    QueryableWorkflow client =
+        workflowClient.newWorkflowStub(QueryableWorkflow.class, optionsBuilder.build());
+    WorkflowClient.start(client::execute);
+    try (BatchingSignalClient signalClient =
+        workflowClient.newBatchingSignalClient(
+            BatchingSignalClientOptions.newBuilder()
+                .setMaxBatchDelay(Duration.ofSeconds(1))
+                .build())) {
+      CompletableFuture<Void> first = signalClient.signal(workflowId, "testSignal", "Hello ");
+      CompletableFuture<Void> second = signalClient.signal(workflowId, "testSignal", "World!");
+      signalClient.flush().get();
+      assertTrue(first.isDone());
+      assertTrue(second.isDone());
+    }
+    assertEquals("Hello World!", client.execute());
+  }
+
+  @Test
+  public void testBatchingSignalClientMaxBatchBytes() throws Exception {
+    startWorkerFor(TestSignalWorkflowImpl.class);
+    WorkflowOptions.Builder optionsBuilder = newWorkflowOptionsBuilder(taskList);
+    String workflowId = UUID.randomUUID().toString();
+    optionsBuilder.setWorkflowId(workflowId);
+    QueryableWorkflow client =
+        workflowClient.newWorkflowStub(QueryableWorkflow.class, optionsBuilder.build());
+    WorkflowExecution execution = WorkflowClient.start(client::execute);
+    try (BatchingSignalClient signalClient =
+        workflowClient.newBatchingSignalClient(
+            BatchingSignalClientOptions.newBuilder()
+                .setMaxBatchDelay(Duration.ofSeconds(1))
+                // Fits a single signal only
+                .setMaxBatchBytes(20)
+                .build())) {
+      signalClient.signal(workflowId, "testSignal", "Hello ");
+      signalClient.signal(workflowId, "testSignal", "World!");
+      signalClient.flush().get();
+    }
+    assertEquals("Hello World!", client.execute());
+    GetWorkflowExecutionHistoryRequest request =
+        GetWorkflowExecutionHistoryRequest.newBuilder()
+            .setNamespace(NAMESPACE)
+            .setExecution(execution)
+            .build();
+    GetWorkflowExecutionHistoryResponse response =
+        service.blockingStub().getWorkflowExecutionHistory(request);
+    List<String> signalNames = new ArrayList<>();
+    for (HistoryEvent event : response.getHistory().getEventsList()) {
+      if (event.getEventType() == EventType.WorkflowExecutionSignaled) {
+        signalNames.add(event.getWorkflowExecutionSignaledEventAttributes().getSignalName());
+      }
+    }
+    assertEquals(Arrays.asList("testSignal", "testSignal"), signalNames);
+  }
+
+  @Test
+  public void testBatchingSignalClientEncodingFailure() throws Exception {
+    startWorkerFor(TestSignalWorkflowImpl.class);
+    WorkflowOptions.Builder optionsBuilder = newWorkflowOptionsBuilder(taskList);
+    String workflowId = UUID.randomUUID().toString();
+    optionsBuilder.setWorkflowId(workflowId);
+    QueryableWorkflow client =
+        workflowClient.newWorkflowStub(QueryableWorkflow.class, optionsBuilder.build());
+    WorkflowClient.start(client::execute);
+    // The batch envelope can't encode signal names longer than 64KB.
+    char[] longName = new char[70_000];
+    Arrays.fill(longName, 'a');
+    try (BatchingSignalClient signalClient =
+        workflowClient.newBatchingSignalClient(
+            BatchingSignalClientOptions.newBuilder()
+                .setMaxBatchDelay(Duration.ofSeconds(1))
+                .build())) {
+      CompletableFuture<Void> first = signalClient.signal(workflowId, "testSignal", "Hello ");
+      CompletableFuture<Void> second =
+          signalClient.signal(workflowId, new String(longName), "World!");
+      try {
+        signalClient.flush().get(10, TimeUnit.SECONDS);
+        fail("unreachable");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof DataConverterException);
+      }
+      assertTrue(first.isCompletedExceptionally());
+      assertTrue(second.isCompletedExceptionally());
+
+      // The failed batch doesn't block later signals to the same workflow.
+      signalClient.signal(workflowId, "testSignal", "Hello ");
+      signalClient.signal(workflowId, "testSignal", "World!");
+      signalClient.flush().get(10, TimeUnit.SECONDS);
+    }
+    assertEquals("Hello World!", client.execute());
+  }
+
   public static class TestSignalWithStartWorkflowImpl implements QueryableWorkflow {
 
     String state = "initial";